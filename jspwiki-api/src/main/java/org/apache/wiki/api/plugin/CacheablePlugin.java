@@ -0,0 +1,106 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.api.plugin;
+
+import org.apache.wiki.api.core.Context;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ *  Lets the plugin manager keep the output of a plugin and return it on later invocations, instead of executing the plugin again.
+ *  <p>
+ *  Cached output is looked up with a key made of the plugin class, its parameters, the roles and locale of the user, along with their
+ *  date and time zone preferences, the page the plugin is on (unless {@link #isPageSpecific()} says otherwise) and whatever the plugin
+ *  adds through {@link #getCacheKey(Context, Map)}. So plugins should only implement this interface if their output depends on nothing
+ *  else but those and the contents of the wiki, and they should tell when the contents of the wiki invalidate it through
+ *  {@link #getInvalidation()}.
+ *  <p>
+ *  Only the output of successful invocations is cached.
+ */
+public interface CacheablePlugin {
+
+    /**
+     *  Events invalidating the cached output of a plugin.
+     */
+    enum Invalidation {
+
+        /** Cached output is dropped whenever any page gets saved, deleted or renamed. */
+        ANY_PAGE_CHANGE,
+
+        /** Cached output is dropped whenever one of the pages given by {@link CacheablePlugin#getReferencedPages(Context, Map)} gets saved, deleted or renamed. */
+        REFERENCED_PAGES,
+
+        /** Cached output is only dropped once its {@link CacheablePlugin#getTimeToLive() time to live} has elapsed. */
+        TIME_TO_LIVE
+
+    }
+
+    /**
+     *  Tells which events invalidate the cached output of this plugin.
+     *
+     *  @return the invalidation policy of this plugin.
+     */
+    Invalidation getInvalidation();
+
+    /**
+     *  Maximum time the output of this plugin is kept, whatever the {@link #getInvalidation() invalidation policy}. Defaults to
+     *  {@code 0}, that is, no time limit.
+     *
+     *  @return time to live of the cached output, in seconds, or {@code 0} for no time limit.
+     */
+    default int getTimeToLive() {
+        return 0;
+    }
+
+    /**
+     *  Tells if the output of this plugin depends on the page it is on. Defaults to {@code true}; plugins listing things about the
+     *  whole wiki should return {@code false}, so the same output is shared by all pages.
+     *
+     *  @return {@code true} if the page name must be part of the cache key.
+     */
+    default boolean isPageSpecific() {
+        return true;
+    }
+
+    /**
+     *  Returns anything else the output of this plugin depends on. Defaults to an empty string.
+     *
+     *  @param context the wiki context the plugin is invoked from.
+     *  @param params the parameters of the plugin.
+     *  @return additional cache key, never {@code null}.
+     */
+    default String getCacheKey( final Context context, final Map< String, String > params ) {
+        return "";
+    }
+
+    /**
+     *  Returns the pages the output of this plugin is built from, only used with {@link Invalidation#REFERENCED_PAGES}. It is called
+     *  right after the plugin has been executed. Defaults to the page the plugin is on.
+     *
+     *  @param context the wiki context the plugin has been invoked from.
+     *  @param params the parameters of the plugin.
+     *  @return names of the pages invalidating the output of this plugin.
+     */
+    default Collection< String > getReferencedPages( final Context context, final Map< String, String > params ) {
+        return Collections.singleton( context.getPage().getName() );
+    }
+
+}
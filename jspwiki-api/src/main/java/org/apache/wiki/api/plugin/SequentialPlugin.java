@@ -0,0 +1,29 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.api.plugin;
+
+/**
+ *  Marks a plugin as unsafe for concurrent execution. When plugins are executed concurrently during rendering, plugins implementing
+ *  this interface are still executed one after another, in document order, on the rendering thread.
+ *  <p>
+ *  Plugins should implement it when their output depends on what other plugins on the same page have done before, i.e. they read
+ *  or write context variables shared with other plugin invocations, or when they are not thread safe.
+ */
+public interface SequentialPlugin {
+}
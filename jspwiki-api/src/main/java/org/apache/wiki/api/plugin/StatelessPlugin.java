@@ -0,0 +1,29 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.api.plugin;
+
+/**
+ *  Marks a plugin as keeping no state between invocations. The plugin manager builds a single instance of these plugins and uses it
+ *  for all invocations, possibly at the same time from different threads, instead of building a new instance on each one of them.
+ *  <p>
+ *  Plugins implementing this interface must not keep anything in instance fields while executing. Note that subclasses inherit this
+ *  interface, so they're bound by the same contract.
+ */
+public interface StatelessPlugin {
+}
@@ -63,6 +63,12 @@ public interface CachingManager {
     /** Name of the rendering cache. */
     String CACHE_DOCUMENTS = "jspwiki.renderingCache";
 
+    /** Name of the rendered HTML cache. */
+    String CACHE_HTML = "jspwiki.renderedHtmlCache";
+
+    /** Name of the plugin output cache. */
+    String CACHE_PLUGINS = "jspwiki.pluginOutputCache";
+
     /**
      * Shuts down the underlying cache manager
      */
@@ -75,9 +75,11 @@ public class EhcacheCachingManager implements CachingManager, Initializable {
             registerCache( CACHE_ATTACHMENTS_COLLECTION );
             registerCache( CACHE_ATTACHMENTS_DYNAMIC );
             registerCache( CACHE_DOCUMENTS );
+            registerCache( CACHE_HTML );
             registerCache( CACHE_PAGES );
             registerCache( CACHE_PAGES_HISTORY );
             registerCache( CACHE_PAGES_TEXT );
+            registerCache( CACHE_PLUGINS );
         }
     }
 
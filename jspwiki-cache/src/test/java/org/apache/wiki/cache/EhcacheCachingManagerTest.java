@@ -40,10 +40,10 @@ public class EhcacheCachingManagerTest {
         props.setProperty( CachingManager.PROP_CACHE_CONF_FILE, "ehcache-jspwiki-test.xml" );
         EhcacheCachingManager ecm = new EhcacheCachingManager();
         ecm.initialize( null, props );
-        Assertions.assertEquals( 7, ecm.cacheMap.size() );
+        Assertions.assertEquals( 9, ecm.cacheMap.size() );
 
         ecm.registerCache( "anotherCache" );
-        Assertions.assertEquals( 8, ecm.cacheMap.size() );
+        Assertions.assertEquals( 10, ecm.cacheMap.size() );
 
         ecm.shutdown();
         ecm.shutdown(); // does nothing if already shutdown
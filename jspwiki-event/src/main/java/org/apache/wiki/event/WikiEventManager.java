@@ -23,16 +23,22 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.lang.ref.WeakReference;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.ConcurrentModificationException;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  *  A singleton class that manages the addition and removal of WikiEvent listeners to a event source, as well as the firing of events
@@ -120,6 +126,15 @@ import java.util.Vector;
  *  garbage is collected, your object might still be getting events, so if you wish to avoid that, please remove it explicitly as
  *  described above.
  *  </p>
+ *
+ *  <h3>Dispatching</h3>
+ *  <p>
+ *  Firing an event does not take any lock: each delegate keeps a copy-on-write snapshot of its listeners, which is only copied when
+ *  listeners are added or removed. Listeners are called on the thread firing the event, unless they were registered through
+ *  {@link #addWikiEventListener(Object, WikiEventListener, boolean)} with <tt>async</tt> set to true. Those listeners receive their
+ *  events in order, on a background thread, so a slow listener does not hold up the thread firing the event. There are at most
+ *  four such threads, stopped by {@link #shutdown()}.
+ *  </p>
  * @since 2.4.20
  */
 public final class WikiEventManager {
@@ -132,8 +147,11 @@ public final class WikiEventManager {
     /* Optional listener to be used as all-event monitor. */
     private static WikiEventListener c_monitor;
 
+    /* Key used in place of a null client, as the delegates Map does not accept null keys. */
+    private static final Object NULL_CLIENT = new Object();
+
     /* The Map of client object to WikiEventDelegate. */
-    private final Map< Object, WikiEventDelegate > m_delegates = new HashMap<>();
+    private final Map< Object, WikiEventDelegate > m_delegates = new ConcurrentHashMap<>();
 
     /* The Vector containing any preloaded WikiEventDelegates. */
     private final Vector< WikiEventDelegate > m_preloadCache = new Vector<>();
@@ -182,6 +200,21 @@ public final class WikiEventManager {
      * @return true if the listener was added (i.e., it was not already in the list and was added)
      */
     public static boolean addWikiEventListener( final Object client, final WikiEventListener listener ) {
+        return addWikiEventListener( client, listener, false );
+    }
+
+    /**
+     *  Registers a WikiEventListener with a WikiEventDelegate for the provided client object, optionally receiving its events
+     *  asynchronously. An asynchronous listener gets its events in the order they were fired, but on a background thread, so the
+     *  thread firing the event doesn't wait for it; any exception it throws is logged instead of being propagated to the caller.
+     *
+     * @param client   the client of the event source
+     * @param listener the event listener
+     * @param async    true if the listener should receive its events on a background thread
+     * @return true if the listener was added (i.e., it was not already in the list and was added)
+     * @see #addWikiEventListener(Object, WikiEventListener)
+     */
+    public static boolean addWikiEventListener( final Object client, final WikiEventListener listener, final boolean async ) {
         if( client == WikiEventManager.class ) {
             if ( c_permitMonitor ) {
                 c_monitor = listener;
@@ -189,7 +222,7 @@ public final class WikiEventManager {
             return c_permitMonitor;
         }
         final WikiEventDelegate delegate = getInstance().getDelegateFor(client);
-        return delegate.addWikiEventListener(listener);
+        return delegate.addWikiEventListener( listener, async );
     }
 
     /**
@@ -241,17 +274,10 @@ public final class WikiEventManager {
         boolean removed = false;
         // get the Map.entry object for the entire Map, then check match on entry (listener)
         final WikiEventManager mgr = getInstance();
-        final Map< Object, WikiEventDelegate > sources =  Collections.synchronizedMap( mgr.getDelegates() );
-        synchronized( sources ) {
-            // get an iterator over the Map.Enty objects in the map
-            for( final Map.Entry< Object, WikiEventDelegate > entry : sources.entrySet() ) {
-                // the entry value is the delegate
-                final WikiEventDelegate delegate = entry.getValue();
-
-                // now see if we can remove the listener from the delegate (delegate may be null because this is a weak reference)
-                if( delegate != null && delegate.removeWikiEventListener( listener ) ) {
-                    removed = true; // was removed
-                }
+        for( final WikiEventDelegate delegate : mgr.getDelegates().values() ) {
+            // now see if we can remove the listener from the delegate
+            if( delegate.removeWikiEventListener( listener ) ) {
+                removed = true; // was removed
             }
         }
         return removed;
@@ -260,14 +286,17 @@ public final class WikiEventManager {
     private void removeDelegates() {
         synchronized( m_delegates ) {
             m_delegates.clear();
-        }
-        synchronized( m_preloadCache ) {
             m_preloadCache.clear();
         }
     }
 
+    /**
+     *  Removes all the listeners, and stops the background threads once the events already fired have been delivered to the
+     *  asynchronous listeners.
+     */
     public static void shutdown() {
         getInstance().removeDelegates();
+        AsyncDispatcher.shutdown();
     }
 
     /**
@@ -315,11 +344,18 @@ public final class WikiEventManager {
      * @return the WikiEventDelegate.
      */
     private WikiEventDelegate getDelegateFor( final Object client ) {
+        if( client != null && !( client instanceof Class ) ) {
+            // lock-free path for clients which already have a delegate, as a preloaded delegate is only taken by unseen clients
+            final WikiEventDelegate delegate = m_delegates.get( client );
+            if( delegate != null ) {
+                return delegate;
+            }
+        }
         synchronized( m_delegates ) {
             if( client == null || client instanceof Class ) { // then preload the cache
                 final WikiEventDelegate delegate = new WikiEventDelegate( client );
                 m_preloadCache.add( delegate );
-                m_delegates.put( client, delegate );
+                m_delegates.put( client == null ? NULL_CLIENT : client, delegate );
                 return delegate;
             } else if( !m_preloadCache.isEmpty() ) {
                 // then see if any of the cached delegates match the class of the incoming client
@@ -357,8 +393,11 @@ public final class WikiEventManager {
      */
     private static final class WikiEventDelegate {
 
-        /* A list of event listeners for this instance. */
-        private final ArrayList< WeakReference< WikiEventListener > > m_listenerList = new ArrayList<>();
+        /* A list of event listeners for this instance. Copied on each modification, so it can be iterated without locking. */
+        private final CopyOnWriteArrayList< ListenerReference > m_listenerList = new CopyOnWriteArrayList<>();
+
+        /* Set while a removal of garbage collected listeners is pending. */
+        private final AtomicBoolean m_cleanupScheduled = new AtomicBoolean();
         private Class< ? >  m_class;
 
         /**
@@ -386,32 +425,32 @@ public final class WikiEventManager {
          * @throws java.lang.UnsupportedOperationException  if any attempt is made to modify the Set
          */
         public Set< WikiEventListener > getWikiEventListeners() {
-            synchronized( m_listenerList ) {
-                final TreeSet< WikiEventListener > set = new TreeSet<>( new WikiEventListenerComparator() );
-                for( final WeakReference< WikiEventListener > wikiEventListenerWeakReference : m_listenerList ) {
-                    final WikiEventListener l = wikiEventListenerWeakReference.get();
-                    if( l != null ) {
-                        set.add( l );
-                    }
+            final TreeSet< WikiEventListener > set = new TreeSet<>( new WikiEventListenerComparator() );
+            for( final ListenerReference reference : m_listenerList ) {
+                final WikiEventListener l = reference.get();
+                if( l != null ) {
+                    set.add( l );
                 }
-
-                return Collections.unmodifiableSet( set );
             }
+
+            return Collections.unmodifiableSet( set );
         }
 
         /**
          *  Adds <tt>listener</tt> as a listener for events fired by the WikiEventDelegate.
          *
          * @param listener the WikiEventListener to be added
+         * @param async true if the listener should receive its events on a background thread
          * @return true if the listener was added (i.e., it was not already in the list and was added)
          */
-        public boolean addWikiEventListener( final WikiEventListener listener ) {
+        public boolean addWikiEventListener( final WikiEventListener listener, final boolean async ) {
             synchronized( m_listenerList ) {
                 final boolean listenerAlreadyContained = m_listenerList.stream()
                                                                        .map( WeakReference::get )
                                                                        .anyMatch( ref -> ref == listener );
                 if( !listenerAlreadyContained ) {
-                    return m_listenerList.add( new WeakReference<>( listener ) );
+                    m_listenerList.removeIf( ListenerReference::isCleared );
+                    return m_listenerList.add( new ListenerReference( listener, async ) );
                 }
             }
             return false;
@@ -425,11 +464,9 @@ public final class WikiEventManager {
          */
         public boolean removeWikiEventListener( final WikiEventListener listener ) {
             synchronized( m_listenerList ) {
-                for( final Iterator< WeakReference< WikiEventListener > > i = m_listenerList.iterator(); i.hasNext(); ) {
-                    final WikiEventListener l = i.next().get();
-                    if( l == listener ) {
-                        i.remove();
-                        return true;
+                for( final ListenerReference reference : m_listenerList ) {
+                    if( reference.get() == listener ) {
+                        return m_listenerList.remove( reference );
                     }
                 }
             }
@@ -441,41 +478,156 @@ public final class WikiEventManager {
          *  Returns true if there are one or more listeners registered with this instance.
          */
         public boolean isListening() {
-            synchronized( m_listenerList ) {
-                return !m_listenerList.isEmpty();
-            }
+            return !m_listenerList.isEmpty();
         }
 
         /**
-         *  Notify all listeners having a registered interest in change events of the supplied WikiEvent.
+         *  Notify all listeners having a registered interest in change events of the supplied WikiEvent. Garbage collected listeners
+         *  found while doing so are removed afterwards, on a background thread.
          */
         public void fireEvent( final WikiEvent event ) {
             boolean needsCleanup = false;
-            try {
-                synchronized( m_listenerList ) {
-                    for( final WeakReference< WikiEventListener > wikiEventListenerWeakReference : m_listenerList ) {
-                        final WikiEventListener listener = wikiEventListenerWeakReference.get();
-                        if( listener != null ) {
-                            listener.actionPerformed( event );
-                        } else {
-                            needsCleanup = true;
-                        }
-                    }
+            for( final ListenerReference reference : m_listenerList ) {
+                if( !reference.dispatch( event ) ) {
+                    needsCleanup = true;
+                }
+            }
 
-                    //  Remove all such listeners which have expired
-                    if( needsCleanup ) {
-                        for( int i = 0; i < m_listenerList.size(); i++ ) {
-                            final WeakReference< WikiEventListener > w = m_listenerList.get( i );
-                            if( w.get() == null ) {
-                                m_listenerList.remove(i--);
-                            }
-                        }
+            if( needsCleanup && m_cleanupScheduled.compareAndSet( false, true ) ) {
+                AsyncDispatcher.execute( () -> {
+                    m_cleanupScheduled.set( false );
+                    synchronized( m_listenerList ) {
+                        m_listenerList.removeIf( ListenerReference::isCleared );
                     }
+                } );
+            }
+        }
+    }
+
+    /**
+     *  Weak reference to a registered listener, which knows how to deliver events to it. Asynchronous listeners get their events
+     *  through their own queue, which is drained by at most one background thread at a time, so events keep their firing order.
+     */
+    private static final class ListenerReference extends WeakReference< WikiEventListener > {
+
+        private final Queue< WikiEvent > m_pending;
+        private final AtomicBoolean m_draining;
 
+        ListenerReference( final WikiEventListener listener, final boolean async ) {
+            super( listener );
+            m_pending = async ? new ConcurrentLinkedQueue<>() : null;
+            m_draining = async ? new AtomicBoolean() : null;
+        }
+
+        boolean isCleared() {
+            return get() == null;
+        }
+
+        /**
+         *  Delivers an event to the listener.
+         *
+         *  @return false if the listener has been garbage collected, true otherwise.
+         */
+        boolean dispatch( final WikiEvent event ) {
+            final WikiEventListener listener = get();
+            if( listener == null ) {
+                return false;
+            }
+            if( m_pending == null ) {
+                listener.actionPerformed( event );
+            } else {
+                m_pending.add( event );
+                scheduleDrain();
+            }
+            return true;
+        }
+
+        private void scheduleDrain() {
+            if( m_draining.compareAndSet( false, true ) ) {
+                AsyncDispatcher.execute( this::drain );
+            }
+        }
+
+        private void drain() {
+            WikiEvent event;
+            while( ( event = m_pending.poll() ) != null ) {
+                final WikiEventListener listener = get();
+                if( listener == null ) {
+                    m_pending.clear();
+                    break;
+                }
+                try {
+                    listener.actionPerformed( event );
+                } catch( final RuntimeException e ) {
+                    log.warn( "Asynchronous listener {} failed to process {}: {}", listener.getClass().getName(), event, e.getMessage(), e );
+                }
+            }
+            m_draining.set( false );
+            // an event may have been queued after the last poll but before the flag was released
+            if( !m_pending.isEmpty() ) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    /**
+     *  Lazily created, bounded pool of daemon threads running asynchronous listeners and listener cleanups. Its queue holds at most one
+     *  task per asynchronous listener and one per delegate, as each listener is drained by a single task at a time and cleanups are
+     *  scheduled once. The pool is started again if needed after being shut down.
+     */
+    private static final class AsyncDispatcher {
+
+        /** Maximum number of threads running asynchronous listeners and listener cleanups. */
+        static final int MAX_THREADS = 4;
+
+        /** Time given to the tasks already queued to finish on shutdown, in seconds. */
+        private static final long SHUTDOWN_TIMEOUT = 30L;
+
+        private static final AtomicInteger c_threadCount = new AtomicInteger();
+
+        private static volatile ThreadPoolExecutor c_executor;
+
+        static void execute( final Runnable task ) {
+            final ThreadPoolExecutor executor = c_executor;
+            try {
+                ( executor != null ? executor : start() ).execute( task );
+            } catch( final RejectedExecutionException e ) {
+                // shut down in the meantime
+                start().execute( task );
+            }
+        }
+
+        private static synchronized ThreadPoolExecutor start() {
+            if( c_executor == null || c_executor.isShutdown() ) {
+                final ThreadPoolExecutor executor = new ThreadPoolExecutor( MAX_THREADS, MAX_THREADS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                    final Thread thread = new Thread( r, "WikiEventManager-dispatcher-" + c_threadCount.incrementAndGet() );
+                    thread.setDaemon( true );
+                    return thread;
+                } );
+                executor.allowCoreThreadTimeOut( true );
+                c_executor = executor;
+            }
+            return c_executor;
+        }
+
+        static void shutdown() {
+            final ThreadPoolExecutor executor;
+            synchronized( AsyncDispatcher.class ) {
+                executor = c_executor;
+                c_executor = null;
+            }
+            if( executor == null ) {
+                return;
+            }
+            executor.shutdown();
+            try {
+                if( !executor.awaitTermination( SHUTDOWN_TIMEOUT, TimeUnit.SECONDS ) ) {
+                    log.warn( "Asynchronous listeners still running after {} seconds, interrupting them", SHUTDOWN_TIMEOUT );
+                    executor.shutdownNow();
                 }
-            } catch( final ConcurrentModificationException e ) {
-                //  We don't die, we just don't do notifications in that case.
-                log.info( "Concurrent modification of event list; please report this.", e );
+            } catch( final InterruptedException e ) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
             }
         }
     }
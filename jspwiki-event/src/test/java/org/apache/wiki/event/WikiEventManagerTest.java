@@ -21,6 +21,12 @@ package org.apache.wiki.event;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 
 public class WikiEventManagerTest {
 
@@ -68,4 +74,58 @@ public class WikiEventManagerTest {
         WikiEventManager.removeWikiEventListener( listener ); // dispose listener; if not done, listener would still be attached to test4 on other tests
     }
 
+    @Test
+    public void shouldCheckAsyncEventsFiringDoesNotBlockCaller() throws Exception {
+        final String client = "test5";
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final CountDownLatch done = new CountDownLatch( 3 );
+        final List< Integer > received = new CopyOnWriteArrayList<>();
+        final WikiEventListener slow = event -> {
+            try {
+                release.await( 10, TimeUnit.SECONDS );
+            } catch( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+            received.add( event.getType() );
+            done.countDown();
+        };
+        final TestWikiEventListener sync = new TestWikiEventListener();
+        WikiEventManager.addWikiEventListener( client, slow, true );
+        WikiEventManager.addWikiEventListener( client, sync );
+
+        WikiEventManager.fireEvent( client, new WikiPageEvent( "src", WikiPageEvent.PAGE_REQUESTED, "page" ) );
+        WikiEventManager.fireEvent( client, new WikiPageEvent( "src", WikiPageEvent.PAGE_DELIVERED, "page" ) );
+        WikiEventManager.fireEvent( client, new WikiPageEvent( "src", WikiPageEvent.PAGE_LOCK, "page" ) );
+        Assertions.assertEquals( 3, sync.getInvoked() ); // delivered while the async listener is still blocked
+        Assertions.assertTrue( received.isEmpty() );
+
+        release.countDown();
+        Assertions.assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+        Assertions.assertEquals( Arrays.asList( WikiPageEvent.PAGE_REQUESTED, WikiPageEvent.PAGE_DELIVERED, WikiPageEvent.PAGE_LOCK ), received );
+
+        WikiEventManager.removeWikiEventListener( slow );
+        WikiEventManager.removeWikiEventListener( sync );
+    }
+
+    @Test
+    public void shouldCheckShutdownDeliversPendingAsyncEvents() {
+        final String client = "test6";
+        final List< Integer > received = new CopyOnWriteArrayList<>();
+        final WikiEventListener slow = event -> {
+            try {
+                Thread.sleep( 100L );
+            } catch( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+            received.add( event.getType() );
+        };
+        WikiEventManager.addWikiEventListener( client, slow, true );
+
+        WikiEventManager.fireEvent( client, new WikiPageEvent( "src", WikiPageEvent.PAGE_REQUESTED, "page" ) );
+        WikiEventManager.fireEvent( client, new WikiPageEvent( "src", WikiPageEvent.PAGE_DELIVERED, "page" ) );
+        WikiEventManager.shutdown();
+        Assertions.assertEquals( Arrays.asList( WikiPageEvent.PAGE_REQUESTED, WikiPageEvent.PAGE_DELIVERED ), received );
+        Assertions.assertFalse( WikiEventManager.isListening( client ) );
+    }
+
 }
@@ -81,6 +81,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.TimeZone;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 
@@ -138,6 +139,12 @@ public class WikiEngine implements Engine {
     /** Stores WikiEngine's associated managers. */
     protected final Map< Class< ? >, Object > managers = new ConcurrentHashMap<>();
 
+    /** Resolved {@link #getManager(Class)} lookups, keyed by requested type. Cleared whenever a manager gets registered. */
+    private final Map< Class< ? >, Object > m_managerLookups = new ConcurrentHashMap<>();
+
+    /** Incremented on each manager registration, so lookups resolved against an outdated registry don't get cached. */
+    private final AtomicLong m_managersVersion = new AtomicLong();
+
     /**
      *  Gets a WikiEngine related to this servlet.  Since this method is only called from JSP pages (and JspInit()) to be specific,
      *  we throw a RuntimeException if things don't work.
@@ -404,6 +411,9 @@ public class WikiEngine implements Engine {
             component = ClassUtil.getMappedObject( componentInitClass, initArgs );
         }
         managers.put( componentClass, component );
+        m_managersVersion.incrementAndGet();
+        m_managerLookups.clear();
+        m_managerLookups.put( componentClass, component );
         if( Initializable.class.isAssignableFrom( component.getClass() ) ) {
             ( ( Initializable )component ).initialize( this, m_properties );
         }
@@ -413,10 +423,38 @@ public class WikiEngine implements Engine {
     @Override
     @SuppressWarnings( "unchecked" )
     public < T > T getManager( final Class< T > manager ) {
-        return ( T )managers.entrySet().stream()
-                                       .filter( e -> manager.isAssignableFrom( e.getKey() ) )
-                                       .map( Map.Entry::getValue )
-                                       .findFirst().orElse( null );
+        final Object cached = m_managerLookups.get( manager );
+        if( cached != null ) {
+            return ( T )cached;
+        }
+
+        final long version = m_managersVersion.get();
+        final Object resolved = resolveManager( manager );
+        if( resolved != null ) {
+            m_managerLookups.put( manager, resolved );
+            if( version != m_managersVersion.get() ) {
+                // a manager was registered meanwhile, so the lookup could be outdated; let the next call resolve it again
+                m_managerLookups.remove( manager );
+            }
+        }
+        return ( T )resolved;
+    }
+
+    /**
+     *  Scans the registered managers for the requested type, favouring an exact match.
+     *
+     *  @param manager requested type.
+     *  @return the first manager assignable to the requested type, or {@code null} if there is none.
+     */
+    Object resolveManager( final Class< ? > manager ) {
+        final Object exact = managers.get( manager );
+        if( exact != null ) {
+            return exact;
+        }
+        return managers.entrySet().stream()
+                                  .filter( e -> manager.isAssignableFrom( e.getKey() ) )
+                                  .map( Map.Entry::getValue )
+                                  .findFirst().orElse( null );
     }
 
     /** {@inheritDoc} */
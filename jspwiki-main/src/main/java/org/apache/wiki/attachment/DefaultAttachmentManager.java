@@ -29,6 +29,8 @@ import org.apache.wiki.api.exceptions.ProviderException;
 import org.apache.wiki.api.providers.AttachmentProvider;
 import org.apache.wiki.api.spi.Wiki;
 import org.apache.wiki.cache.CachingManager;
+import org.apache.wiki.event.WikiEventManager;
+import org.apache.wiki.event.WikiPageEvent;
 import org.apache.wiki.pages.PageManager;
 import org.apache.wiki.parser.MarkupParser;
 import org.apache.wiki.references.ReferenceManager;
@@ -263,6 +265,7 @@ public class DefaultAttachmentManager implements AttachmentManager {
         final Page parent = Wiki.contents().page( m_engine, att.getParentName() );
         m_engine.getManager( ReferenceManager.class ).updateReferences( parent );
         m_engine.getManager( SearchManager.class ).reindexPage( att );
+        fireEvent( WikiPageEvent.POST_SAVE_END, att.getName() );
     }
 
     /** {@inheritDoc} */
@@ -308,7 +311,6 @@ public class DefaultAttachmentManager implements AttachmentManager {
 
     /** {@inheritDoc} */
     @Override
-    // FIXME: Should also use events!
     public void deleteAttachment( final Attachment att ) throws ProviderException {
         if( m_provider == null ) {
             return;
@@ -317,6 +319,20 @@ public class DefaultAttachmentManager implements AttachmentManager {
         m_provider.deleteAttachment( att );
         m_engine.getManager( SearchManager.class ).pageRemoved( att );
         m_engine.getManager( ReferenceManager.class ).clearPageEntries( att.getName() );
+        fireEvent( WikiPageEvent.PAGE_DELETED, att.getName() );
+    }
+
+    /**
+     * Fires a WikiPageEvent of the provided type and attachment name to all registered listeners.
+     *
+     * @param type the event type to be fired
+     * @param attachmentName the attachment name
+     * @see org.apache.wiki.event.WikiPageEvent
+     */
+    protected final void fireEvent( final int type, final String attachmentName ) {
+        if( WikiEventManager.isListening( this ) ) {
+            WikiEventManager.fireEvent( this, new WikiPageEvent( m_engine, type, attachmentName ) );
+        }
     }
 
 }
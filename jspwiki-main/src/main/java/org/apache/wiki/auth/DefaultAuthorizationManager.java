@@ -37,13 +37,16 @@ import org.apache.wiki.auth.permissions.AllPermission;
 import org.apache.wiki.auth.permissions.PagePermission;
 import org.apache.wiki.auth.user.UserDatabase;
 import org.apache.wiki.auth.user.UserProfile;
+import org.apache.wiki.content.PageRenamer;
 import org.apache.wiki.event.WikiEventListener;
 import org.apache.wiki.event.WikiEventManager;
 import org.apache.wiki.event.WikiSecurityEvent;
+import org.apache.wiki.filters.FilterManager;
 import org.apache.wiki.i18n.InternationalizationManager;
 import org.apache.wiki.pages.PageManager;
 import org.apache.wiki.preferences.Preferences;
 import org.apache.wiki.util.ClassUtil;
+import org.apache.wiki.util.TextUtil;
 import org.freshcookies.security.policy.LocalPolicy;
 
 import javax.servlet.http.HttpServletResponse;
@@ -79,6 +82,12 @@ public class DefaultAuthorizationManager implements AuthorizationManager {
 
     private static final Logger log = LogManager.getLogger( DefaultAuthorizationManager.class );
 
+    /** Maximum number of permission decisions to cache; {@code 0} disables the cache. */
+    public static final String PROP_DECISION_CACHE_SIZE = "jspwiki.authorizationManager.decisionCacheSize";
+
+    /** Default maximum number of cached permission decisions. */
+    public static final int DEFAULT_DECISION_CACHE_SIZE = 10_000;
+
     private Authorizer m_authorizer;
 
     /** Cache for storing ProtectionDomains used to evaluate the local policy. */
@@ -88,6 +97,11 @@ public class DefaultAuthorizationManager implements AuthorizationManager {
 
     private LocalPolicy m_localPolicy;
 
+    /** Cache of permission decisions, {@code null} if disabled. */
+    private PermissionDecisionCache m_decisions;
+
+    private volatile boolean m_listening;
+
     /**
      * Constructs a new DefaultAuthorizationManager instance.
      */
@@ -103,26 +117,39 @@ public class DefaultAuthorizationManager implements AuthorizationManager {
             return false;
         }
 
-        final Principal user = session.getLoginPrincipal();
+        final boolean allowed;
+        if( m_decisions != null && listenToChanges() ) {
+            allowed = m_decisions.isAllowed( session, permission, () -> isAllowed( session, permission ) );
+        } else {
+            allowed = isAllowed( session, permission );
+        }
+        fireEvent( allowed ? WikiSecurityEvent.ACCESS_ALLOWED : WikiSecurityEvent.ACCESS_DENIED, session.getLoginPrincipal(), permission );
+        return allowed;
+    }
 
+    /**
+     * Takes the decision of {@link #checkPermission(Session, Permission)}, without firing any event.
+     *
+     * @param session the current wiki session, not {@code null}.
+     * @param permission the Permission being checked, not {@code null}.
+     * @return {@code true} if the permission is granted.
+     */
+    private boolean isAllowed( final Session session, final Permission permission ) {
         // Always allow the action if user has AllPermission
         final Permission allPermission = new AllPermission( m_engine.getApplicationName() );
         final boolean hasAllPermission = checkStaticPermission( session, allPermission );
         if( hasAllPermission ) {
-            fireEvent( WikiSecurityEvent.ACCESS_ALLOWED, user, permission );
             return true;
         }
 
         // If the user doesn't have *at least* the permission granted by policy, return false.
         final boolean hasPolicyPermission = checkStaticPermission( session, permission );
         if( !hasPolicyPermission ) {
-            fireEvent( WikiSecurityEvent.ACCESS_DENIED, user, permission );
             return false;
         }
 
         // If this isn't a PagePermission, it's allowed
         if( !( permission instanceof PagePermission ) ) {
-            fireEvent( WikiSecurityEvent.ACCESS_ALLOWED, user, permission );
             return true;
         }
 
@@ -131,7 +158,6 @@ public class DefaultAuthorizationManager implements AuthorizationManager {
         final Page page = m_engine.getManager( PageManager.class ).getPage( pageName );
         final Acl acl = ( page == null) ? null : m_engine.getManager( AclManager.class ).getPermissions( page );
         if( page == null ||  acl == null || acl.isEmpty() ) {
-            fireEvent( WikiSecurityEvent.ACCESS_ALLOWED, user, permission );
             return true;
         }
 
@@ -155,14 +181,60 @@ public class DefaultAuthorizationManager implements AuthorizationManager {
             }
 
             if ( hasRoleOrPrincipal( session, aclPrincipal ) ) {
-                fireEvent( WikiSecurityEvent.ACCESS_ALLOWED, user, permission );
                 return true;
             }
         }
-        fireEvent( WikiSecurityEvent.ACCESS_DENIED, user, permission );
         return false;
     }
 
+    /**
+     * Registers the permission decision cache with the managers whose changes may alter decisions. Those are initialized after this
+     * manager, so this is done on first use.
+     *
+     * @return {@code true} if the cache is listening to changes, and thus can be used.
+     */
+    private boolean listenToChanges() {
+        if( !m_listening ) {
+            synchronized( m_decisions ) {
+                final PageManager pageManager = m_engine.getManager( PageManager.class );
+                final FilterManager filterManager = m_engine.getManager( FilterManager.class );
+                final PageRenamer pageRenamer = m_engine.getManager( PageRenamer.class );
+                final GroupManager groupManager = m_engine.getManager( GroupManager.class );
+                final UserManager userManager = m_engine.getManager( UserManager.class );
+                final AclManager aclManager = m_engine.getManager( AclManager.class );
+                if( !m_listening && pageManager != null && filterManager != null && pageRenamer != null
+                    && groupManager != null && userManager != null && aclManager != null ) {
+                    WikiEventManager.addWikiEventListener( pageManager, m_decisions );
+                    WikiEventManager.addWikiEventListener( aclManager, m_decisions );
+                    WikiEventManager.addWikiEventListener( filterManager, m_decisions );
+                    WikiEventManager.addWikiEventListener( pageRenamer, m_decisions );
+                    groupManager.addWikiEventListener( m_decisions );
+                    userManager.addWikiEventListener( m_decisions );
+                    m_listening = true;
+                }
+            }
+        }
+        return m_listening;
+    }
+
+    /**
+     * Number of permission checks answered from the decision cache.
+     *
+     * @return decision cache hits, {@code 0} if the cache is disabled.
+     */
+    public long getPermissionCacheHits() {
+        return m_decisions != null ? m_decisions.getHits() : 0L;
+    }
+
+    /**
+     * Number of permission checks which had to be decided, as they weren't in the decision cache.
+     *
+     * @return decision cache misses, {@code 0} if the cache is disabled.
+     */
+    public long getPermissionCacheMisses() {
+        return m_decisions != null ? m_decisions.getMisses() : 0L;
+    }
+
     /** {@inheritDoc} */
     @Override
     public Authorizer getAuthorizer() throws WikiSecurityException {
@@ -235,6 +307,9 @@ public class DefaultAuthorizationManager implements AuthorizationManager {
     public void initialize( final Engine engine, final Properties properties ) throws WikiException {
         m_engine = engine;
 
+        final int decisionCacheSize = TextUtil.getIntegerProperty( properties, PROP_DECISION_CACHE_SIZE, DEFAULT_DECISION_CACHE_SIZE );
+        m_decisions = decisionCacheSize > 0 ? new PermissionDecisionCache( decisionCacheSize ) : null;
+
         //  JAAS authorization continues
         m_authorizer = getAuthorizerImplementation( properties );
         m_authorizer.initialize( engine, properties );
@@ -0,0 +1,239 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.auth;
+
+import org.apache.wiki.api.core.Session;
+import org.apache.wiki.auth.permissions.PagePermission;
+import org.apache.wiki.event.WikiEvent;
+import org.apache.wiki.event.WikiEventListener;
+import org.apache.wiki.event.WikiPageEvent;
+import org.apache.wiki.event.WikiPageRenameEvent;
+import org.apache.wiki.event.WikiSecurityEvent;
+
+import java.security.Permission;
+import java.security.Principal;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+
+/**
+ *  Bounded cache of authorization decisions, keyed by the principals of a session and the permission checked.
+ *  <p>
+ *  A decision only depends on the session's principals (roles and groups included, as they are principals of the session's Subject),
+ *  on whether the session is authenticated, on the security policy and, for page permissions, on the page ACL and on how its entries
+ *  resolve. Logging in or joining a group changes the principals, and thus the key, so those don't need to invalidate anything. What
+ *  does is listened to:
+ *  <ul>
+ *      <li>saving, deleting or renaming a page, or rewriting its ACL through the {@link org.apache.wiki.auth.acl.AclManager}, drops
+ *      the decisions on that page and its attachments;</li>
+ *      <li>group changes and profile saves drop all decisions, as ACL entries naming groups or users may now resolve differently.
+ *      Renaming a profile also rewrites the ACLs naming it, each rewrite dropping again the decisions on its page, so decisions
+ *      taken while the ACLs were being rewritten are not kept.</li>
+ *  </ul>
+ *  Decisions are grouped by page, permissions not bound to a page share a group of their own. Once the cache holds its maximum
+ *  number of decisions, it starts over.
+ *
+ *  @since 2.11.2
+ */
+final class PermissionDecisionCache implements WikiEventListener {
+
+    /** Group of the decisions on permissions not bound to a page. */
+    private static final String NO_PAGE = "";
+
+    private final int m_maxSize;
+    private final Map< String, Map< Key, Boolean > > m_decisions = new ConcurrentHashMap<>();
+    private final AtomicInteger m_size = new AtomicInteger();
+
+    /** Bumped on every invalidation, so decisions taken meanwhile are not kept. */
+    private final AtomicLong m_generation = new AtomicLong();
+
+    private final LongAdder m_hits = new LongAdder();
+    private final LongAdder m_misses = new LongAdder();
+
+    /**
+     *  Creates a new cache.
+     *
+     *  @param maxSize maximum number of decisions held.
+     */
+    PermissionDecisionCache( final int maxSize ) {
+        m_maxSize = maxSize;
+    }
+
+    /**
+     *  Returns the decision for a session and permission, taking and caching it if needed.
+     *
+     *  @param session the session.
+     *  @param permission the permission.
+     *  @param decision takes the decision.
+     *  @return {@code true} if the permission is granted.
+     */
+    boolean isAllowed( final Session session, final Permission permission, final BooleanSupplier decision ) {
+        final Key key = new Key( session, permission );
+        final String group = group( permission );
+        final Map< Key, Boolean > decisions = m_decisions.get( group );
+        final Boolean cached = decisions != null ? decisions.get( key ) : null;
+        if( cached != null ) {
+            m_hits.increment();
+            return cached;
+        }
+
+        m_misses.increment();
+        final long generation = m_generation.get();
+        final boolean allowed = decision.getAsBoolean();
+        if( m_size.get() >= m_maxSize ) {
+            clear();
+        } else if( m_generation.get() == generation ) {
+            if( m_decisions.computeIfAbsent( group, k -> new ConcurrentHashMap<>() ).put( key, allowed ) == null ) {
+                m_size.incrementAndGet();
+            }
+            // an invalidation may have dropped the group right before the put; check again so the decision doesn't outlive it
+            if( m_generation.get() != generation ) {
+                invalidate( group );
+            }
+        }
+        return allowed;
+    }
+
+    /**
+     *  Number of decisions answered from the cache.
+     *
+     *  @return cache hits.
+     */
+    long getHits() {
+        return m_hits.sum();
+    }
+
+    /**
+     *  Number of decisions that had to be taken.
+     *
+     *  @return cache misses.
+     */
+    long getMisses() {
+        return m_misses.sum();
+    }
+
+    /**
+     *  Number of decisions held.
+     *
+     *  @return cache size.
+     */
+    int size() {
+        return m_size.get();
+    }
+
+    /**
+     *  Drops the decisions on a page and its attachments.
+     *
+     *  @param pageName page name.
+     */
+    void invalidate( final String pageName ) {
+        m_generation.incrementAndGet();
+        final Map< Key, Boolean > removed = m_decisions.remove( pageName );
+        if( removed != null ) {
+            m_size.addAndGet( -removed.size() );
+        }
+    }
+
+    /**
+     *  Drops all decisions.
+     */
+    void clear() {
+        m_generation.incrementAndGet();
+        for( final String group : m_decisions.keySet() ) {
+            invalidate( group );
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void actionPerformed( final WikiEvent event ) {
+        if( event instanceof WikiPageRenameEvent ) {
+            invalidate( ( ( WikiPageRenameEvent )event ).getOldPageName() );
+            invalidate( ( ( WikiPageRenameEvent )event ).getNewPageName() );
+        } else if( event instanceof WikiPageEvent ) {
+            if( event.getType() == WikiPageEvent.POST_SAVE_END || event.getType() == WikiPageEvent.PAGE_DELETED ) {
+                invalidate( ( ( WikiPageEvent )event ).getPageName() );
+            }
+        } else if( event instanceof WikiSecurityEvent ) {
+            switch( event.getType() ) {
+                case WikiSecurityEvent.GROUP_ADD:
+                case WikiSecurityEvent.GROUP_REMOVE:
+                case WikiSecurityEvent.GROUP_CLEAR_GROUPS:
+                case WikiSecurityEvent.PROFILE_SAVE:
+                case WikiSecurityEvent.PROFILE_NAME_CHANGED:
+                    clear();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     *  Group holding the decisions on a permission: the page it is bound to, for attachments their parent page, as they are
+     *  protected by its ACL.
+     */
+    private static String group( final Permission permission ) {
+        if( permission instanceof PagePermission ) {
+            final String page = ( ( PagePermission )permission ).getPage();
+            final int slash = page.indexOf( '/' );
+            return slash < 0 ? page : page.substring( 0, slash );
+        }
+        return NO_PAGE;
+    }
+
+    /** Principals and authentication status of a session, along with the permission checked. */
+    private static final class Key {
+
+        private final Set< Principal > m_principals;
+        private final boolean m_authenticated;
+        private final Permission m_permission;
+        private final int m_hash;
+
+        Key( final Session session, final Permission permission ) {
+            m_principals = new HashSet<>( session.getSubject().getPrincipals() );
+            m_authenticated = session.isAuthenticated();
+            m_permission = permission;
+            m_hash = 31 * ( 31 * m_principals.hashCode() + Boolean.hashCode( m_authenticated ) ) + permission.hashCode();
+        }
+
+        @Override
+        public boolean equals( final Object obj ) {
+            if( !( obj instanceof Key ) ) {
+                return false;
+            }
+            final Key key = ( Key )obj;
+            return m_hash == key.m_hash && m_authenticated == key.m_authenticated && m_permission.equals( key.m_permission )
+                   && m_principals.equals( key.m_principals );
+        }
+
+        @Override
+        public int hashCode() {
+            return m_hash;
+        }
+
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.auth.acl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ *  Finds the access rules of a page in its raw wiki text, without parsing the rest of the markup.
+ *  <p>
+ *  Recognizes the same rules the markup parser would: links starting with {@code {ALLOW} or {@code {DENY}, as in
+ *  {@code [{ALLOW view Admin}]}, which also covers the Markdown form {@code [{ALLOW view Admin}]()}. Rules inside {@code {{{ }}}}
+ *  blocks, or escaped with {@code [[} or {@code ~[}, are ignored, as the parser doesn't treat them as links either.
+ *
+ *  @since 2.11.2
+ */
+final class AclScanner {
+
+    private AclScanner() {
+    }
+
+    /**
+     *  Extracts the access rules of a wiki text.
+     *
+     *  @param text raw wiki text, may be {@code null}.
+     *  @return the rule lines, without the enclosing brackets and braces (e.g. {@code ALLOW view Admin}), in text order.
+     */
+    static List< String > findRules( final String text ) {
+        final List< String > rules = new ArrayList<>();
+        if( text == null ) {
+            return rules;
+        }
+        int i = 0;
+        while( i < text.length() ) {
+            final char c = text.charAt( i );
+            if( c == '{' && text.startsWith( "{{{", i ) ) {
+                final int end = text.indexOf( "}}}", i + 3 );
+                i = end < 0 ? text.length() : end + 3;
+            } else if( c == '~' ) {
+                i += 2;
+            } else if( c == '[' && text.startsWith( "[[", i ) ) {
+                while( i < text.length() && text.charAt( i ) == '[' ) {
+                    i++;
+                }
+            } else if( c == '[' && ( text.startsWith( "[{ALLOW", i ) || text.startsWith( "[{DENY", i ) ) ) {
+                final int end = text.indexOf( "}]", i );
+                if( end < 0 ) {
+                    break;
+                }
+                rules.add( text.substring( i + 2, end ) );
+                i = end + 2;
+            } else {
+                i++;
+            }
+        }
+        return rules;
+    }
+
+}
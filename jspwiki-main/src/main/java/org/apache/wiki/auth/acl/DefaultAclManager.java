@@ -23,30 +23,40 @@ import org.apache.logging.log4j.Logger;
 import org.apache.wiki.api.core.Acl;
 import org.apache.wiki.api.core.AclEntry;
 import org.apache.wiki.api.core.Attachment;
-import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.core.Engine;
 import org.apache.wiki.api.core.Page;
 import org.apache.wiki.api.exceptions.ProviderException;
 import org.apache.wiki.api.spi.Wiki;
 import org.apache.wiki.auth.AuthorizationManager;
+import org.apache.wiki.auth.UserManager;
 import org.apache.wiki.auth.WikiSecurityException;
 import org.apache.wiki.auth.permissions.PagePermission;
 import org.apache.wiki.auth.permissions.PermissionFactory;
+import org.apache.wiki.content.PageRenamer;
+import org.apache.wiki.event.WikiEvent;
+import org.apache.wiki.event.WikiEventListener;
+import org.apache.wiki.event.WikiEventManager;
+import org.apache.wiki.event.WikiPageEvent;
+import org.apache.wiki.event.WikiPageRenameEvent;
+import org.apache.wiki.filters.FilterManager;
 import org.apache.wiki.pages.PageLock;
 import org.apache.wiki.pages.PageManager;
-import org.apache.wiki.render.RenderingManager;
 import org.apache.wiki.util.comparators.PrincipalComparator;
 
 import java.security.Permission;
 import java.security.Principal;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.StringTokenizer;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -55,12 +65,19 @@ import java.util.regex.Pattern;
  *
  * @since 2.3
  */
-public class DefaultAclManager implements AclManager {
+public class DefaultAclManager implements AclManager, WikiEventListener {
 
     private static final Logger log = LogManager.getLogger(DefaultAclManager.class);
 
     private AuthorizationManager m_auth;
     private Engine m_engine;
+
+    /** ACLs found on the latest known version of each page, so they aren't scanned for again until the page changes. */
+    private final Map< String, CachedAcl > m_acls = new ConcurrentHashMap<>();
+
+    /** Bumped on every invalidation, so ACLs scanned meanwhile are not kept. */
+    private final AtomicLong m_generation = new AtomicLong();
+    private volatile boolean m_listening;
     private static final String PERM_REGEX = "("
                                               + PagePermission.COMMENT_ACTION + "|"
                                               + PagePermission.DELETE_ACTION  + "|"
@@ -143,21 +160,118 @@ public class DefaultAclManager implements AclManager {
                 final Page parent = m_engine.getManager( PageManager.class ).getPage( ( ( Attachment ) page ).getParentName() );
                 acl = getPermissions(parent);
             } else {
-                //  Or, try parsing the page
-                final Context ctx = Wiki.context().create( m_engine, page );
-                ctx.setVariable( Context.VAR_EXECUTE_PLUGINS, Boolean.FALSE );
-                m_engine.getManager( RenderingManager.class ).getHTML(ctx, page);
+                //  Or, try the ACLs found previously on this version of the page
+                listenToPageChanges();
+                final CachedAcl cached = m_acls.get( page.getName() );
+                if( cached != null && cached.isFor( page ) ) {
+                    page.setAcl( cached.m_acl );
+                    return cached.m_acl;
+                }
 
-                if (page.getAcl() == null) {
-                    page.setAcl( Wiki.acls().acl() );
+                //  Or, scan the page for them
+                final long generation = m_generation.get();
+                acl = scanAcl( page );
+                if( m_generation.get() == generation ) {
+                    m_acls.put( page.getName(), new CachedAcl( page, acl ) );
                 }
-                acl = page.getAcl();
             }
         }
 
         return acl;
     }
 
+    /**
+     *  Sets the ACL of a page from the access rules found in its text, as the markup parser would while rendering the page, but
+     *  without parsing nor rendering anything else.
+     *
+     *  @param page the page.
+     *  @return its ACL, empty if the page has no access rules.
+     */
+    private Acl scanAcl( final Page page ) {
+        if( m_auth != null && m_engine.getManager( UserManager.class ).getUserDatabase() != null ) {
+            final String text = m_engine.getManager( PageManager.class ).getPureText( page.getName(), page.getVersion() );
+            for( final String ruleLine : AclScanner.findRules( text ) ) {
+                try {
+                    parseAcl( page, ruleLine );
+                } catch( final WikiSecurityException e ) {
+                    log.debug( "Ignoring access rule of page {}: {}", page.getName(), e.getMessage() );
+                }
+            }
+        }
+        if( page.getAcl() == null ) {
+            page.setAcl( Wiki.acls().acl() );
+        }
+        return page.getAcl();
+    }
+
+    /**
+     *  Registers for the events invalidating the cached ACLs, once the managers firing them are available.
+     */
+    private void listenToPageChanges() {
+        if( !m_listening ) {
+            synchronized( m_acls ) {
+                final PageManager pageManager = m_engine.getManager( PageManager.class );
+                final FilterManager filterManager = m_engine.getManager( FilterManager.class );
+                final PageRenamer pageRenamer = m_engine.getManager( PageRenamer.class );
+                if( !m_listening && pageManager != null && filterManager != null && pageRenamer != null ) {
+                    WikiEventManager.addWikiEventListener( pageManager, this );
+                    WikiEventManager.addWikiEventListener( filterManager, this );
+                    WikiEventManager.addWikiEventListener( pageRenamer, this );
+                    m_listening = true;
+                }
+            }
+        }
+    }
+
+    /**
+     *  Forgets the ACLs found on a page.
+     *
+     *  @param pageName page name.
+     */
+    private void invalidate( final String pageName ) {
+        m_generation.incrementAndGet();
+        m_acls.remove( pageName );
+    }
+
+    /**
+     *  Drops the cached ACLs of a page whenever it is saved, deleted or renamed.
+     *
+     *  @param event the event.
+     */
+    @Override
+    public void actionPerformed( final WikiEvent event ) {
+        if( event instanceof WikiPageRenameEvent ) {
+            invalidate( ( ( WikiPageRenameEvent )event ).getOldPageName() );
+            invalidate( ( ( WikiPageRenameEvent )event ).getNewPageName() );
+        } else if( event instanceof WikiPageEvent ) {
+            final int type = event.getType();
+            if( type == WikiPageEvent.POST_SAVE_END || type == WikiPageEvent.PAGE_DELETED ) {
+                invalidate( ( ( WikiPageEvent )event ).getPageName() );
+            }
+        }
+    }
+
+    /**
+     *  ACL found on a given version of a page.
+     */
+    private static final class CachedAcl {
+
+        private final int m_version;
+        private final Date m_lastModified;
+        private final Acl m_acl;
+
+        CachedAcl( final Page page, final Acl acl ) {
+            m_version = page.getVersion();
+            m_lastModified = page.getLastModified();
+            m_acl = acl;
+        }
+
+        boolean isFor( final Page page ) {
+            return m_version == page.getVersion() && Objects.equals( m_lastModified, page.getLastModified() );
+        }
+
+    }
+
     /** {@inheritDoc} */
     @Override
     public void setPermissions( final Page page, final Acl acl ) throws WikiSecurityException {
@@ -176,6 +290,12 @@ public class DefaultAclManager implements AclManager {
         final String newText = DefaultAclManager.printAcl( page.getAcl() ) + cleansedText;
         try {
             pageManager.putPageText( page, newText );
+            invalidate( page.getName() );
+
+            // the text is written straight to the repository, so let the ones caching decisions on this page know it changed
+            if( WikiEventManager.isListening( this ) ) {
+                WikiEventManager.fireEvent( this, new WikiPageEvent( m_engine, WikiPageEvent.POST_SAVE_END, page.getName() ) );
+            }
         } catch( final ProviderException e ) {
             throw new WikiSecurityException( "Could not set Acl. Reason: ProviderExcpetion " + e.getMessage(), e );
         }
@@ -77,6 +77,7 @@ import java.util.Random;
 import java.util.StringTokenizer;
 import java.util.Vector;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
@@ -188,13 +189,13 @@ public class SpamFilter extends BasePageFilter {
     private String          m_errorPage          = "RejectedMessage";
     private String          m_blacklist          = "SpamFilterWordList/blacklist.txt";
 
-    private final PatternMatcher  m_matcher = new Perl5Matcher();
-    private final PatternCompiler m_compiler = new Perl5Compiler();
+    /** Spam and IP patterns currently in use, replaced as a whole whenever the lists get reloaded. */
+    private volatile Blacklists m_blacklists;
 
-    private Collection<Pattern> m_spamPatterns;
-    private Collection<Pattern> m_IPPatterns;
+    /** Guards against starting a reload while another one is still running. */
+    private final AtomicBoolean m_reloading = new AtomicBoolean();
 
-    private Date m_lastRebuild = new Date( 0L );
+    private volatile Date m_lastRebuild = new Date( 0L );
 
     private static final Logger c_spamlog = LogManager.getLogger( "SpamLog" );
     private static final Logger log = LogManager.getLogger( SpamFilter.class );
@@ -215,9 +216,9 @@ public class SpamFilter extends BasePageFilter {
     private int             m_maxUrls = 10;
 
     private Pattern         m_urlPattern;
-    private Akismet         m_akismet;
+    private volatile Akismet m_akismet;
 
-    private String          m_akismetAPIKey;
+    private volatile String m_akismetAPIKey;
 
     private boolean         m_useCaptcha;
 
@@ -266,7 +267,7 @@ public class SpamFilter extends BasePageFilter {
         m_useCaptcha = properties.getProperty( PROP_CAPTCHA, "" ).equals("asirra");
 
         try {
-            m_urlPattern = m_compiler.compile( URL_REGEXP );
+            m_urlPattern = new Perl5Compiler().compile( URL_REGEXP );
         } catch( final MalformedPatternException e ) {
             log.fatal( "Internal error: Someone put in a faulty pattern.", e );
             throw new InternalWikiException( "Faulty pattern." , e);
@@ -373,6 +374,7 @@ public class SpamFilter extends BasePageFilter {
      */
     private Collection< Pattern > parseWordList( final Page source, final String list ) {
         final ArrayList< Pattern > compiledpatterns = new ArrayList<>();
+        final PatternCompiler compiler = new Perl5Compiler();
 
         if( list != null ) {
             final StringTokenizer tok = new StringTokenizer( list, " \t\n" );
@@ -381,7 +383,7 @@ public class SpamFilter extends BasePageFilter {
                 final String pattern = tok.nextToken();
 
                 try {
-                    compiledpatterns.add( m_compiler.compile( pattern ) );
+                    compiledpatterns.add( compiler.compile( pattern ) );
                 } catch( final MalformedPatternException e ) {
                     log.debug( "Malformed spam filter pattern " + pattern );
                     source.setAttribute("error", "Malformed spam filter pattern " + pattern);
@@ -400,6 +402,7 @@ public class SpamFilter extends BasePageFilter {
      */
     private Collection< Pattern > parseBlacklist( final String list ) {
         final ArrayList< Pattern > compiledpatterns = new ArrayList<>();
+        final PatternCompiler compiler = new Perl5Compiler();
 
         if( list != null ) {
             try {
@@ -415,7 +418,7 @@ public class SpamFilter extends BasePageFilter {
                     if( ws != -1 ) line = line.substring( 0, ws );
 
                     try {
-                        compiledpatterns.add( m_compiler.compile( line ) );
+                        compiledpatterns.add( compiler.compile( line ) );
                     } catch( final MalformedPatternException e ) {
                         log.debug( "Malformed spam filter pattern " + line );
                     }
@@ -429,14 +432,16 @@ public class SpamFilter extends BasePageFilter {
     }
 
     /**
-     * Takes a single page change and performs a load of tests on the content change. An admin can modify anything.
+     * Takes a single page change and performs a load of tests on the content change. An admin can modify anything. Only the
+     * bookkeeping of the recent modifications is serialized, the rest of the checks run concurrently. The change is recorded along with
+     * the count of the recent modifications, before the slower checks, and forgotten again if it gets rejected.
      *
      * @param context page Context
      * @param content page content
      * @param change page change
      * @throws RedirectException spam filter rejects the page change.
      */
-    private synchronized void checkSinglePageChange( final Context context, final String content, final Change change )
+    private void checkSinglePageChange( final Context context, final String content, final Change change )
     		throws RedirectException {
         final HttpServletRequest req = context.getHttpRequest();
 
@@ -448,76 +453,98 @@ public class SpamFilter extends BasePageFilter {
             log.debug( "Change is " + change.m_change );
 
             final long time = System.currentTimeMillis() - 60*1000L; // 1 minute
+            final Host modification = new Host( addr, change );
 
-            for( final Iterator< Host > i = m_lastModifications.iterator(); i.hasNext(); ) {
-                final Host host = i.next();
+            synchronized( m_lastModifications ) {
+                for( final Iterator< Host > i = m_lastModifications.iterator(); i.hasNext(); ) {
+                    final Host host = i.next();
 
-                //  Check if this item is invalid
-                if( host.getAddedTime() < time ) {
-                    log.debug( "Removed host " + host.getAddress() + " from modification queue (expired)" );
-                    i.remove();
-                    continue;
-                }
+                    //  Check if this item is invalid
+                    if( host.getAddedTime() < time ) {
+                        log.debug( "Removed host " + host.getAddress() + " from modification queue (expired)" );
+                        i.remove();
+                        continue;
+                    }
 
-                // Check if this IP address has been seen before
-                if( host.getAddress().equals( addr ) ) {
-                    hostCounter++;
-                }
+                    // Check if this IP address has been seen before
+                    if( host.getAddress().equals( addr ) ) {
+                        hostCounter++;
+                    }
 
-                //  Check, if this change has been seen before
-                if( host.getChange() != null && host.getChange().equals( change ) ) {
-                    changeCounter++;
+                    //  Check, if this change has been seen before
+                    if( host.getChange() != null && host.getChange().equals( change ) ) {
+                        changeCounter++;
+                    }
                 }
-            }
 
-            //  Now, let's check against the limits.
-            if( hostCounter >= m_limitSinglePageChanges ) {
-                final Host host = new Host( addr, null );
-                m_temporaryBanList.add( host );
+                // counted and recorded at once, so concurrent changes from the same host can't all slip under the limits
+                m_lastModifications.add( modification );
+            }
 
-                final String uid = log( context, REJECT, REASON_TOO_MANY_MODIFICATIONS, change.m_change );
-                log.info( "SPAM:TooManyModifications (" + uid + "). Added host " + addr + " to temporary ban list for doing too many modifications/minute" );
-                checkStrategy( context, REASON_TOO_MANY_MODIFICATIONS, "Herb says you look like a spammer, and I trust Herb! (Incident code " + uid + ")" );
+            try {
+                checkModification( context, change, addr, hostCounter, changeCounter );
+            } catch( final RedirectException e ) {
+                m_lastModifications.remove( modification );
+                throw e;
             }
+        }
+    }
 
-            if( changeCounter >= m_limitSimilarChanges ) {
-                final Host host = new Host( addr, null );
-                m_temporaryBanList.add( host );
+    /**
+     * Performs the tests on a page change which has already been recorded in the recent modifications.
+     *
+     * @param context page Context
+     * @param change page change
+     * @param addr address of the host making the change
+     * @param hostCounter recent modifications made by the host
+     * @param changeCounter recent modifications similar to this one
+     * @throws RedirectException spam filter rejects the page change.
+     */
+    private void checkModification( final Context context, final Change change, final String addr, final int hostCounter, final int changeCounter )
+            throws RedirectException {
+        //  Now, let's check against the limits.
+        if( hostCounter >= m_limitSinglePageChanges ) {
+            banHost( new Host( addr, null ) );
+
+            final String uid = log( context, REJECT, REASON_TOO_MANY_MODIFICATIONS, change.m_change );
+            log.info( "SPAM:TooManyModifications (" + uid + "). Added host " + addr + " to temporary ban list for doing too many modifications/minute" );
+            checkStrategy( context, REASON_TOO_MANY_MODIFICATIONS, "Herb says you look like a spammer, and I trust Herb! (Incident code " + uid + ")" );
+        }
 
-                final String uid = log( context, REJECT, REASON_SIMILAR_MODIFICATIONS, change.m_change );
-                log.info( "SPAM:SimilarModifications (" + uid + "). Added host " + addr + " to temporary ban list for doing too many similar modifications" );
-                checkStrategy( context, REASON_SIMILAR_MODIFICATIONS, "Herb says you look like a spammer, and I trust Herb! (Incident code "+uid+")");
-            }
+        if( changeCounter >= m_limitSimilarChanges ) {
+            banHost( new Host( addr, null ) );
 
-            //  Calculate the number of links in the addition.
-            String tstChange  = change.toString();
-            int urlCounter = 0;
-            while( m_matcher.contains( tstChange,m_urlPattern ) ) {
-                final MatchResult m = m_matcher.getMatch();
-                tstChange = tstChange.substring( m.endOffset(0) );
-                urlCounter++;
-            }
+            final String uid = log( context, REJECT, REASON_SIMILAR_MODIFICATIONS, change.m_change );
+            log.info( "SPAM:SimilarModifications (" + uid + "). Added host " + addr + " to temporary ban list for doing too many similar modifications" );
+            checkStrategy( context, REASON_SIMILAR_MODIFICATIONS, "Herb says you look like a spammer, and I trust Herb! (Incident code "+uid+")");
+        }
 
-            if( urlCounter > m_maxUrls ) {
-                final Host host = new Host( addr, null );
-                m_temporaryBanList.add( host );
+        //  Calculate the number of links in the addition.
+        final PatternMatcher matcher = new Perl5Matcher();
+        String tstChange  = change.toString();
+        int urlCounter = 0;
+        while( matcher.contains( tstChange,m_urlPattern ) ) {
+            final MatchResult m = matcher.getMatch();
+            tstChange = tstChange.substring( m.endOffset(0) );
+            urlCounter++;
+        }
 
-                final String uid = log( context, REJECT, REASON_TOO_MANY_URLS, change.toString() );
-                log.info( "SPAM:TooManyUrls (" + uid + "). Added host " + addr + " to temporary ban list for adding too many URLs" );
-                checkStrategy( context, REASON_TOO_MANY_URLS, "Herb says you look like a spammer, and I trust Herb! (Incident code " + uid + ")" );
-            }
+        if( urlCounter > m_maxUrls ) {
+            banHost( new Host( addr, null ) );
 
-            //  Check bot trap
-            checkBotTrap( context, change );
+            final String uid = log( context, REJECT, REASON_TOO_MANY_URLS, change.toString() );
+            log.info( "SPAM:TooManyUrls (" + uid + "). Added host " + addr + " to temporary ban list for adding too many URLs" );
+            checkStrategy( context, REASON_TOO_MANY_URLS, "Herb says you look like a spammer, and I trust Herb! (Incident code " + uid + ")" );
+        }
 
-            //  Check UTF-8 mangling
-            checkUTF8( context, change );
+        //  Check bot trap
+        checkBotTrap( context, change );
 
-            //  Do Akismet check.  This is good to be the last, because this is the most expensive operation.
-            checkAkismet( context, change );
+        //  Check UTF-8 mangling
+        checkUTF8( context, change );
 
-            m_lastModifications.add( new Host( addr, change ) );
-        }
+        //  Do Akismet check.  This is good to be the last, because this is the most expensive operation.
+        checkAkismet( context, change );
     }
 
 
@@ -529,25 +556,29 @@ public class SpamFilter extends BasePageFilter {
      */
     private void checkAkismet( final Context context, final Change change ) throws RedirectException {
         if( m_akismetAPIKey != null ) {
-            if( m_akismet == null ) {
-                log.info( "Initializing Akismet spam protection." );
-                m_akismet = new Akismet( m_akismetAPIKey, context.getEngine().getBaseURL() );
-
-                if( !m_akismet.verifyAPIKey() ) {
-                    log.error( "Akismet API key cannot be verified.  Please check your config." );
-                    m_akismetAPIKey = null;
-                    m_akismet = null;
+            synchronized( this ) {
+                if( m_akismet == null && m_akismetAPIKey != null ) {
+                    log.info( "Initializing Akismet spam protection." );
+                    final Akismet akismet = new Akismet( m_akismetAPIKey, context.getEngine().getBaseURL() );
+
+                    if( akismet.verifyAPIKey() ) {
+                        m_akismet = akismet;
+                    } else {
+                        log.error( "Akismet API key cannot be verified.  Please check your config." );
+                        m_akismetAPIKey = null;
+                    }
                 }
             }
 
             final HttpServletRequest req = context.getHttpRequest();
+            final Akismet akismet = m_akismet;
 
             //  Akismet will mark all empty statements as spam, so we'll just ignore them.
             if( change.m_adds == 0 && change.m_removals > 0 ) {
                 return;
             }
             
-            if( req != null && m_akismet != null ) {
+            if( req != null && akismet != null ) {
                 log.debug( "Calling Akismet to check for spam..." );
 
                 final StopWatch sw = new StopWatch();
@@ -562,16 +593,16 @@ public class SpamFilter extends BasePageFilter {
                 final String commentAuthorEmail = null;
                 final String commentAuthorURL   = null;
 
-                final boolean isSpam = m_akismet.commentCheck( ipAddress,
-                                                               userAgent,
-                                                               referrer,
-                                                               permalink,
-                                                               commentType,
-                                                               commentAuthor,
-                                                               commentAuthorEmail,
-                                                               commentAuthorURL,
-                                                               change.toString(),
-                                                               null );
+                final boolean isSpam = akismet.commentCheck( ipAddress,
+                                                             userAgent,
+                                                             referrer,
+                                                             permalink,
+                                                             commentType,
+                                                             commentAuthor,
+                                                             commentAuthorEmail,
+                                                             commentAuthorURL,
+                                                             change.toString(),
+                                                             null );
 
                 sw.stop();
                 log.debug( "Akismet request done in: " + sw );
@@ -630,6 +661,11 @@ public class SpamFilter extends BasePageFilter {
         }
     }
 
+    /** Adds a host to the temporary ban list, under the same lock {@link #cleanBanList()} and {@link #checkBanList(Context, Change)} use. */
+    private synchronized void banHost( final Host host ) {
+        m_temporaryBanList.add( host );
+    }
+
     /** Goes through the ban list and cleans away any host which has expired from it. */
     private synchronized void cleanBanList() {
         final long now = System.currentTimeMillis();
@@ -656,75 +692,124 @@ public class SpamFilter extends BasePageFilter {
             final String remote = HttpUtil.getRemoteAddress(req);
             final long now = System.currentTimeMillis();
 
-            for( final Host host : m_temporaryBanList ) {
-                if( host.getAddress().equals( remote ) ) {
-                    final long timeleft = ( host.getReleaseTime() - now ) / 1000L;
-
-                    log( context, REJECT, REASON_IP_BANNED_TEMPORARILY, change.m_change );
-                    checkStrategy( context, REASON_IP_BANNED_TEMPORARILY,
-                            "You have been temporarily banned from modifying this wiki. (" + timeleft + " seconds of ban left)" );
+            final List< Host > banned = new ArrayList<>();
+            synchronized( this ) {
+                for( final Host host : m_temporaryBanList ) {
+                    if( host.getAddress().equals( remote ) ) {
+                        banned.add( host );
+                    }
                 }
             }
+
+            for( final Host host : banned ) {
+                final long timeleft = ( host.getReleaseTime() - now ) / 1000L;
+
+                log( context, REJECT, REASON_IP_BANNED_TEMPORARILY, change.m_change );
+                checkStrategy( context, REASON_IP_BANNED_TEMPORARILY,
+                        "You have been temporarily banned from modifying this wiki. (" + timeleft + " seconds of ban left)" );
+            }
         }
     }
 
     /**
-     *  If the spam filter notices changes in the black list page, it will refresh them automatically.
+     *  If the spam filter notices changes in the black list page, it will refresh them automatically. The new lists are compiled in
+     *  the background, while the current ones keep being used until they get replaced; only the very first load is done in the
+     *  calling thread, as there's nothing to check against until then.
      *
      *  @param context associated WikiContext
      */
     private void refreshBlacklists( final Context context ) {
         try {
             boolean rebuild = false;
+            final Blacklists current = m_blacklists;
 
             //  Rebuild, if the spam words page, the attachment or the IP ban page has changed since.
             final Page sourceSpam = context.getEngine().getManager( PageManager.class ).getPage( m_forbiddenWordsPage );
             if( sourceSpam != null ) {
-                if( m_spamPatterns == null || m_spamPatterns.isEmpty() || sourceSpam.getLastModified().after( m_lastRebuild ) ) {
+                if( current == null || sourceSpam.getLastModified().after( m_lastRebuild ) ) {
                     rebuild = true;
                 }
             }
 
-            final Attachment att = context.getEngine().getManager( AttachmentManager.class ).getAttachmentInfo( context, m_blacklist );
+            final AttachmentManager attachmentManager = context.getEngine().getManager( AttachmentManager.class );
+            final Attachment att = attachmentManager.getAttachmentInfo( context, m_blacklist );
             if( att != null ) {
-                if( m_spamPatterns == null || m_spamPatterns.isEmpty() || att.getLastModified().after( m_lastRebuild ) ) {
+                if( current == null || att.getLastModified().after( m_lastRebuild ) ) {
                     rebuild = true;
                 }
             }
 
             final Page sourceIPs = context.getEngine().getManager( PageManager.class ).getPage( m_forbiddenIPsPage );
             if( sourceIPs != null ) {
-                if( m_IPPatterns == null || m_IPPatterns.isEmpty() || sourceIPs.getLastModified().after( m_lastRebuild ) ) {
+                if( current == null || sourceIPs.getLastModified().after( m_lastRebuild ) ) {
                     rebuild = true;
                 }
             }
 
             //  Do the actual rebuilding.  For simplicity's sake, we always rebuild the complete filter list regardless of what changed.
-            if( rebuild ) {
-                m_lastRebuild = new Date();
-                m_spamPatterns = parseWordList( sourceSpam, ( sourceSpam != null ) ? sourceSpam.getAttribute( LISTVAR ) : null );
-
-                log.info( "Spam filter reloaded - recognizing " + m_spamPatterns.size() + " patterns from page " + m_forbiddenWordsPage );
-
-                m_IPPatterns = parseWordList( sourceIPs,  ( sourceIPs != null ) ? sourceIPs.getAttribute( LISTIPVAR ) : null );
-                log.info( "IP filter reloaded - recognizing " + m_IPPatterns.size() + " patterns from page " + m_forbiddenIPsPage );
-
-                if( att != null ) {
-                    final InputStream in = context.getEngine().getManager( AttachmentManager.class ).getAttachmentStream(att);
-                    final StringWriter out = new StringWriter();
-                    FileUtil.copyContents( new InputStreamReader( in, StandardCharsets.UTF_8 ), out );
-                    final Collection< Pattern > blackList = parseBlacklist( out.toString() );
-                    log.info( "...recognizing additional " + blackList.size() + " patterns from blacklist " + m_blacklist );
-                    m_spamPatterns.addAll( blackList );
+            final String words = ( sourceSpam != null ) ? sourceSpam.getAttribute( LISTVAR ) : null;
+            final String ips = ( sourceIPs != null ) ? sourceIPs.getAttribute( LISTIPVAR ) : null;
+            if( rebuild && current == null ) {
+                // every thread waits for the first load, instead of going on without any patterns
+                synchronized( m_reloading ) {
+                    if( m_blacklists == null ) {
+                        m_lastRebuild = new Date();
+                        m_blacklists = loadBlacklists( sourceSpam, words, sourceIPs, ips, attachmentManager, att );
+                    }
                 }
+            } else if( rebuild && m_reloading.compareAndSet( false, true ) ) {
+                m_lastRebuild = new Date();
+                final Thread thread = new Thread( () -> {
+                    try {
+                        m_blacklists = loadBlacklists( sourceSpam, words, sourceIPs, ips, attachmentManager, att );
+                    } finally {
+                        m_reloading.set( false );
+                    }
+                }, "JSPWiki SpamFilter reload" );
+                thread.setDaemon( true );
+                thread.start();
             }
-        } catch( final IOException ex ) {
-            log.info( "Unable to read attachment data, continuing...", ex );
         } catch( final ProviderException ex ) {
             log.info( "Failed to read spam filter attachment, continuing...", ex );
         }
     }
 
+    /**
+     *  Parses and compiles the spam and IP patterns.
+     *
+     *  @param sourceSpam page holding the spam words, may be {@code null}.
+     *  @param words spam words.
+     *  @param sourceIPs page holding the banned IPs, may be {@code null}.
+     *  @param ips banned IPs.
+     *  @param attachmentManager to read the blacklist attachment.
+     *  @param att blacklist attachment, may be {@code null}.
+     *  @return the compiled lists.
+     */
+    private Blacklists loadBlacklists( final Page sourceSpam, final String words, final Page sourceIPs, final String ips,
+                                       final AttachmentManager attachmentManager, final Attachment att ) {
+        final Collection< Pattern > spamPatterns = parseWordList( sourceSpam, words );
+        log.info( "Spam filter reloaded - recognizing " + spamPatterns.size() + " patterns from page " + m_forbiddenWordsPage );
+
+        final Collection< Pattern > ipPatterns = parseWordList( sourceIPs, ips );
+        log.info( "IP filter reloaded - recognizing " + ipPatterns.size() + " patterns from page " + m_forbiddenIPsPage );
+
+        if( att != null ) {
+            try( final InputStream in = attachmentManager.getAttachmentStream( att ) ) {
+                final StringWriter out = new StringWriter();
+                FileUtil.copyContents( new InputStreamReader( in, StandardCharsets.UTF_8 ), out );
+                final Collection< Pattern > blackList = parseBlacklist( out.toString() );
+                log.info( "...recognizing additional " + blackList.size() + " patterns from blacklist " + m_blacklist );
+                spamPatterns.addAll( blackList );
+            } catch( final IOException ex ) {
+                log.info( "Unable to read attachment data, continuing...", ex );
+            } catch( final ProviderException ex ) {
+                log.info( "Failed to read spam filter attachment, continuing...", ex );
+            }
+        }
+
+        return new Blacklists( new SpamPatterns( spamPatterns ), new SpamPatterns( ipPatterns ) );
+    }
+
     /**
      * Does a check against a known pattern list.
      *
@@ -735,7 +820,8 @@ public class SpamFilter extends BasePageFilter {
      */
     private void checkPatternList( final Context context, final String content, final Change change ) throws RedirectException {
         // If we have no spam patterns defined, or we're trying to save the page containing the patterns, just return.
-        if( m_spamPatterns == null || context.getPage().getName().equals( m_forbiddenWordsPage ) ) {
+        final Blacklists blacklists = m_blacklists;
+        if( blacklists == null || context.getPage().getName().equals( m_forbiddenWordsPage ) ) {
             return;
         }
 
@@ -744,16 +830,13 @@ public class SpamFilter extends BasePageFilter {
             ch += HttpUtil.getRemoteAddress( context.getHttpRequest() );
         }
 
-        for( final Pattern p : m_spamPatterns ) {
-            // log.debug("Attempting to match page contents with "+p.getPattern());
-
-            if( m_matcher.contains( ch, p ) ) {
-                //  Spam filter has a match.
-                final String uid = log( context, REJECT, REASON_REGEXP + "(" + p.getPattern() + ")", ch );
+        //  All patterns are looked for in a single scan; the matching ones are returned in the order they were listed.
+        for( final Pattern p : blacklists.m_spam.matches( ch ) ) {
+            //  Spam filter has a match.
+            final String uid = log( context, REJECT, REASON_REGEXP + "(" + p.getPattern() + ")", ch );
 
-                log.info( "SPAM:Regexp (" + uid + "). Content matches the spam filter '" + p.getPattern() + "'" );
-                checkStrategy( context, REASON_REGEXP, "Herb says '" + p.getPattern() + "' is a bad spam word and I trust Herb! (Incident code " + uid + ")" );
-            }
+            log.info( "SPAM:Regexp (" + uid + "). Content matches the spam filter '" + p.getPattern() + "'" );
+            checkStrategy( context, REASON_REGEXP, "Herb says '" + p.getPattern() + "' is a bad spam word and I trust Herb! (Incident code " + uid + ")" );
         }
     }
 
@@ -766,25 +849,21 @@ public class SpamFilter extends BasePageFilter {
      */
     private void checkIPList( final Context context ) throws RedirectException {
         //  If we have no IP patterns defined, or we're trying to save the page containing the IP patterns, just return.
-        if( m_IPPatterns == null || context.getPage().getName().equals( m_forbiddenIPsPage ) ) {
+        final Blacklists blacklists = m_blacklists;
+        if( blacklists == null || context.getPage().getName().equals( m_forbiddenIPsPage ) ) {
             return;
         }
 
         final String remoteIP = HttpUtil.getRemoteAddress( context.getHttpRequest() );
-        log.info("Attempting to match remoteIP " + remoteIP + " against " + m_IPPatterns.size() + " patterns");
-
-        for( final Pattern p : m_IPPatterns ) {
-             log.debug("Attempting to match remoteIP with " + p.getPattern());
+        log.info("Attempting to match remoteIP " + remoteIP + " against " + blacklists.m_ips.size() + " patterns");
 
-            if( m_matcher.contains( remoteIP, p ) ) {
-
-                //  IP filter has a match.
-                //
-                final String uid = log( context, REJECT, REASON_IP_BANNED_PERMANENTLY + "(" + p.getPattern() + ")", remoteIP );
+        for( final Pattern p : blacklists.m_ips.matches( remoteIP ) ) {
+            //  IP filter has a match.
+            //
+            final String uid = log( context, REJECT, REASON_IP_BANNED_PERMANENTLY + "(" + p.getPattern() + ")", remoteIP );
 
-                log.info( "SPAM:IPBanList (" + uid + "). remoteIP matches the IP filter '" + p.getPattern() + "'" );
-                checkStrategy( context, REASON_IP_BANNED_PERMANENTLY, "Herb says '" + p.getPattern() + "' is a banned IP and I trust Herb! (Incident code " + uid + ")" );
-            }
+            log.info( "SPAM:IPBanList (" + uid + "). remoteIP matches the IP filter '" + p.getPattern() + "'" );
+            checkStrategy( context, REASON_IP_BANNED_PERMANENTLY, "Herb says '" + p.getPattern() + "' is a banned IP and I trust Herb! (Incident code " + uid + ")" );
         }
     }
 
@@ -1084,4 +1163,19 @@ public class SpamFilter extends BasePageFilter {
         
     }
 
+    /**
+     *  The compiled spam and IP patterns, published together once built.
+     */
+    private static final class Blacklists {
+
+        private final SpamPatterns m_spam;
+        private final SpamPatterns m_ips;
+
+        private Blacklists( final SpamPatterns spam, final SpamPatterns ips ) {
+            m_spam = spam;
+            m_ips = ips;
+        }
+
+    }
+
 }
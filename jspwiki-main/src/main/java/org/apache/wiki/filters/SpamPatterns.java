@@ -0,0 +1,280 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.filters;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.oro.text.regex.MalformedPatternException;
+import org.apache.oro.text.regex.Pattern;
+import org.apache.oro.text.regex.PatternMatcher;
+import org.apache.oro.text.regex.Perl5Compiler;
+import org.apache.oro.text.regex.Perl5Matcher;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ *  Immutable, compiled set of spam patterns, which scans a text for all of them at once.
+ *  <p>
+ *  Most blacklist entries are plain words or host names, with at most some escaped punctuation. Those are matched as literals, all
+ *  of them in a single pass over the text through an Aho-Corasick automaton. The remaining, real regular expressions are joined in a
+ *  single alternation, so a text matching none of them is scanned once by the regexp engine too; only when the alternation matches
+ *  are they checked one by one, to tell which ones did. Matching doesn't modify any state, so a set can be shared by any number of
+ *  threads without locking.
+ *
+ *  @since 2.11.2
+ */
+final class SpamPatterns {
+
+    private static final Logger LOG = LogManager.getLogger( SpamPatterns.class );
+
+    private static final String METACHARACTERS = ".^$|()[]{}*+?";
+    private static final java.util.regex.Pattern BACKREFERENCE = java.util.regex.Pattern.compile( "\\\\[1-9]" );
+    private static final int[] NO_MATCHES = new int[ 0 ];
+
+    private final Pattern[] m_patterns;
+
+    /** Automaton over the literal patterns: per state, the sorted edge labels, their target states, failure link and matches. */
+    private final char[][] m_labels;
+    private final int[][] m_targets;
+    private final int[] m_failure;
+    private final int[][] m_matches;
+
+    /** Indexes of the patterns which aren't literals, and their alternation, if they could be joined. */
+    private final int[] m_regexps;
+    private final Pattern m_alternation;
+
+    /**
+     *  Compiles a set of patterns.
+     *
+     *  @param patterns compiled Perl5 patterns, in the order they should be reported.
+     */
+    SpamPatterns( final Collection< Pattern > patterns ) {
+        m_patterns = patterns.toArray( new Pattern[ 0 ] );
+
+        final List< Map< Character, Integer > > edges = new ArrayList<>();
+        final List< List< Integer > > matches = new ArrayList<>();
+        edges.add( new HashMap<>() );
+        matches.add( new ArrayList<>() );
+        final List< Integer > regexps = new ArrayList<>();
+        for( int i = 0; i < m_patterns.length; i++ ) {
+            final String literal = literal( m_patterns[ i ].getPattern() );
+            if( literal == null ) {
+                regexps.add( i );
+                continue;
+            }
+            int state = 0;
+            for( int j = 0; j < literal.length(); j++ ) {
+                Integer next = edges.get( state ).get( literal.charAt( j ) );
+                if( next == null ) {
+                    next = edges.size();
+                    edges.add( new HashMap<>() );
+                    matches.add( new ArrayList<>() );
+                    edges.get( state ).put( literal.charAt( j ), next );
+                }
+                state = next;
+            }
+            matches.get( state ).add( i );
+        }
+
+        final int states = edges.size();
+        m_labels = new char[ states ][];
+        m_targets = new int[ states ][];
+        m_failure = new int[ states ];
+        m_matches = new int[ states ][];
+        for( int state = 0; state < states; state++ ) {
+            final Character[] labels = edges.get( state ).keySet().toArray( new Character[ 0 ] );
+            Arrays.sort( labels );
+            m_labels[ state ] = new char[ labels.length ];
+            m_targets[ state ] = new int[ labels.length ];
+            for( int j = 0; j < labels.length; j++ ) {
+                m_labels[ state ][ j ] = labels[ j ];
+                m_targets[ state ][ j ] = edges.get( state ).get( labels[ j ] );
+            }
+        }
+
+        // breadth-first, so failure links always point to states whose own links and matches are already complete
+        final Deque< Integer > queue = new ArrayDeque<>();
+        m_matches[ 0 ] = toArray( matches.get( 0 ) );
+        for( final int child : m_targets[ 0 ] ) {
+            m_failure[ child ] = 0;
+            queue.add( child );
+        }
+        while( !queue.isEmpty() ) {
+            final int state = queue.poll();
+            final List< Integer > found = matches.get( state );
+            for( final int inherited : m_matches[ m_failure[ state ] ] ) {
+                found.add( inherited );
+            }
+            m_matches[ state ] = toArray( found );
+            for( int j = 0; j < m_labels[ state ].length; j++ ) {
+                final int child = m_targets[ state ][ j ];
+                m_failure[ child ] = step( m_failure[ state ], m_labels[ state ][ j ] );
+                queue.add( child );
+            }
+        }
+
+        m_regexps = toArray( regexps );
+        m_alternation = alternation( regexps );
+    }
+
+    /**
+     *  Number of patterns in this set.
+     *
+     *  @return number of patterns.
+     */
+    int size() {
+        return m_patterns.length;
+    }
+
+    /**
+     *  Finds the patterns matching somewhere in a text.
+     *
+     *  @param text text to check.
+     *  @return matching patterns, in the order they were given; empty if none matches.
+     */
+    List< Pattern > matches( final String text ) {
+        if( m_patterns.length == 0 || text == null ) {
+            return Collections.emptyList();
+        }
+        final BitSet found = new BitSet( m_patterns.length );
+        if( m_labels[ 0 ].length > 0 ) {
+            int state = 0;
+            for( int i = 0; i < text.length(); i++ ) {
+                state = step( state, text.charAt( i ) );
+                for( final int match : m_matches[ state ] ) {
+                    found.set( match );
+                }
+            }
+        }
+
+        if( m_regexps.length > 0 ) {
+            final PatternMatcher matcher = new Perl5Matcher();
+            if( m_alternation == null || matcher.contains( text, m_alternation ) ) {
+                for( final int regexp : m_regexps ) {
+                    if( matcher.contains( text, m_patterns[ regexp ] ) ) {
+                        found.set( regexp );
+                    }
+                }
+            }
+        }
+
+        if( found.isEmpty() ) {
+            return Collections.emptyList();
+        }
+        final List< Pattern > result = new ArrayList<>( found.cardinality() );
+        for( int i = found.nextSetBit( 0 ); i >= 0; i = found.nextSetBit( i + 1 ) ) {
+            result.add( m_patterns[ i ] );
+        }
+        return result;
+    }
+
+    /**
+     *  Follows the automaton from a state on a character, taking failure links until an edge is found.
+     *
+     *  @param from state to start from.
+     *  @param c character read.
+     *  @return next state.
+     */
+    private int step( final int from, final char c ) {
+        int state = from;
+        while( true ) {
+            final int pos = Arrays.binarySearch( m_labels[ state ], c );
+            if( pos >= 0 ) {
+                return m_targets[ state ][ pos ];
+            }
+            if( state == 0 ) {
+                return 0;
+            }
+            state = m_failure[ state ];
+        }
+    }
+
+    /**
+     *  Joins the given regexps into a single alternation. Patterns using back references can't be joined, as their group numbers
+     *  would change.
+     *
+     *  @param regexps indexes of the regexps.
+     *  @return the alternation, or {@code null} if the patterns can't be joined, or there's no point in doing so.
+     */
+    private Pattern alternation( final List< Integer > regexps ) {
+        if( regexps.size() < 2 ) {
+            return null;
+        }
+        final StringBuilder sb = new StringBuilder();
+        for( final int regexp : regexps ) {
+            final String pattern = m_patterns[ regexp ].getPattern();
+            if( BACKREFERENCE.matcher( pattern ).find() ) {
+                return null;
+            }
+            sb.append( sb.length() == 0 ? "" : "|" ).append( "(?:" ).append( pattern ).append( ')' );
+        }
+        try {
+            return new Perl5Compiler().compile( sb.toString() );
+        } catch( final MalformedPatternException e ) {
+            LOG.debug( "Unable to join spam patterns, checking them one by one: {}", e.getMessage() );
+            return null;
+        }
+    }
+
+    /**
+     *  The text matched by a pattern, if it only matches one.
+     *
+     *  @param pattern Perl5 regexp.
+     *  @return the literal text it matches, or {@code null} if the pattern uses any regexp construct besides escaped punctuation.
+     */
+    static String literal( final String pattern ) {
+        final StringBuilder sb = new StringBuilder( pattern.length() );
+        for( int i = 0; i < pattern.length(); i++ ) {
+            final char c = pattern.charAt( i );
+            if( c == '\\' ) {
+                if( i + 1 == pattern.length() || Character.isLetterOrDigit( pattern.charAt( i + 1 ) ) ) {
+                    return null;
+                }
+                sb.append( pattern.charAt( ++i ) );
+            } else if( METACHARACTERS.indexOf( c ) >= 0 ) {
+                return null;
+            } else {
+                sb.append( c );
+            }
+        }
+        return sb.length() > 0 ? sb.toString() : null;
+    }
+
+    private static int[] toArray( final List< Integer > list ) {
+        if( list.isEmpty() ) {
+            return NO_MATCHES;
+        }
+        final int[] array = new int[ list.size() ];
+        for( int i = 0; i < array.length; i++ ) {
+            array[ i ] = list.get( i );
+        }
+        return array;
+    }
+
+}
@@ -64,7 +64,6 @@ import java.security.Permission;
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.Iterator;
@@ -93,6 +92,7 @@ public class DefaultPageManager implements PageManager {
     private final int m_expiryTime;
     protected final ConcurrentHashMap< String, PageLock > m_pageLocks = new ConcurrentHashMap<>();
     private final PageSorter pageSorter = new PageSorter();
+    private final RecentChanges m_recentChanges;
     private LockReaper m_reaper;
 
     /**
@@ -108,6 +108,8 @@ public class DefaultPageManager implements PageManager {
         final String classname;
         final boolean useCache = m_engine.getManager( CachingManager.class ).enabled( CachingManager.CACHE_PAGES );
         m_expiryTime = TextUtil.parseIntParameter( props.getProperty( PROP_LOCKEXPIRY ), 60 );
+        m_recentChanges = new RecentChanges( engine, TextUtil.getIntegerProperty( props, PROP_RECENT_CHANGES_SIZE, DEFAULT_RECENT_CHANGES_SIZE ) );
+        m_engine.addWikiEventListener( m_recentChanges );
 
         //  If user wants to use a cache, then we'll use the CachingProvider.
         if( useCache ) {
@@ -280,6 +282,7 @@ public class DefaultPageManager implements PageManager {
         }
 
         m_provider.putPageText(page, content);
+        m_recentChanges.changed( page.getName() );
     }
 
     /**
@@ -466,16 +469,18 @@ public class DefaultPageManager implements PageManager {
      */
     @Override
     public Set< Page > getRecentChanges() {
-        try {
-            final TreeSet< Page > sortedPages = new TreeSet<>( new PageTimeComparator() );
-            sortedPages.addAll( getAllPages() );
-            sortedPages.addAll( m_engine.getManager( AttachmentManager.class ).getAllAttachments() );
+        final TreeSet< Page > sortedPages = new TreeSet<>( new PageTimeComparator() );
+        sortedPages.addAll( getRecentChanges( null, 0 ) );
+        return sortedPages;
+    }
 
-            return sortedPages;
-        } catch( final ProviderException e ) {
-            LOG.error( "Unable to fetch all pages: ", e );
-            return Collections.emptySet();
-        }
+    /**
+     * {@inheritDoc}
+     * @see org.apache.wiki.pages.PageManager#getRecentChanges(Date, int)
+     */
+    @Override
+    public List< Page > getRecentChanges( final Date since, final int limit ) {
+        return m_recentChanges.getChanges( since, limit );
     }
 
     /**
@@ -572,6 +577,7 @@ public class DefaultPageManager implements PageManager {
             m_provider.deleteVersion( page.getName(), page.getVersion() );
             // FIXME: If this was the latest, reindex Lucene, update RefMgr
         }
+        m_recentChanges.changed( page.getName() );
     }
 
     /**
@@ -612,6 +618,7 @@ public class DefaultPageManager implements PageManager {
     public void deletePage( final Page page ) throws ProviderException {
         fireEvent( WikiPageEvent.PAGE_DELETE_REQUEST, page.getName() );
         m_provider.deletePage( page.getName() );
+        m_recentChanges.deleted( page.getName() );
         fireEvent( WikiPageEvent.PAGE_DELETED, page.getName() );
     }
 
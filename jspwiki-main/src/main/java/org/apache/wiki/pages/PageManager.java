@@ -25,7 +25,9 @@ import org.apache.wiki.api.exceptions.WikiException;
 import org.apache.wiki.api.providers.PageProvider;
 import org.apache.wiki.event.WikiEventListener;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 
@@ -36,6 +38,10 @@ public interface PageManager extends WikiEventListener {
     String PROP_PAGEPROVIDER = "jspwiki.pageProvider";
     /** The property value for setting the amount of time before the page locks expire. Value is {@value}. */
     String PROP_LOCKEXPIRY = "jspwiki.lockExpiryTime";
+    /** The property value for setting the number of recent changes kept in memory. Value is {@value}. */
+    String PROP_RECENT_CHANGES_SIZE = "jspwiki.pageManager.recentChangesSize";
+    /** Default number of recent changes kept in memory. Value is {@value}. */
+    int DEFAULT_RECENT_CHANGES_SIZE = 1_000;
 
     /**
      * Returns the page provider currently in use.
@@ -269,6 +275,28 @@ public interface PageManager extends WikiEventListener {
      */
     Set< Page > getRecentChanges();
 
+    /**
+     *  Returns the pages and attachments changed since a given date, sorted in time order of last change (i.e. first object is the
+     *  most recently changed), up to a given number of them. Unlike {@link #getRecentChanges()}, this method does not need to read
+     *  the whole repository as long as the requested changes are recent enough. This default implementation filters the results of
+     *  {@link #getRecentChanges()}, so implementations are expected to override it with a cheaper one.
+     *
+     *  @param since oldest last change date to return, or {@code null} to return changes no matter how old they are.
+     *  @param limit maximum number of pages and attachments to return, or {@code 0} to return all of them.
+     *  @return List of WikiPage objects.
+     */
+    default List< Page > getRecentChanges( final Date since, final int limit ) {
+        final List< Page > changes = new ArrayList<>();
+        for( final Page page : getRecentChanges() ) {
+            if( ( since != null && ( page.getLastModified() == null || page.getLastModified().before( since ) ) )
+                || ( limit > 0 && changes.size() >= limit ) ) {
+                break;
+            }
+            changes.add( page );
+        }
+        return changes;
+    }
+
     /**
      * Returns true, if the page exists (any version) on the underlying WikiPageProvider.
      *
@@ -0,0 +1,304 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.pages;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.wiki.api.core.Attachment;
+import org.apache.wiki.api.core.Engine;
+import org.apache.wiki.api.core.Page;
+import org.apache.wiki.api.exceptions.ProviderException;
+import org.apache.wiki.api.providers.PageProvider;
+import org.apache.wiki.api.spi.Wiki;
+import org.apache.wiki.attachment.AttachmentManager;
+import org.apache.wiki.content.PageRenamer;
+import org.apache.wiki.event.WikiEngineEvent;
+import org.apache.wiki.event.WikiEvent;
+import org.apache.wiki.event.WikiEventListener;
+import org.apache.wiki.event.WikiEventManager;
+import org.apache.wiki.event.WikiPageEvent;
+import org.apache.wiki.event.WikiPageRenameEvent;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+
+/**
+ *  The most recently changed pages and attachments, kept sorted by last modification date, so recent changes can be listed
+ *  without reading and sorting the whole repository.
+ *  <p>
+ *  The view is seeded with a scan of the repository once the engine has been initialized, and kept up to date afterwards with the
+ *  page saves and deletions made through the {@link DefaultPageManager}, the attachment events fired by the {@link AttachmentManager}
+ *  and the page renames fired by the {@link PageRenamer}. It holds at most {@value PageManager#DEFAULT_RECENT_CHANGES_SIZE} entries
+ *  by default; whenever a query goes past its oldest entry while there are older pages in the repository, the repository is scanned
+ *  again, as it was done on every query before.
+ */
+final class RecentChanges implements WikiEventListener {
+
+    private static final Logger LOG = LogManager.getLogger( RecentChanges.class );
+
+    private final Engine m_engine;
+    private final int m_maxSize;
+    private final TreeSet< Entry > m_changes = new TreeSet<>();
+    private final Map< String, Entry > m_entries = new HashMap<>();
+    private boolean m_seeded;
+    private boolean m_complete;
+    private boolean m_listening;
+
+    RecentChanges( final Engine engine, final int maxSize ) {
+        m_engine = engine;
+        m_maxSize = maxSize;
+    }
+
+    /**
+     *  Returns the pages and attachments changed since the given date, most recently changed first.
+     *
+     *  @param since oldest modification date to return, {@code null} to return changes no matter how old they are.
+     *  @param limit maximum number of changes to return, {@code 0} or less for no limit.
+     *  @return changed pages and attachments.
+     */
+    synchronized List< Page > getChanges( final Date since, final int limit ) {
+        if( !m_seeded && !seed() ) {
+            return select( scan(), since, limit );
+        }
+
+        final List< Page > changes = new ArrayList<>();
+        for( final Entry entry : m_changes ) {
+            if( ( since != null && entry.m_time < since.getTime() ) || ( limit > 0 && changes.size() >= limit ) ) {
+                return changes;
+            }
+            changes.add( entry.m_page );
+        }
+        if( m_complete || ( limit > 0 && changes.size() >= limit ) ) {
+            return changes;
+        }
+
+        // the query goes past the oldest change being kept, so the whole repository is needed
+        final List< Entry > all = scan();
+        reset( all );
+        return select( all, since, limit );
+    }
+
+    /**
+     *  Reads again the latest version of a page or attachment, after it has been saved or one of its versions has been deleted.
+     *
+     *  @param name page or attachment name.
+     */
+    synchronized void changed( final String name ) {
+        if( m_seeded ) {
+            remove( name );
+            try {
+                Page page = m_engine.getManager( PageManager.class ).getPageInfo( name, PageProvider.LATEST_VERSION );
+                if( page == null ) {
+                    page = m_engine.getManager( AttachmentManager.class ).getAttachmentInfo( null, name );
+                }
+                if( page != null ) {
+                    add( new Entry( page ) );
+                }
+            } catch( final ProviderException e ) {
+                // the next query scans the repository again
+                LOG.warn( "Unable to read changed page {}: {}", name, e.getMessage() );
+                m_seeded = false;
+            }
+        }
+    }
+
+    /**
+     *  Drops a page or attachment, after it has been deleted.
+     *
+     *  @param name page or attachment name.
+     */
+    synchronized void deleted( final String name ) {
+        if( m_seeded ) {
+            remove( name );
+        }
+    }
+
+    /**
+     *  Moves a page and its attachments to their new names, after the page has been renamed.
+     *
+     *  @param oldName old page name.
+     *  @param newName new page name.
+     */
+    synchronized void renamed( final String oldName, final String newName ) {
+        if( !m_seeded ) {
+            return;
+        }
+        remove( oldName );
+        final String prefix = oldName + "/";
+        for( final Iterator< Map.Entry< String, Entry > > it = m_entries.entrySet().iterator(); it.hasNext(); ) {
+            final Map.Entry< String, Entry > entry = it.next();
+            if( entry.getKey().startsWith( prefix ) ) {
+                m_changes.remove( entry.getValue() );
+                it.remove();
+            }
+        }
+
+        changed( newName );
+        try {
+            final Page page = Wiki.contents().page( m_engine, newName );
+            for( final Attachment att : m_engine.getManager( AttachmentManager.class ).listAttachments( page ) ) {
+                remove( att.getName() );
+                add( new Entry( att ) );
+            }
+        } catch( final ProviderException e ) {
+            LOG.warn( "Unable to read attachments of renamed page {}: {}", newName, e.getMessage() );
+            m_seeded = false;
+        }
+    }
+
+    /**
+     *  Seeds the view once the engine has been initialized, and keeps it up to date with the attachment changes and page renames.
+     *
+     *  @param event the event.
+     */
+    @Override
+    public void actionPerformed( final WikiEvent event ) {
+        if( event instanceof WikiEngineEvent ) {
+            if( event.getType() == WikiEngineEvent.INITIALIZED ) {
+                synchronized( this ) {
+                    if( !m_seeded ) {
+                        seed();
+                    }
+                }
+            }
+        } else if( event instanceof WikiPageRenameEvent ) {
+            renamed( ( ( WikiPageRenameEvent )event ).getOldPageName(), ( ( WikiPageRenameEvent )event ).getNewPageName() );
+        } else if( event instanceof WikiPageEvent ) {
+            final WikiPageEvent pageEvent = ( WikiPageEvent )event;
+            if( pageEvent.getType() == WikiPageEvent.POST_SAVE_END ) {
+                changed( pageEvent.getPageName() );
+            } else if( pageEvent.getType() == WikiPageEvent.PAGE_DELETED ) {
+                deleted( pageEvent.getPageName() );
+            }
+        }
+    }
+
+    /**
+     *  Registers for the attachment and rename events, and fills the view with the contents of the repository.
+     *
+     *  @return {@code true} if the view is being kept up to date, {@code false} if the managers firing the events are not available yet.
+     */
+    private boolean seed() {
+        if( !m_listening ) {
+            final AttachmentManager attachmentManager = m_engine.getManager( AttachmentManager.class );
+            final PageRenamer pageRenamer = m_engine.getManager( PageRenamer.class );
+            if( attachmentManager == null || pageRenamer == null ) {
+                return false;
+            }
+            WikiEventManager.addWikiEventListener( attachmentManager, this );
+            WikiEventManager.addWikiEventListener( pageRenamer, this );
+            m_listening = true;
+        }
+        reset( scan() );
+        LOG.debug( "Recent changes seeded with {} entries", m_changes.size() );
+        return true;
+    }
+
+    /** Reads all pages and attachments, most recently changed first. */
+    private List< Entry > scan() {
+        final List< Entry > all = new ArrayList<>();
+        try {
+            for( final Page page : m_engine.getManager( PageManager.class ).getAllPages() ) {
+                all.add( new Entry( page ) );
+            }
+            final AttachmentManager attachmentManager = m_engine.getManager( AttachmentManager.class );
+            if( attachmentManager != null ) {
+                for( final Page att : attachmentManager.getAllAttachments() ) {
+                    all.add( new Entry( att ) );
+                }
+            }
+        } catch( final ProviderException e ) {
+            LOG.error( "Unable to fetch all pages: ", e );
+        }
+        all.sort( null );
+        return all;
+    }
+
+    /** Replaces the view contents with the most recent entries of the given ones. */
+    private void reset( final List< Entry > all ) {
+        m_changes.clear();
+        m_entries.clear();
+        for( final Entry entry : all.size() > m_maxSize ? all.subList( 0, m_maxSize ) : all ) {
+            m_changes.add( entry );
+            m_entries.put( entry.m_name, entry );
+        }
+        m_complete = all.size() <= m_maxSize;
+        m_seeded = true;
+    }
+
+    private static List< Page > select( final List< Entry > all, final Date since, final int limit ) {
+        final List< Page > changes = new ArrayList<>();
+        for( final Entry entry : all ) {
+            if( ( since != null && entry.m_time < since.getTime() ) || ( limit > 0 && changes.size() >= limit ) ) {
+                break;
+            }
+            changes.add( entry.m_page );
+        }
+        return changes;
+    }
+
+    private void remove( final String name ) {
+        final Entry entry = m_entries.remove( name );
+        if( entry != null ) {
+            m_changes.remove( entry );
+        }
+    }
+
+    private void add( final Entry entry ) {
+        // unless the view holds everything, it must stay the most recent part of the repository
+        if( !m_complete && ( m_changes.isEmpty() || entry.compareTo( m_changes.last() ) > 0 ) ) {
+            return;
+        }
+        m_changes.add( entry );
+        m_entries.put( entry.m_name, entry );
+        while( m_changes.size() > m_maxSize ) {
+            m_entries.remove( m_changes.pollLast().m_name );
+            m_complete = false;
+        }
+    }
+
+    /**
+     *  A page or attachment, along with the date it had when it was added, as page objects may be changed afterwards.
+     */
+    private static final class Entry implements Comparable< Entry > {
+        final String m_name;
+        final long m_time;
+        final Page m_page;
+
+        Entry( final Page page ) {
+            m_name = page.getName();
+            m_time = page.getLastModified() != null ? page.getLastModified().getTime() : 0L;
+            m_page = page;
+        }
+
+        /** Most recent first, then by name. */
+        @Override
+        public int compareTo( final Entry entry ) {
+            final int timecomparison = Long.compare( entry.m_time, m_time );
+            return timecomparison != 0 ? timecomparison : m_name.compareTo( entry.m_name );
+        }
+    }
+
+}
@@ -21,7 +21,9 @@ package org.apache.wiki.parser;
 import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.core.Page;
 import org.jdom2.Document;
+import org.jdom2.filter.Filters;
 
+import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
 
 /**
@@ -38,7 +40,11 @@ public class WikiDocument extends Document {
     
     private final Page m_page;
     private String m_wikiText;
+    private int m_wikiTextLength;
+    private int m_wikiTextHash;
+    private transient volatile SoftReference< String > m_softWikiText;
     private WeakReference< Context > m_context;
+    private Boolean m_dynamicContent;
     
     /**
      *  Creates a new WikiDocument for a specific page.
@@ -69,7 +75,46 @@ public class WikiDocument extends Document {
     {
         return m_wikiText;
     }
-    
+
+    /**
+     *  Remembers the WikiMarkup used to render this document through its length and hash code, and a soft reference to it, so the
+     *  WikiMarkup can be reclaimed under memory pressure instead of being pinned by the document. Use this instead of
+     *  {@link #setPageData(String)} on long-lived documents, i.e. cached ones.
+     *
+     *  @param data The WikiMarkup
+     */
+    public void setPageDataDigest( final String data )
+    {
+        m_wikiTextLength = data.length();
+        m_wikiTextHash = data.hashCode();
+        m_softWikiText = new SoftReference<>( data );
+    }
+
+    /**
+     *  Checks if the given WikiMarkup is the one used to render this document, as set by {@link #setPageDataDigest(String)}. This
+     *  is checked on every cache hit, so it is kept cheap: the same instance as the remembered one is taken as is, a different
+     *  length or hash code tells right away that the WikiMarkup changed, and only otherwise both texts are compared. If the remembered
+     *  WikiMarkup has been reclaimed, the document is reported as not matching, so it gets rendered again.
+     *
+     *  @param data The WikiMarkup
+     *  @return {@code true} if this document was rendered from the given WikiMarkup, {@code false} otherwise.
+     */
+    public boolean matchesPageData( final String data )
+    {
+        final SoftReference< String > softWikiText = m_softWikiText;
+        if( data == null || softWikiText == null ) {
+            return false;
+        }
+        final String wikiText = softWikiText.get();
+        if( wikiText == data ) {
+            return true;
+        }
+        if( wikiText == null || data.length() != m_wikiTextLength || data.hashCode() != m_wikiTextHash ) {
+            return false;
+        }
+        return data.equals( wikiText );
+    }
+
     /**
      *  Return the WikiPage for whom this WikiDocument exists.
      *  
@@ -103,4 +148,19 @@ public class WikiDocument extends Document {
         return m_context.get();
     }
 
+    /**
+     *  Tells whether this document contains content which may render differently on each request, that is, plugins or variables.
+     *  Documents with dynamic content can't have their rendered HTML cached.
+     *
+     *  @return {@code true} if the document contains plugins or variables, {@code false} otherwise.
+     */
+    public boolean hasDynamicContent()
+    {
+        if( m_dynamicContent == null ) {
+            m_dynamicContent = getDescendants( Filters.fclass( PluginContent.class ) ).hasNext()
+                               || getDescendants( Filters.fclass( VariableContent.class ) ).hasNext();
+        }
+        return m_dynamicContent;
+    }
+
 }
@@ -54,9 +54,11 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -233,9 +235,9 @@ public abstract class AbstractReferralPlugin implements Plugin {
     }
 
     protected List< Page > filterWikiPageCollection( final Collection< Page > pages ) {
-        final List< String > pageNames = filterCollection( pages.stream()
-                                                                .map( Page::getName )
-                                                                .collect( Collectors.toList() ) );
+        final Set< String > pageNames = new HashSet<>( filterCollection( pages.stream()
+                                                                              .map( Page::getName )
+                                                                              .collect( Collectors.toList() ) ) );
         return pages.stream()
                     .filter( wikiPage -> pageNames.contains( wikiPage.getName() ) )
                     .collect( Collectors.toList() );
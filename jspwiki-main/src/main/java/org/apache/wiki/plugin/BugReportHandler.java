@@ -27,6 +27,7 @@ import org.apache.wiki.api.exceptions.PluginException;
 import org.apache.wiki.api.exceptions.RedirectException;
 import org.apache.wiki.api.exceptions.WikiException;
 import org.apache.wiki.api.plugin.Plugin;
+import org.apache.wiki.api.plugin.StatelessPlugin;
 import org.apache.wiki.api.spi.Wiki;
 import org.apache.wiki.pages.PageManager;
 import org.apache.wiki.parser.MarkupParser;
@@ -56,7 +57,7 @@ import java.util.StringTokenizer;
  *  </ul>
  *
  */
-public class BugReportHandler implements Plugin {
+public class BugReportHandler implements Plugin, StatelessPlugin {
 
     private static final Logger log = LogManager.getLogger( BugReportHandler.class );
     private static final String DEFAULT_DATEFORMAT = "dd-MMM-yyyy HH:mm:ss zzz";
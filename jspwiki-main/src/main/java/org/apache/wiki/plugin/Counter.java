@@ -21,6 +21,8 @@ package org.apache.wiki.plugin;
 import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.exceptions.PluginException;
 import org.apache.wiki.api.plugin.Plugin;
+import org.apache.wiki.api.plugin.SequentialPlugin;
+import org.apache.wiki.api.plugin.StatelessPlugin;
 import org.apache.wiki.util.TextUtil;
 
 import java.util.Map;
@@ -39,7 +41,7 @@ import java.util.Map;
  *
  *  @since 1.9.30
  */
-public class Counter implements Plugin {
+public class Counter implements Plugin, SequentialPlugin, StatelessPlugin {
     // private static Logger log = LogManager.getLogger( Counter.class );
 
     /** Parameter name for setting the name.  Value is <tt>{@value}</tt>. */
@@ -21,6 +21,7 @@ package org.apache.wiki.plugin;
 import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.exceptions.PluginException;
 import org.apache.wiki.api.plugin.Plugin;
+import org.apache.wiki.api.plugin.StatelessPlugin;
 import org.apache.wiki.preferences.Preferences;
 import org.apache.wiki.preferences.Preferences.TimeFormat;
 
@@ -38,7 +39,7 @@ import java.util.ResourceBundle;
  *  @since 1.7.8
  *  @see java.text.SimpleDateFormat
  */
-public class CurrentTimePlugin implements Plugin {
+public class CurrentTimePlugin implements Plugin, StatelessPlugin {
 
     // private static Logger log = LogManager.getLogger( CurrentTimePlugin.class );
 
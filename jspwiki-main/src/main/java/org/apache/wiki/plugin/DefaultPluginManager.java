@@ -36,8 +36,11 @@ import org.apache.wiki.ajax.WikiAjaxServlet;
 import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.core.Engine;
 import org.apache.wiki.api.exceptions.PluginException;
+import org.apache.wiki.api.plugin.CacheablePlugin;
 import org.apache.wiki.api.plugin.InitializablePlugin;
 import org.apache.wiki.api.plugin.Plugin;
+import org.apache.wiki.api.plugin.SequentialPlugin;
+import org.apache.wiki.api.plugin.StatelessPlugin;
 import org.apache.wiki.modules.BaseModuleManager;
 import org.apache.wiki.modules.WikiModuleInfo;
 import org.apache.wiki.preferences.Preferences;
@@ -55,6 +58,10 @@ import java.io.PrintWriter;
 import java.io.StreamTokenizer;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -64,7 +71,9 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Properties;
 import java.util.ResourceBundle;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  *  Manages plugin classes.  There exists a single instance of PluginManager
@@ -153,6 +162,11 @@ import java.util.StringTokenizer;
  *      tree manipulation, though.  The ParserStagePlugin is available from 2.5.30 onwards.</li>
  *  <li>Plugin: The regular kind of plugin which is executed at every rendering stage.  Each
  *      new page load is guaranteed to invoke the plugin, unlike with the ParserStagePlugins.</li>
+ *  <li>CacheablePlugin: If you implement this interface, the output of the execute() method is kept
+ *      in the plugin output cache, and returned instead of invoking the plugin again, until the
+ *      changes to the wiki declared by the plugin invalidate it.</li>
+ *  <li>StatelessPlugin: If you implement this interface, a single instance of your plugin is built
+ *      and used for all invocations, so it must not keep anything in its instance fields.</li>
  *  </ul>
  *
  *  @since 1.6.1
@@ -163,13 +177,22 @@ public class DefaultPluginManager extends BaseModuleManager implements PluginMan
     private static final Logger log = LogManager.getLogger( DefaultPluginManager.class );
     private static final String DEFAULT_FORMS_PACKAGE = "org.apache.wiki.forms";
 
+    /** Maximum number of plugin names remembered as not found, so bogus names on pages can't make the list grow forever. */
+    private static final int MAX_UNRESOLVED_PLUGINS = 1_000;
+
     private final ArrayList< String > m_searchPath = new ArrayList<>();
     private final ArrayList< String > m_externalJars = new ArrayList<>();
     private final Pattern m_pluginPattern;
     private boolean m_pluginsEnabled = true;
 
     /** Keeps a list of all known plugin classes. */
-    private final Map< String, WikiPluginInfo > m_pluginClassMap = new HashMap<>();
+    private final Map< String, WikiPluginInfo > m_pluginClassMap = new ConcurrentHashMap<>();
+
+    /** Plugin names which could not be found in the search path, so they aren't looked up again on each invocation. */
+    private final Set< String > m_unresolvedPlugins = ConcurrentHashMap.newKeySet();
+
+    /** Keeps the output of {@link CacheablePlugin}s. */
+    private final PluginOutputCache m_outputCache;
 
     /**
      *  Create a new PluginManager.
@@ -179,6 +202,7 @@ public class DefaultPluginManager extends BaseModuleManager implements PluginMan
      */
     public DefaultPluginManager( final Engine engine, final Properties props ) {
         super( engine );
+        m_outputCache = new PluginOutputCache( engine );
         final String packageNames = props.getProperty( Engine.PROP_SEARCHPATH );
         if ( packageNames != null ) {
             final StringTokenizer tok = new StringTokenizer( packageNames, "," );
@@ -276,6 +300,9 @@ public class DefaultPluginManager extends BaseModuleManager implements PluginMan
 
             //  ...and launch.
             try {
+                if( plugin instanceof CacheablePlugin ) {
+                    return m_outputCache.execute( plugin, context, params );
+                }
                 return plugin.execute( context, params );
             } catch( final PluginException e ) {
                 if( debug ) {
@@ -435,7 +462,51 @@ public class DefaultPluginManager extends BaseModuleManager implements PluginMan
             m_pluginClassMap.put( name, pluginClass );
         }
 
-        pluginClass.initializePlugin( pluginClass, m_engine, m_searchPath, m_externalJars );
+        // Compatibility doesn't change afterwards, so it is checked once and for all.
+        pluginClass.m_compatible = checkCompatibility( pluginClass );
+        if( pluginClass.m_compatible ) {
+            pluginClass.initializePlugin( pluginClass, m_engine, m_searchPath, m_externalJars );
+        } else {
+            log.info( "Plugin '" + pluginClass.getName() + "' not compatible with this version of JSPWiki" );
+        }
+    }
+
+    /**
+     *  Looks up a plugin not registered yet in the search path, and registers it. Names which can't be found are remembered, so they
+     *  aren't looked up again.
+     *
+     *  @param pluginName the plugin name, as used on the page.
+     *  @return the plugin info.
+     *  @throws ClassNotFoundException if the plugin can't be found.
+     */
+    private synchronized WikiPluginInfo resolvePlugin( final String pluginName ) throws ClassNotFoundException {
+        WikiPluginInfo pluginInfo = m_pluginClassMap.get( pluginName );
+        if( pluginInfo != null ) {
+            return pluginInfo;
+        }
+        if( m_unresolvedPlugins.contains( pluginName ) ) {
+            throw new ClassNotFoundException( "Class '" + pluginName + "' not found in search path!" );
+        }
+
+        final Class< ? > clazz;
+        try {
+            clazz = findPluginClass( pluginName );
+        } catch( final ClassNotFoundException e ) {
+            if( m_unresolvedPlugins.size() >= MAX_UNRESOLVED_PLUGINS ) {
+                m_unresolvedPlugins.clear();
+            }
+            m_unresolvedPlugins.add( pluginName );
+            throw e;
+        }
+
+        // The class may already be known under another name, i.e., when partially qualified.
+        pluginInfo = m_pluginClassMap.get( clazz.getName() );
+        if( pluginInfo == null ) {
+            pluginInfo = WikiPluginInfo.newInstance( clazz );
+            registerPlugin( pluginInfo );
+        }
+        m_pluginClassMap.put( pluginName, pluginInfo );
+        return pluginInfo;
     }
 
     private void registerPlugins() {
@@ -463,9 +534,13 @@ public class DefaultPluginManager extends BaseModuleManager implements PluginMan
         private String    m_className;
         private String    m_alias;
         private String    m_ajaxAlias;
-        private Class< Plugin >  m_clazz;
+        private volatile Class< Plugin >  m_clazz;
+        private volatile MethodHandle m_constructor;
+        private volatile Plugin m_sharedInstance;
+        private volatile Boolean m_sequential;
 
         private boolean m_initialized;
+        private boolean m_compatible = true;
 
         /**
          *  Creates a new plugin info object which can be used to access a plugin.
@@ -572,7 +647,7 @@ public class DefaultPluginManager extends BaseModuleManager implements PluginMan
         }
 
         /**
-         *  Creates a new plugin instance.
+         *  Creates a new plugin instance. {@link StatelessPlugin}s are only built once, later calls return the same instance.
          *
          *  @param searchPath A List of Strings, containing different package names.
          *  @param externalJars the list of external jars to search
@@ -583,11 +658,72 @@ public class DefaultPluginManager extends BaseModuleManager implements PluginMan
          */
 
         public Plugin newPluginInstance( final List< String > searchPath, final List< String > externalJars) throws ReflectiveOperationException {
+            final Plugin shared = m_sharedInstance;
+            if( shared != null ) {
+                return shared;
+            }
             if( m_clazz == null ) {
-                m_clazz = ClassUtil.findClass( searchPath, externalJars ,m_className );
+                final Class< Plugin > clazz = ClassUtil.findClass( searchPath, externalJars ,m_className );
+                m_constructor = findConstructor( clazz );
+                m_sequential = SequentialPlugin.class.isAssignableFrom( clazz );
+                m_clazz = clazz;
             }
 
-            return ClassUtil.buildInstance( m_clazz );
+            final Plugin plugin = buildInstance();
+            if( plugin instanceof StatelessPlugin ) {
+                m_sharedInstance = plugin;
+            }
+            return plugin;
+        }
+
+        /**
+         *  Tells if this plugin is a {@link SequentialPlugin}, without building an instance of it. This is known once the plugin class
+         *  has been loaded, that is, once the plugin has been instantiated for the first time.
+         *
+         *  @return {@code true} if the plugin is sequential, {@code false} if it isn't, {@code null} if its class hasn't been loaded yet.
+         */
+        public Boolean isSequential() {
+            return m_sequential;
+        }
+
+        /**
+         *  Tells if this plugin can be used with this version of JSPWiki.
+         *
+         *  @return {@code true} if the plugin is compatible with this version of JSPWiki.
+         */
+        boolean isCompatible() {
+            return m_compatible;
+        }
+
+        /**
+         *  Looks up the public no-arg constructor of a plugin class as a method handle, which is way cheaper to invoke than going through
+         *  reflection every time.
+         *
+         *  @param clazz the plugin class.
+         *  @return the constructor, or {@code null} if there is no accessible one, so instances must be built the reflective way.
+         */
+        private static MethodHandle findConstructor( final Class< ? > clazz ) {
+            try {
+                return MethodHandles.publicLookup()
+                                    .findConstructor( clazz, MethodType.methodType( void.class ) )
+                                    .asType( MethodType.methodType( Plugin.class ) );
+            } catch( final ReflectiveOperationException | RuntimeException e ) {
+                return null;
+            }
+        }
+
+        private Plugin buildInstance() throws ReflectiveOperationException {
+            final MethodHandle constructor = m_constructor;
+            if( constructor == null ) {
+                return ClassUtil.buildInstance( m_clazz );
+            }
+            try {
+                return ( Plugin )constructor.invokeExact();
+            } catch( final RuntimeException | Error e ) {
+                throw e;
+            } catch( final Throwable t ) {
+                throw new InvocationTargetException( t );
+            }
         }
 
         /**
@@ -693,14 +829,10 @@ public class DefaultPluginManager extends BaseModuleManager implements PluginMan
         WikiPluginInfo pluginInfo = m_pluginClassMap.get( pluginName );
         try {
             if( pluginInfo == null ) {
-                pluginInfo = WikiPluginInfo.newInstance( findPluginClass( pluginName ) );
-                registerPlugin( pluginInfo );
+                pluginInfo = resolvePlugin( pluginName );
             }
 
-            if( !checkCompatibility( pluginInfo ) ) {
-                final String msg = "Plugin '" + pluginInfo.getName() + "' not compatible with this version of JSPWiki";
-                log.info( msg );
-            } else {
+            if( pluginInfo.isCompatible() ) {
                 plugin = pluginInfo.newPluginInstance(m_searchPath, m_externalJars);
             }
         } catch( final ClassNotFoundException e ) {
@@ -31,6 +31,7 @@ import org.apache.oro.text.regex.Perl5Matcher;
 import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.exceptions.PluginException;
 import org.apache.wiki.api.plugin.Plugin;
+import org.apache.wiki.api.plugin.StatelessPlugin;
 import org.apache.wiki.util.TextUtil;
 
 import javax.servlet.http.HttpServletRequest;
@@ -55,7 +56,7 @@ import java.util.Properties;
  *
  *  @since 2.1.40.
  */
-public class Denounce implements Plugin {
+public class Denounce implements Plugin, StatelessPlugin {
 
     private static final Logger log = LogManager.getLogger( Denounce.class );
 
@@ -23,6 +23,7 @@ import org.apache.wiki.api.core.ContextEnum;
 import org.apache.wiki.api.core.Engine;
 import org.apache.wiki.api.exceptions.PluginException;
 import org.apache.wiki.api.plugin.Plugin;
+import org.apache.wiki.api.plugin.StatelessPlugin;
 import org.apache.wiki.auth.authorize.GroupManager;
 import org.apache.wiki.url.URLConstructor;
 import org.apache.wiki.util.comparators.PrincipalComparator;
@@ -41,7 +42,7 @@ import java.util.Map;
  *
  *  @since 2.4.19
  */
-public class Groups implements Plugin {
+public class Groups implements Plugin, StatelessPlugin {
 
     private static final Comparator<Principal> COMPARATOR = new PrincipalComparator();
     
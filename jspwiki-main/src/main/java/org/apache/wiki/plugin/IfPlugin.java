@@ -29,6 +29,7 @@ import org.apache.oro.text.regex.Perl5Matcher;
 import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.exceptions.PluginException;
 import org.apache.wiki.api.plugin.Plugin;
+import org.apache.wiki.api.plugin.StatelessPlugin;
 import org.apache.wiki.api.providers.WikiProvider;
 import org.apache.wiki.auth.AuthorizationManager;
 import org.apache.wiki.pages.PageManager;
@@ -114,7 +115,7 @@ import java.util.Map;
  *
  *  @since 2.6
  */
-public class IfPlugin implements Plugin {
+public class IfPlugin implements Plugin, StatelessPlugin {
 
     /** The parameter name for setting the group to check.  Value is <tt>{@value}</tt>. */
     public static final String PARAM_GROUP    = "group";
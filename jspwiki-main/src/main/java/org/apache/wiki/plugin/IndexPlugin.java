@@ -26,6 +26,7 @@ import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.core.ContextEnum;
 import org.apache.wiki.api.exceptions.PluginException;
 import org.apache.wiki.api.exceptions.ProviderException;
+import org.apache.wiki.api.plugin.CacheablePlugin;
 import org.apache.wiki.api.plugin.Plugin;
 import org.apache.wiki.pages.PageManager;
 import org.apache.wiki.references.ReferenceManager;
@@ -57,12 +58,28 @@ import java.util.regex.Pattern;
  *  
  * @author Ichiro Furusato
  */
-public class IndexPlugin extends AbstractReferralPlugin implements Plugin {
+public class IndexPlugin extends AbstractReferralPlugin implements Plugin, CacheablePlugin {
 
     private static final Logger log = LogManager.getLogger(IndexPlugin.class);
 
     private final Namespace xmlns_XHTML = Namespace.getNamespace("http://www.w3.org/1999/xhtml");
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Invalidation getInvalidation() {
+        return Invalidation.ANY_PAGE_CHANGE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isPageSpecific() {
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -25,6 +25,7 @@ import org.apache.wiki.api.core.Page;
 import org.apache.wiki.api.exceptions.PluginException;
 import org.apache.wiki.api.exceptions.ProviderException;
 import org.apache.wiki.api.plugin.Plugin;
+import org.apache.wiki.api.plugin.StatelessPlugin;
 import org.apache.wiki.auth.AuthorizationManager;
 import org.apache.wiki.auth.permissions.PermissionFactory;
 import org.apache.wiki.pages.PageManager;
@@ -54,7 +55,7 @@ import java.util.ResourceBundle;
  *
  *  @since 2.1.37
  */
-public class InsertPage implements Plugin {
+public class InsertPage implements Plugin, StatelessPlugin {
 
     /** Parameter name for setting the page.  Value is <tt>{@value}</tt>. */
     public static final String PARAM_PAGENAME  = "page";
@@ -153,6 +154,8 @@ public class InsertPage implements Plugin {
                 }
 
                 // move here, after premature exit points (permissions, page-cookie)
+                // work on a copy, the list may be shared with other plugins executing concurrently on a clone of this context
+                previousIncludes = new ArrayList<>( previousIncludes );
                 previousIncludes.add( page.getName() );
                 context.setVariable( ATTR_RECURSE, previousIncludes );
 
@@ -21,6 +21,7 @@ package org.apache.wiki.plugin;
 import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.exceptions.PluginException;
 import org.apache.wiki.api.plugin.Plugin;
+import org.apache.wiki.api.plugin.StatelessPlugin;
 import org.apache.wiki.pages.PageLock;
 import org.apache.wiki.pages.PageManager;
 import org.apache.wiki.preferences.Preferences;
@@ -36,7 +37,7 @@ import java.util.ResourceBundle;
  *   NONE
  *  @since 2.0.22.
  */
-public class ListLocksPlugin implements Plugin {
+public class ListLocksPlugin implements Plugin, StatelessPlugin {
 
     /**
      *  {@inheritDoc}
@@ -25,6 +25,7 @@ import org.apache.wiki.api.core.ContextEnum;
 import org.apache.wiki.api.core.Engine;
 import org.apache.wiki.api.exceptions.PluginException;
 import org.apache.wiki.api.plugin.Plugin;
+import org.apache.wiki.api.plugin.StatelessPlugin;
 import org.apache.wiki.ui.TemplateManager;
 import org.apache.wiki.util.TextUtil;
 
@@ -47,7 +48,7 @@ import java.util.Map;
  *  </ul>
  *  
  */
-public class Note implements Plugin {
+public class Note implements Plugin, StatelessPlugin {
 
     /** Property name for setting the image for the note.  Value is <tt>{@value}</tt>. */
     public static final String PROP_NOTE_IMAGE    = "notePlugin.imageName";
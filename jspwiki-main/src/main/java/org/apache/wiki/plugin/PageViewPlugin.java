@@ -39,26 +39,35 @@ import org.apache.wiki.api.plugin.Plugin;
 import org.apache.wiki.event.WikiEngineEvent;
 import org.apache.wiki.event.WikiEvent;
 import org.apache.wiki.event.WikiEventListener;
+import org.apache.wiki.event.WikiEventManager;
 import org.apache.wiki.event.WikiPageEvent;
 import org.apache.wiki.event.WikiPageRenameEvent;
 import org.apache.wiki.references.ReferenceManager;
 import org.apache.wiki.render.RenderingManager;
 import org.apache.wiki.util.TextUtil;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.text.MessageFormat;
 import java.util.Collection;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
-import java.util.TreeMap;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
 
 
 /**
@@ -129,6 +138,9 @@ public class PageViewPlugin extends AbstractReferralPlugin implements Plugin, In
     /** Constant for storage interval in seconds. */
     private static final int STORAGE_INTERVAL = 60;
 
+    /** Below this number of entries, the counter file is only appended to. */
+    private static final int MIN_STORED_ENTRIES = 1_000;
+
     /**
      * Initialize the PageViewPlugin and its singleton.
      * 
@@ -170,19 +182,33 @@ public class PageViewPlugin extends AbstractReferralPlugin implements Plugin, In
 
     /**
      * Page view manager, handling all storage.
+     * <p>
+     * Page hits are counted without taking any lock: each page has its own striped counter, and pages whose counter changed are
+     * queued for the next store and for the ranking by count. The store appends only the changed counters to the counter file,
+     * which is rewritten as a whole once appended entries outnumber the pages. The ranking by count is kept sorted and only the
+     * pages hit since the last listing are moved within it, so listings sorted by count don't need to sort all counters.
      */
     public final class PageViewManager implements WikiEventListener {
         /** Are we initialized? */
         private boolean m_initialized;
 
-        /** The page counters. */
-        private Map<String, Counter> m_counters;
+        /** The page counters, sorted by page name. */
+        private volatile ConcurrentSkipListMap< String, Counter > m_counters;
+
+        /** Pages whose counter changed, or was removed, since the counters were last stored. */
+        private final Set< String > m_unsaved = ConcurrentHashMap.newKeySet();
+
+        /** Pages whose counter changed, or was removed, since the ranking was last updated. */
+        private final Set< String > m_unranked = ConcurrentHashMap.newKeySet();
+
+        /** The page counters sorted on descending count, guarded by itself. */
+        private final TreeSet< Rank > m_ranking = new TreeSet<>();
 
-        /** The page counters in storage format. */
-        private Properties m_storage;
+        /** The current rank of each page in {@link #m_ranking}. */
+        private final Map< String, Rank > m_ranks = new HashMap<>();
 
-        /** Are all changes stored? */
-        private boolean m_dirty;
+        /** Number of entries held by the counter file. */
+        private int m_storedEntries;
 
         /** The page count storage background thread. */
         private Thread m_pageCountSaveThread;
@@ -190,13 +216,6 @@ public class PageViewPlugin extends AbstractReferralPlugin implements Plugin, In
         /** The work directory. */
         private String m_workDir;
 
-        /** Comparator for descending sort on page count. */
-        private final Comparator< Object > m_compareCountDescending = ( o1, o2 ) -> {
-            final int v1 = getCount( o1 );
-            final int v2 = getCount( o2 );
-            return ( v1 == v2 ) ? ( ( String )o1 ).compareTo( ( String )o2 ) : ( v1 < v2 ) ? 1 : -1;
-        };
-
         /**
          * Initialize the page view manager.
          * 
@@ -205,11 +224,11 @@ public class PageViewPlugin extends AbstractReferralPlugin implements Plugin, In
         public synchronized void initialize( final Engine engine ) {
             log.info( "initializing PageView Manager" );
             m_workDir = engine.getWorkDir();
-            engine.addWikiEventListener( this );
+            // storing the counters may take a while, so it's done in the background; WikiEventManager.shutdown() waits for it
+            WikiEventManager.addWikiEventListener( engine, this, true );
             if( m_counters == null ) {
                 // Load the counters into a collection
-                m_storage = new Properties();
-                m_counters = new TreeMap<>();
+                m_counters = new ConcurrentSkipListMap<>();
 
                 loadCounters();
             }
@@ -232,15 +251,16 @@ public class PageViewPlugin extends AbstractReferralPlugin implements Plugin, In
             cleanup();
 
             if( m_counters != null ) {
-
-                m_dirty = true;
                 storeCounters();
 
                 m_counters.clear();
                 m_counters = null;
-
-                m_storage.clear();
-                m_storage = null;
+                m_unsaved.clear();
+                m_unranked.clear();
+                synchronized( m_ranking ) {
+                    m_ranking.clear();
+                    m_ranks.clear();
+                }
             }
 
             m_initialized = false;
@@ -255,29 +275,58 @@ public class PageViewPlugin extends AbstractReferralPlugin implements Plugin, In
          */
         @Override
         public void actionPerformed( final WikiEvent event ) {
+            final Map< String, Counter > counters = m_counters;
             if( event instanceof WikiEngineEvent ) {
                 if( event.getType() == WikiEngineEvent.SHUTDOWN ) {
                     log.info( "Detected wiki engine shutdown" );
                     handleShutdown();
                 }
+            } else if( counters == null ) {
+                // already shut down
             } else if( ( event instanceof WikiPageRenameEvent ) && ( event.getType() == WikiPageRenameEvent.PAGE_RENAMED ) ) {
                 final String oldPageName = ( ( WikiPageRenameEvent )event ).getOldPageName();
                 final String newPageName = ( ( WikiPageRenameEvent )event ).getNewPageName();
-                final Counter oldCounter = m_counters.get( oldPageName );
+                final Counter oldCounter = counters.remove( oldPageName );
                 if( oldCounter != null ) {
-                    m_storage.remove( oldPageName );
-                    m_counters.put( newPageName, oldCounter );
-                    m_storage.setProperty( newPageName, oldCounter.toString() );
-                    m_counters.remove( oldPageName );
-                    m_dirty = true;
+                    counters.put( newPageName, oldCounter );
+                    changed( oldPageName );
+                    changed( newPageName );
                 }
             } else if( ( event instanceof WikiPageEvent ) && ( event.getType() == WikiPageEvent.PAGE_DELETED ) ) {
                 final String pageName = ( ( WikiPageEvent )event ).getPageName();
-                m_storage.remove( pageName );
-                m_counters.remove( pageName );
+                if( counters.remove( pageName ) != null ) {
+                    changed( pageName );
+                }
             }
         }
 
+        /**
+         * Queues a page for the next store and ranking update, once per change.
+         *
+         * @param pagename the page name.
+         * @param counter its counter.
+         */
+        private void changed( final String pagename, final Counter counter ) {
+            if( !counter.m_unsaved ) {
+                counter.m_unsaved = true;
+                m_unsaved.add( pagename );
+            }
+            if( !counter.m_unranked ) {
+                counter.m_unranked = true;
+                m_unranked.add( pagename );
+            }
+        }
+
+        /**
+         * Queues a page whose counter was added or removed for the next store and ranking update.
+         *
+         * @param pagename the page name.
+         */
+        private void changed( final String pagename ) {
+            m_unsaved.add( pagename );
+            m_unranked.add( pagename );
+        }
+
         /**
          * Count a page hit, present a pages' counter or output a list of page counts.
          * 
@@ -289,9 +338,10 @@ public class PageViewPlugin extends AbstractReferralPlugin implements Plugin, In
         public String execute( final Context context, final Map< String, String > params ) throws PluginException {
             final Engine engine = context.getEngine();
             final Page page = context.getPage();
+            final ConcurrentSkipListMap< String, Counter > counters = m_counters;
             String result = STR_EMPTY;
 
-            if( page != null ) {
+            if( page != null && counters != null ) {
                 // get parameters
                 final String pagename = page.getName();
                 String count = params.get( PARAM_COUNT );
@@ -319,89 +369,61 @@ public class PageViewPlugin extends AbstractReferralPlugin implements Plugin, In
                     increment = true;
                 }
 
-                // filter on referring pages?
-                Collection< String > referrers = null;
+                Counter counter = counters.get( pagename );
 
-                if( refer != null ) {
-                    final ReferenceManager refManager = engine.getManager( ReferenceManager.class );
-                    for( final String name : refManager.findCreated() ) {
-                        boolean use = false;
-                        for( int n = 0; !use && n < refer.length; n++ ) {
-                            use = matcher.matches( name, refer[ n ] );
-                        }
-
-                        if( use ) {
-                            final Collection< String > refs = engine.getManager( ReferenceManager.class ).findReferrers( name );
-                            if( refs != null && !refs.isEmpty() ) {
-                                if( referrers == null ) {
-                                    referrers = new HashSet<>();
-                                }
-                                referrers.addAll( refs );
-                            }
-                        }
+                // only count in view mode
+                if( increment && ContextEnum.PAGE_VIEW.getRequestContext().equalsIgnoreCase( context.getRequestContext() ) ) {
+                    if( counter == null ) {
+                        counter = counters.computeIfAbsent( pagename, k -> new Counter() );
                     }
+                    counter.increment();
+                    changed( pagename, counter );
                 }
 
-                synchronized( this ) {
-                    Counter counter = m_counters.get( pagename );
+                if( show == null || STR_NONE.equals( show ) ) {
+                    // nothing to show
 
-                    // only count in view mode, keep storage values in sync
-                    if( increment && ContextEnum.PAGE_VIEW.getRequestContext().equalsIgnoreCase( context.getRequestContext() ) ) {
-                        if( counter == null ) {
-                            counter = new Counter();
-                            m_counters.put( pagename, counter );
+                } else if( PARAM_COUNT.equals( show ) ) {
+                    // show page count
+                    if( counter == null ) {
+                        counter = counters.computeIfAbsent( pagename, k -> new Counter() );
+                        changed( pagename, counter );
+                    }
+                    result = counter.toString();
+
+                } else if( body != null && 0 < body.length() && STR_LIST.equals( show ) ) {
+                    // show list of counts
+                    String header = STR_EMPTY;
+                    String line = body;
+                    String footer = STR_EMPTY;
+                    int start = body.indexOf( STR_SEPARATOR );
+
+                    // split body into header, line, footer on ---- separator
+                    if( 0 < start ) {
+                        header = body.substring( 0, start );
+                        start = skipWhitespace( start + STR_SEPARATOR.length(), body );
+                        int end = body.indexOf( STR_SEPARATOR, start );
+                        if( start >= end ) {
+                            line = body.substring( start );
+                        } else {
+                            line = body.substring( start, end );
+                            end = skipWhitespace( end + STR_SEPARATOR.length(), body );
+                            footer = body.substring( end );
                         }
-                        counter.increment();
-                        m_storage.setProperty( pagename, counter.toString() );
-                        m_dirty = true;
                     }
 
-                    if( show == null || STR_NONE.equals( show ) ) {
-                        // nothing to show
+                    // filter on referring pages? only needed when listing
+                    final Collection< String > referrers = refer != null ? findReferrers( engine, refer, matcher ) : null;
 
-                    } else if( PARAM_COUNT.equals( show ) ) {
-                        // show page count
-                        if( counter == null ) {
-                            counter = new Counter();
-                            m_counters.put( pagename, counter );
-                            m_storage.setProperty( pagename, counter.toString() );
-                            m_dirty = true;
-                        }
-                        result = counter.toString();
-
-                    } else if( body != null && 0 < body.length() && STR_LIST.equals( show ) ) {
-                        // show list of counts
-                        String header = STR_EMPTY;
-                        String line = body;
-                        String footer = STR_EMPTY;
-                        int start = body.indexOf( STR_SEPARATOR );
-
-                        // split body into header, line, footer on ---- separator
-                        if( 0 < start ) {
-                            header = body.substring( 0, start );
-                            start = skipWhitespace( start + STR_SEPARATOR.length(), body );
-                            int end = body.indexOf( STR_SEPARATOR, start );
-                            if( start >= end ) {
-                                line = body.substring( start );
-                            } else {
-                                line = body.substring( start, end );
-                                end = skipWhitespace( end + STR_SEPARATOR.length(), body );
-                                footer = body.substring( end );
-                            }
-                        }
+                    // build a messagebuffer with the list in wiki markup
+                    final StringBuffer buf = new StringBuffer( header );
+                    final MessageFormat fmt = new MessageFormat( line );
+                    final Object[] args = new Object[] { pagename, STR_EMPTY, STR_EMPTY };
 
-                        // sort on name or count?
-                        Map< String, Counter > sorted = m_counters;
-                        if( PARAM_COUNT.equals( sort ) ) {
-                            sorted = new TreeMap<>( m_compareCountDescending );
-                            sorted.putAll( m_counters );
-                        }
-
-                        // build a messagebuffer with the list in wiki markup
-                        final StringBuffer buf = new StringBuffer( header );
-                        final MessageFormat fmt = new MessageFormat( line );
-                        final Object[] args = new Object[] { pagename, STR_EMPTY, STR_EMPTY };
-                        final Iterator< Entry< String, Counter > > iter = sorted.entrySet().iterator();
+                    // sort on name or count? the ranking is walked in place, under its lock, so only the listed pages are visited
+                    final boolean byCount = PARAM_COUNT.equals( sort );
+                    synchronized( byCount ? m_ranking : new Object() ) {
+                        final Iterator< ? extends Entry< String, Counter > > iter = byCount ? rankByCount() : counters.entrySet().iterator();
 
                         while( 0 < entries && iter.hasNext() ) {
                             final Entry< String, Counter > entry = iter.next();
@@ -441,16 +463,76 @@ public class PageViewPlugin extends AbstractReferralPlugin implements Plugin, In
                                 entries--;
                             }
                         }
-                        buf.append( footer );
-
-                        // let the engine render the list
-                        result = engine.getManager( RenderingManager.class ).textToHTML( context, buf.toString() );
                     }
+                    buf.append( footer );
+
+                    // let the engine render the list
+                    result = engine.getManager( RenderingManager.class ).textToHTML( context, buf.toString() );
                 }
             }
             return result;
         }
 
+        /**
+         * Collect the pages referring to the existing pages matching the given patterns.
+         *
+         * @param engine The wiki engine.
+         * @param refer Patterns of the referred pages.
+         * @param matcher Matcher to use with the patterns.
+         * @return The referring pages, or <code>null</code> if there are none.
+         */
+        private Collection< String > findReferrers( final Engine engine, final Pattern[] refer, final PatternMatcher matcher ) {
+            Collection< String > referrers = null;
+            final ReferenceManager refManager = engine.getManager( ReferenceManager.class );
+            for( final String name : refManager.findCreated() ) {
+                boolean use = false;
+                for( int n = 0; !use && n < refer.length; n++ ) {
+                    use = matcher.matches( name, refer[ n ] );
+                }
+
+                if( use ) {
+                    final Collection< String > refs = refManager.findReferrers( name );
+                    if( refs != null && !refs.isEmpty() ) {
+                        if( referrers == null ) {
+                            referrers = new HashSet<>();
+                        }
+                        referrers.addAll( refs );
+                    }
+                }
+            }
+            return referrers;
+        }
+
+        /**
+         * Brings the ranking up to date, moving only the pages hit since the last update, and returns it. The caller has to hold the
+         * lock on {@link #m_ranking} for as long as it uses the returned iterator.
+         *
+         * @return Iterator over the page counters, on descending count.
+         */
+        private Iterator< Rank > rankByCount() {
+            synchronized( m_ranking ) {
+                for( final Iterator< String > i = m_unranked.iterator(); i.hasNext(); ) {
+                    final String name = i.next();
+                    i.remove();
+
+                    final Rank old = m_ranks.remove( name );
+                    if( old != null ) {
+                        m_ranking.remove( old );
+                    }
+
+                    final Map< String, Counter > counters = m_counters;
+                    final Counter counter = counters != null ? counters.get( name ) : null;
+                    if( counter != null ) {
+                        counter.m_unranked = false;
+                        final Rank rank = new Rank( name, counter );
+                        m_ranking.add( rank );
+                        m_ranks.put( name, rank );
+                    }
+                }
+                return m_ranking.iterator();
+            }
+        }
+
         /**
          * Compile regexp parameter.
          * 
@@ -493,54 +575,88 @@ public class PageViewPlugin extends AbstractReferralPlugin implements Plugin, In
         }
 
         /**
-         * Retrieve a page count.
-         * 
-         * @return int The page count for the given key.
-         * @param key the key for the Counter
-         */
-        int getCount( final Object key )
-        {
-            return m_counters.get( key ).getValue();
-        }
-
-        /**
-         * Load the page view counters from file.
+         * Load the page view counters from file. Later entries of a page override the earlier ones, and an empty value marks
+         * a removed counter.
          */
         private void loadCounters() {
-            if( m_counters != null && m_storage != null ) {
+            if( m_counters != null ) {
                 log.info( "Loading counters." );
                 synchronized( this ) {
+                    final Properties storage = new Properties();
                     try( final InputStream fis = Files.newInputStream( new File( m_workDir, COUNTER_PAGE ).toPath() ) ) {
-                        m_storage.load( fis );
+                        storage.load( fis );
                     } catch( final IOException ioe ) {
                         log.error( "Can't load page counter store: " + ioe.getMessage() + " , will create a new one!" );
                     }
 
                     // Copy the collection into a sorted map
-                    for( final Entry< ?, ? > entry : m_storage.entrySet() ) {
-                        m_counters.put( ( String )entry.getKey(), new Counter( ( String )entry.getValue() ) );
+                    for( final Entry< ?, ? > entry : storage.entrySet() ) {
+                        if( !STR_EMPTY.equals( entry.getValue() ) ) {
+                            m_counters.put( ( String )entry.getKey(), new Counter( ( String )entry.getValue() ) );
+                            m_unranked.add( ( String )entry.getKey() );
+                        }
                     }
-                    
+                    m_storedEntries = storage.size();
+
                     log.info( "Loaded " + m_counters.size() + " counter values." );
                 }
             }
         }
 
         /**
-         * Save the page view counters to file.
+         * Save the changed page view counters to file.
          */
         void storeCounters() {
-            if( m_counters != null && m_storage != null && m_dirty ) {
-                log.info( "Storing " + m_counters.size() + " counter values." );
+            final Map< String, Counter > counters = m_counters;
+            if( counters != null && !m_unsaved.isEmpty() ) {
                 synchronized( this ) {
-                    // Write out the collection of counters
-                    try( final OutputStream fos = Files.newOutputStream( new File( m_workDir, COUNTER_PAGE ).toPath() ) ) {
-                        m_storage.store( fos, "\n# The number of times each page has been viewed.\n# Do not modify.\n" );
-                        fos.flush();
+                    final Properties changed = new Properties();
+                    for( final Iterator< String > i = m_unsaved.iterator(); i.hasNext(); ) {
+                        final String name = i.next();
+                        i.remove();
+
+                        // clear the flag before reading the value, so hits counted meanwhile are queued again
+                        final Counter counter = counters.get( name );
+                        if( counter != null ) {
+                            counter.m_unsaved = false;
+                            changed.setProperty( name, counter.toString() );
+                        } else {
+                            changed.setProperty( name, STR_EMPTY );
+                        }
+                    }
+                    if( changed.isEmpty() ) {
+                        return;
+                    }
 
-                        m_dirty = false;
+                    final File file = new File( m_workDir, COUNTER_PAGE );
+                    try {
+                        if( !file.exists() || m_storedEntries + changed.size() > Math.max( 2 * counters.size(), MIN_STORED_ENTRIES ) ) {
+                            log.info( "Storing " + counters.size() + " counter values." );
+                            final Properties storage = new Properties();
+                            for( final Entry< String, Counter > entry : counters.entrySet() ) {
+                                storage.setProperty( entry.getKey(), entry.getValue().toString() );
+                            }
+                            final File tmp = new File( m_workDir, COUNTER_PAGE + ".tmp" );
+                            try( final OutputStream fos = Files.newOutputStream( tmp.toPath() ) ) {
+                                storage.store( fos, "\n# The number of times each page has been viewed.\n# Do not modify.\n" );
+                            }
+                            Files.move( tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+                            m_storedEntries = storage.size();
+                        } else {
+                            log.debug( "Storing " + changed.size() + " changed counter values." );
+                            // store() always starts with a timestamp comment, which is left out of the appended entries
+                            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                            changed.store( bytes, null );
+                            final String lines = new String( bytes.toByteArray(), StandardCharsets.ISO_8859_1 );
+                            Files.write( file.toPath(), lines.substring( lines.indexOf( '\n' ) + 1 ).getBytes( StandardCharsets.ISO_8859_1 ),
+                                         StandardOpenOption.APPEND );
+                            m_storedEntries += changed.size();
+                        }
                     } catch( final IOException ioe ) {
                         log.error( "Couldn't store counters values: " + ioe.getMessage() );
+                        for( final String name : changed.stringPropertyNames() ) {
+                            m_unsaved.add( name );
+                        }
                     }
                 }
             }
@@ -562,8 +678,14 @@ public class PageViewPlugin extends AbstractReferralPlugin implements Plugin, In
     /** Counter for page hits collection. */
     private static final class Counter {
 
-        /** The count value. */
-        private int m_count;
+        /** The count value, striped so concurrent hits on the same page don't contend. */
+        private final LongAdder m_count = new LongAdder();
+
+        /** Whether the page is queued for the next store. */
+        private volatile boolean m_unsaved;
+
+        /** Whether the page is queued for the next ranking update. */
+        private volatile boolean m_unranked;
 
         /**
          * Create a new counter.
@@ -578,7 +700,7 @@ public class PageViewPlugin extends AbstractReferralPlugin implements Plugin, In
          */
         public Counter( final String value )
         {
-            setValue( value );
+            m_count.add( NumberUtils.toInt( value ) );
         }
 
         /**
@@ -586,7 +708,7 @@ public class PageViewPlugin extends AbstractReferralPlugin implements Plugin, In
          */
         public void increment()
         {
-            m_count++;
+            m_count.increment();
         }
 
         /**
@@ -596,17 +718,7 @@ public class PageViewPlugin extends AbstractReferralPlugin implements Plugin, In
          */
         public int getValue()
         {
-            return m_count;
-        }
-
-        /**
-         * Set the count value.
-         * 
-         * @param value String representation of the count.
-         */
-        public void setValue( final String value )
-        {
-            m_count = NumberUtils.toInt( value );
+            return m_count.intValue();
         }
 
         /**
@@ -615,7 +727,53 @@ public class PageViewPlugin extends AbstractReferralPlugin implements Plugin, In
         @Override
         public String toString()
         {
-            return String.valueOf( m_count );
+            return String.valueOf( getValue() );
+        }
+
+    }
+
+    /** Position of a page in the ranking by count, holding the count the page had when it was ranked. */
+    private static final class Rank implements Entry< String, Counter >, Comparable< Rank > {
+
+        private final String m_name;
+        private final Counter m_counter;
+        private final int m_count;
+
+        Rank( final String name, final Counter counter ) {
+            m_name = name;
+            m_counter = counter;
+            m_count = counter.getValue();
+        }
+
+        @Override
+        public String getKey() {
+            return m_name;
+        }
+
+        @Override
+        public Counter getValue() {
+            return m_counter;
+        }
+
+        @Override
+        public Counter setValue( final Counter value ) {
+            throw new UnsupportedOperationException();
+        }
+
+        /** Descending on count, then ascending on name. */
+        @Override
+        public int compareTo( final Rank other ) {
+            return ( m_count == other.m_count ) ? m_name.compareTo( other.m_name ) : ( m_count < other.m_count ) ? 1 : -1;
+        }
+
+        @Override
+        public boolean equals( final Object o ) {
+            return o instanceof Rank && compareTo( ( Rank )o ) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return m_name.hashCode() * 31 + m_count;
         }
 
     }
@@ -0,0 +1,227 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.plugin;
+
+import org.apache.wiki.api.core.Context;
+import org.apache.wiki.api.core.Engine;
+import org.apache.wiki.api.core.Session;
+import org.apache.wiki.api.exceptions.PluginException;
+import org.apache.wiki.api.plugin.CacheablePlugin;
+import org.apache.wiki.api.plugin.Plugin;
+import org.apache.wiki.attachment.AttachmentManager;
+import org.apache.wiki.cache.CachingManager;
+import org.apache.wiki.content.PageRenamer;
+import org.apache.wiki.event.WikiEvent;
+import org.apache.wiki.event.WikiEventListener;
+import org.apache.wiki.event.WikiEventManager;
+import org.apache.wiki.event.WikiPageEvent;
+import org.apache.wiki.event.WikiPageRenameEvent;
+import org.apache.wiki.filters.FilterManager;
+import org.apache.wiki.pages.PageManager;
+import org.apache.wiki.preferences.Preferences;
+
+import java.io.Serializable;
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ *  Keeps the output of {@link CacheablePlugin}s in the {@link CachingManager#CACHE_PLUGINS} cache.
+ *  <p>
+ *  Every page or attachment save, deletion or rename bumps a change counter. Cached outputs remember the value of the counter when the plugin
+ *  started executing, and are checked against it when looked up: outputs of {@link CacheablePlugin.Invalidation#ANY_PAGE_CHANGE}
+ *  plugins are stale as soon as the counter has moved, those of {@link CacheablePlugin.Invalidation#REFERENCED_PAGES} plugins only
+ *  when one of their pages has changed since. Stale outputs are simply left to the cache eviction policy.
+ */
+final class PluginOutputCache implements WikiEventListener {
+
+    private static final char SEPARATOR = '\u0000';
+
+    private final Engine m_engine;
+    private final AtomicLong m_generation = new AtomicLong();
+    private final Map< String, Long > m_pageGenerations = new ConcurrentHashMap<>();
+    private volatile boolean m_listening;
+
+    PluginOutputCache( final Engine engine ) {
+        m_engine = engine;
+    }
+
+    /**
+     *  Returns the cached output of a plugin, executing it if there's none or if it has been invalidated.
+     *
+     *  @param plugin the plugin, expected to implement {@link CacheablePlugin}.
+     *  @param context the wiki context the plugin is invoked from.
+     *  @param params the parameters of the plugin.
+     *  @return the plugin output.
+     *  @throws PluginException if the plugin fails.
+     */
+    String execute( final Plugin plugin, final Context context, final Map< String, String > params ) throws PluginException {
+        final CachingManager cachingManager = m_engine.getManager( CachingManager.class );
+        if( cachingManager == null || !cachingManager.enabled( CachingManager.CACHE_PLUGINS ) || !listenToPageChanges() ) {
+            return plugin.execute( context, params );
+        }
+
+        final CacheablePlugin cacheable = ( CacheablePlugin )plugin;
+        final String key = key( plugin, cacheable, context, params );
+        final CachedOutput cached = cachingManager.get( CachingManager.CACHE_PLUGINS, key, () -> null );
+        if( cached != null && isValid( cacheable.getInvalidation(), cached ) ) {
+            return cached.m_output;
+        }
+
+        final long generation = m_generation.get();
+        final String output = plugin.execute( context, params );
+        if( output != null ) {
+            final Set< String > pages = cacheable.getInvalidation() == CacheablePlugin.Invalidation.REFERENCED_PAGES
+                                        ? new HashSet<>( cacheable.getReferencedPages( context, params ) )
+                                        : null;
+            final long expires = cacheable.getTimeToLive() > 0 ? System.currentTimeMillis() + cacheable.getTimeToLive() * 1_000L : 0L;
+            cachingManager.put( CachingManager.CACHE_PLUGINS, key, new CachedOutput( output, generation, pages, expires ) );
+        }
+        return output;
+    }
+
+    private String key( final Plugin plugin, final CacheablePlugin cacheable, final Context context, final Map< String, String > params ) {
+        final StringBuilder sb = new StringBuilder( plugin.getClass().getName() ).append( SEPARATOR );
+        if( cacheable.isPageSpecific() ) {
+            sb.append( context.getPage().getName() );
+        }
+        sb.append( SEPARATOR ).append( Preferences.getLocale( context ) )
+          .append( SEPARATOR ).append( Preferences.getPreference( context, "DateFormat" ) )
+          .append( SEPARATOR ).append( Preferences.getPreference( context, "TimeZone" ) ).append( SEPARATOR );
+
+        final Session session = context.getWikiSession();
+        if( session != null ) {
+            if( session.isAuthenticated() ) {
+                sb.append( session.getUserPrincipal().getName() );
+            }
+            final String[] roles = Arrays.stream( session.getRoles() ).map( Principal::getName ).sorted().toArray( String[]::new );
+            sb.append( SEPARATOR ).append( String.join( ",", roles ) );
+        }
+
+        // the location of the plugin on the page doesn't change its output
+        final Map< String, String > sorted = new TreeMap<>( params );
+        sorted.remove( PluginManager.PARAM_BOUNDS );
+        for( final Map.Entry< String, String > param : sorted.entrySet() ) {
+            sb.append( SEPARATOR ).append( param.getKey() ).append( '=' ).append( param.getValue() );
+        }
+        return sb.append( SEPARATOR ).append( cacheable.getCacheKey( context, params ) ).toString();
+    }
+
+    private boolean isValid( final CacheablePlugin.Invalidation invalidation, final CachedOutput cached ) {
+        if( cached.m_expires > 0L && cached.m_expires < System.currentTimeMillis() ) {
+            return false;
+        }
+        switch( invalidation ) {
+            case ANY_PAGE_CHANGE:
+                return cached.m_generation == m_generation.get();
+            case REFERENCED_PAGES:
+                if( cached.m_pages == null ) {
+                    return false;
+                }
+                for( final String page : cached.m_pages ) {
+                    final Long changed = m_pageGenerations.get( page );
+                    if( changed != null && changed > cached.m_generation ) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     *  Registers for the events invalidating the cached outputs, once the managers firing them are available.
+     *
+     *  @return {@code true} if page changes are being listened to, so outputs can be cached.
+     */
+    private boolean listenToPageChanges() {
+        if( !m_listening ) {
+            synchronized( this ) {
+                final PageManager pageManager = m_engine.getManager( PageManager.class );
+                final FilterManager filterManager = m_engine.getManager( FilterManager.class );
+                final PageRenamer pageRenamer = m_engine.getManager( PageRenamer.class );
+                final AttachmentManager attachmentManager = m_engine.getManager( AttachmentManager.class );
+                if( !m_listening && pageManager != null && filterManager != null && pageRenamer != null && attachmentManager != null ) {
+                    WikiEventManager.addWikiEventListener( pageManager, this );
+                    WikiEventManager.addWikiEventListener( filterManager, this );
+                    WikiEventManager.addWikiEventListener( pageRenamer, this );
+                    WikiEventManager.addWikiEventListener( attachmentManager, this );
+                    m_listening = true;
+                }
+            }
+        }
+        return m_listening;
+    }
+
+    /**
+     *  Records a change of a page, invalidating the outputs computed before it.
+     *
+     *  @param pageName page name.
+     */
+    private void changed( final String pageName ) {
+        m_pageGenerations.put( pageName, m_generation.incrementAndGet() );
+    }
+
+    /**
+     *  Invalidates cached outputs whenever a page is saved, deleted or renamed.
+     *
+     *  @param event the event.
+     */
+    @Override
+    public void actionPerformed( final WikiEvent event ) {
+        if( event instanceof WikiPageRenameEvent ) {
+            changed( ( ( WikiPageRenameEvent )event ).getOldPageName() );
+            changed( ( ( WikiPageRenameEvent )event ).getNewPageName() );
+        } else if( event instanceof WikiPageEvent ) {
+            final int type = event.getType();
+            if( type == WikiPageEvent.POST_SAVE_END || type == WikiPageEvent.PAGE_DELETED ) {
+                changed( ( ( WikiPageEvent )event ).getPageName() );
+            }
+        }
+    }
+
+    /**
+     *  Output of a plugin, along with what's needed to tell if it is still valid.
+     */
+    private static final class CachedOutput implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String m_output;
+        private final long m_generation;
+        private final Set< String > m_pages;
+        private final long m_expires;
+
+        CachedOutput( final String output, final long generation, final Set< String > pages, final long expires ) {
+            m_output = output;
+            m_generation = generation;
+            m_pages = pages;
+            m_expires = expires;
+        }
+
+    }
+
+}
@@ -27,6 +27,7 @@ import org.apache.wiki.api.core.ContextEnum;
 import org.apache.wiki.api.core.Engine;
 import org.apache.wiki.api.core.Page;
 import org.apache.wiki.api.exceptions.PluginException;
+import org.apache.wiki.api.plugin.CacheablePlugin;
 import org.apache.wiki.api.plugin.Plugin;
 import org.apache.wiki.attachment.Attachment;
 import org.apache.wiki.i18n.InternationalizationManager;
@@ -59,7 +60,7 @@ import java.util.Map;
  *  <li><b>dateFormat</b> - the date format to use, the default is "dd.MM.yyyy"</li>
  *  </ul>
  */
-public class RecentChangesPlugin extends AbstractReferralPlugin implements Plugin {
+public class RecentChangesPlugin extends AbstractReferralPlugin implements Plugin, CacheablePlugin {
 	
     private static final Logger log = LogManager.getLogger( RecentChangesPlugin.class );
     
@@ -76,6 +77,31 @@ public class RecentChangesPlugin extends AbstractReferralPlugin implements Plugi
     public static final String DEFAULT_DATE_FORMAT ="dd.MM.yyyy";
 
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Invalidation getInvalidation() {
+        return Invalidation.ANY_PAGE_CHANGE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isPageSpecific() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getTimeToLive() {
+        // changes older than the "since" parameter have to go away as days go by
+        return 60 * 60;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -104,8 +130,7 @@ public class RecentChangesPlugin extends AbstractReferralPlugin implements Plugi
 
         log.debug("Calculating recent changes from "+sincedate.getTime());
 
-        // FIXME: Should really have a since date on the getRecentChanges method.
-        Collection< Page > changes = engine.getManager( PageManager.class ).getRecentChanges();
+        Collection< Page > changes = engine.getManager( PageManager.class ).getRecentChanges( sincedate.getTime(), 0 );
         super.initialize( context, params );
         changes = filterWikiPageCollection( changes );
         
@@ -20,6 +20,7 @@ package org.apache.wiki.plugin;
 
 import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.exceptions.PluginException;
+import org.apache.wiki.api.plugin.CacheablePlugin;
 import org.apache.wiki.api.plugin.Plugin;
 import org.apache.wiki.preferences.Preferences;
 import org.apache.wiki.references.ReferenceManager;
@@ -37,7 +38,7 @@ import java.util.TreeMap;
  *
  *  @since 2.10.0
  */
-public class ReferringUndefinedPagesPlugin extends AbstractReferralPlugin {
+public class ReferringUndefinedPagesPlugin extends AbstractReferralPlugin implements CacheablePlugin {
 
     /** Parameter name for setting the maximum items to show.  Value is <tt>{@value}</tt>. */
     public static final String PARAM_MAX = "max";
@@ -45,6 +46,22 @@ public class ReferringUndefinedPagesPlugin extends AbstractReferralPlugin {
     /** Parameter name for setting the text to show when the maximum items is overruled. Value is <tt>{@value}</tt>. */
     public static final String PARAM_EXTRAS = "extras";
 
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public Invalidation getInvalidation() {
+        return Invalidation.ANY_PAGE_CHANGE;
+    }
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public boolean isPageSpecific() {
+        return false;
+    }
+
     @Override
     public String execute( final Context context, final Map<String, String> params) throws PluginException {
         final ResourceBundle rb = Preferences.getBundle(context, Plugin.CORE_PLUGINS_RESOURCEBUNDLE);
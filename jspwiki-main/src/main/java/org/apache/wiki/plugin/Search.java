@@ -26,6 +26,8 @@ import org.apache.wiki.api.core.Engine;
 import org.apache.wiki.api.exceptions.PluginException;
 import org.apache.wiki.api.exceptions.ProviderException;
 import org.apache.wiki.api.plugin.Plugin;
+import org.apache.wiki.api.plugin.SequentialPlugin;
+import org.apache.wiki.api.plugin.StatelessPlugin;
 import org.apache.wiki.api.search.SearchResult;
 import org.apache.wiki.render.RenderingManager;
 import org.apache.wiki.search.SearchManager;
@@ -50,7 +52,7 @@ import java.util.Map;
  *
  *  @since
  */
-public class Search implements Plugin {
+public class Search implements Plugin, SequentialPlugin, StatelessPlugin {
 
     private static final Logger log = LogManager.getLogger(Search.class);
 
@@ -22,6 +22,7 @@ import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.core.Engine;
 import org.apache.wiki.api.exceptions.PluginException;
 import org.apache.wiki.api.plugin.Plugin;
+import org.apache.wiki.api.plugin.StatelessPlugin;
 import org.apache.wiki.auth.SessionMonitor;
 import org.apache.wiki.util.TextUtil;
 
@@ -43,7 +44,7 @@ import java.util.Map;
  *  </ul>
  *  @since 2.3.84
  */
-public class SessionsPlugin implements Plugin {
+public class SessionsPlugin implements Plugin, StatelessPlugin {
 
     /** The parameter name for setting the property value. */
     public static final String PARAM_PROP = "property";
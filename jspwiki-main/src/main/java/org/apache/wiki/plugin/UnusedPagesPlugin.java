@@ -20,6 +20,7 @@ package org.apache.wiki.plugin;
 
 import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.exceptions.PluginException;
+import org.apache.wiki.api.plugin.CacheablePlugin;
 import org.apache.wiki.references.ReferenceManager;
 import org.apache.wiki.util.TextUtil;
 
@@ -36,11 +37,27 @@ import java.util.Map;
  * <li><b> maxwidth</b> - maximum width, in chars, of generated links.</li>
  * </ul>
  */
-public class UnusedPagesPlugin extends AbstractReferralPlugin {
+public class UnusedPagesPlugin extends AbstractReferralPlugin implements CacheablePlugin {
 
     /** If set to "true", attachments are excluded from display.  Value is {@value}. */
     public static final String PARAM_EXCLUDEATTS = "excludeattachments";
 
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public Invalidation getInvalidation() {
+        return Invalidation.ANY_PAGE_CHANGE;
+    }
+
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public boolean isPageSpecific() {
+        return false;
+    }
+
     /**
      *  {@inheritDoc}
      */
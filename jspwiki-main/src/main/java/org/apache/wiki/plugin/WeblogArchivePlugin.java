@@ -23,6 +23,7 @@ import org.apache.wiki.api.core.ContextEnum;
 import org.apache.wiki.api.core.Engine;
 import org.apache.wiki.api.core.Page;
 import org.apache.wiki.api.exceptions.PluginException;
+import org.apache.wiki.api.plugin.CacheablePlugin;
 import org.apache.wiki.api.plugin.Plugin;
 import org.apache.wiki.util.TextUtil;
 
@@ -46,13 +47,21 @@ import java.util.TreeSet;
  *
  *  @since 1.9.21
  */
-public class WeblogArchivePlugin implements Plugin {
+public class WeblogArchivePlugin implements Plugin, CacheablePlugin {
 
     /** Parameter name for setting the page.  Value is <tt>{@value}</tt>. */
     public static final String PARAM_PAGE = "page";
 
     private SimpleDateFormat m_monthUrlFormat;
 
+    /**
+     *  {@inheritDoc}
+     */
+    @Override
+    public Invalidation getInvalidation() {
+        return Invalidation.ANY_PAGE_CHANGE;
+    }
+
     /**
      *  {@inheritDoc}
      */
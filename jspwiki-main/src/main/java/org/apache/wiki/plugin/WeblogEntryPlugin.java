@@ -27,6 +27,7 @@ import org.apache.wiki.api.core.Page;
 import org.apache.wiki.api.exceptions.PluginException;
 import org.apache.wiki.api.exceptions.ProviderException;
 import org.apache.wiki.api.plugin.Plugin;
+import org.apache.wiki.api.plugin.StatelessPlugin;
 import org.apache.wiki.api.spi.Wiki;
 import org.apache.wiki.pages.PageLock;
 import org.apache.wiki.pages.PageManager;
@@ -50,7 +51,7 @@ import java.util.ResourceBundle;
  *
  * @since 1.9.21
  */
-public class WeblogEntryPlugin implements Plugin {
+public class WeblogEntryPlugin implements Plugin, StatelessPlugin {
 
     private static final Logger log = LogManager.getLogger(WeblogEntryPlugin.class);
     private static final int MAX_BLOG_ENTRIES = 10_000; // Just a precaution.
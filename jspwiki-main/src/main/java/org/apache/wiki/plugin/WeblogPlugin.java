@@ -29,6 +29,7 @@ import org.apache.wiki.api.exceptions.ProviderException;
 import org.apache.wiki.api.plugin.ParserStagePlugin;
 import org.apache.wiki.api.plugin.Plugin;
 import org.apache.wiki.api.plugin.PluginElement;
+import org.apache.wiki.api.plugin.StatelessPlugin;
 import org.apache.wiki.api.providers.WikiProvider;
 import org.apache.wiki.auth.AuthorizationManager;
 import org.apache.wiki.auth.permissions.PagePermission;
@@ -85,7 +86,7 @@ import java.util.regex.Pattern;
 // FIXME: Add "entries" param as an alternative to "days".
 // FIXME: Entries arrive in wrong order.
 
-public class WeblogPlugin implements Plugin, ParserStagePlugin {
+public class WeblogPlugin implements Plugin, ParserStagePlugin, StatelessPlugin {
 
     private static final Logger log = LogManager.getLogger(WeblogPlugin.class);
     private static final Pattern HEADINGPATTERN;
@@ -48,6 +48,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -105,8 +106,13 @@ public abstract class AbstractFileProvider implements PageProvider {
     /** The default encoding. */
     public static final String DEFAULT_ENCODING = StandardCharsets.ISO_8859_1.toString();
 
+    /** Name of the file keeping the journal of page changes, in the page directory. */
+    public static final String CHANGE_JOURNAL = "pages.journal";
+
     private boolean m_windowsHackNeeded;
 
+    private ChangeJournal m_changes;
+
     /**
      *  {@inheritDoc}
      *  @throws FileNotFoundException If the specified page directory does not exist.
@@ -144,6 +150,8 @@ public abstract class AbstractFileProvider implements PageProvider {
         MAX_PROPKEYLENGTH = TextUtil.getIntegerProperty( properties, PROP_CUSTOMPROP_MAXKEYLENGTH, DEFAULT_MAX_PROPKEYLENGTH );
         MAX_PROPVALUELENGTH = TextUtil.getIntegerProperty( properties, PROP_CUSTOMPROP_MAXVALUELENGTH, DEFAULT_MAX_PROPVALUELENGTH );
 
+        m_changes = new ChangeJournal( new File( m_pageDirectory, CHANGE_JOURNAL ), this::scanPages );
+
         log.info( "Wikipages are read from '" + m_pageDirectory + "'" );
     }
 
@@ -153,6 +161,29 @@ public abstract class AbstractFileProvider implements PageProvider {
         return m_pageDirectory;
     }
 
+    /**
+     *  Returns the journal where page changes must be recorded.
+     *
+     *  @return the journal of page changes.
+     */
+    ChangeJournal getChangeJournal() {
+        return m_changes;
+    }
+
+    /** Returns the last modification time of every page file, used to rebuild the change journal. */
+    private Map< String, Long > scanPages() throws ProviderException {
+        final File[] wikipages = new File( m_pageDirectory ).listFiles( new WikiFileFilter() );
+        if( wikipages == null ) {
+            throw new ProviderException( "Page directory does not exist" );
+        }
+        final Map< String, Long > pages = new HashMap<>();
+        for( final File wikipage : wikipages ) {
+            final String wikiname = wikipage.getName();
+            pages.put( unmangleName( wikiname.substring( 0, wikiname.lastIndexOf( FILE_EXT ) ) ), wikipage.lastModified() );
+        }
+        return pages;
+    }
+
     private static final String[] WINDOWS_DEVICE_NAMES = {
         "con", "prn", "nul", "aux", "lpt1", "lpt2", "lpt3", "lpt4", "lpt5", "lpt6", "lpt7", "lpt8", "lpt9",
         "com1", "com2", "com3", "com4", "com5", "com6", "com7", "com8", "com9"
@@ -274,6 +305,7 @@ public abstract class AbstractFileProvider implements PageProvider {
         } catch( final IOException e ) {
             log.error( "Saving failed", e );
         }
+        m_changes.written( page.getName() );
     }
 
     /**
@@ -309,15 +341,24 @@ public abstract class AbstractFileProvider implements PageProvider {
     }
 
     /**
-     *  Does not work.
-     *
-     *  @param date {@inheritDoc}
-     *  @return {@inheritDoc}
+     *  {@inheritDoc}
+     *  <p>
+     *  Pages are looked up in the change journal, so only the pages changed since the given date are read.
      */
     @Override
-    public Collection< Page > getAllChangedSince( final Date date )
-    {
-        return new ArrayList<>(); // FIXME
+    public Collection< Page > getAllChangedSince( final Date date ) {
+        final List< Page > changed = new ArrayList<>();
+        for( final String name : m_changes.changedSince( date.getTime() ) ) {
+            try {
+                final Page page = getPageInfo( name, PageProvider.LATEST_VERSION );
+                if( page != null && page.getLastModified() != null && page.getLastModified().after( date ) ) {
+                    changed.add( page );
+                }
+            } catch( final ProviderException e ) {
+                log.warn( "Unable to read changed page " + name + ": " + e.getMessage() );
+            }
+        }
+        return changed;
     }
 
     /**
@@ -411,6 +452,7 @@ public abstract class AbstractFileProvider implements PageProvider {
         if( version == WikiProvider.LATEST_VERSION ) {
             final File f = findPage( pageName );
             f.delete();
+            m_changes.versionDeleted( pageName );
         }
     }
 
@@ -421,6 +463,7 @@ public abstract class AbstractFileProvider implements PageProvider {
     public void deletePage( final String pageName ) throws ProviderException {
         final File f = findPage( pageName );
         f.delete();
+        m_changes.deleted( pageName );
     }
 
     /**
@@ -43,7 +43,9 @@ import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -101,8 +103,13 @@ public class BasicAttachmentProvider implements AttachmentProvider {
     /** The default extension for the attachment directory. */
     public static final String ATTDIR_EXTENSION = "-dir";
     
+    /** Name of the file keeping the journal of attachment changes, in the attachment storage directory. */
+    public static final String CHANGE_JOURNAL = "attachments.journal";
+
     private static final Logger log = LogManager.getLogger( BasicAttachmentProvider.class );
 
+    private ChangeJournal m_changes;
+
     /**
      *  {@inheritDoc}
      */
@@ -135,6 +142,8 @@ public class BasicAttachmentProvider implements AttachmentProvider {
         if( !f.isDirectory() ) {
             throw new IOException( "Your attachment storage points to a file, not a directory: '" + m_storageDir + "'" );
         }
+
+        m_changes = new ChangeJournal( new File( m_storageDir, CHANGE_JOURNAL ), this::scanAttachments );
     }
 
     /**
@@ -298,6 +307,7 @@ public class BasicAttachmentProvider implements AttachmentProvider {
             log.error( "Could not save attachment data: ", e );
             throw (IOException) e.fillInStackTrace();
         }
+        m_changes.written( att.getName() );
     }
 
     /**
@@ -400,18 +410,38 @@ public class BasicAttachmentProvider implements AttachmentProvider {
 
     /**
      *  {@inheritDoc}
+     *  <p>
+     *  Attachments are looked up in the change journal, so only the attachments changed since the given date are read.
      */
-    // FIXME: Very unoptimized.
     @Override
     public List< Attachment > listAllChanged( final Date timestamp ) throws ProviderException {
+        final ArrayList< Attachment > list = new ArrayList<>();
+        for( final String name : m_changes.changedSince( timestamp.getTime() ) ) {
+            final int cutpoint = name.lastIndexOf( '/' );
+            if( cutpoint == -1 ) {
+                continue;
+            }
+            final Page page = Wiki.contents().page( m_engine, name.substring( 0, cutpoint ) );
+            final Attachment att = getAttachmentInfo( page, name.substring( cutpoint + 1 ), WikiProvider.LATEST_VERSION );
+            if( att != null && att.getLastModified() != null && att.getLastModified().after( timestamp ) ) {
+                list.add( att );
+            }
+        }
+
+        list.sort( new PageTimeComparator() );
+
+        return list;
+    }
+
+    /** Returns the last modification time of every attachment, used to rebuild the change journal. */
+    private Map< String, Long > scanAttachments() throws ProviderException {
         final File attDir = new File( m_storageDir );
         if( !attDir.exists() ) {
             throw new ProviderException( "Specified attachment directory " + m_storageDir + " does not exist!" );
         }
 
-        final ArrayList< Attachment > list = new ArrayList<>();
+        final Map< String, Long > attachments = new HashMap<>();
         final String[] pagesWithAttachments = attDir.list( new AttachmentFilter() );
-
         if( pagesWithAttachments != null ) {
             for( final String pagesWithAttachment : pagesWithAttachments ) {
                 String pageId = unmangleName( pagesWithAttachment );
@@ -419,16 +449,11 @@ public class BasicAttachmentProvider implements AttachmentProvider {
 
                 final Collection< Attachment > c = listAttachments( Wiki.contents().page( m_engine, pageId ) );
                 for( final Attachment att : c ) {
-                    if( att.getLastModified().after( timestamp ) ) {
-                        list.add( att );
-                    }
+                    attachments.put( att.getName(), att.getLastModified().getTime() );
                 }
             }
         }
-
-        list.sort( new PageTimeComparator() );
-
-        return list;
+        return attachments;
     }
 
     /**
@@ -523,6 +548,7 @@ public class BasicAttachmentProvider implements AttachmentProvider {
             file.delete();
         }
         dir.delete();
+        m_changes.deleted( att.getName() );
     }
 
     /**
@@ -569,6 +595,7 @@ public class BasicAttachmentProvider implements AttachmentProvider {
         } else {
             // destDir.getParentFile().mkdir();
             srcDir.renameTo( destDir );
+            m_changes.moved( oldParent, newParent );
         }
     }
 
@@ -43,7 +43,9 @@ import java.util.Date;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Properties;
+import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -52,6 +54,11 @@ import java.util.TreeSet;
  *  <p>
  *  This class does not detect if someone has modified the page externally, not through JSPWiki routines.
  *  <p>
+ *  Once all pages have been listed, which the engine does on startup, the names of all pages are kept in memory and updated on every
+ *  save, deletion and move, so {@link #pageExists(String)} answers from memory, whether the page exists or not. Rendering a page full
+ *  of links to nonexistent pages thus no longer hits the real provider for every link. Pages found by other means, such as added
+ *  externally and then fetched by name, are added to the names as well.
+ *  <p>
  *  Heavily based on ideas by Chris Brooking.
  *  <p>
  *  Since 2.10 uses the Ehcache library.
@@ -69,6 +76,12 @@ public class CachingProvider implements PageProvider {
     // FIXME: This MUST be cached somehow.
     private boolean m_gotall;
 
+    /** Names of all pages, {@code null} until all pages have been listed. */
+    private volatile Set< String > m_pageNames;
+
+    /** Number of changes made to the pages, guarded by this object. */
+    private long m_changes;
+
     /**
      *  {@inheritDoc}
      */
@@ -103,7 +116,14 @@ public class CachingProvider implements PageProvider {
         if( name == null ) {
             return null;
         }
-        return cachingManager.get( CachingManager.CACHE_PAGES, name, () -> m_provider.getPageInfo( name, PageProvider.LATEST_VERSION ) );
+        return cachingManager.get( CachingManager.CACHE_PAGES, name, () -> {
+            final Page page = m_provider.getPageInfo( name, PageProvider.LATEST_VERSION );
+            final Set< String > names = m_pageNames;
+            if( page != null && names != null ) {
+                names.add( name );
+            }
+            return page;
+        } );
     }
 
 
@@ -115,6 +135,10 @@ public class CachingProvider implements PageProvider {
         if( pageName == null ) {
             return false;
         }
+        final Set< String > names = m_pageNames;
+        if( names != null && !names.contains( pageName ) ) {
+            return false;
+        }
 
         final Page p;
         try {
@@ -149,6 +173,10 @@ public class CachingProvider implements PageProvider {
         if( pageName == null ) {
             return false;
         }
+        final Set< String > names = m_pageNames;
+        if( names != null ) {
+            return names.contains( pageName );
+        }
 
         final Page p;
         try {
@@ -205,8 +233,9 @@ public class CachingProvider implements PageProvider {
             return null;
         }
 
+        // asks the page info rather than pageExists(), so pages added externally are still found when fetched by name
         return cachingManager.get( CachingManager.CACHE_PAGES_TEXT, pageName, () -> {
-            if( pageExists( pageName ) ) {
+            if( getPageInfoFromCache( pageName ) != null ) {
                 return m_provider.getPageText( pageName, PageProvider.LATEST_VERSION );
             }
             return null;
@@ -226,6 +255,7 @@ public class CachingProvider implements PageProvider {
             cachingManager.remove( CachingManager.CACHE_PAGES, page.getName() );
             cachingManager.remove( CachingManager.CACHE_PAGES_TEXT, page.getName() );
             cachingManager.remove( CachingManager.CACHE_PAGES_HISTORY, page.getName() );
+            pageAdded( page.getName() );
 
             getPageInfoFromCache( page.getName() );
         }
@@ -238,6 +268,10 @@ public class CachingProvider implements PageProvider {
     public Collection< Page > getAllPages() throws ProviderException {
         final Collection< Page > all;
         if ( !m_gotall ) {
+            final long changes;
+            synchronized( this ) {
+                changes = m_changes;
+            }
             all = m_provider.getAllPages();
             // Make sure that all pages are in the cache.
             synchronized( this ) {
@@ -245,6 +279,15 @@ public class CachingProvider implements PageProvider {
                     cachingManager.put( CachingManager.CACHE_PAGES,  p.getName(), p );
                 }
                 m_gotall = true;
+
+                // unless a page changed meanwhile, in which case the listing may be stale
+                if( m_pageNames == null && changes == m_changes ) {
+                    final Set< String > names = ConcurrentHashMap.newKeySet( all.size() );
+                    for( final Page p : all ) {
+                        names.add( p.getName() );
+                    }
+                    m_pageNames = names;
+                }
             }
         } else {
             final List< String > keys = cachingManager.keys( CachingManager.CACHE_PAGES );
@@ -373,6 +416,9 @@ public class CachingProvider implements PageProvider {
 
             m_provider.deleteVersion( pageName, version );
             cachingManager.remove( CachingManager.CACHE_PAGES_HISTORY, pageName );
+            if( !m_provider.pageExists( pageName ) ) {
+                pageRemoved( pageName );
+            }
         }
     }
 
@@ -387,6 +433,7 @@ public class CachingProvider implements PageProvider {
             cachingManager.put( CachingManager.CACHE_PAGES_TEXT, pageName, null );
             cachingManager.put( CachingManager.CACHE_PAGES_HISTORY, pageName, null );
             m_provider.deletePage( pageName );
+            pageRemoved( pageName );
         }
     }
 
@@ -405,6 +452,26 @@ public class CachingProvider implements PageProvider {
             cachingManager.remove( CachingManager.CACHE_PAGES, to );
             cachingManager.remove( CachingManager.CACHE_PAGES_TEXT, to );
             cachingManager.remove( CachingManager.CACHE_PAGES_HISTORY, to );
+            pageRemoved( from );
+            pageAdded( to );
+        }
+    }
+
+    /** Records a page was created or modified. Must be called while holding the lock on this object. */
+    private void pageAdded( final String pageName ) {
+        m_changes++;
+        final Set< String > names = m_pageNames;
+        if( names != null ) {
+            names.add( pageName );
+        }
+    }
+
+    /** Records a page was removed. Must be called while holding the lock on this object. */
+    private void pageRemoved( final String pageName ) {
+        m_changes++;
+        final Set< String > names = m_pageNames;
+        if( names != null ) {
+            names.remove( pageName );
         }
     }
 
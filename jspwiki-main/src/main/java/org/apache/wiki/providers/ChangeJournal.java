@@ -0,0 +1,343 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.providers;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.wiki.api.exceptions.ProviderException;
+import org.apache.wiki.util.TextUtil;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ *  Append-only journal of the changes made to a file based repository, used by the file providers to answer "what changed since"
+ *  queries without scanning the whole repository. It consists of a single file, with one line per change:
+ *  <PRE>
+ *    time W name        - a version of name has been written.
+ *    time V name        - a version of name has been deleted.
+ *    time D name        - name has been deleted.
+ *    time R name target - name has been renamed to target.
+ *    time M name target - everything under "name/" has been moved under "target/".
+ *  </PRE>
+ *  Names are URL encoded, and times never decrease from one line to the next, so the changes since a given time are found with a
+ *  binary search on the loaded records, and cost as much as the number of changes made since then.
+ *  <P>
+ *  If the journal file is missing or unreadable, it is rebuilt from the repository contents, as given by a {@link Scanner}. Once it
+ *  holds too many superseded records, it is rewritten with a single record per name. If the journal file is modified behind the
+ *  instance's back (by another instance working on the same repository, f.ex.) it is loaded again.
+ *  <P>
+ *  Access to the file is synchronized on the instance, the providers are expected to keep a single instance per repository.
+ */
+final class ChangeJournal {
+
+    /** Obtains the last modification time of everything in the repository, in order to rebuild the journal. */
+    @FunctionalInterface
+    interface Scanner {
+
+        /**
+         *  Scans the repository.
+         *
+         *  @return the last modification time of every name in the repository.
+         *  @throws ProviderException if the repository could not be scanned.
+         */
+        Map< String, Long > scan() throws ProviderException;
+
+    }
+
+    private static final Logger LOG = LogManager.getLogger( ChangeJournal.class );
+
+    private static final char WRITTEN = 'W';
+    private static final char VERSION_DELETED = 'V';
+    private static final char DELETED = 'D';
+    private static final char RENAMED = 'R';
+    private static final char MOVED = 'M';
+
+    /** Superseded records allowed in the journal file, on top of the ones doubling its size since the last rewrite. */
+    private static final int COMPACTION_SLACK = 1_000;
+
+    private final File m_file;
+    private final Scanner m_scanner;
+    private final List< Record > m_records = new ArrayList<>();
+    private int m_compactedSize;
+    private long m_lastModified;
+    private long m_length;
+
+    ChangeJournal( final File file, final Scanner scanner ) {
+        m_file = file;
+        m_scanner = scanner;
+        load();
+    }
+
+    /**
+     *  Records a new version of a name.
+     *
+     *  @param name page or attachment name.
+     */
+    synchronized void written( final String name ) {
+        append( WRITTEN, name, null );
+    }
+
+    /**
+     *  Records the removal of a single version of a name.
+     *
+     *  @param name page or attachment name.
+     */
+    synchronized void versionDeleted( final String name ) {
+        append( VERSION_DELETED, name, null );
+    }
+
+    /**
+     *  Records the removal of a name.
+     *
+     *  @param name page or attachment name.
+     */
+    synchronized void deleted( final String name ) {
+        append( DELETED, name, null );
+    }
+
+    /**
+     *  Records the rename of a name.
+     *
+     *  @param name old name.
+     *  @param target new name.
+     */
+    synchronized void renamed( final String name, final String target ) {
+        append( RENAMED, name, target );
+    }
+
+    /**
+     *  Records the move of all the names starting with {@code name + "/"}, like the attachments of a renamed page.
+     *
+     *  @param name old parent name.
+     *  @param target new parent name.
+     */
+    synchronized void moved( final String name, final String target ) {
+        append( MOVED, name, target );
+    }
+
+    /**
+     *  Returns the names changed at, or after, the given time, which are still present in the repository.
+     *
+     *  @param time milliseconds since the epoch.
+     *  @return changed names, most recently changed first.
+     */
+    synchronized List< String > changedSince( final long time ) {
+        if( isStale() ) {
+            load();
+        }
+        final Map< String, Long > changed = replay( firstRecordAt( time ) );
+        final List< Map.Entry< String, Long > > entries = new ArrayList<>( changed.entrySet() );
+        entries.sort( ( e1, e2 ) -> Long.compare( e2.getValue(), e1.getValue() ) );
+        final List< String > names = new ArrayList<>( entries.size() );
+        for( final Map.Entry< String, Long > entry : entries ) {
+            names.add( entry.getKey() );
+        }
+        return names;
+    }
+
+    private boolean isStale() {
+        return m_file.lastModified() != m_lastModified || m_file.length() != m_length;
+    }
+
+    /** Index of the first record whose time is not before the given one. */
+    private int firstRecordAt( final long time ) {
+        int low = 0;
+        int high = m_records.size();
+        while( low < high ) {
+            final int mid = ( low + high ) >>> 1;
+            if( m_records.get( mid ).m_time < time ) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Applies the records from the given index on, returning the time of the last change of every name still present. */
+    private Map< String, Long > replay( final int from ) {
+        final Map< String, Long > changed = new HashMap<>();
+        for( int i = from; i < m_records.size(); i++ ) {
+            final Record record = m_records.get( i );
+            switch( record.m_op ) {
+                case WRITTEN:
+                case VERSION_DELETED:
+                    changed.put( record.m_name, record.m_time );
+                    break;
+                case DELETED:
+                    changed.remove( record.m_name );
+                    break;
+                case RENAMED:
+                    changed.remove( record.m_name );
+                    changed.put( record.m_target, record.m_time );
+                    break;
+                case MOVED:
+                    final String prefix = record.m_name + "/";
+                    final Map< String, Long > moved = new HashMap<>();
+                    for( final Iterator< Map.Entry< String, Long > > it = changed.entrySet().iterator(); it.hasNext(); ) {
+                        final Map.Entry< String, Long > entry = it.next();
+                        if( entry.getKey().startsWith( prefix ) ) {
+                            moved.put( record.m_target + "/" + entry.getKey().substring( prefix.length() ), entry.getValue() );
+                            it.remove();
+                        }
+                    }
+                    changed.putAll( moved );
+                    break;
+                default:
+                    break;
+            }
+        }
+        return changed;
+    }
+
+    private void append( final char op, final String name, final String target ) {
+        if( isStale() ) {
+            load();
+        }
+        final long last = m_records.isEmpty() ? 0L : m_records.get( m_records.size() - 1 ).m_time;
+        final Record record = new Record( Math.max( last, System.currentTimeMillis() ), op, name, target );
+        m_records.add( record );
+        try( final Writer out = Files.newBufferedWriter( m_file.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND ) ) {
+            out.write( record.toLine() );
+        } catch( final IOException e ) {
+            // a missing journal gets rebuilt from the repository, whereas an incomplete one would go unnoticed
+            LOG.warn( "Unable to write change journal {}, it will be rebuilt: {}", m_file.getAbsolutePath(), e.getMessage() );
+            m_file.delete();
+            m_lastModified = -1L;
+            return;
+        }
+        m_lastModified = m_file.lastModified();
+        m_length = m_file.length();
+
+        if( m_records.size() > 2 * m_compactedSize + COMPACTION_SLACK ) {
+            final Map< String, Long > live = replay( 0 );
+            final List< Record > records = new ArrayList<>( live.size() );
+            for( final Map.Entry< String, Long > entry : live.entrySet() ) {
+                records.add( new Record( entry.getValue(), WRITTEN, entry.getKey(), null ) );
+            }
+            rewrite( records );
+        }
+    }
+
+    private void load() {
+        m_records.clear();
+        if( m_file.exists() ) {
+            m_lastModified = m_file.lastModified();
+            m_length = m_file.length();
+            try( final BufferedReader in = Files.newBufferedReader( m_file.toPath(), StandardCharsets.UTF_8 ) ) {
+                String line;
+                while( ( line = in.readLine() ) != null ) {
+                    final String[] fields = line.trim().split( " " );
+                    if( fields.length < 3 || fields[ 1 ].length() != 1 ) {
+                        continue;
+                    }
+                    final Record record = new Record( Long.parseLong( fields[ 0 ] ),
+                                                      fields[ 1 ].charAt( 0 ),
+                                                      TextUtil.urlDecodeUTF8( fields[ 2 ] ),
+                                                      fields.length > 3 ? TextUtil.urlDecodeUTF8( fields[ 3 ] ) : null );
+                    if( !m_records.isEmpty() && record.m_time < m_records.get( m_records.size() - 1 ).m_time ) {
+                        throw new IOException( "Change journal is not ordered by time" );
+                    }
+                    m_records.add( record );
+                }
+                m_compactedSize = m_records.size();
+                return;
+            } catch( final IOException | RuntimeException e ) {
+                LOG.warn( "Corrupted change journal {}, rebuilding it: {}", m_file.getAbsolutePath(), e.getMessage() );
+                m_records.clear();
+            }
+        }
+        rebuild();
+    }
+
+    private void rebuild() {
+        final List< Record > records = new ArrayList<>();
+        try {
+            for( final Map.Entry< String, Long > entry : m_scanner.scan().entrySet() ) {
+                records.add( new Record( entry.getValue(), WRITTEN, entry.getKey(), null ) );
+            }
+        } catch( final ProviderException e ) {
+            // try again on next access, instead of persisting an incomplete journal
+            LOG.warn( "Unable to scan repository to rebuild change journal {}: {}", m_file.getAbsolutePath(), e.getMessage() );
+            m_compactedSize = 0;
+            m_lastModified = -1L;
+            return;
+        }
+        LOG.info( "Rebuilt change journal {} with {} entries", m_file.getAbsolutePath(), records.size() );
+        rewrite( records );
+    }
+
+    /** Replaces the records and the journal file contents with the given, time ordered, records. */
+    private void rewrite( final List< Record > records ) {
+        records.sort( ( r1, r2 ) -> Long.compare( r1.m_time, r2.m_time ) );
+        m_records.clear();
+        m_records.addAll( records );
+        m_compactedSize = records.size();
+
+        final File tmp = new File( m_file.getParentFile(), m_file.getName() + ".tmp" );
+        try {
+            try( final Writer out = Files.newBufferedWriter( tmp.toPath(), StandardCharsets.UTF_8 ) ) {
+                for( final Record record : records ) {
+                    out.write( record.toLine() );
+                }
+            }
+            Files.move( tmp.toPath(), m_file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        } catch( final IOException e ) {
+            LOG.warn( "Unable to write change journal {}: {}", m_file.getAbsolutePath(), e.getMessage() );
+            tmp.delete();
+        }
+        m_lastModified = m_file.lastModified();
+        m_length = m_file.length();
+    }
+
+    /**
+     *  A journal line.
+     */
+    private static final class Record {
+        final long m_time;
+        final char m_op;
+        final String m_name;
+        final String m_target;
+
+        Record( final long time, final char op, final String name, final String target ) {
+            m_time = time;
+            m_op = op;
+            m_name = name;
+            m_target = target;
+        }
+
+        String toLine() {
+            return m_time + " " + m_op + " " + TextUtil.urlEncodeUTF8( m_name ) + ( m_target != null ? " " + TextUtil.urlEncodeUTF8( m_target ) : "" ) + "\n";
+        }
+    }
+
+}
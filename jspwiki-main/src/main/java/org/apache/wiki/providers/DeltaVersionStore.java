@@ -0,0 +1,341 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.providers;
+
+import org.suigeneris.jrcs.diff.Diff;
+import org.suigeneris.jrcs.diff.DifferentiationFailedException;
+import org.suigeneris.jrcs.diff.Revision;
+import org.suigeneris.jrcs.diff.delta.Chunk;
+import org.suigeneris.jrcs.diff.delta.Delta;
+import org.suigeneris.jrcs.diff.myers.MyersDiff;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ *  Storage of the old versions of a single page used by the {@link VersioningFileProvider} in delta mode. It lives in the page's
+ *  directory under "OLD" and consists of two files:
+ *  <PRE>
+ *    versions.dat - append-only pack with the stored revisions, one record after the other.
+ *    versions.idx - append-only index, one line per stored revision: "version F|D offset length lastModified",
+ *                   or "version -" for a removed revision. Later lines override earlier ones.
+ *  </PRE>
+ *  A revision is either stored in full ("F"), or as a reverse delta ("D"), which turns the text of the next version into the text
+ *  of this one. The text of a version is thus rebuilt by starting on the next full revision (or the current page text) and applying
+ *  the deltas found in between.
+ *  <P>
+ *  Access to the files is synchronized on the instance, the provider is expected to keep a single instance per page at a time.
+ */
+final class DeltaVersionStore {
+
+    /** Name of the index file. */
+    static final String INDEX_FILE = "versions.idx";
+
+    /** Name of the pack file. */
+    static final String DATA_FILE = "versions.dat";
+
+    private static final String FULL = "F";
+    private static final String DELTA = "D";
+    private static final String REMOVED = "-";
+
+    private final File m_indexFile;
+    private final File m_dataFile;
+    private final Map< Integer, Entry > m_entries = new TreeMap<>();
+    private long m_indexLastModified;
+    private long m_indexLength;
+
+    DeltaVersionStore( final File pageDir ) throws IOException {
+        m_indexFile = new File( pageDir, INDEX_FILE );
+        m_dataFile = new File( pageDir, DATA_FILE );
+        load();
+    }
+
+    /**
+     *  Tells if a store has been created in the given page directory.
+     *
+     *  @param pageDir page directory under "OLD".
+     *  @return {@code true} if there's an index file in the given directory.
+     */
+    static boolean exists( final File pageDir ) {
+        return new File( pageDir, INDEX_FILE ).exists();
+    }
+
+    /**
+     *  Tells if the index file has been modified since it was loaded by this instance.
+     *
+     *  @return {@code true} if the index file changed behind this instance's back.
+     */
+    synchronized boolean isStale() {
+        // a single stat, as this is checked every time the provider reuses the store
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes( m_indexFile.toPath(), BasicFileAttributes.class );
+            return attributes.lastModifiedTime().toMillis() != m_indexLastModified || attributes.size() != m_indexLength;
+        } catch( final IOException e ) {
+            return true;
+        }
+    }
+
+    /**
+     *  Returns the stored revision of a version.
+     *
+     *  @param version page version.
+     *  @return the stored revision, or {@code null} if the version is not held in this store.
+     */
+    synchronized Entry get( final int version ) {
+        return m_entries.get( version );
+    }
+
+    /**
+     *  Returns all the stored revisions.
+     *
+     *  @return the stored revisions, by version.
+     */
+    synchronized Map< Integer, Entry > getAll() {
+        return new TreeMap<>( m_entries );
+    }
+
+    /**
+     *  Stores the full text of a version.
+     *
+     *  @param version page version.
+     *  @param text page text.
+     *  @param lastModified modification date of the version.
+     *  @throws IOException if the store could not be written.
+     */
+    synchronized void putFull( final int version, final String text, final long lastModified ) throws IOException {
+        put( version, FULL, text.getBytes( StandardCharsets.UTF_8 ), lastModified );
+    }
+
+    /**
+     *  Stores a version as a reverse delta against the text of the next version.
+     *
+     *  @param version page version.
+     *  @param nextText text of version + 1.
+     *  @param text text of the version being stored.
+     *  @param lastModified modification date of the version.
+     *  @throws IOException if the store could not be written.
+     */
+    synchronized void putDelta( final int version, final String nextText, final String text, final long lastModified ) throws IOException {
+        put( version, DELTA, encodeDelta( nextText, text ), lastModified );
+    }
+
+    /**
+     *  Forgets about a version. Its data is left in the pack file.
+     *
+     *  @param version page version.
+     *  @throws IOException if the index could not be written.
+     */
+    synchronized void remove( final int version ) throws IOException {
+        if( m_entries.remove( version ) != null ) {
+            appendIndex( version + " " + REMOVED );
+        }
+    }
+
+    /**
+     *  Returns the full text of a revision stored with {@link #putFull(int, String, long)}.
+     *
+     *  @param entry stored revision.
+     *  @return page text.
+     *  @throws IOException if the pack could not be read.
+     */
+    synchronized String readFull( final Entry entry ) throws IOException {
+        return new String( read( entry ), StandardCharsets.UTF_8 );
+    }
+
+    /**
+     *  Applies a revision stored with {@link #putDelta(int, String, String, long)} to the text of the next version.
+     *
+     *  @param entry stored revision.
+     *  @param nextText text of the next version.
+     *  @return text of the entry's version.
+     *  @throws IOException if the pack could not be read.
+     */
+    synchronized String applyDelta( final Entry entry, final String nextText ) throws IOException {
+        final String[] base = splitLines( nextText );
+        final StringBuilder sb = new StringBuilder( nextText.length() );
+        try( final DataInputStream in = new DataInputStream( new ByteArrayInputStream( read( entry ) ) ) ) {
+            int pos = 0;
+            final int deltas = in.readInt();
+            for( int i = 0; i < deltas; i++ ) {
+                final int first = in.readInt();
+                final int size = in.readInt();
+                for( ; pos < first; pos++ ) {
+                    sb.append( base[ pos ] );
+                }
+                pos += size;
+                final int lines = in.readInt();
+                for( int j = 0; j < lines; j++ ) {
+                    final byte[] line = new byte[ in.readInt() ];
+                    in.readFully( line );
+                    sb.append( new String( line, StandardCharsets.UTF_8 ) );
+                }
+            }
+            for( ; pos < base.length; pos++ ) {
+                sb.append( base[ pos ] );
+            }
+        }
+        return sb.toString();
+    }
+
+    private void put( final int version, final String type, final byte[] data, final long lastModified ) throws IOException {
+        final long offset = m_dataFile.length();
+        try( final OutputStream out = Files.newOutputStream( m_dataFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND ) ) {
+            out.write( data );
+        }
+        final Entry entry = new Entry( version, DELTA.equals( type ), offset, data.length, lastModified );
+        appendIndex( version + " " + type + " " + offset + " " + data.length + " " + lastModified );
+        m_entries.put( version, entry );
+    }
+
+    private byte[] read( final Entry entry ) throws IOException {
+        final byte[] data = new byte[ entry.m_length ];
+        try( final RandomAccessFile raf = new RandomAccessFile( m_dataFile, "r" ) ) {
+            raf.seek( entry.m_offset );
+            raf.readFully( data );
+        }
+        return data;
+    }
+
+    private void appendIndex( final String line ) throws IOException {
+        try( final Writer out = Files.newBufferedWriter( m_indexFile.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND ) ) {
+            out.write( line );
+            out.write( '\n' );
+        }
+        readIndexAttributes();
+    }
+
+    private void readIndexAttributes() throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes( m_indexFile.toPath(), BasicFileAttributes.class );
+        m_indexLastModified = attributes.lastModifiedTime().toMillis();
+        m_indexLength = attributes.size();
+    }
+
+    private void load() throws IOException {
+        if( !m_indexFile.exists() ) {
+            return;
+        }
+        readIndexAttributes();
+        try( final BufferedReader in = Files.newBufferedReader( m_indexFile.toPath(), StandardCharsets.UTF_8 ) ) {
+            String line;
+            while( ( line = in.readLine() ) != null ) {
+                final String[] fields = line.trim().split( " " );
+                if( fields.length < 2 ) {
+                    continue;
+                }
+                final int version = Integer.parseInt( fields[ 0 ] );
+                if( REMOVED.equals( fields[ 1 ] ) ) {
+                    m_entries.remove( version );
+                } else if( fields.length == 5 ) {
+                    m_entries.put( version, new Entry( version,
+                                                       DELTA.equals( fields[ 1 ] ),
+                                                       Long.parseLong( fields[ 2 ] ),
+                                                       Integer.parseInt( fields[ 3 ] ),
+                                                       Long.parseLong( fields[ 4 ] ) ) );
+                }
+            }
+        } catch( final NumberFormatException e ) {
+            throw new IOException( "Corrupted version index " + m_indexFile.getAbsolutePath(), e );
+        }
+    }
+
+    /**
+     *  Encodes the line changes turning {@code nextText} into {@code text}: the number of changes, followed, for each one of them, by
+     *  the first line and number of lines replaced in {@code nextText} and the replacing lines.
+     */
+    static byte[] encodeDelta( final String nextText, final String text ) throws IOException {
+        final Revision rev;
+        try {
+            rev = Diff.diff( splitLines( nextText ), splitLines( text ), new MyersDiff() );
+        } catch( final DifferentiationFailedException e ) {
+            throw new IOException( "Unable to compute version delta: " + e.getMessage(), e );
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try( final DataOutputStream out = new DataOutputStream( bytes ) ) {
+            out.writeInt( rev.size() );
+            for( int i = 0; i < rev.size(); i++ ) {
+                final Delta delta = rev.getDelta( i );
+                final Chunk original = delta.getOriginal();
+                final List< ? > revised = delta.getRevised().chunk();
+                out.writeInt( original.first() );
+                out.writeInt( original.size() );
+                out.writeInt( revised.size() );
+                for( final Object line : revised ) {
+                    final byte[] data = line.toString().getBytes( StandardCharsets.UTF_8 );
+                    out.writeInt( data.length );
+                    out.write( data );
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Splits a text into lines, keeping the line terminators so the text can be rebuilt byte by byte. */
+    static String[] splitLines( final String text ) {
+        final List< String > lines = new ArrayList<>();
+        int start = 0;
+        for( int i = 0; i < text.length(); i++ ) {
+            if( text.charAt( i ) == '\n' ) {
+                lines.add( text.substring( start, i + 1 ) );
+                start = i + 1;
+            }
+        }
+        if( start < text.length() ) {
+            lines.add( text.substring( start ) );
+        }
+        return lines.toArray( new String[ 0 ] );
+    }
+
+    /**
+     *  A stored revision.
+     */
+    static final class Entry {
+        final int m_version;
+        final boolean m_delta;
+        final long m_offset;
+        final int m_length;
+        final long m_lastModified;
+
+        Entry( final int version, final boolean delta, final long offset, final int length, final long lastModified ) {
+            m_version = version;
+            m_delta = delta;
+            m_offset = offset;
+            m_length = length;
+            m_lastModified = lastModified;
+        }
+    }
+
+}
@@ -153,6 +153,7 @@ public class FileSystemProvider extends AbstractFileProvider {
         final File fromPage = findPage( from );
         final File toPage = findPage( to );
         fromPage.renameTo( toPage );
+        getChangeJournal().renamed( from, to );
     }
 
 }
@@ -29,6 +29,7 @@ import org.apache.wiki.api.providers.PageProvider;
 import org.apache.wiki.api.providers.WikiProvider;
 import org.apache.wiki.api.spi.Wiki;
 import org.apache.wiki.util.FileUtil;
+import org.apache.wiki.util.TextUtil;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
@@ -38,10 +39,16 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 
 /**
  *  Provides a simple directory based repository for Wiki pages.
@@ -68,6 +75,20 @@ import java.util.Properties;
  *  who insist on using Windows or other software which makes assumptions
  *  on the files contents based on its name.
  *
+ *  <P>
+ *  If {@value #PROP_DELTASTORAGE} is set to {@code true}, the old versions are not kept as one file per version. They are stored
+ *  instead as reverse deltas against the next version in a pack file, with a full copy every {@value #PROP_SNAPSHOTINTERVAL} versions,
+ *  so that rebuilding any version never takes more than that many deltas. A small index file keeps the offset and date of each
+ *  version, so listing the history of a page doesn't need to look at the pack:
+ *  <PRE>
+ *    OLD/
+ *       Main/
+ *          versions.dat
+ *          versions.idx
+ *          page.properties
+ *  </PRE>
+ *  Existing "OLD" directories are migrated to this layout when the provider starts. Old versions stored in either layout can be read
+ *  in both modes.
  */
 public class VersioningFileProvider extends AbstractFileProvider {
 
@@ -79,8 +100,23 @@ public class VersioningFileProvider extends AbstractFileProvider {
     /** Name of the property file which stores the metadata. */
     public static final String PROPERTYFILE = "page.properties";
 
+    /** Property name for storing old versions as deltas.  Value is {@value}. */
+    public static final String PROP_DELTASTORAGE = "jspwiki.versioningFileProvider.deltaStorage";
+
+    /** Property name for the number of versions between full copies when storing deltas.  Value is {@value}. */
+    public static final String PROP_SNAPSHOTINTERVAL = "jspwiki.versioningFileProvider.snapshotInterval";
+
+    /** Default number of versions between full copies when storing deltas.  Value is {@value}. */
+    public static final int DEFAULT_SNAPSHOTINTERVAL = 20;
+
     private CachedProperties m_cachedProperties;
 
+    private boolean m_deltaStorage;
+    private int m_snapshotInterval = DEFAULT_SNAPSHOTINTERVAL;
+
+    /** Same idea as {@link #m_cachedProperties}: holds onto the store of the last page asked for. */
+    private CachedVersionStore m_cachedStore;
+
     /**
      *  {@inheritDoc}
      */
@@ -102,6 +138,13 @@ public class VersioningFileProvider extends AbstractFileProvider {
             }
         }
         log.info( "Using directory " + oldpages.getAbsolutePath() + " for storing old versions of pages" );
+
+        m_deltaStorage = TextUtil.getBooleanProperty( properties, PROP_DELTASTORAGE, false );
+        m_snapshotInterval = Math.max( 1, TextUtil.getIntegerProperty( properties, PROP_SNAPSHOTINTERVAL, DEFAULT_SNAPSHOTINTERVAL ) );
+        if( m_deltaStorage ) {
+            log.info( "Storing old versions as deltas, with a full copy every " + m_snapshotInterval + " versions" );
+            migrateToDeltaStorage( oldpages );
+        }
     }
 
     /**
@@ -161,31 +204,39 @@ public class VersioningFileProvider extends AbstractFileProvider {
     }
 */
     private int findLatestVersion( final String page ) {
-        int version = -1;
-
         try {
-            final Properties props = getPageProperties( page );
+            return findLatestVersion( getPageProperties( page ) );
+        } catch( final IOException e ) {
+            log.error( "Unable to figure out latest version - dying...", e );
+        }
 
-            for( final Object o : props.keySet() ) {
-                final String key = ( String )o;
-                if( key.endsWith( ".author" ) ) {
-                    final int cutpoint = key.indexOf( '.' );
-                    if( cutpoint > 0 ) {
-                        final String pageNum = key.substring( 0, cutpoint );
-
-                        try {
-                            final int res = Integer.parseInt( pageNum );
-
-                            if( res > version ) {
-                                version = res;
-                            }
-                        } catch( final NumberFormatException e ) {
-                        } // It's okay to skip these.
-                    }
+        return -1;
+    }
+
+    /**
+     *  Decides which version is the newest one, based on the authors recorded in the page properties.
+     *
+     *  @return Latest version number, or -1, if there is no version recorded.
+     */
+    private static int findLatestVersion( final Properties props ) {
+        int version = -1;
+        for( final Object o : props.keySet() ) {
+            final String key = ( String )o;
+            if( key.endsWith( ".author" ) ) {
+                final int cutpoint = key.indexOf( '.' );
+                if( cutpoint > 0 ) {
+                    final String pageNum = key.substring( 0, cutpoint );
+
+                    try {
+                        final int res = Integer.parseInt( pageNum );
+
+                        if( res > version ) {
+                            version = res;
+                        }
+                    } catch( final NumberFormatException e ) {
+                    } // It's okay to skip these.
                 }
             }
-        } catch( final IOException e ) {
-            log.error( "Unable to figure out latest version - dying...", e );
         }
 
         return version;
@@ -269,20 +320,157 @@ public class VersioningFileProvider extends AbstractFileProvider {
      */
     @Override
     public synchronized String getPageText( final String page, int version ) throws ProviderException {
-        final File dir = findOldPageDir( page );
-
         version = realVersion( page, version );
         if( version == -1 ) {
             // We can let the FileSystemProvider take care of these requests.
             return super.getPageText( page, PageProvider.LATEST_VERSION );
         }
 
-        final File pageFile = new File( dir, ""+version+FILE_EXT );
-        if( !pageFile.exists() ) {
-            throw new NoSuchVersionException("Version "+version+"does not exist.");
+        return readOldVersion( page, version );
+    }
+
+    /**
+     *  Returns the text of an old version, either from its own file or rebuilt from the page's {@link DeltaVersionStore}.
+     */
+    private String readOldVersion( final String page, final int version ) throws ProviderException {
+        final File dir = findOldPageDir( page );
+        try {
+            final DeltaVersionStore store = getVersionStore( page );
+            DeltaVersionStore.Entry entry = store != null ? store.get( version ) : null;
+            if( entry == null ) {
+                final File pageFile = new File( dir, version + FILE_EXT );
+                if( !pageFile.exists() ) {
+                    throw new NoSuchVersionException( "Version " + version + " does not exist." );
+                }
+                return readFile( pageFile );
+            }
+
+            // walk up the deltas until a version whose text is at hand, then apply them back down
+            final Deque< DeltaVersionStore.Entry > deltas = new ArrayDeque<>();
+            int next = version;
+            while( entry != null && entry.m_delta ) {
+                deltas.push( entry );
+                next++;
+                entry = store.get( next );
+            }
+
+            String text;
+            if( entry != null ) {
+                text = store.readFull( entry );
+            } else if( new File( dir, next + FILE_EXT ).exists() ) {
+                text = readFile( new File( dir, next + FILE_EXT ) );
+            } else if( next >= findLatestVersion( page ) ) {
+                text = super.getPageText( page, PageProvider.LATEST_VERSION );
+            } else {
+                throw new NoSuchVersionException( "Version " + next + ", needed to rebuild version " + version + ", does not exist." );
+            }
+
+            while( !deltas.isEmpty() ) {
+                text = store.applyDelta( deltas.pop(), text );
+            }
+            return text;
+        } catch( final IOException e ) {
+            log.error( "Failed to read version " + version + " of " + page, e );
+            throw new ProviderException( "I/O error: " + e.getMessage() );
         }
+    }
+
+    /**
+     *  Returns the {@link DeltaVersionStore} of a page, or {@code null} if the page has none.
+     */
+    private DeltaVersionStore getVersionStore( final String page ) throws IOException {
+        final File dir = findOldPageDir( page );
+        final CachedVersionStore cs = m_cachedStore;
+        if( cs != null && cs.m_page.equals( page ) && !cs.m_store.isStale() ) {
+            return cs.m_store;
+        }
+        if( !DeltaVersionStore.exists( dir ) ) {
+            return null;
+        }
+        final DeltaVersionStore store = new DeltaVersionStore( dir );
+        m_cachedStore = new CachedVersionStore( page, store ); // Atomic
+        return store;
+    }
 
-        return readFile( pageFile );
+    /**
+     *  Stores an old version in the page's {@link DeltaVersionStore}, as a full copy every {@link #m_snapshotInterval} versions and as a
+     *  delta against the next version otherwise.
+     */
+    private void storeOldVersion( final DeltaVersionStore store, final int version, final String text, final String nextText,
+                                  final long lastModified ) throws IOException {
+        if( nextText == null || version % m_snapshotInterval == 0 ) {
+            store.putFull( version, text, lastModified );
+        } else {
+            store.putDelta( version, nextText, text, lastModified );
+        }
+    }
+
+    /**
+     *  Moves the old versions kept as one file per version into a {@link DeltaVersionStore}, for all the pages. Each version file is
+     *  deleted as soon as it is held by the store, and versions already found in the store are not stored again, so an interrupted
+     *  migration (or one unable to delete some files) is simply resumed on next startup. A version is only stored as a delta when the
+     *  text of the next version is known for sure, either from its own file or because it is the current one; otherwise, as happens
+     *  when the next version was already moved into the store, it is stored in full.
+     */
+    private void migrateToDeltaStorage( final File oldpages ) throws IOException {
+        final File[] pageDirs = oldpages.listFiles( File::isDirectory );
+        if( pageDirs == null ) {
+            return;
+        }
+        int migrated = 0;
+        for( final File dir : pageDirs ) {
+            final TreeMap< Integer, File > versions = new TreeMap<>();
+            final File[] files = dir.listFiles( new WikiFileFilter() );
+            if( files != null ) {
+                for( final File file : files ) {
+                    final String name = file.getName();
+                    try {
+                        versions.put( Integer.parseInt( name.substring( 0, name.length() - FILE_EXT.length() ) ), file );
+                    } catch( final NumberFormatException e ) {
+                        // not a version, leave it alone
+                    }
+                }
+            }
+            if( versions.isEmpty() ) {
+                continue;
+            }
+
+            // dir names under OLD are mangled page names, as are the page files
+            final File current = new File( getPageDirectory(), dir.getName() + FILE_EXT );
+            final Properties props = new Properties();
+            final File propertyFile = new File( dir, PROPERTYFILE );
+            if( propertyFile.exists() ) {
+                try( final InputStream in = new BufferedInputStream( Files.newInputStream( propertyFile.toPath() ) ) ) {
+                    props.load( in );
+                }
+            }
+            String nextText = null;
+            int nextVersion = findLatestVersion( props );
+            try {
+                if( current.exists() && nextVersion > versions.lastKey() ) {
+                    nextText = readFile( current );
+                }
+                final DeltaVersionStore store = new DeltaVersionStore( dir );
+                for( final Integer version : versions.descendingKeySet() ) {
+                    final File file = versions.get( version );
+                    final String text = readFile( file );
+                    if( store.get( version ) == null ) {
+                        storeOldVersion( store, version, text, version + 1 == nextVersion ? nextText : null, file.lastModified() );
+                    }
+                    if( !file.delete() ) {
+                        log.warn( "Unable to delete migrated version " + file.getAbsolutePath() );
+                    }
+                    nextText = text;
+                    nextVersion = version;
+                }
+            } catch( final ProviderException e ) {
+                throw new IOException( "Unable to migrate old versions in " + dir.getAbsolutePath() + ": " + e.getMessage(), e );
+            }
+            migrated++;
+        }
+        if( migrated > 0 ) {
+            log.info( "Migrated the old versions of " + migrated + " pages to delta storage" );
+        }
     }
 
 
@@ -343,7 +531,13 @@ public class VersioningFileProvider extends AbstractFileProvider {
             int versionNumber = (latest > 0) ? latest : 1;
             final boolean firstUpdate = (versionNumber == 1);
 
-            if( oldFile != null && oldFile.exists() ) {
+            // The old version may be stored as a delta against the new text, so it is only stored once the new text has been written.
+            String oldText = null;
+            long oldLastModified = 0L;
+            if( oldFile != null && oldFile.exists() && m_deltaStorage ) {
+                oldText = readFile( oldFile );
+                oldLastModified = oldFile.lastModified();
+            } else if( oldFile != null && oldFile.exists() ) {
                 final File pageFile = new File( pageDir, versionNumber + FILE_EXT );
                 try( final InputStream in = new BufferedInputStream( Files.newInputStream( oldFile.toPath() ) );
                      final OutputStream out = new BufferedOutputStream( Files.newOutputStream( pageFile.toPath() ) ) ) {
@@ -360,6 +554,18 @@ public class VersioningFileProvider extends AbstractFileProvider {
             //  Let superclass handler writing data to a new version.
             super.putPageText( page, text );
 
+            if( oldText != null ) {
+                DeltaVersionStore store = getVersionStore( page.getName() );
+                if( store == null ) {
+                    store = new DeltaVersionStore( pageDir );
+                    m_cachedStore = new CachedVersionStore( page.getName(), store ); // Atomic
+                }
+                storeOldVersion( store, versionNumber, oldText, text, oldLastModified );
+
+                // Kludge to make the property code to work properly.
+                versionNumber++;
+            }
+
             //  Finally, write page version data.
             // FIXME: No rollback available.
             final Properties props = getPageProperties( page.getName() );
@@ -429,8 +635,14 @@ public class VersioningFileProvider extends AbstractFileProvider {
                 return null;
             }
 
+            final DeltaVersionStore.Entry entry = getStoredVersion( page, version );
             final File file = new File( dir, version + FILE_EXT );
-            if( file.exists() ) {
+            if( entry != null ) {
+                p = Wiki.contents().page( m_engine, page );
+
+                p.setLastModified( new Date( entry.m_lastModified ) );
+                p.setVersion( version );
+            } else if( file.exists() ) {
                 p = Wiki.contents().page( m_engine, page );
 
                 p.setLastModified( new Date( file.lastModified() ) );
@@ -441,24 +653,7 @@ public class VersioningFileProvider extends AbstractFileProvider {
         //  Get author and other metadata information (Modification date has already been set.)
         if( p != null ) {
             try {
-                final Properties props = getPageProperties( page );
-                String author = props.getProperty( realVersion + ".author" );
-                if( author == null ) {
-                    // we might not have a versioned author because the old page was last maintained by FileSystemProvider
-                    final Properties props2 = getHeritagePageProperties( page );
-                    author = props2.getProperty( Page.AUTHOR );
-                }
-                if( author != null ) {
-                    p.setAuthor( author );
-                }
-
-                final String changenote = props.getProperty( realVersion + ".changenote" );
-                if( changenote != null ) {
-                    p.setAttribute( Page.CHANGENOTE, changenote );
-                }
-
-                // Set the props values to the page attributes
-                setCustomProperties( p, props );
+                setVersionInfo( p, realVersion, getPageProperties( page ) );
             } catch( final IOException e ) {
                 log.error( "Cannot get author for page" + page + ": ", e );
             }
@@ -467,6 +662,42 @@ public class VersioningFileProvider extends AbstractFileProvider {
         return p;
     }
 
+    /**
+     *  Sets the author, change note and custom properties of a version, as found in the page properties.
+     */
+    private void setVersionInfo( final Page p, final int version, final Properties props ) throws IOException {
+        String author = props.getProperty( version + ".author" );
+        if( author == null ) {
+            // we might not have a versioned author because the old page was last maintained by FileSystemProvider
+            final Properties props2 = getHeritagePageProperties( p.getName() );
+            author = props2.getProperty( Page.AUTHOR );
+        }
+        if( author != null ) {
+            p.setAuthor( author );
+        }
+
+        final String changenote = props.getProperty( version + ".changenote" );
+        if( changenote != null ) {
+            p.setAttribute( Page.CHANGENOTE, changenote );
+        }
+
+        // Set the props values to the page attributes
+        setCustomProperties( p, props );
+    }
+
+    /**
+     *  Returns the entry of an old version in the page's {@link DeltaVersionStore}, or {@code null} if it is not stored there.
+     */
+    private DeltaVersionStore.Entry getStoredVersion( final String page, final int version ) {
+        try {
+            final DeltaVersionStore store = getVersionStore( page );
+            return store != null ? store.get( version ) : null;
+        } catch( final IOException e ) {
+            log.error( "Unable to read version index of " + page, e );
+            return null;
+        }
+    }
+
     /**
      *  {@inheritDoc}
      */
@@ -481,22 +712,63 @@ public class VersioningFileProvider extends AbstractFileProvider {
             return false;
         }
 
-        return new File( dir, version + FILE_EXT ).exists();
+        return getStoredVersion( pageName, version ) != null || new File( dir, version + FILE_EXT ).exists();
     }
 
     /**
      *  {@inheritDoc}
+     *
+     *  The history is built in a single pass: the page properties, the version index and the listing of the old versions directory
+     *  are read once, instead of once per version.
      */
-     // FIXME: Does not get user information.
     @Override
     public List< Page > getVersionHistory( final String page ) throws ProviderException {
         final ArrayList< Page > list = new ArrayList<>();
         final int latest = findLatestVersion( page );
-        for( int i = latest; i > 0; i-- ) {
-            final Page info = getPageInfo( page, i );
-            if( info != null ) {
-                list.add( info );
+        if( latest <= 0 ) {
+            return list;
+        }
+
+        final Page current = getPageInfo( page, PageProvider.LATEST_VERSION );
+        if( current != null ) {
+            list.add( current );
+        }
+
+        final File dir = findOldPageDir( page );
+        if( !dir.isDirectory() ) {
+            return list;
+        }
+        try {
+            final Properties props = getPageProperties( page );
+            final DeltaVersionStore store = getVersionStore( page );
+            final Map< Integer, DeltaVersionStore.Entry > stored = store != null ? store.getAll() : Collections.emptyMap();
+            final Map< Integer, Long > files = new HashMap<>();
+            final File[] versionFiles = dir.listFiles( new WikiFileFilter() );
+            if( versionFiles != null ) {
+                for( final File file : versionFiles ) {
+                    final String name = file.getName();
+                    try {
+                        files.put( Integer.parseInt( name.substring( 0, name.length() - FILE_EXT.length() ) ), file.lastModified() );
+                    } catch( final NumberFormatException e ) {
+                        // not a version
+                    }
+                }
             }
+
+            for( int i = latest - 1; i > 0; i-- ) {
+                final DeltaVersionStore.Entry entry = stored.get( i );
+                final Long lastModified = entry != null ? Long.valueOf( entry.m_lastModified ) : files.get( i );
+                if( lastModified != null ) {
+                    final Page info = Wiki.contents().page( m_engine, page );
+                    info.setLastModified( new Date( lastModified ) );
+                    info.setVersion( i );
+                    setVersionInfo( info, i, props );
+                    list.add( info );
+                }
+            }
+        } catch( final IOException e ) {
+            log.error( "Unable to read version history of " + page, e );
+            throw new ProviderException( "I/O error: " + e.getMessage() );
         }
 
         return list;
@@ -562,6 +834,10 @@ public class VersioningFileProvider extends AbstractFileProvider {
                 propfile.delete();
             }
 
+            new File( dir, DeltaVersionStore.INDEX_FILE ).delete();
+            new File( dir, DeltaVersionStore.DATA_FILE ).delete();
+            m_cachedStore = null;
+
             dir.delete();
         }
     }
@@ -589,9 +865,26 @@ public class VersioningFileProvider extends AbstractFileProvider {
                 throw new ProviderException("Could not modify page properties: " + e.getMessage());
             }
 
+            // A previous version held as a delta needs the text being deleted to be rebuilt
+            final int previous = findLatestVersion( page );
+            final DeltaVersionStore.Entry previousEntry = getStoredVersion( page, previous );
+            final String previousText = previousEntry != null ? readOldVersion( page, previous ) : null;
+
             // We can let the FileSystemProvider take care of the actual deletion
             super.deleteVersion( page, PageProvider.LATEST_VERSION );
 
+            if( previousEntry != null ) {
+                final File pageFile = findPage( page );
+                try {
+                    Files.write( pageFile.toPath(), previousText.getBytes( m_encoding ) );
+                    pageFile.setLastModified( previousEntry.m_lastModified );
+                    getVersionStore( page ).remove( previous );
+                } catch( final IOException e ) {
+                    log.fatal("Something wrong with the page directory - you may have just lost data!",e);
+                }
+                return;
+            }
+
             //  Copy the old file to the new location
             latest = findLatestVersion( page );
 
@@ -612,11 +905,30 @@ public class VersioningFileProvider extends AbstractFileProvider {
             return;
         }
 
+        final DeltaVersionStore.Entry entry = getStoredVersion( page, version );
+        if( entry != null ) {
+            try {
+                // the version below may be a delta against the one being deleted, turn it into a full copy first
+                final DeltaVersionStore store = getVersionStore( page );
+                final DeltaVersionStore.Entry below = store.get( version - 1 );
+                if( below != null && below.m_delta ) {
+                    store.putFull( version - 1, readOldVersion( page, version - 1 ), below.m_lastModified );
+                }
+                store.remove( version );
+            } catch( final IOException e ) {
+                log.error( "Unable to delete version " + version + " of " + page, e );
+                throw new ProviderException( "Could not delete version: " + e.getMessage() );
+            }
+            getChangeJournal().versionDeleted( page );
+            return;
+        }
+
         final File pageFile = new File( dir, ""+version+FILE_EXT );
         if( pageFile.exists() ) {
             if( !pageFile.delete() ) {
                 log.error("Unable to delete page." + pageFile.getPath() );
             }
+            getChangeJournal().versionDeleted( page );
         } else {
             throw new NoSuchVersionException("Page "+page+", version="+version);
         }
@@ -661,6 +973,21 @@ public class VersioningFileProvider extends AbstractFileProvider {
         final File fromOldDir = findOldPageDir( from );
         final File toOldDir = findOldPageDir( to );
         fromOldDir.renameTo( toOldDir );
+
+        getChangeJournal().renamed( from, to );
+    }
+
+    /*
+     * Holds onto the version store of the last page asked for, as its index is read for every version when listing a page history.
+     */
+    private static class CachedVersionStore {
+        final String m_page;
+        final DeltaVersionStore m_store;
+
+        CachedVersionStore( final String pageName, final DeltaVersionStore store ) {
+            m_page = pageName;
+            m_store = store;
+        }
     }
 
     /*
@@ -38,6 +38,8 @@ import org.apache.wiki.event.WikiEventManager;
 import org.apache.wiki.event.WikiPageEvent;
 import org.apache.wiki.pages.PageManager;
 import org.apache.wiki.render.RenderingManager;
+import org.apache.wiki.ui.progress.ProgressItem;
+import org.apache.wiki.ui.progress.ProgressManager;
 import org.apache.wiki.util.TextUtil;
 
 import java.io.*;
@@ -47,6 +49,12 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /*
   BUGS
@@ -88,9 +96,9 @@ import java.util.concurrent.ConcurrentHashMap;
  *
  *  This is a quick'n'dirty approach without any finesse in storage and searching algorithms; we trust java.util.*.
  *  <P>
- *  This class contains two HashMaps, m_refersTo and m_referredBy. The first is indexed by WikiPage names and contains a Collection of all
- *  WikiPages the page refers to. (Multiple references are not counted, naturally.) The second is indexed by WikiPage names and contains
- *  a Set of all pages that refer to the indexing page. (Notice - the keys of both Maps should be kept in sync.)
+ *  This class keeps the references in a {@link ReferenceGraph}, which interns page names to int ids. For each page, the graph holds the
+ *  pages it refers to (multiple references are not counted, naturally), and the pages that refer to it. Readers never block on writers,
+ *  and the results of whole-graph queries such as {@link #findUnreferenced()} are cached until the graph changes.
  *  <P>
  *  When a page is added or edited, its references are parsed, a Collection is received, and we crudely replace anything previous with
  *  this new Collection. We then check each referenced page name and make sure they know they are referred to by the new page.
@@ -99,6 +107,14 @@ import java.util.concurrent.ConcurrentHashMap;
  *  <P>
  *  The owning class must take responsibility of filling in any pre-existing information, probably by loading each and every WikiPage
  *  and calling this class to update the references when created.
+ *  <P>
+ *  The references of each page are persisted in an append-only log (see {@link ReferenceStore}), so saving or removing a page only
+ *  writes that page's references. The log is compacted on a background thread once it holds mostly obsolete records, and it is only
+ *  read when the references are first needed, rather than at startup.
+ *  <P>
+ *  If the stored references can't be used, they are rebuilt by parsing all pages on a pool of {@link #PROP_REBUILD_THREADS} threads.
+ *  The rebuild is waited for, unless {@link #PROP_REBUILD_IN_BACKGROUND} is true, in which case it runs in the background, so the wiki
+ *  can serve pages meanwhile, with possibly incomplete references.
  *
  *  @since 1.6.1 (as of 2.11.0, moved to org.apache.wiki.references)
  */
@@ -109,25 +125,49 @@ import java.util.concurrent.ConcurrentHashMap;
 public class DefaultReferenceManager extends BasePageFilter implements ReferenceManager {
 
     /**
-     *  Maps page wikiname to a Collection of pages it refers to. The Collection must contain Strings. The Collection may contain
-     *  names of non-existing pages.
+     *  Holds, for each page, the pages it refers to, which may include names of non-existing pages, and the pages that refer to it.
+     *  Non-existing pages (a reference exists, but not a file for the page contents) may be kept without referrers.
      */
-    private Map< String, Collection< String > > m_refersTo;
-    private Map< String, Collection< String > > m_unmutableRefersTo;
+    private final ReferenceGraph m_graph = new ReferenceGraph();
 
-    /**
-     *  Maps page wikiname to a Set of referring pages. The Set must contain Strings. Non-existing pages (a reference exists, but
-     *  not a file for the page contents) may have an empty Set in m_referredBy.
-     */
-    private Map< String, Set< String > > m_referredBy;
-    private Map< String, Set< String > > m_unmutableReferredBy;
+    /** Results of whole-graph queries, valid as long as the graph version doesn't change. */
+    private volatile CachedResult< List< String > > m_unreferenced;
+    private volatile CachedResult< List< String > > m_uncreatedCandidates;
+    private volatile CachedResult< Integer > m_deepHashCode;
 
     private final boolean m_matchEnglishPlurals;
 
+    /** Number of threads parsing pages when all references have to be rebuilt. Default is the number of processors, up to 4. */
+    public static final String PROP_REBUILD_THREADS = "jspwiki.refmgr.rebuildthreads";
+
+    /** Whether a rebuild of all references lets the engine start before it finishes. Default is false. */
+    public static final String PROP_REBUILD_IN_BACKGROUND = "jspwiki.refmgr.rebuildinbackground";
+
+    private static final String REBUILD_PROGRESS_ID = "refmgr.rebuild";
+
     private static final Logger LOG = LogManager.getLogger( DefaultReferenceManager.class);
-    private static final String SERIALIZATION_FILE = "refmgr.ser";
+    private static final String STORE_FILE = "refmgr.log";
+    private static final String LEGACY_SERIALIZATION_FILE = "refmgr.ser";
     private static final String SERIALIZATION_DIR  = "refmgr-attr";
 
+    /** Persisted references of each page. */
+    private final ReferenceStore m_store;
+
+    /** False while the references haven't been read from {@link #m_store} yet. */
+    private volatile boolean m_loaded = true;
+
+    /** Set while the reference log is being compacted. */
+    private final AtomicBoolean m_compacting = new AtomicBoolean();
+
+    private final int m_rebuildThreads;
+    private final boolean m_rebuildInBackground;
+
+    /** True while all references are being rebuilt. */
+    private volatile boolean m_rebuilding;
+
+    /** Pages updated or removed while rebuilding, whose references must not be overwritten by the rebuild. */
+    private final Set< String > m_changedWhileRebuilding = ConcurrentHashMap.newKeySet();
+
     /** We use this also a generic serialization id */
     private static final long serialVersionUID = 4L;
 
@@ -137,22 +177,26 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
      *  @param engine The Engine to which this is managing references to.
      */
     public DefaultReferenceManager( final Engine engine ) {
-        m_refersTo = new ConcurrentHashMap<>();
-        m_referredBy = new ConcurrentHashMap<>();
         m_engine = engine;
         m_matchEnglishPlurals = TextUtil.getBooleanProperty( engine.getWikiProperties(), Engine.PROP_MATCHPLURALS, false );
-
-        //
-        //  Create two maps that contain unmutable versions of the two basic maps.
-        //
-        m_unmutableReferredBy = Collections.unmodifiableMap( m_referredBy );
-        m_unmutableRefersTo   = Collections.unmodifiableMap( m_refersTo );
+        m_store = new ReferenceStore( new File( engine.getWorkDir(), STORE_FILE ) );
+        m_rebuildThreads = Math.max( 1, TextUtil.getIntegerProperty( engine.getWikiProperties(), PROP_REBUILD_THREADS,
+                                                                     Math.min( 4, Runtime.getRuntime().availableProcessors() ) ) );
+        m_rebuildInBackground = TextUtil.getBooleanProperty( engine.getWikiProperties(), PROP_REBUILD_IN_BACKGROUND, false );
     }
 
     /**
      *  Does a full reference update.  Does not sync; assumes that you do it afterwards.
      */
     private void updatePageReferences( final Page page ) throws ProviderException {
+        ensureLoaded();
+        internalUpdateReferences( page.getName(), collectReferences( page ) );
+    }
+
+    /**
+     *  Parses the latest version of a page, and returns the pages and attachments it refers to.
+     */
+    private Collection< String > collectReferences( final Page page ) throws ProviderException {
         final String content = m_engine.getManager( PageManager.class ).getPageText( page.getName(), PageProvider.LATEST_VERSION );
         final Collection< String > links = scanWikiLinks( page, content );
         final TreeSet< String > res = new TreeSet<>( links );
@@ -160,8 +204,7 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
         for( final Attachment att : attachments ) {
             res.add( att.getName() );
         }
-
-        internalUpdateReferences( page.getName(), res );
+        return res;
     }
 
     /**
@@ -178,14 +221,15 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
         sw.start();
         LOG.info( "Starting cross reference scan of WikiPages" );
 
-        //  First, try to serialize old data from disk.  If that fails, we'll go and update the entire reference lists (which'll take time)
+        //  First, try to use the references stored on disk.  If that fails, we'll go and update the entire reference lists (which'll take time)
         try {
-            //  Unserialize things.  The loop below cannot be combined with the other loop below, simply because
-            //  engine.getPage() has side effects such as loading initializing the user databases, which in turn want all
-            //  the pages to be read already...
+            //  Only check the stored references can be read, they're loaded when first needed. The loop below cannot be combined with
+            //  the other loop below, simply because engine.getPage() has side effects such as loading initializing the user databases,
+            //  which in turn want all the pages to be read already...
             //
             //  Yes, this is a kludge.  We know.  Will be fixed.
-            final long saved = unserializeFromDisk();
+            final long saved = m_store.open();
+            m_loaded = false;
 
             for( final Page page : pages ) {
                 unserializeAttrsFromDisk( page );
@@ -195,90 +239,251 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
             //  and update the references for them.
             for( final Page page : pages ) {
                 if( !( page instanceof Attachment ) ) {
-                    // Refresh with the latest copy
-                    final Page wp = m_engine.getManager( PageManager.class ).getPage( page.getName() );
+                    // The provider listing usually carries the modification date already, refresh with the latest copy otherwise
+                    final Page wp = page.getLastModified() != null ? page : m_engine.getManager( PageManager.class ).getPage( page.getName() );
 
                     if( wp.getLastModified() == null ) {
                         LOG.fatal( "Provider returns null lastModified.  Please submit a bug report." );
                     } else if( wp.getLastModified().getTime() > saved ) {
-                        updatePageReferences( wp );
+                        updateStoredReferences( wp );
                     }
                 }
             }
 
         } catch( final Exception e ) {
-            LOG.info( "Unable to unserialize old refmgr information, rebuilding database: {}", e.getMessage() );
-            buildKeyLists( pages );
-
-            // Scan the existing pages from disk and update references in the manager.
-            for( final Page page : pages ) {
-                // We cannot build a reference list from the contents of attachments, so we skip them.
-                if( !( page instanceof Attachment ) ) {
-                    updatePageReferences( page );
-                    serializeAttrsToDisk( page );
-                }
-            }
-
-            serializeToDisk();
+            LOG.info( "Unable to read stored refmgr information, rebuilding database: {}", e.getMessage() );
+            rebuild( pages, m_rebuildInBackground );
         }
 
         sw.stop();
         LOG.info( "Cross reference scan done in {}", sw );
 
-        WikiEventManager.addWikiEventListener( m_engine.getManager( PageManager.class ), this );
+        // removing a page waits for any ongoing rebuild, so it's done in the background instead of holding up the deletion
+        WikiEventManager.addWikiEventListener( m_engine.getManager( PageManager.class ), this, true );
     }
 
     /**
-     *  Reads the serialized data from the disk back to memory. Returns the date when the data was last written on disk
+     *  Rebuilds all references from the page contents, and replaces the stored references with them. The page keys are set up
+     *  right away, pages are parsed either on the calling thread's behalf or in the background.
      */
-    @SuppressWarnings("unchecked")
-    private synchronized long unserializeFromDisk() throws IOException, ClassNotFoundException {
-        final long saved;
+    private void rebuild( final Collection< Page > pages, final boolean background ) {
+        synchronized( this ) {
+            m_loaded = true;
+            m_rebuilding = true;
+            m_changedWhileRebuilding.clear();
+            // an interrupted rebuild must not leave a partial store behind, so it gets rebuilt on next startup
+            m_store.delete();
+            buildKeyLists( pages );
+        }
 
-        final File f = new File( m_engine.getWorkDir(), SERIALIZATION_FILE );
-        try( final ObjectInputStream in = new ObjectInputStream( new BufferedInputStream( Files.newInputStream( f.toPath() ) ) ) ) {
-            final StopWatch sw = new StopWatch();
-            sw.start();
+        if( background ) {
+            final Thread rebuild = new Thread( () -> rebuildReferences( pages ), "JSPWiki ReferenceManager Rebuild" );
+            rebuild.setDaemon( true );
+            rebuild.start();
+        } else {
+            rebuildReferences( pages );
+        }
+    }
 
-            final long ver = in.readLong();
+    /**
+     *  Parses all pages on a bounded pool of worker threads, merging their references into the graph. Pages changed meanwhile keep
+     *  their newer references. Progress is reported through the {@link ProgressManager}.
+     */
+    private void rebuildReferences( final Collection< Page > pages ) {
+        final StopWatch sw = new StopWatch();
+        sw.start();
+        final List< Page > toScan = new ArrayList<>();
+        for( final Page page : pages ) {
+            // We cannot build a reference list from the contents of attachments, so we skip them.
+            if( !( page instanceof Attachment ) ) {
+                toScan.add( page );
+            }
+        }
 
-            if( ver != serialVersionUID ) {
-                throw new IOException("File format has changed; I need to recalculate references.");
+        final AtomicInteger scanned = new AtomicInteger();
+        final Semaphore slots = new Semaphore( m_rebuildThreads * 2 );
+        final ExecutorService workers = Executors.newFixedThreadPool( m_rebuildThreads, r -> {
+            final Thread t = new Thread( r, "JSPWiki ReferenceManager Rebuild Worker" );
+            t.setDaemon( true );
+            return t;
+        } );
+        final ProgressItem pi = new ProgressItem() {
+
+            @Override
+            public int getProgress() {
+                return toScan.isEmpty() ? 100 : 100 * scanned.get() / toScan.size();
             }
+        };
+        final ProgressManager progress = m_engine.getManager( ProgressManager.class );
+        if( progress != null ) {
+            progress.startProgress( pi, REBUILD_PROGRESS_ID );
+        }
 
-            saved        = in.readLong();
-            m_refersTo   = ( Map< String, Collection< String > > ) in.readObject();
-            m_referredBy = ( Map< String, Set< String > > ) in.readObject();
+        try {
+            if( Thread.holdsLock( this ) ) {
+                // the workers would wait for the lock held by the caller (i.e., when the stored references are first needed), so the
+                // pages are parsed on the caller's thread instead
+                for( final Page page : toScan ) {
+                    rebuildPageReferences( page );
+                    scanned.incrementAndGet();
+                }
+            } else {
+                for( final Page page : toScan ) {
+                    slots.acquire();
+                    workers.execute( () -> {
+                        try {
+                            rebuildPageReferences( page );
+                        } finally {
+                            scanned.incrementAndGet();
+                            slots.release();
+                        }
+                    } );
+                }
+            }
+            workers.shutdown();
+            while( !workers.awaitTermination( 1, TimeUnit.MINUTES ) ) {
+                LOG.info( "Cross reference rebuild: {} of {} pages scanned", scanned.get(), toScan.size() );
+            }
+        } catch( final InterruptedException e ) {
+            LOG.warn( "Cross reference rebuild interrupted, references will be rebuilt on next startup" );
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            workers.shutdownNow();
+            if( progress != null ) {
+                progress.stopProgress( REBUILD_PROGRESS_ID );
+            }
+        }
 
-            m_unmutableReferredBy = Collections.unmodifiableMap( m_referredBy );
-            m_unmutableRefersTo   = Collections.unmodifiableMap( m_refersTo );
+        synchronized( this ) {
+            m_store.rewrite( getRefersTo() );
+            m_rebuilding = false;
+            m_changedWhileRebuilding.clear();
+        }
+        final File legacy = new File( m_engine.getWorkDir(), LEGACY_SERIALIZATION_FILE );
+        if( legacy.exists() && !legacy.delete() ) {
+            LOG.warn( "Unable to delete obsolete {}", legacy.getAbsolutePath() );
+        }
+        sw.stop();
+        LOG.info( "Cross reference rebuild of {} pages done in {}", toScan.size(), sw );
+    }
 
-            sw.stop();
-            LOG.debug( "Read serialized data successfully in {}", sw );
+    private void rebuildPageReferences( final Page page ) {
+        try {
+            final Collection< String > references = collectReferences( page );
+            synchronized( this ) {
+                if( !m_changedWhileRebuilding.contains( getFinalPageName( page.getName() ) ) ) {
+                    internalUpdateReferences( page.getName(), references );
+                }
+            }
+            serializeAttrsToDisk( page );
+        } catch( final Exception e ) {
+            LOG.error( "Unable to scan references of {}, continuing to next", page.getName(), e );
         }
+    }
 
-        return saved;
+    /**
+     *  Returns true while all references are being rebuilt in the background, i.e. while the results of the find methods may still
+     *  be incomplete.
+     *
+     *  @return true while rebuilding.
+     */
+    public boolean isRebuilding() {
+        return m_rebuilding;
     }
 
     /**
-     *  Serializes hashmaps to disk.  The format is private, don't touch it.
+     *  Updates the references of a page found to be changed at startup, and stores them.
      */
-    private synchronized void serializeToDisk() {
-        final File f = new File( m_engine.getWorkDir(), SERIALIZATION_FILE );
-        try( final ObjectOutputStream out = new ObjectOutputStream( new BufferedOutputStream( Files.newOutputStream( f.toPath() ) ) ) ) {
-            final StopWatch sw = new StopWatch();
-            sw.start();
+    private synchronized void updateStoredReferences( final Page page ) throws ProviderException {
+        updatePageReferences( page );
+        storeReferences( getFinalPageName( page.getName() ) );
+    }
 
-            out.writeLong( serialVersionUID );
-            out.writeLong( System.currentTimeMillis() ); // Timestamp
-            out.writeObject( m_refersTo );
-            out.writeObject( m_referredBy );
+    /**
+     *  Reads the stored references into memory, if that hasn't happened yet. Called before any access to the reference maps.
+     */
+    private void ensureLoaded() {
+        if( !m_loaded ) {
+            synchronized( this ) {
+                if( !m_loaded ) {
+                    loadFromStore();
+                }
+            }
+        }
+    }
 
+    private void loadFromStore() {
+        final StopWatch sw = new StopWatch();
+        sw.start();
+        try {
+            final Map< String, Set< String > > stored = m_store.load();
+            m_graph.clear();
+            for( final Map.Entry< String, Set< String > > e : stored.entrySet() ) {
+                final int id = m_graph.intern( e.getKey() );
+                m_graph.setRefersTo( id, m_graph.internAll( e.getValue() ) );
+                m_graph.ensureReferredBy( id );
+            }
+            for( final Map.Entry< String, Set< String > > e : stored.entrySet() ) {
+                for( final String referred : e.getValue() ) {
+                    updateReferredBy( referred, e.getKey() );
+                }
+            }
+            m_loaded = true;
             sw.stop();
+            LOG.debug( "Read stored references of {} pages in {}", stored.size(), sw );
+        } catch( final IOException e ) {
+            LOG.error( "Unable to read stored references, rebuilding them: {}", e.getMessage(), e );
+            try {
+                final List< Page > pages = new ArrayList<>( m_engine.getManager( PageManager.class ).getAllPages() );
+                pages.addAll( m_engine.getManager( AttachmentManager.class ).getAllAttachments() );
+                rebuild( pages, m_rebuildInBackground );
+            } catch( final ProviderException pe ) {
+                LOG.error( "Unable to rebuild references: {}", pe.getMessage(), pe );
+                m_loaded = true;
+            }
+        }
+    }
 
-            LOG.debug( "serialization done - took {}", sw );
-        } catch( final IOException ioe ) {
-            LOG.error( "Unable to serialize!", ioe );
+    /**
+     *  Appends the current references of a page to the reference log, compacting the log in the background if needed. Must be
+     *  called while holding this object's lock, right after the references were changed, so the log keeps the order of the changes.
+     */
+    private void storeReferences( final String pageName ) {
+        if( m_rebuilding ) {
+            // the rebuild stores all references once it finishes
+            m_changedWhileRebuilding.add( pageName );
+            return;
+        }
+        final Collection< String > refersTo = m_graph.names( m_graph.refersTo( m_graph.lookup( pageName ) ) );
+        if( refersTo != null ) {
+            m_store.append( pageName, refersTo );
+        } else {
+            m_store.appendRemoval( pageName );
+        }
+        if( m_store.needsCompaction() && m_compacting.compareAndSet( false, true ) ) {
+            final Thread compaction = new Thread( this::compactStore, "JSPWiki ReferenceManager Compaction" );
+            compaction.setDaemon( true );
+            compaction.start();
+        }
+    }
+
+    /**
+     *  Rewrites the reference log as a snapshot of the current references. Only the snapshot is taken while holding the lock.
+     */
+    private void compactStore() {
+        try {
+            final Map< String, Collection< String > > snapshot;
+            final long offset;
+            synchronized( this ) {
+                snapshot = getRefersTo();
+                offset = m_store.length();
+            }
+            m_store.compact( snapshot, offset );
+        } catch( final IOException e ) {
+            LOG.error( "Unable to compact stored references: {}", e.getMessage(), e );
+        } finally {
+            m_compacting.set( false );
         }
     }
 
@@ -432,50 +637,51 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
     }
 
     /**
-     * Updates the m_referedTo and m_referredBy hashmaps when a page has been deleted.
+     * Updates the reference graph when a page has been deleted.
      * <P>
-     * Within the m_refersTo map the pagename is a key. The whole key-value-set has to be removed to keep the map clean.
-     * Within the m_referredBy map the name is stored as a value. Since a key can have more than one value we have to
-     * delete just the key-value-pair referring page:deleted page.
+     * On the refers-to side the page is a key, which has to be removed as a whole to keep the graph clean.
+     * On the referred-by side the page is stored as a referrer of other pages. Since a page can have more than one referrer we have
+     * to delete just the deleted page from the referrers of each page it referred to.
      *
-     *  @param page Name of the page to remove from the maps.
+     *  @param page Name of the page to remove from the graph.
      */
     @Override
     public void pageRemoved( final Page page ) {
         pageRemoved( page.getName() );
     }
 
-    private void pageRemoved( final String pageName ) {
-        final Collection< String > refTo = m_refersTo.get( pageName );
+    private synchronized void pageRemoved( final String pageName ) {
+        ensureLoaded();
+        final int id = m_graph.lookup( pageName );
+        final int[] refTo = m_graph.refersTo( id );
         if( refTo != null ) {
-            for( final String referredPageName : refTo ) {
-                final Set< String > refBy = m_referredBy.get( referredPageName );
-                if( refBy == null ) {
+            for( final int referred : refTo ) {
+                if( m_graph.referredBy( referred ) == null ) {
                     throw new InternalWikiException( "Refmgr out of sync: page " + pageName +
-                                                     " refers to " + referredPageName + ", which has null referrers." );
+                                                     " refers to " + m_graph.name( referred ) + ", which has null referrers." );
                 }
 
-                refBy.remove( pageName );
-                m_referredBy.remove( referredPageName );
+                m_graph.removeReferrer( referred, id );
 
-                // We won't put it back again if it becomes empty and does not exist.  It will be added
+                // We won't keep it if it becomes empty and does not exist.  It will be added
                 // later on anyway, if it becomes referenced again.
-                if( !( refBy.isEmpty() && !m_engine.getManager( PageManager.class ).wikiPageExists( referredPageName ) ) ) {
-                    m_referredBy.put( referredPageName, refBy );
+                if( m_graph.referredBy( referred ).length == 0
+                        && !m_engine.getManager( PageManager.class ).wikiPageExists( m_graph.name( referred ) ) ) {
+                    m_graph.removeReferredBy( referred );
                 }
             }
 
-            LOG.debug( "Removing from m_refersTo HashMap key:value {}:{}", pageName, m_refersTo.get( pageName ) );
-            m_refersTo.remove( pageName );
+            LOG.debug( "Removing from refersTo key:value {}:{}", pageName, m_graph.names( refTo ) );
+            m_graph.removeRefersTo( id );
         }
 
-        final Set< String > refBy = m_referredBy.get( pageName );
-        if( refBy == null || refBy.isEmpty() ) {
-            m_referredBy.remove( pageName );
+        final int[] refBy = m_graph.referredBy( id );
+        if( refBy != null && refBy.length == 0 ) {
+            m_graph.removeReferredBy( id );
         }
 
         //  Remove any traces from the disk, too
-        serializeToDisk();
+        storeReferences( pageName );
 
         final String hashName = getHashFileName( pageName );
         if( hashName != null ) {
@@ -509,9 +715,9 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
      *  @param references A Collection of Strings, each one pointing to a page this page references.
      */
     @Override
-    public void updateReferences( final String page, final Collection< String > references ) {
-        internalUpdateReferences( page, references );
-        serializeToDisk();
+    public synchronized void updateReferences( final String page, final Collection< String > references ) {
+        ensureLoaded();
+        storeReferences( internalUpdateReferences( page, references ) );
     }
 
     /**
@@ -522,13 +728,14 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
      *
      *  @param page Name of the page to update.
      *  @param references A Collection of Strings, each one pointing to a page this page references.
+     *  @return the final name of the updated page.
      */
-    private void internalUpdateReferences( String page, final Collection< String > references) {
+    private String internalUpdateReferences( String page, final Collection< String > references) {
         page = getFinalPageName( page );
+        final int id = m_graph.intern( page );
 
-        // Create a new entry in m_refersTo.
-        final Collection< String > oldRefTo = m_refersTo.get( page );
-        m_refersTo.remove( page );
+        // Create a new refers-to entry.
+        final int[] oldRefTo = m_graph.refersTo( id );
 
         final TreeSet< String > cleanedRefs = new TreeSet<>();
         for( final String ref : references ) {
@@ -536,40 +743,55 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
             cleanedRefs.add( reference );
         }
 
-        m_refersTo.put( page, cleanedRefs );
+        m_graph.setRefersTo( id, m_graph.internAll( cleanedRefs ) );
 
         //  We know the page exists, since it's making references somewhere. If an entry for it didn't exist previously
-        //  in m_referredBy, make sure one is added now.
-        if( !m_referredBy.containsKey( page ) ) {
-            m_referredBy.put( page, new TreeSet<>() );
-        }
+        //  in the referred-by side, make sure one is added now.
+        m_graph.ensureReferredBy( id );
 
         //  Get all pages that used to be referred to by 'page' and remove that reference. (We don't want to try to figure out
         //  which particular references were removed...)
-        cleanReferredBy( page, oldRefTo, cleanedRefs );
+        cleanReferredBy( id, oldRefTo );
 
         //  Notify all referred pages of their referinesshoodicity.
         for( final String referredPageName : cleanedRefs ) {
             updateReferredBy( getFinalPageName( referredPageName ), page );
         }
+        return page;
     }
 
     /**
-     * Returns the refers-to list. For debugging.
+     * Returns a snapshot of the refers-to list. For debugging.
      *
      * @return The refers-to list.
      */
     protected Map< String, Collection< String > > getRefersTo() {
-        return m_refersTo;
+        ensureLoaded();
+        final Map< String, Collection< String > > refersTo = new HashMap<>();
+        for( int id = 0; id < m_graph.size(); id++ ) {
+            final int[] refs = m_graph.refersTo( id );
+            if( refs != null ) {
+                refersTo.put( m_graph.name( id ), m_graph.names( refs ) );
+            }
+        }
+        return refersTo;
     }
 
     /**
-     * Returns the referred-by list. For debugging.
+     * Returns a snapshot of the referred-by list. For debugging.
      *
      * @return Referred-by lists.
      */
     protected Map< String, Set< String > > getReferredBy() {
-        return m_referredBy;
+        ensureLoaded();
+        final Map< String, Set< String > > referredBy = new HashMap<>();
+        for( int id = 0; id < m_graph.size(); id++ ) {
+            final int[] refs = m_graph.referredBy( id );
+            if( refs != null ) {
+                referredBy.put( m_graph.name( id ), m_graph.names( refs ) );
+            }
+        }
+        return referredBy;
     }
 
     /**
@@ -583,23 +805,20 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
      *
      * We'll just try the first for now. Need to come back and optimize this a bit.
      */
-    private void cleanReferredBy( final String referrer,
-                                  final Collection< String > oldReferred,
-                                  final Collection< String > newReferred ) {
+    private void cleanReferredBy( final int referrer, final int[] oldReferred ) {
         if( oldReferred == null ) {
             return;
         }
 
-        for( final String referredPage : oldReferred ) {
-            final Set< String > oldRefBy = m_referredBy.get( referredPage );
-            if( oldRefBy != null ) {
-                oldRefBy.remove( referrer );
-            }
+        for( final int referredPage : oldReferred ) {
+            m_graph.removeReferrer( referredPage, referrer );
+            final int[] oldRefBy = m_graph.referredBy( referredPage );
 
             // If the page is referred to by no one AND it doesn't even exist, we might just as well forget about this
             // entry. It will be added again elsewhere if new references appear.
-            if( ( oldRefBy == null || oldRefBy.isEmpty() ) && !m_engine.getManager( PageManager.class ).wikiPageExists( referredPage ) ) {
-                m_referredBy.remove( referredPage );
+            if( ( oldRefBy == null || oldRefBy.length == 0 )
+                    && !m_engine.getManager( PageManager.class ).wikiPageExists( m_graph.name( referredPage ) ) ) {
+                m_graph.removeReferredBy( referredPage );
             }
         }
     }
@@ -614,18 +833,18 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
      * @param pages a Collection containing WikiPage objects.
      */
     private void buildKeyLists( final Collection< Page > pages ) {
-        m_refersTo.clear();
-        m_referredBy.clear();
+        m_graph.clear();
         if( pages == null ) {
             return;
         }
 
         try {
             for( final Page page : pages ) {
+                final int id = m_graph.intern( page.getName() );
                 // We add a non-null entry to referredBy to indicate the referred page exists
-                m_referredBy.put( page.getName(), new TreeSet<>() );
+                m_graph.ensureReferredBy( id );
                 // Just add a key to refersTo; the keys need to be in sync with referredBy.
-                m_refersTo.put( page.getName(), new TreeSet<>() );
+                m_graph.setRefersTo( id, ReferenceGraph.NO_REFERENCES );
             }
         } catch( final ClassCastException e ) {
             LOG.fatal( "Invalid collection entry in ReferenceManager.buildKeyLists().", e );
@@ -653,10 +872,9 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
             }
         }
 
-        // Even if 'page' has not been created yet, it can still be referenced. This requires we don't use m_referredBy
+        // Even if 'page' has not been created yet, it can still be referenced. This requires we don't use referred-by
         // keys when looking up missing pages, of course.
-        final Set< String > referrers = m_referredBy.computeIfAbsent( page, k -> new TreeSet<>() );
-        referrers.add( referrer );
+        m_graph.addReferrer( m_graph.intern( page ), m_graph.intern( referrer ) );
     }
 
 
@@ -666,46 +884,65 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
      * @param pagename  Name of the page to clear references for.
      */
     @Override
-    public void clearPageEntries( String pagename ) {
+    public synchronized void clearPageEntries( String pagename ) {
+        ensureLoaded();
         pagename = getFinalPageName( pagename );
 
         //  Remove this item from the referredBy list of any page which this item refers to.
-        final Collection< String > c = m_refersTo.get( pagename );
+        final int id = m_graph.lookup( pagename );
+        final int[] c = m_graph.refersTo( id );
         if( c != null ) {
-            for( final String key : c ) {
-                final Collection< ? > dref = m_referredBy.get( key );
-                dref.remove( pagename );
+            for( final int key : c ) {
+                m_graph.removeReferrer( key, id );
             }
         }
 
         //  Finally, remove direct references.
-        m_referredBy.remove( pagename );
-        m_refersTo.remove( pagename );
+        if( id >= 0 ) {
+            m_graph.removeReferredBy( id );
+            m_graph.removeRefersTo( id );
+        }
+        storeReferences( pagename );
     }
 
 
     /**
-     *  Finds all unreferenced pages. This requires a linear scan through m_referredBy to locate keys with null or empty values.
+     *  Finds all unreferenced pages, i.e. pages without referrers. The result is computed with a linear scan over the graph, and
+     *  cached until the references change.
      *
      *  @return The Collection of Strings
      */
     @Override
     public Collection< String > findUnreferenced() {
-        final ArrayList< String > unref = new ArrayList<>();
-        for( final String key : m_referredBy.keySet() ) {
-            final Set< ? > refs = getReferenceList( m_referredBy, key );
-            if( refs == null || refs.isEmpty() ) {
-                unref.add( key );
+        ensureLoaded();
+        CachedResult< List< String > > unref = m_unreferenced;
+        final long version = m_graph.version();
+        if( unref == null || unref.m_version != version ) {
+            final List< String > pages = new ArrayList<>();
+            for( int id = 0; id < m_graph.size(); id++ ) {
+                final int[] refs = m_graph.referredBy( id );
+                if( refs != null && refs.length == 0 && !hasPluralReferrers( id ) ) {
+                    pages.add( m_graph.name( id ) );
+                }
             }
+            unref = new CachedResult<>( version, pages );
+            m_unreferenced = unref;
         }
 
-        return unref;
+        return new ArrayList<>( unref.m_value );
     }
 
+    private boolean hasPluralReferrers( final int id ) {
+        if( !m_matchEnglishPlurals ) {
+            return false;
+        }
+        final int[] refs = m_graph.referredBy( m_graph.lookup( getPluralPartner( m_graph.name( id ) ) ) );
+        return refs != null && refs.length > 0;
+    }
 
     /**
-     * Finds all references to non-existant pages. This requires a linear scan through m_refersTo values; each value
-     * must have a corresponding key entry in the reference Maps, otherwise such a page has never been created.
+     * Finds all references to non-existant pages. Pages that are referenced but do not have references on their own are taken as
+     * candidates (that list is cached until the references change), and then checked against the PageManager.
      * <P>
      * Returns a Collection containing Strings of unreferenced page names. Each non-existant page name is shown only
      * once - we don't return information on who referred to it.
@@ -714,45 +951,52 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
      */
     @Override
     public Collection< String > findUncreated() {
-        final TreeSet< String > uncreated = new TreeSet<>();
-
-        // Go through m_refersTo values and check that m_refersTo has the corresponding keys.
-        // We want to reread the code to make sure our HashMaps are in sync...
-        final Collection< Collection< String > > allReferences = m_refersTo.values();
-        for( final Collection<String> refs : allReferences ) {
-            if( refs != null ) {
-                for( final String aReference : refs ) {
-                    if( !m_engine.getManager( PageManager.class ).wikiPageExists( aReference ) ) {
-                        uncreated.add( aReference );
+        ensureLoaded();
+        CachedResult< List< String > > candidates = m_uncreatedCandidates;
+        final long version = m_graph.version();
+        if( candidates == null || candidates.m_version != version ) {
+            final boolean[] referenced = new boolean[ m_graph.size() ];
+            for( int id = 0; id < referenced.length; id++ ) {
+                final int[] refs = m_graph.refersTo( id );
+                if( refs != null ) {
+                    for( final int ref : refs ) {
+                        if( ref < referenced.length ) {
+                            referenced[ ref ] = true;
+                        }
                     }
                 }
             }
+            final List< String > pages = new ArrayList<>();
+            for( int id = 0; id < referenced.length; id++ ) {
+                if( referenced[ id ] && m_graph.refersTo( id ) == null ) {
+                    pages.add( m_graph.name( id ) );
+                }
+            }
+            candidates = new CachedResult<>( version, pages );
+            m_uncreatedCandidates = candidates;
         }
 
+        final TreeSet< String > uncreated = new TreeSet<>();
+        for( final String candidate : candidates.m_value ) {
+            if( !m_engine.getManager( PageManager.class ).wikiPageExists( candidate ) ) {
+                uncreated.add( candidate );
+            }
+        }
         return uncreated;
     }
 
     /**
-     *  Searches for the given page in the given Map, and returns the set of references. This method also takes care of
-     *  English plural matching.
+     *  Returns the names of the pages referring to the given one. This method also takes care of English plural matching.
      *
-     *  @param coll The Map to search in
      *  @param pagename The name to find.
-     *  @return The references list.
+     *  @return The referrers, or {@code null} if the page (nor its plural partner) isn't a key of the referred-by side.
      */
-    private < T > Set< T > getReferenceList( final Map< String, Set< T > > coll, final String pagename ) {
-        Set< T > refs = coll.get( pagename );
+    private Set< String > getReferrers( final String pagename ) {
+        Set< String > refs = m_graph.names( m_graph.referredBy( m_graph.lookup( pagename ) ) );
 
         if( m_matchEnglishPlurals ) {
             //  We'll add also matches from the "other" page.
-            final Set< T > refs2;
-
-            if( pagename.endsWith( "s" ) ) {
-                refs2 = coll.get( pagename.substring( 0, pagename.length() - 1 ) );
-            } else {
-                refs2 = coll.get( pagename + "s" );
-            }
-
+            final Set< String > refs2 = m_graph.names( m_graph.referredBy( m_graph.lookup( getPluralPartner( pagename ) ) ) );
             if( refs2 != null ) {
                 if( refs != null ) {
                     refs.addAll( refs2 );
@@ -764,6 +1008,10 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
         return refs;
     }
 
+    private static String getPluralPartner( final String pagename ) {
+        return pagename.endsWith( "s" ) ? pagename.substring( 0, pagename.length() - 1 ) : pagename + "s";
+    }
+
     /**
      * Find all pages that refer to this page. Returns null if the page does not exist or is not referenced at all,
      * otherwise returns a collection containing page names (String) that refer to this one.
@@ -773,7 +1021,8 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
      */
     @Override
     public Set< String > findReferrers( final String pagename ) {
-        final Set< String > refs = getReferenceList( m_referredBy, pagename );
+        ensureLoaded();
+        final Set< String > refs = getReferrers( pagename );
         if( refs == null || refs.isEmpty() ) {
             return null;
         }
@@ -782,12 +1031,10 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
     }
 
     /**
-     *  Returns all pages that refer to this page.  Note that this method returns an unmodifiable Map, which may be abruptly changed.
-     *  So any access to any iterator may result in a ConcurrentModificationException.
+     *  Returns all pages that refer to this page.  The returned Set is a snapshot, later changes of the references are not
+     *  reflected in it.
      *  <p>
-     *  The advantages of using this method over findReferrers() is that it is very fast, as it does not create a new object.
-     *  The disadvantages are that it does not do any mapping between plural names, and you may end up getting a
-     *  ConcurrentModificationException.
+     *  The difference with findReferrers() is that this method does not do any mapping between plural names.
      *
      * @param pageName Page name to query.
      * @return A Set of Strings containing the names of all the pages that refer to this page.  May return null, if the page does
@@ -796,17 +1043,15 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
      */
     @Override
     public Set< String > findReferredBy( final String pageName ) {
-        return m_unmutableReferredBy.get( getFinalPageName(pageName) );
+        ensureLoaded();
+        return m_graph.names( m_graph.referredBy( m_graph.lookup( getFinalPageName( pageName ) ) ) );
     }
 
     /**
      *  Returns all pages that this page refers to.  You can use this as a quick way of getting the links from a page, but note
      *  that it does not link any InterWiki, image, or external links.  It does contain attachments, though.
      *  <p>
-     *  The Collection returned is unmutable, so you cannot change it.  It does reflect the current status and thus is a live
-     *  object.  So, if you are using any kind of an iterator on it, be prepared for ConcurrentModificationExceptions.
-     *  <p>
-     *  The returned value is a Collection, because a page may refer to another page multiple times.
+     *  The Collection returned is a snapshot, later changes of the references are not reflected in it.
      *
      * @param pageName Page name to query
      * @return A Collection of Strings containing the names of the pages that this page refers to. May return null, if the page
@@ -815,38 +1060,26 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
      */
     @Override
     public Collection< String > findRefersTo( final String pageName ) {
-        return m_unmutableRefersTo.get( getFinalPageName( pageName ) );
+        ensureLoaded();
+        return m_graph.names( m_graph.refersTo( m_graph.lookup( getFinalPageName( pageName ) ) ) );
     }
 
     /**
      * This 'deepHashCode' can be used to determine if there were any modifications made to the underlying to and by maps of the
-     * ReferenceManager. The maps of the ReferenceManager are not synchronized, so someone could add/remove entries in them while the
-     * hashCode is being computed.
-     *
-     * This method traps and retries if a concurrent modification occurs.
+     * ReferenceManager. It is only recalculated when the references change.
      *
      * @return Sum of the hashCodes for the to and by maps of the ReferenceManager
      * @since 2.3.24
      */
-    //
-    //   TODO: It is unnecessary to calculate the hashcode; it should be calculated only when the hashmaps are changed.  This is slow.
-    //
     public int deepHashCode() {
-        boolean failed = true;
-        int signature = 0;
-
-        while( failed ) {
-            signature = 0;
-            try {
-                signature ^= m_referredBy.hashCode();
-                signature ^= m_refersTo.hashCode();
-                failed = false;
-            } catch ( final ConcurrentModificationException e) {
-                Thread.yield();
-            }
+        ensureLoaded();
+        CachedResult< Integer > hash = m_deepHashCode;
+        final long version = m_graph.version();
+        if( hash == null || hash.m_version != version ) {
+            hash = new CachedResult<>( version, getReferredBy().hashCode() ^ getRefersTo().hashCode() );
+            m_deepHashCode = hash;
         }
-
-        return signature;
+        return hash.m_value;
     }
 
     /**
@@ -859,7 +1092,14 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
      */
     @Override
     public Set< String > findCreated() {
-        return new HashSet<>( m_refersTo.keySet() );
+        ensureLoaded();
+        final Set< String > created = new HashSet<>();
+        for( int id = 0; id < m_graph.size(); id++ ) {
+            if( m_graph.refersTo( id ) != null ) {
+                created.add( m_graph.name( id ) );
+            }
+        }
+        return created;
     }
 
     private String getFinalPageName( final String orig ) {
@@ -879,10 +1119,23 @@ public class DefaultReferenceManager extends BasePageFilter implements Reference
 	public void actionPerformed( final WikiEvent event ) {
         if( event instanceof WikiPageEvent && event.getType() == WikiPageEvent.PAGE_DELETED ) {
             final String pageName = ( ( WikiPageEvent ) event ).getPageName();
-            if( pageName != null ) {
+            // delivered in the background, so the page may have been created again in the meantime
+            if( pageName != null && !m_engine.getManager( PageManager.class ).wikiPageExists( pageName ) ) {
                 pageRemoved( pageName );
             }
         }
     }
 
+    /** Result of a whole-graph query, along with the graph version it was computed from. */
+    private static final class CachedResult< T > {
+
+        private final long m_version;
+        private final T m_value;
+
+        CachedResult( final long version, final T value ) {
+            m_version = version;
+            m_value = value;
+        }
+    }
+
 }
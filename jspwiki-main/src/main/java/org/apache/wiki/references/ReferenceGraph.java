@@ -0,0 +1,290 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.references;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ *  Page link graph, with page names interned to int ids. For every id, the graph keeps a sorted {@code int[]} of the pages it refers
+ *  to and another one of the pages referring to it; a {@code null} array means the page isn't a key of the respective side, an empty
+ *  one that it is a key without references. Ids are never reused, so a name keeps its id for the lifetime of the graph.
+ *  <p>
+ *  Adjacency arrays are never modified once published: writers replace them with new arrays. Writers are serialized on this object,
+ *  whereas readers don't take any lock and always see a consistent array for each page. Every change bumps the {@link #version()},
+ *  so readers can cache results computed from the whole graph.
+ *
+ *  @since 2.11.2
+ */
+final class ReferenceGraph {
+
+    static final int[] NO_REFERENCES = new int[ 0 ];
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final Map< String, Integer > m_ids = new ConcurrentHashMap<>();
+
+    /** Arrays are swapped as a whole when growing, after copying, so readers never see a shorter array than an id they know of. */
+    private volatile String[] m_names = new String[ INITIAL_CAPACITY ];
+    private volatile AtomicReferenceArray< int[] > m_refersTo = new AtomicReferenceArray<>( INITIAL_CAPACITY );
+    private volatile AtomicReferenceArray< int[] > m_referredBy = new AtomicReferenceArray<>( INITIAL_CAPACITY );
+    private volatile int m_size;
+    private volatile long m_version;
+
+    /**
+     *  Id of a page name, if it has been interned.
+     *
+     *  @param name page name.
+     *  @return page id, or {@code -1} if the graph never held that name.
+     */
+    int lookup( final String name ) {
+        final Integer id = m_ids.get( name );
+        return id != null ? id : -1;
+    }
+
+    /**
+     *  Name of a page id.
+     *
+     *  @param id page id.
+     *  @return the page name.
+     */
+    String name( final int id ) {
+        return m_names[ id ];
+    }
+
+    /**
+     *  Number of interned names, i.e. the upper bound (exclusive) of the page ids.
+     *
+     *  @return number of interned names.
+     */
+    int size() {
+        return m_size;
+    }
+
+    /**
+     *  Counter incremented on every change of the graph.
+     *
+     *  @return current version.
+     */
+    long version() {
+        return m_version;
+    }
+
+    /**
+     *  Id of a page name, interning the name if needed.
+     *
+     *  @param name page name.
+     *  @return page id.
+     */
+    synchronized int intern( final String name ) {
+        final Integer existing = m_ids.get( name );
+        if( existing != null ) {
+            return existing;
+        }
+        final int id = m_size;
+        if( id == m_names.length ) {
+            grow();
+        }
+        m_names[ id ] = name;
+        m_size = id + 1;
+        m_ids.put( name, id );
+        return id;
+    }
+
+    private void grow() {
+        final int capacity = m_names.length * 2;
+        final AtomicReferenceArray< int[] > refersTo = new AtomicReferenceArray<>( capacity );
+        final AtomicReferenceArray< int[] > referredBy = new AtomicReferenceArray<>( capacity );
+        for( int i = 0; i < m_size; i++ ) {
+            refersTo.set( i, m_refersTo.get( i ) );
+            referredBy.set( i, m_referredBy.get( i ) );
+        }
+        m_refersTo = refersTo;
+        m_referredBy = referredBy;
+        m_names = Arrays.copyOf( m_names, capacity );
+    }
+
+    /**
+     *  Pages referred to by a page.
+     *
+     *  @param id page id, may be {@code -1}.
+     *  @return sorted page ids, {@code null} if the page isn't a key of the refers-to side. Must not be modified.
+     */
+    int[] refersTo( final int id ) {
+        return id < 0 ? null : m_refersTo.get( id );
+    }
+
+    /**
+     *  Pages referring to a page.
+     *
+     *  @param id page id, may be {@code -1}.
+     *  @return sorted page ids, {@code null} if the page isn't a key of the referred-by side. Must not be modified.
+     */
+    int[] referredBy( final int id ) {
+        return id < 0 ? null : m_referredBy.get( id );
+    }
+
+    /**
+     *  Replaces the pages referred to by a page.
+     *
+     *  @param id page id.
+     *  @param refersTo sorted, distinct page ids. Must not be modified afterwards.
+     */
+    synchronized void setRefersTo( final int id, final int[] refersTo ) {
+        m_refersTo.set( id, refersTo );
+        m_version++;
+    }
+
+    /**
+     *  Removes a page from the refers-to side.
+     *
+     *  @param id page id.
+     */
+    synchronized void removeRefersTo( final int id ) {
+        m_refersTo.set( id, null );
+        m_version++;
+    }
+
+    /**
+     *  Makes a page a key of the referred-by side, without referrers if it wasn't one.
+     *
+     *  @param id page id.
+     */
+    synchronized void ensureReferredBy( final int id ) {
+        if( m_referredBy.get( id ) == null ) {
+            m_referredBy.set( id, NO_REFERENCES );
+            m_version++;
+        }
+    }
+
+    /**
+     *  Adds a referrer to a page, making the page a key of the referred-by side if needed.
+     *
+     *  @param id page id.
+     *  @param referrer referring page id.
+     */
+    synchronized void addReferrer( final int id, final int referrer ) {
+        final int[] referrers = m_referredBy.get( id );
+        if( referrers == null ) {
+            m_referredBy.set( id, new int[] { referrer } );
+        } else {
+            final int pos = Arrays.binarySearch( referrers, referrer );
+            if( pos >= 0 ) {
+                return;
+            }
+            final int insert = -pos - 1;
+            final int[] updated = new int[ referrers.length + 1 ];
+            System.arraycopy( referrers, 0, updated, 0, insert );
+            updated[ insert ] = referrer;
+            System.arraycopy( referrers, insert, updated, insert + 1, referrers.length - insert );
+            m_referredBy.set( id, updated );
+        }
+        m_version++;
+    }
+
+    /**
+     *  Removes a referrer from a page. Nothing happens if the page isn't a key of the referred-by side.
+     *
+     *  @param id page id.
+     *  @param referrer referring page id.
+     */
+    synchronized void removeReferrer( final int id, final int referrer ) {
+        final int[] referrers = m_referredBy.get( id );
+        if( referrers != null ) {
+            final int pos = Arrays.binarySearch( referrers, referrer );
+            if( pos >= 0 ) {
+                final int[] updated = new int[ referrers.length - 1 ];
+                System.arraycopy( referrers, 0, updated, 0, pos );
+                System.arraycopy( referrers, pos + 1, updated, pos, referrers.length - pos - 1 );
+                m_referredBy.set( id, updated );
+                m_version++;
+            }
+        }
+    }
+
+    /**
+     *  Removes a page from the referred-by side.
+     *
+     *  @param id page id.
+     */
+    synchronized void removeReferredBy( final int id ) {
+        m_referredBy.set( id, null );
+        m_version++;
+    }
+
+    /**
+     *  Removes all references, keeping the interned names.
+     */
+    synchronized void clear() {
+        for( int i = 0; i < m_size; i++ ) {
+            m_refersTo.set( i, null );
+            m_referredBy.set( i, null );
+        }
+        m_version++;
+    }
+
+    /**
+     *  Interns page names and returns their ids, sorted and without duplicates.
+     *
+     *  @param names page names.
+     *  @return sorted, distinct page ids.
+     */
+    int[] internAll( final Collection< String > names ) {
+        if( names.isEmpty() ) {
+            return NO_REFERENCES;
+        }
+        final int[] ids = new int[ names.size() ];
+        int i = 0;
+        for( final String name : names ) {
+            ids[ i++ ] = intern( name );
+        }
+        Arrays.sort( ids );
+        int distinct = 0;
+        for( int j = 0; j < ids.length; j++ ) {
+            if( j == 0 || ids[ j ] != ids[ j - 1 ] ) {
+                ids[ distinct++ ] = ids[ j ];
+            }
+        }
+        return distinct == ids.length ? ids : Arrays.copyOf( ids, distinct );
+    }
+
+    /**
+     *  Names of the given page ids.
+     *
+     *  @param ids page ids, may be {@code null}.
+     *  @return page names, sorted by name, or {@code null} if {@code ids} is {@code null}.
+     */
+    Set< String > names( final int[] ids ) {
+        if( ids == null ) {
+            return null;
+        }
+        final Set< String > names = new TreeSet<>();
+        for( final int id : ids ) {
+            names.add( name( id ) );
+        }
+        return names;
+    }
+
+}
@@ -0,0 +1,323 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.references;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+
+/**
+ *  Append-only, on-disk store of the pages each page refers to. Every change of a page's references is appended as a record holding
+ *  only that page's references (or its removal), so saving a page no longer rewrites the whole reference table. Replaying the log
+ *  yields the latest references of each page; the referred-by side is derived from them in memory. Once obsolete records outnumber
+ *  the live ones, the log can be rewritten as a snapshot of the current references.
+ *  <p>
+ *  Each record is length-prefixed, so a record torn by a crash is detected and dropped on the next load. The store's timestamp is
+ *  the time of the last appended record, and it is kept when compacting. This class is thread-safe.
+ *
+ *  @since 2.11.2
+ */
+final class ReferenceStore {
+
+    private static final Logger LOG = LogManager.getLogger( ReferenceStore.class );
+
+    /** File format version, bump whenever the format changes so older files get rebuilt. */
+    static final long FORMAT_VERSION = 1L;
+
+    /** Header size: the format version. */
+    private static final int HEADER_LENGTH = 8;
+
+    private static final byte UPDATE = 1;
+    private static final byte REMOVAL = 2;
+
+    /** Below this number of obsolete records, the log is never compacted. */
+    private static final int MIN_OBSOLETE_RECORDS = 1_000;
+
+    private final File m_file;
+
+    /** Records currently held by the log file. */
+    private long m_records;
+
+    /** Number of pages the log held when it was last loaded or compacted. */
+    private long m_live;
+
+    ReferenceStore( final File file ) {
+        m_file = file;
+    }
+
+    /**
+     *  Checks the store can be read by this version.
+     *
+     *  @return the time of the last change written to the store.
+     *  @throws IOException if the store does not exist or uses another format.
+     */
+    synchronized long open() throws IOException {
+        if( !m_file.exists() ) {
+            throw new IOException( m_file.getName() + " does not exist" );
+        }
+        try( final DataInputStream in = new DataInputStream( Files.newInputStream( m_file.toPath() ) ) ) {
+            final long version = in.readLong();
+            if( version != FORMAT_VERSION ) {
+                throw new IOException( "File format has changed; I need to recalculate references." );
+            }
+        }
+        return m_file.lastModified();
+    }
+
+    /**
+     *  Replays the log. A trailing record which was only partially written is dropped from the file.
+     *
+     *  @return page name to the names of the pages it refers to.
+     *  @throws IOException if the store can't be read.
+     */
+    synchronized Map< String, Set< String > > load() throws IOException {
+        final Map< String, Set< String > > refersTo = new HashMap<>();
+        final long length = m_file.length();
+        long valid = HEADER_LENGTH;
+        long records = 0;
+        try( final DataInputStream in = new DataInputStream( new BufferedInputStream( Files.newInputStream( m_file.toPath() ) ) ) ) {
+            if( in.readLong() != FORMAT_VERSION ) {
+                throw new IOException( "File format has changed; I need to recalculate references." );
+            }
+            while( valid + 4 <= length ) {
+                final int size = in.readInt();
+                if( size < 0 || valid + 4 + size > length ) {
+                    break;
+                }
+                final byte[] record = new byte[ size ];
+                in.readFully( record );
+                readRecord( record, refersTo );
+                valid += 4 + record.length;
+                records++;
+            }
+        }
+
+        if( valid < length ) {
+            LOG.warn( "Dropping incomplete trailing record from {}", m_file.getName() );
+            final long lastModified = m_file.lastModified();
+            try( final RandomAccessFile raf = new RandomAccessFile( m_file, "rw" ) ) {
+                raf.setLength( valid );
+            }
+            m_file.setLastModified( lastModified );
+        }
+        m_records = records;
+        m_live = refersTo.size();
+        return refersTo;
+    }
+
+    private void readRecord( final byte[] record, final Map< String, Set< String > > refersTo ) throws IOException {
+        final DataInputStream in = new DataInputStream( new ByteArrayInputStream( record ) );
+        final byte type = in.readByte();
+        final String page = in.readUTF();
+        if( type == REMOVAL ) {
+            refersTo.remove( page );
+        } else if( type == UPDATE ) {
+            final int count = in.readInt();
+            final Set< String > refs = new TreeSet<>();
+            for( int i = 0; i < count; i++ ) {
+                refs.add( in.readUTF() );
+            }
+            refersTo.put( page, refs );
+        } else {
+            throw new IOException( "Unknown record type " + type + " in " + m_file.getName() );
+        }
+    }
+
+    /**
+     *  Appends the current references of a page.
+     *
+     *  @param page page name.
+     *  @param refersTo names of the pages it refers to.
+     */
+    synchronized void append( final String page, final Collection< String > refersTo ) {
+        append( record( UPDATE, page, refersTo ) );
+    }
+
+    /**
+     *  Appends the removal of a page.
+     *
+     *  @param page page name.
+     */
+    synchronized void appendRemoval( final String page ) {
+        append( record( REMOVAL, page, null ) );
+    }
+
+    private void append( final byte[] record ) {
+        final boolean exists = m_file.exists();
+        try( final DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( m_file, true ) ) ) ) {
+            if( !exists ) {
+                out.writeLong( FORMAT_VERSION );
+            }
+            writeRecord( out, record );
+            m_records++;
+        } catch( final IOException e ) {
+            LOG.error( "Unable to write references to {}", m_file.getAbsolutePath(), e );
+        }
+    }
+
+    /**
+     *  Deletes the log, so it has to be rebuilt unless it gets rewritten.
+     */
+    synchronized void delete() {
+        if( m_file.exists() && !m_file.delete() ) {
+            LOG.warn( "Unable to delete {}", m_file.getAbsolutePath() );
+        }
+        m_records = 0;
+        m_live = 0;
+    }
+
+    /**
+     *  Current size of the log, meant to be handed to {@link #compact(Map, long)}.
+     *
+     *  @return log size, in bytes.
+     */
+    synchronized long length() {
+        return m_file.length();
+    }
+
+    /**
+     *  Whether obsolete records outnumber the live ones.
+     *
+     *  @return {@code true} if the log should be compacted.
+     */
+    synchronized boolean needsCompaction() {
+        return m_records - m_live > Math.max( m_live, MIN_OBSOLETE_RECORDS );
+    }
+
+    /**
+     *  Replaces the log with a snapshot of the references, keeping the time of the last change. Records appended after the snapshot
+     *  was taken are carried over to the new log, so callers don't need to block writers while the snapshot gets written.
+     *
+     *  @param refersTo snapshot of all page references.
+     *  @param offset log size when the snapshot was taken, as given by {@link #length()}.
+     *  @throws IOException if the new log can't be written.
+     */
+    void compact( final Map< String, ? extends Collection< String > > refersTo, final long offset ) throws IOException {
+        final File tmp = writeSnapshot( refersTo );
+        synchronized( this ) {
+            final long lastModified = m_file.lastModified();
+            long carried = 0;
+            try( final DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tmp, true ) ) );
+                 final DataInputStream in = new DataInputStream( new BufferedInputStream( Files.newInputStream( m_file.toPath() ) ) ) ) {
+                skipFully( in, offset );
+                while( true ) {
+                    final byte[] record;
+                    try {
+                        record = new byte[ in.readInt() ];
+                        in.readFully( record );
+                    } catch( final EOFException e ) {
+                        break;
+                    }
+                    writeRecord( out, record );
+                    carried++;
+                }
+            }
+            replace( tmp );
+            m_file.setLastModified( lastModified );
+            m_live = refersTo.size();
+            m_records = m_live + carried;
+            LOG.debug( "Compacted {} to {} pages, carried over {} records", m_file.getName(), m_live, carried );
+        }
+    }
+
+    /**
+     *  Replaces the log with a snapshot of the references, e.g. after a full rebuild.
+     *
+     *  @param refersTo all page references.
+     */
+    synchronized void rewrite( final Map< String, ? extends Collection< String > > refersTo ) {
+        try {
+            replace( writeSnapshot( refersTo ) );
+            m_live = refersTo.size();
+            m_records = m_live;
+        } catch( final IOException e ) {
+            LOG.error( "Unable to write references to {}", m_file.getAbsolutePath(), e );
+        }
+    }
+
+    private File writeSnapshot( final Map< String, ? extends Collection< String > > refersTo ) throws IOException {
+        final File tmp = new File( m_file.getParentFile(), m_file.getName() + ".tmp" );
+        try( final DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tmp ) ) ) ) {
+            out.writeLong( FORMAT_VERSION );
+            for( final Map.Entry< String, ? extends Collection< String > > e : refersTo.entrySet() ) {
+                writeRecord( out, record( UPDATE, e.getKey(), e.getValue() ) );
+            }
+        }
+        return tmp;
+    }
+
+    private void replace( final File tmp ) throws IOException {
+        Files.move( tmp.toPath(), m_file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+    }
+
+    private static byte[] record( final byte type, final String page, final Collection< String > refersTo ) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try( final DataOutputStream out = new DataOutputStream( bytes ) ) {
+            out.writeByte( type );
+            out.writeUTF( page );
+            if( refersTo != null ) {
+                out.writeInt( refersTo.size() );
+                for( final String ref : refersTo ) {
+                    out.writeUTF( ref );
+                }
+            }
+        } catch( final IOException e ) {
+            // writing to memory doesn't fail
+            throw new IllegalStateException( e );
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeRecord( final DataOutputStream out, final byte[] record ) throws IOException {
+        out.writeInt( record.length );
+        out.write( record );
+    }
+
+    private static void skipFully( final InputStream in, final long bytes ) throws IOException {
+        long remaining = bytes;
+        while( remaining > 0 ) {
+            final long skipped = in.skip( remaining );
+            if( skipped <= 0 ) {
+                throw new EOFException( "Log is shorter than expected" );
+            }
+            remaining -= skipped;
+        }
+    }
+
+}
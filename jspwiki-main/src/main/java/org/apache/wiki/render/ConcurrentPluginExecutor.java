@@ -0,0 +1,360 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.render;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.wiki.api.core.Context;
+import org.apache.wiki.api.core.Engine;
+import org.apache.wiki.api.exceptions.PluginException;
+import org.apache.wiki.api.plugin.Plugin;
+import org.apache.wiki.api.plugin.SequentialPlugin;
+import org.apache.wiki.event.WikiEngineEvent;
+import org.apache.wiki.event.WikiEvent;
+import org.apache.wiki.event.WikiEventListener;
+import org.apache.wiki.modules.WikiModuleInfo;
+import org.apache.wiki.parser.MarkupParser;
+import org.apache.wiki.parser.PluginContent;
+import org.apache.wiki.parser.WikiDocument;
+import org.apache.wiki.plugin.DefaultPluginManager;
+import org.apache.wiki.plugin.PluginManager;
+import org.apache.wiki.preferences.Preferences;
+import org.apache.wiki.util.TextUtil;
+import org.jdom2.filter.Filters;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ResourceBundle;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ *  Starts the execution of all the plugins of a {@link WikiDocument} at once, before it is written out, so that a page with several
+ *  slow plugins takes as long as the slowest of them instead of the sum of all of them. Renderers pick up the results, in document
+ *  order, through {@link Execution#resultOf(PluginContent)}.
+ *  <p>
+ *  There is one instance per {@link Engine}, configured through {@link RenderingManager#PROP_CONCURRENT_PLUGINS},
+ *  {@link RenderingManager#PROP_PLUGIN_THREADS} and {@link RenderingManager#PROP_PLUGIN_TIMEOUT}. Plugins run on virtual threads when
+ *  the JVM provides them, and on a pool of daemon threads otherwise; either way no more than the configured number of plugins run at
+ *  the same time. Each plugin runs with its own deep clone of the rendering context.
+ *  <p>
+ *  The timeout applies to each plugin from the moment it starts running: a plugin still waiting for a free thread when the renderer
+ *  gets to it is taken back and executed by the renderer itself, instead of timing out without having run at all.
+ *  <p>
+ *  {@link SequentialPlugin}s are left alone, so they are executed by the renderer itself, as usual. Plugins rendering other pages
+ *  (i.e., InsertPage) render them sequentially, as waiting on nested plugins from inside the pool could exhaust it. The threads are
+ *  stopped once the engine shuts down.
+ */
+final class ConcurrentPluginExecutor implements WikiEventListener {
+
+    private static final Logger log = LogManager.getLogger( ConcurrentPluginExecutor.class );
+
+    private static final String ATTR_EXECUTOR = ConcurrentPluginExecutor.class.getName();
+
+    /** Default maximum number of plugins executed at the same time. */
+    static final int DEFAULT_PLUGIN_THREADS = 8;
+
+    /** Default time given to each plugin to finish, in milliseconds. */
+    static final long DEFAULT_PLUGIN_TIMEOUT = 30_000L;
+
+    private static final Execution NONE = new Execution( null, new IdentityHashMap<>(), 0L );
+
+    /** {@link PluginRun} start time of a plugin taken back by the renderer. */
+    private static final long TAKEN_BACK = -1L;
+
+    /** Set on the threads executing plugins, so plugins rendering other pages don't fan out again. */
+    private static final ThreadLocal< Boolean > c_inPlugin = new ThreadLocal<>();
+
+    private static final AtomicInteger c_threadCount = new AtomicInteger();
+
+    private final boolean m_enabled;
+    private final long m_timeout;
+    private final Semaphore m_slots;
+    private final ExecutorService m_executor;
+
+    private ConcurrentPluginExecutor( final Properties props ) {
+        m_enabled = TextUtil.getBooleanProperty( props, RenderingManager.PROP_CONCURRENT_PLUGINS, false );
+        m_timeout = TextUtil.getIntegerProperty( props, RenderingManager.PROP_PLUGIN_TIMEOUT, ( int )DEFAULT_PLUGIN_TIMEOUT );
+        final int threads = Math.max( 1, TextUtil.getIntegerProperty( props, RenderingManager.PROP_PLUGIN_THREADS, DEFAULT_PLUGIN_THREADS ) );
+        if( !m_enabled ) {
+            m_slots = null;
+            m_executor = null;
+            return;
+        }
+
+        final ExecutorService virtual = newVirtualThreadExecutor();
+        if( virtual != null ) {
+            // virtual threads are cheap, so bound the number of plugins running instead of the number of threads
+            m_slots = new Semaphore( threads );
+            m_executor = virtual;
+            log.info( "Executing up to " + threads + " plugins concurrently, on virtual threads" );
+        } else {
+            final ThreadPoolExecutor pool = new ThreadPoolExecutor( threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                final Thread t = new Thread( r, "JSPWiki Plugin Worker-" + c_threadCount.incrementAndGet() );
+                t.setDaemon( true );
+                return t;
+            } );
+            pool.allowCoreThreadTimeOut( true );
+            m_slots = null;
+            m_executor = pool;
+            log.info( "Executing up to " + threads + " plugins concurrently" );
+        }
+    }
+
+    /**
+     *  Returns the executor of the given engine, creating it on first use.
+     *
+     *  @param engine the wiki engine.
+     *  @return the executor of the given engine.
+     */
+    static ConcurrentPluginExecutor forEngine( final Engine engine ) {
+        ConcurrentPluginExecutor executor = engine.getAttribute( ATTR_EXECUTOR );
+        if( executor == null ) {
+            synchronized( ConcurrentPluginExecutor.class ) {
+                executor = engine.getAttribute( ATTR_EXECUTOR );
+                if( executor == null ) {
+                    executor = new ConcurrentPluginExecutor( engine.getWikiProperties() );
+                    engine.setAttribute( ATTR_EXECUTOR, executor );
+                    if( executor.m_enabled ) {
+                        engine.addWikiEventListener( executor );
+                    }
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     *  Starts executing the plugins of the given document. Nothing is started if concurrent execution is disabled, if plugins are not
+     *  to be executed in this context or if there's less than two plugins to run.
+     *
+     *  @param context the rendering context.
+     *  @param doc the document about to be rendered.
+     *  @return the ongoing execution; never {@code null}.
+     */
+    Execution start( final Context context, final WikiDocument doc ) {
+        if( !m_enabled || m_executor.isShutdown() || c_inPlugin.get() != null || !doc.hasRootElement() ) {
+            return NONE;
+        }
+        if( Boolean.FALSE.equals( context.getVariable( Context.VAR_EXECUTE_PLUGINS ) ) ||
+            Boolean.TRUE.equals( context.getVariable( Context.VAR_WYSIWYG_EDITOR_MODE ) ) ) {
+            return NONE;
+        }
+        final PluginManager pm = context.getEngine().getManager( PluginManager.class );
+        if( pm == null || !pm.pluginsEnabled() ) {
+            return NONE;
+        }
+
+        final List< PluginContent > plugins = new ArrayList<>();
+        for( final PluginContent plugin : doc.getRootElement().getDescendants( Filters.fclass( PluginContent.class ) ) ) {
+            plugins.add( plugin );
+        }
+        if( plugins.size() < 2 ) {
+            return NONE;
+        }
+
+        final ResourceBundle rb = Preferences.getBundle( context, Plugin.CORE_PLUGINS_RESOURCEBUNDLE );
+        final Map< PluginContent, PluginRun > runs = new IdentityHashMap<>();
+        for( final PluginContent plugin : plugins ) {
+            if( isSequential( pm, plugin, rb ) ) {
+                continue;
+            }
+            final Context pluginContext = context.deepClone();
+            final PluginRun run = new PluginRun();
+            try {
+                run.m_result = m_executor.submit( () -> execute( run, plugin, pluginContext ) );
+            } catch( final RejectedExecutionException e ) {
+                // shutting down, leave the remaining plugins to the renderer
+                break;
+            }
+            runs.put( plugin, run );
+        }
+        return new Execution( context, runs, m_timeout );
+    }
+
+    private String execute( final PluginRun run, final PluginContent plugin, final Context context ) throws InterruptedException {
+        if( m_slots != null ) {
+            m_slots.acquire();
+        }
+        try {
+            if( !run.m_started.compareAndSet( 0L, System.currentTimeMillis() ) ) {
+                // the renderer got to it first, and executes it itself
+                return null;
+            }
+            c_inPlugin.set( Boolean.TRUE );
+            return plugin.invoke( context );
+        } finally {
+            if( m_slots != null ) {
+                m_slots.release();
+            }
+            c_inPlugin.remove();
+        }
+    }
+
+    /**
+     *  Tells if a plugin has to be left to the renderer. The answer is kept by the plugin manager once the plugin class is known, so a
+     *  plugin instance is only built the first time a plugin is seen.
+     */
+    private boolean isSequential( final PluginManager pm, final PluginContent plugin, final ResourceBundle rb ) {
+        final WikiModuleInfo info = pm.getModuleInfo( plugin.getPluginName() );
+        if( info instanceof DefaultPluginManager.WikiPluginInfo ) {
+            final Boolean sequential = ( ( DefaultPluginManager.WikiPluginInfo )info ).isSequential();
+            if( sequential != null ) {
+                return sequential;
+            }
+        }
+        try {
+            final Plugin instance = pm.newWikiPlugin( plugin.getPluginName(), rb );
+            // incompatible plugins come back as null, let the renderer report them too
+            return instance == null || instance instanceof SequentialPlugin;
+        } catch( final PluginException e ) {
+            // let the renderer report it, as usual
+            return true;
+        }
+    }
+
+    /**
+     *  Stops the plugin threads once the engine shuts down.
+     *
+     *  @param event the event.
+     */
+    @Override
+    public void actionPerformed( final WikiEvent event ) {
+        if( event instanceof WikiEngineEvent && event.getType() == WikiEngineEvent.SHUTDOWN ) {
+            m_executor.shutdownNow();
+        }
+    }
+
+    /**
+     *  Looks up {@code Executors.newVirtualThreadPerTaskExecutor()}, which is only available on newer JVMs.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return ( ExecutorService )Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" ).invoke( null );
+        } catch( final ReflectiveOperationException | RuntimeException e ) {
+            return null;
+        }
+    }
+
+    /**
+     *  A plugin submitted for execution.
+     */
+    private static final class PluginRun {
+
+        /** When the plugin started running, {@code 0} while it is waiting for a thread, {@link #TAKEN_BACK} if the renderer runs it. */
+        private final AtomicLong m_started = new AtomicLong();
+        private volatile Future< String > m_result;
+
+    }
+
+    /**
+     *  Plugin executions started for one document.
+     */
+    static final class Execution {
+
+        private final Context m_context;
+        private final Map< PluginContent, PluginRun > m_runs;
+        private final long m_timeout;
+        private final long m_submitted;
+
+        private Execution( final Context context, final Map< PluginContent, PluginRun > runs, final long timeout ) {
+            m_context = context;
+            m_runs = runs;
+            m_timeout = timeout;
+            m_submitted = System.currentTimeMillis();
+        }
+
+        /**
+         *  Waits for the result of a plugin started by this execution.
+         *
+         *  @param plugin plugin element.
+         *  @return the plugin output, or {@code null} if the plugin wasn't started by this execution and has to be run by the caller.
+         */
+        String resultOf( final PluginContent plugin ) {
+            final PluginRun run = m_runs.get( plugin );
+            if( run == null ) {
+                return null;
+            }
+            final Future< String > result = run.m_result;
+            try {
+                try {
+                    return result.get( Math.max( 0L, m_submitted + m_timeout - System.currentTimeMillis() ), TimeUnit.MILLISECONDS );
+                } catch( final TimeoutException e ) {
+                    if( run.m_started.compareAndSet( 0L, TAKEN_BACK ) ) {
+                        // still waiting for a thread, so it hasn't had its time yet: the renderer executes it instead
+                        result.cancel( false );
+                        return null;
+                    }
+                    // give it the whole timeout from the moment it started running
+                    final long started = run.m_started.get();
+                    return result.get( Math.max( 0L, started + m_timeout - System.currentTimeMillis() ), TimeUnit.MILLISECONDS );
+                }
+            } catch( final TimeoutException e ) {
+                result.cancel( true );
+                log.warn( "Plugin " + plugin.getPluginName() + " on page " + m_context.getRealPage().getName() + " timed out" );
+                return error( MessageFormat.format( rb().getString( "plugin.error.timedout" ), plugin.getPluginName() ) );
+            } catch( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                result.cancel( true );
+                return error( e.getMessage() );
+            } catch( final ExecutionException e ) {
+                // invoke() already turns plugin failures into error messages, so this shouldn't happen
+                log.error( "Plugin " + plugin.getPluginName() + " failed", e.getCause() );
+                return error( String.valueOf( e.getCause() ) );
+            }
+        }
+
+        /**
+         *  Cancels the plugins still running, i.e. when rendering has failed.
+         */
+        void cancel() {
+            for( final PluginRun run : m_runs.values() ) {
+                run.m_result.cancel( true );
+            }
+        }
+
+        private ResourceBundle rb() {
+            return Preferences.getBundle( m_context, Plugin.CORE_PLUGINS_RESOURCEBUNDLE );
+        }
+
+        private String error( final String message ) {
+            return MarkupParser.makeError( MessageFormat.format( rb().getString( "plugin.error.insertionfailed" ),
+                                                                 m_context.getRealPage().getWiki(),
+                                                                 m_context.getRealPage().getName(),
+                                                                 message ) ).getText();
+        }
+
+    }
+
+}
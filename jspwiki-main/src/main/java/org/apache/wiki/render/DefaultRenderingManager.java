@@ -52,7 +52,9 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.lang.reflect.Constructor;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -62,6 +64,9 @@ import java.util.Properties;
  *  This class also delegates to a rendering cache, i.e. documents are stored between calls. You may control the cache by
  *  tweaking the ehcache configuration file.
  *  <p>
+ *  On top of it, the final HTML of documents without dynamic content (plugins or variables) is kept on a second cache, so viewing
+ *  them again skips rendering and post-translate filtering altogether.
+ *  <p>
  *
  *  @since  2.4
  */
@@ -186,17 +191,15 @@ public class DefaultRenderingManager implements RenderingManager {
      */
     @Override
     // FIXME: The cache management policy is not very good: deleted/changed pages should be detected better.
+    // Cached documents only keep a soft reference to the page data they were rendered from, see WikiDocument#matchesPageData(String).
     public WikiDocument getRenderedDocument( final Context context, final String pagedata ) {
-        final String pageid = context.getRealPage().getName() + VERSION_DELIMITER +
-                              context.getRealPage().getVersion() + VERSION_DELIMITER +
-                              context.getVariable( Context.VAR_EXECUTE_PLUGINS );
+        final String pageid = getDocumentKey( context );
 
         if( useCache( context ) ) {
             final WikiDocument doc = cachingManager.get( CachingManager.CACHE_DOCUMENTS, pageid, () -> null );
             if ( doc != null ) {
                 //  This check is needed in case the different filters have actually changed the page data.
-                //  FIXME: Figure out a faster method
-                if( pagedata.equals( doc.getPageData() ) ) {
+                if( doc.matchesPageData( pagedata ) ) {
                     LOG.debug( "Using cached HTML for page {}", pageid );
                     return doc;
                 }
@@ -209,9 +212,11 @@ public class DefaultRenderingManager implements RenderingManager {
         try {
             final MarkupParser parser = getParser( context, pagedata );
             final WikiDocument doc = parser.parse();
-            doc.setPageData( pagedata );
             if( useCache( context ) ) {
+                doc.setPageDataDigest( pagedata );
                 cachingManager.put( CachingManager.CACHE_DOCUMENTS, pageid, doc );
+            } else {
+                doc.setPageData( pagedata );
             }
             return doc;
         } catch( final IOException ex ) {
@@ -226,6 +231,66 @@ public class DefaultRenderingManager implements RenderingManager {
                && ContextEnum.PAGE_VIEW.getRequestContext().equals( context.getRequestContext() );
     }
 
+    boolean useHtmlCache( final Context context, final WikiDocument doc ) {
+        return useCache( context ) && cachingManager.enabled( CachingManager.CACHE_HTML ) && !doc.hasDynamicContent();
+    }
+
+    String getDocumentKey( final Context context ) {
+        return context.getRealPage().getName() + VERSION_DELIMITER +
+               context.getRealPage().getVersion() + VERSION_DELIMITER +
+               context.getVariable( Context.VAR_EXECUTE_PLUGINS );
+    }
+
+    /**
+     *  Renders the page data and runs the post-translate filters on it, if requested. If the document has no dynamic content, the
+     *  resulting HTML is cached, and returned as is while the document doesn't change.
+     *
+     *  @param context the wiki context
+     *  @param pagedata the page data, already pre-translate filtered
+     *  @param runFilters whether post-translate filters have to be run or not
+     *  @return XHTML data.
+     *  @throws FilterException if a post-translate filter fails.
+     */
+    String getFilteredHTML( final Context context, final String pagedata, final boolean runFilters ) throws FilterException {
+        final WikiDocument doc = getRenderedDocument( context, pagedata );
+        if( doc == null ) {
+            return null;
+        }
+
+        RenderedHtml rendered = null;
+        String variant = null;
+        if( useHtmlCache( context, doc ) ) {
+            final String pageid = getDocumentKey( context );
+            variant = context.getVariable( Context.VAR_WYSIWYG_EDITOR_MODE ) + VERSION_DELIMITER + runFilters;
+            rendered = cachingManager.get( CachingManager.CACHE_HTML, pageid, () -> null );
+            if( rendered == null || rendered.getDocument() != doc ) {
+                // the document has been parsed again since the HTML was cached
+                rendered = new RenderedHtml( doc );
+                cachingManager.put( CachingManager.CACHE_HTML, pageid, rendered );
+            }
+            final String html = rendered.getHTML( variant );
+            if( html != null ) {
+                LOG.debug( "Using cached HTML for page {} ({})", pageid, variant );
+                return html;
+            }
+        }
+
+        String html;
+        try {
+            html = getHTML( context, doc );
+        } catch( final IOException e ) {
+            LOG.error( "Unable to parse", e );
+            return null;
+        }
+        if( runFilters ) {
+            html = m_engine.getManager( FilterManager.class ).doPostTranslateFiltering( context, html );
+        }
+        if( rendered != null ) {
+            rendered.putHTML( variant, html );
+        }
+        return html;
+    }
+
     /**
      *  {@inheritDoc}
      */
@@ -289,11 +354,7 @@ public class DefaultRenderingManager implements RenderingManager {
                 pagedata = m_engine.getManager( FilterManager.class ).doPreTranslateFiltering( context, pagedata );
             }
 
-            result = getHTML( context, pagedata );
-
-            if( runFilters ) {
-                result = m_engine.getManager( FilterManager.class ).doPostTranslateFiltering( context, result );
-            }
+            result = getFilteredHTML( context, pagedata, runFilters );
         } catch( final FilterException e ) {
             LOG.error( "page filter threw exception: ", e );
             // FIXME: Don't yet know what to do
@@ -394,7 +455,7 @@ public class DefaultRenderingManager implements RenderingManager {
     /**
      * {@inheritDoc}
      *
-     * <p>Flushes the document cache in response to a POST_SAVE_BEGIN event.
+     * <p>Flushes the document and rendered HTML caches in response to a POST_SAVE_BEGIN event.
      *
      * @see WikiEventListener#actionPerformed(WikiEvent)
      */
@@ -404,6 +465,10 @@ public class DefaultRenderingManager implements RenderingManager {
         if( isBeginningAWikiPagePostSaveEventAndDocumentCacheIsEnabled( event ) ) {
             final String pageName = ( ( WikiPageEvent ) event ).getPageName();
             cachingManager.remove( CachingManager.CACHE_DOCUMENTS, pageName );
+            // HTML cache keys hold the version and the rendering flag, so expire the flag variants of the latest version of the page
+            cachingManager.remove( CachingManager.CACHE_HTML, pageName + VERSION_DELIMITER + PageProvider.LATEST_VERSION  + VERSION_DELIMITER + Boolean.FALSE );
+            cachingManager.remove( CachingManager.CACHE_HTML, pageName + VERSION_DELIMITER + PageProvider.LATEST_VERSION  + VERSION_DELIMITER + Boolean.TRUE );
+            cachingManager.remove( CachingManager.CACHE_HTML, pageName + VERSION_DELIMITER + PageProvider.LATEST_VERSION  + VERSION_DELIMITER + null );
             final Collection< String > referringPages = m_engine.getManager( ReferenceManager.class ).findReferrers( pageName );
 
             // Flush also those pages that refer to this page (if a nonexistent page
@@ -415,11 +480,43 @@ public class DefaultRenderingManager implements RenderingManager {
                     cachingManager.remove( CachingManager.CACHE_DOCUMENTS, page + VERSION_DELIMITER + PageProvider.LATEST_VERSION  + VERSION_DELIMITER + Boolean.FALSE );
                     cachingManager.remove( CachingManager.CACHE_DOCUMENTS, page + VERSION_DELIMITER + PageProvider.LATEST_VERSION  + VERSION_DELIMITER + Boolean.TRUE );
                     cachingManager.remove( CachingManager.CACHE_DOCUMENTS, page + VERSION_DELIMITER + PageProvider.LATEST_VERSION  + VERSION_DELIMITER + null );
+                    cachingManager.remove( CachingManager.CACHE_HTML, page + VERSION_DELIMITER + PageProvider.LATEST_VERSION  + VERSION_DELIMITER + Boolean.FALSE );
+                    cachingManager.remove( CachingManager.CACHE_HTML, page + VERSION_DELIMITER + PageProvider.LATEST_VERSION  + VERSION_DELIMITER + Boolean.TRUE );
+                    cachingManager.remove( CachingManager.CACHE_HTML, page + VERSION_DELIMITER + PageProvider.LATEST_VERSION  + VERSION_DELIMITER + null );
                 }
             }
         }
     }
 
+    /**
+     *  HTML rendered out of a cached WikiDocument, holding one entry for each combination of rendering flags. Entries are only valid
+     *  for the very same document instance they were rendered from.
+     */
+    static final class RenderedHtml {
+
+        private final WikiDocument m_document;
+        private final Map< String, String > m_variants = new ConcurrentHashMap<>();
+
+        RenderedHtml( final WikiDocument document ) {
+            m_document = document;
+        }
+
+        WikiDocument getDocument() {
+            return m_document;
+        }
+
+        String getHTML( final String variant ) {
+            return m_variants.get( variant );
+        }
+
+        void putHTML( final String variant, final String html ) {
+            if( html != null ) {
+                m_variants.put( variant, html );
+            }
+        }
+
+    }
+
     boolean isBeginningAWikiPagePostSaveEventAndDocumentCacheIsEnabled( final WikiEvent event ) {
         return event instanceof WikiPageEvent
                && event.getType() == WikiPageEvent.POST_SAVE_BEGIN
@@ -56,6 +56,19 @@ public interface RenderingManager extends RenderApi, WikiEventListener, Internal
 
     String PROP_BEAUTIFYTITLE = "jspwiki.breakTitleWithSpaces";
 
+    /** Whether XHTMLRenderer starts all the plugins of a page at once. Default is false. */
+    String PROP_CONCURRENT_PLUGINS = "jspwiki.renderingManager.plugins.concurrent";
+
+    /** Maximum number of plugins executed at the same time when plugins are executed concurrently. */
+    String PROP_PLUGIN_THREADS = "jspwiki.renderingManager.plugins.threads";
+
+    /**
+     *  Time, in milliseconds, given to each plugin to finish when plugins are executed concurrently. It is counted from the moment the
+     *  plugin starts running, not for the page as a whole, so a page with more plugins than {@link #PROP_PLUGIN_THREADS} may take
+     *  several times this long.
+     */
+    String PROP_PLUGIN_TIMEOUT = "jspwiki.renderingManager.plugins.timeout";
+
     /**
      *  Beautifies the title of the page by appending spaces in suitable places, if the user has so decreed in the properties when
      *  constructing this Engine.  However, attachment names are only beautified by the name.
@@ -19,16 +19,23 @@
 package org.apache.wiki.render;
 
 import org.apache.wiki.api.core.Context;
+import org.apache.wiki.parser.PluginContent;
 import org.apache.wiki.parser.WikiDocument;
+import org.jdom2.Text;
 import org.jdom2.output.Format;
 import org.jdom2.output.XMLOutputter;
+import org.jdom2.output.support.FormatStack;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.io.Writer;
 
 /**
  *  Implements a WikiRendered that outputs XHTML.  Because the internal DOM  representation is in XHTML already, this just basically
  *  dumps out everything out in a non-prettyprinted format.
+ *  <p>
+ *  If {@link RenderingManager#PROP_CONCURRENT_PLUGINS} is set, the plugins of the document are all started before it is written out,
+ *  and their output is picked up in document order as it is written.
  *
  *  @since  2.4
  */
@@ -53,7 +60,8 @@ public class XHTMLRenderer extends WikiRenderer {
     public String getString() throws IOException {
         m_document.setContext( m_context );
 
-        final CustomXMLOutputProcessor processor = new CustomXMLOutputProcessor();
+        final ConcurrentPluginExecutor.Execution plugins = ConcurrentPluginExecutor.forEngine( m_context.getEngine() ).start( m_context, m_document );
+        final CustomXMLOutputProcessor processor = new PluginResultsOutputProcessor( plugins );
         final XMLOutputter output = new XMLOutputter(processor);
         final StringWriter out = new StringWriter();
         final Format fmt = Format.getRawFormat();
@@ -61,9 +69,57 @@ public class XHTMLRenderer extends WikiRenderer {
         fmt.setLineSeparator( LINEBREAK );
 
         output.setFormat( fmt );
-        output.outputElementContent( m_document.getRootElement(), out );
+        try {
+            output.outputElementContent( m_document.getRootElement(), out );
+        } finally {
+            plugins.cancel();
+        }
 
         return out.toString();
     }
 
+    /**
+     *  Writes out the results of the plugins started concurrently instead of executing them again.
+     */
+    private static class PluginResultsOutputProcessor extends CustomXMLOutputProcessor {
+
+        private final ConcurrentPluginExecutor.Execution m_plugins;
+
+        PluginResultsOutputProcessor( final ConcurrentPluginExecutor.Execution plugins ) {
+            m_plugins = plugins;
+        }
+
+        @Override
+        protected void printText( final Writer out, final FormatStack fstack, final Text text ) throws IOException {
+            final String result = text instanceof PluginContent ? m_plugins.resultOf( ( PluginContent )text ) : null;
+            super.printText( out, fstack, result != null ? new PluginResult( result ) : text );
+        }
+
+    }
+
+    /**
+     *  Plugin output, as a Text node which isn't attached anywhere nor checked for XML validity, same as {@link PluginContent}.
+     */
+    private static class PluginResult extends Text {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String m_result;
+
+        PluginResult( final String result ) {
+            m_result = result;
+        }
+
+        @Override
+        public String getText() {
+            return m_result;
+        }
+
+        @Override
+        public String getValue() {
+            return m_result;
+        }
+
+    }
+
 }
@@ -41,7 +41,6 @@ import java.io.File;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
-import java.util.Set;
 
 
 /**
@@ -223,7 +222,7 @@ public class DefaultRSSGenerator implements RSSGenerator {
         feed.setChannelLanguage( m_channelLanguage );
         feed.setChannelDescription( m_channelDescription );
 
-        final Set< Page > changed = m_engine.getManager( PageManager.class ).getRecentChanges();
+        final List< Page > changed = m_engine.getManager( PageManager.class ).getRecentChanges( null, 15 );
 
         final Session session = Wiki.session().guest( m_engine );
         int items = 0;
@@ -34,9 +34,11 @@ import org.apache.wiki.api.exceptions.NoRequiredPropertyException;
 import org.apache.wiki.api.filters.BasePageFilter;
 import org.apache.wiki.api.search.SearchResult;
 import org.apache.wiki.api.spi.Wiki;
+import org.apache.wiki.content.PageRenamer;
 import org.apache.wiki.event.WikiEvent;
 import org.apache.wiki.event.WikiEventManager;
 import org.apache.wiki.event.WikiPageEvent;
+import org.apache.wiki.event.WikiPageRenameEvent;
 import org.apache.wiki.pages.PageManager;
 import org.apache.wiki.parser.MarkupParser;
 import org.apache.wiki.references.ReferenceManager;
@@ -50,6 +52,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -67,6 +70,10 @@ public class DefaultSearchManager extends BasePageFilter implements SearchManage
 
     private SearchProvider m_searchProvider;
 
+    /** Page names for the type-ahead suggestions, loaded from the ReferenceManager on first use and kept up to date afterwards. */
+    private final SuggestionIndex m_suggestions = new SuggestionIndex();
+    private volatile boolean m_suggestionsLoaded;
+
     /**
      *  Creates a new SearchManager.
      *
@@ -137,8 +144,8 @@ public class DefaultSearchManager extends BasePageFilter implements SearchManage
         }
 
         /**
-         *  Provides a list of suggestions to use for a page name. Currently, the algorithm just looks into the value parameter,
-         *  and returns all page names from that.
+         *  Provides a list of suggestions to use for a page name. Page names starting with the value parameter come first, in
+         *  alphabetical order; if there aren't enough of them, they are followed by page names starting with a close misspelling of it.
          *
          *  @param wikiName the page name
          *  @param maxLength maximum number of suggestions
@@ -147,7 +154,7 @@ public class DefaultSearchManager extends BasePageFilter implements SearchManage
         public List< String > getSuggestions( String wikiName, final int maxLength ) {
             final StopWatch sw = new StopWatch();
             sw.start();
-            final List< String > list = new ArrayList<>( maxLength );
+            List< String > list = new ArrayList<>();
             if( !wikiName.isEmpty() ) {
                 // split pagename and attachment filename
                 String filename = "";
@@ -157,19 +164,10 @@ public class DefaultSearchManager extends BasePageFilter implements SearchManage
                     wikiName = wikiName.substring( 0, pos );
                 }
 
-                final String cleanWikiName = MarkupParser.cleanLink(wikiName).toLowerCase() + filename;
-                final String oldStyleName = MarkupParser.wikifyLink(wikiName).toLowerCase() + filename;
-                final Set< String > allPages = m_engine.getManager( ReferenceManager.class ).findCreated();
-
-                int counter = 0;
-                for( final Iterator< String > i = allPages.iterator(); i.hasNext() && counter < maxLength; ) {
-                    final String p = i.next();
-                    final String pp = p.toLowerCase();
-                    if( pp.startsWith( cleanWikiName) || pp.startsWith( oldStyleName ) ) {
-                        list.add( p );
-                        counter++;
-                    }
-                }
+                final Set< String > prefixes = new LinkedHashSet<>();
+                prefixes.add( MarkupParser.cleanLink(wikiName).toLowerCase() + filename );
+                prefixes.add( MarkupParser.wikifyLink(wikiName).toLowerCase() + filename );
+                list = getSuggestionIndex().suggest( prefixes, maxLength );
             }
 
             sw.stop();
@@ -227,7 +225,15 @@ public class DefaultSearchManager extends BasePageFilter implements SearchManage
         try {
             m_searchProvider.initialize( engine, properties );
         } catch( final NoRequiredPropertyException | IOException e ) {
-            log.error( e.getMessage(), e );
+            log.error( "Unable to initialize " + m_searchProvider.getProviderInfo() + ", falling back to BasicSearchProvider: " + e.getMessage(), e );
+            if( !( m_searchProvider instanceof BasicSearchProvider ) ) {
+                m_searchProvider = new BasicSearchProvider();
+                try {
+                    m_searchProvider.initialize( engine, properties );
+                } catch( final NoRequiredPropertyException | IOException e2 ) {
+                    log.error( e2.getMessage(), e2 );
+                }
+            }
         }
     }
 
@@ -254,10 +260,51 @@ public class DefaultSearchManager extends BasePageFilter implements SearchManage
         return m_searchProvider;
     }
 
+    /**
+     *  Returns the index of page names used for suggestions, loading it if needed. Page renames are only listened to from then on,
+     *  as the PageRenamer is initialized after this manager.
+     *
+     *  @return the suggestion index.
+     */
+    SuggestionIndex getSuggestionIndex() {
+        if( !m_suggestionsLoaded ) {
+            synchronized( m_suggestions ) {
+                if( !m_suggestionsLoaded ) {
+                    final PageRenamer renamer = m_engine.getManager( PageRenamer.class );
+                    if( renamer != null ) {
+                        WikiEventManager.addWikiEventListener( renamer, this );
+                    }
+                    m_suggestions.reset( m_engine.getManager( ReferenceManager.class ).findCreated() );
+                    m_suggestionsLoaded = true;
+                }
+            }
+        }
+        return m_suggestions;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void pageRemoved( final Page page ) {
+        m_suggestions.remove( page.getName() );
+        getSearchEngine().pageRemoved( page );
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void reindexPage( final Page page ) {
+        m_suggestions.add( page.getName() );
+        getSearchEngine().reindexPage( page );
+    }
+
     /** {@inheritDoc} */
     @Override
     public void actionPerformed( final WikiEvent event ) {
-        if( event instanceof WikiPageEvent ) {
+        if( event instanceof WikiPageRenameEvent ) {
+            if( event.getType() == WikiPageRenameEvent.PAGE_RENAMED ) {
+                m_suggestions.removeWithAttachments( ( ( WikiPageRenameEvent ) event ).getOldPageName() );
+                m_suggestions.add( ( ( WikiPageRenameEvent ) event ).getNewPageName() );
+            }
+        } else if( event instanceof WikiPageEvent ) {
             final String pageName = ( ( WikiPageEvent ) event ).getPageName();
             if( event.getType() == WikiPageEvent.PAGE_DELETE_REQUEST ) {
                 final Page p = m_engine.getManager( PageManager.class ).getPage( pageName );
@@ -265,6 +312,9 @@ public class DefaultSearchManager extends BasePageFilter implements SearchManage
                     pageRemoved( p );
                 }
             }
+            if( event.getType() == WikiPageEvent.PAGE_DELETED ) {
+                m_suggestions.remove( pageName );
+            }
             if( event.getType() == WikiPageEvent.PAGE_REINDEX ) {
                 final Page p = m_engine.getManager( PageManager.class ).getPage( pageName );
                 if( p != null ) {
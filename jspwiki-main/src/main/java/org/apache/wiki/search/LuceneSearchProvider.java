@@ -27,7 +27,6 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
-import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
@@ -39,13 +38,15 @@ import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
-import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.highlight.Highlighter;
 import org.apache.lucene.search.highlight.InvalidTokenOffsetsException;
 import org.apache.lucene.search.highlight.QueryScorer;
 import org.apache.lucene.search.highlight.SimpleHTMLEncoder;
 import org.apache.lucene.search.highlight.SimpleHTMLFormatter;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.LockObtainFailedException;
 import org.apache.lucene.store.NIOFSDirectory;
 import org.apache.wiki.InternalWikiException;
 import org.apache.wiki.WatchDog;
@@ -63,7 +64,13 @@ import org.apache.wiki.api.spi.Wiki;
 import org.apache.wiki.attachment.AttachmentManager;
 import org.apache.wiki.auth.AuthorizationManager;
 import org.apache.wiki.auth.permissions.PagePermission;
+import org.apache.wiki.event.WikiEngineEvent;
+import org.apache.wiki.event.WikiEvent;
+import org.apache.wiki.event.WikiEventListener;
+import org.apache.wiki.event.WikiEventManager;
 import org.apache.wiki.pages.PageManager;
+import org.apache.wiki.ui.progress.ProgressItem;
+import org.apache.wiki.ui.progress.ProgressManager;
 import org.apache.wiki.util.ClassUtil;
 import org.apache.wiki.util.FileUtil;
 import org.apache.wiki.util.TextUtil;
@@ -74,14 +81,23 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -89,7 +105,7 @@ import java.util.concurrent.Executors;
  *
  *  @since 2.2.21.
  */
-public class LuceneSearchProvider implements SearchProvider {
+public class LuceneSearchProvider implements SearchProvider, WikiEventListener {
 
     protected static final Logger log = LogManager.getLogger(LuceneSearchProvider.class);
 
@@ -102,11 +118,25 @@ public class LuceneSearchProvider implements SearchProvider {
     public static final String PROP_LUCENE_ANALYZER      = "jspwiki.lucene.analyzer";
     private static final String PROP_LUCENE_INDEXDELAY   = "jspwiki.lucene.indexdelay";
     private static final String PROP_LUCENE_INITIALDELAY = "jspwiki.lucene.initialdelay";
+    /** Number of worker threads used to read and index pages during a full reindex. */
+    public static final String PROP_LUCENE_REINDEX_THREADS = "jspwiki.lucene.reindexthreads";
+
+    /** Commit user data key holding the next item to index of an unfinished full reindex. */
+    private static final String REINDEX_CHECKPOINT = "jspwiki.reindex.checkpoint";
+    /** A full reindex is checkpointed each time this number of items has been queued for indexing. */
+    private static final int REINDEX_CHECKPOINT_INTERVAL = 1_000;
+    private static final String REINDEX_PROGRESS_ID = "lucene.reindexer";
+    private static final String REINDEX_PAGE_PREFIX = "page:";
+    private static final String REINDEX_ATTACHMENT_PREFIX = "attachment:";
 
     private String m_analyzerClass = "org.apache.lucene.analysis.standard.ClassicAnalyzer";
 
     private static final String LUCENE_DIR = "lucene";
 
+    /** Attempts made to obtain the index write lock, which a previous instance may not have released yet. */
+    private static final int LOCK_ATTEMPTS = 5;
+    private static final long LOCK_RETRY_DELAY = 1_000L;
+
     /** These attachment file suffixes will be indexed. */
     public static final String[] SEARCHABLE_FILE_SUFFIXES = new String[] { ".txt", ".ini", ".xml", ".html", "htm", ".mm", ".htm",
                                                                            ".xhtml", ".java", ".c", ".cpp", ".php", ".asm", ".sh",
@@ -120,7 +150,53 @@ public class LuceneSearchProvider implements SearchProvider {
     protected static final String LUCENE_PAGE_KEYWORDS = "keywords";
 
     private String m_luceneDirectory;
-    protected final List< Object[] > m_updates = Collections.synchronizedList( new ArrayList<>() );
+    private Directory m_luceneDir;
+    private IndexWriter m_writer;
+    private SearcherManager m_searcherManager;
+    private boolean m_closed;
+    private boolean m_indexWasEmpty;
+    private int m_reindexThreads;
+    private final LuceneUpdateQueue m_updateQueue = new LuceneUpdateQueue();
+
+    /**
+     *  Pages waiting to be indexed, as {@code { Page, String }} pairs.
+     *
+     *  @deprecated pending updates are now kept, coalesced per page, in an internal queue, which is drained in batches by the
+     *  background updater. This list is only a view over that queue, kept for subclasses: adding a pair queues the page for
+     *  indexing, while reading returns a snapshot of the pending updates (removals show up with a {@code null} text). The view
+     *  can't be used to remove updates from the queue.
+     */
+    @Deprecated
+    protected final List< Object[] > m_updates = new AbstractList< Object[] >() {
+
+        @Override
+        public boolean add( final Object[] update ) {
+            m_updateQueue.add( ( Page )update[ 0 ], ( String )update[ 1 ] );
+            return true;
+        }
+
+        @Override
+        public Object[] get( final int index ) {
+            final LuceneUpdateQueue.Update update = m_updateQueue.snapshot().get( index );
+            return new Object[] { update.getPage(), update.getText() };
+        }
+
+        @Override
+        public int size() {
+            return m_updateQueue.size();
+        }
+
+        @Override
+        public Iterator< Object[] > iterator() {
+            // iterate over a single snapshot, so the background updater draining the queue meanwhile can't break the iteration
+            final List< Object[] > updates = new ArrayList<>();
+            for( final LuceneUpdateQueue.Update update : m_updateQueue.snapshot() ) {
+                updates.add( new Object[] { update.getPage(), update.getText() } );
+            }
+            return Collections.unmodifiableList( updates ).iterator();
+        }
+
+    };
 
     /** Maximum number of fragments from search matches. */
     private static final int MAX_FRAGMENTS = 3;
@@ -144,6 +220,8 @@ public class LuceneSearchProvider implements SearchProvider {
         final int indexDelay   = TextUtil.getIntegerProperty( props, PROP_LUCENE_INDEXDELAY, LuceneUpdater.INDEX_DELAY );
 
         m_analyzerClass = TextUtil.getStringProperty( props, PROP_LUCENE_ANALYZER, m_analyzerClass );
+        m_reindexThreads = Math.max( 1, TextUtil.getIntegerProperty( props, PROP_LUCENE_REINDEX_THREADS,
+                                                                     Math.min( 4, Runtime.getRuntime().availableProcessors() ) ) );
         // FIXME: Just to be simple for now, we will do full reindex only if no files are in lucene directory.
 
         final File dir = new File(m_luceneDirectory);
@@ -162,10 +240,30 @@ public class LuceneSearchProvider implements SearchProvider {
             if( filelist == null ) {
                 throw new IOException( "Invalid Lucene directory: cannot produce listing: "+dir.getAbsolutePath());
             }
+            m_indexWasEmpty = filelist.length == 0;
+
+            // One writer and one searcher manager for the whole lifetime of the provider; readers are refreshed
+            // from the writer (near-real-time), so searches never need to reopen the index from disk.
+            m_luceneDir = new NIOFSDirectory( dir.toPath() );
+            m_writer = getIndexWriter( m_luceneDir );
+            m_searcherManager = new SearcherManager( m_writer, new SearcherFactory() {
+                @Override
+                public IndexSearcher newSearcher( final IndexReader reader, final IndexReader previousReader ) {
+                    return new IndexSearcher( reader, searchExecutor );
+                }
+            } );
+        } catch( final ProviderException e ) {
+            close();
+            throw new IOException( "Unable to create the Lucene analyzer for " + dir.getAbsolutePath(), e );
         } catch( final IOException e ) {
-            log.error("Problem while creating Lucene index - not using Lucene.", e);
+            close();
+            throw e;
         }
 
+        // The index write lock is held until the engine shuts down, so release it then instead of waiting on the updater thread.
+        // The final commit runs in the background, WikiEventManager.shutdown() waits for it.
+        WikiEventManager.addWikiEventListener( engine, this, true );
+
         // Start the Lucene update thread, which waits first
         // for a little while before starting to go through
         // the Lucene "pages that need updating".
@@ -184,52 +282,86 @@ public class LuceneSearchProvider implements SearchProvider {
     }
 
     /**
-     *  Performs a full Lucene reindex, if necessary.
+     *  Applies the pending updates and releases the index, once the engine shuts down.
      *
-     *  @throws IOException If there's a problem during indexing
+     *  @param event the event.
      */
-    protected void doFullLuceneReindex() throws IOException {
-        final File dir = new File(m_luceneDirectory);
-        final String[] filelist = dir.list();
-        if( filelist == null ) {
-            throw new IOException( "Invalid Lucene directory: cannot produce listing: "+dir.getAbsolutePath());
+    @Override
+    public void actionPerformed( final WikiEvent event ) {
+        if( event instanceof WikiEngineEvent && event.getType() == WikiEngineEvent.SHUTDOWN ) {
+            processUpdates();
+            close();
         }
+    }
 
+    /**
+     *  Closes the shared Lucene searcher manager and index writer. Pending changes are committed before closing. Closing an
+     *  already closed provider does nothing.
+     */
+    protected synchronized void close() {
+        if( m_closed ) {
+            return;
+        }
+        m_closed = true;
         try {
-            if( filelist.length == 0 ) {
-                //
-                //  No files? Reindex!
-                //
-                final Date start = new Date();
+            if( m_searcherManager != null ) {
+                m_searcherManager.close();
+            }
+            if( m_writer != null ) {
+                m_writer.close();
+            }
+            if( m_luceneDir != null ) {
+                m_luceneDir.close();
+            }
+        } catch( final IOException e ) {
+            log.error( "Unable to close Lucene index at " + m_luceneDirectory, e );
+        }
+    }
 
-                log.info("Starting Lucene reindexing, this can take a couple of minutes...");
-
-                final Directory luceneDir = new NIOFSDirectory( dir.toPath() );
-                try( final IndexWriter writer = getIndexWriter( luceneDir ) ) {
-                    final Collection< Page > allPages = m_engine.getManager( PageManager.class ).getAllPages();
-                    for( final Page page : allPages ) {
-                        try {
-                            final String text = m_engine.getManager( PageManager.class ).getPageText( page.getName(), WikiProvider.LATEST_VERSION );
-                            luceneIndexPage( page, text, writer );
-                        } catch( final IOException e ) {
-                            log.warn( "Unable to index page " + page.getName() + ", continuing to next ", e );
-                        }
-                    }
+    /**
+     *  Commits the pending changes of the shared writer and refreshes the searcher, so the changes become visible to searches.
+     *
+     *  @throws IOException If there's a problem committing the changes
+     */
+    protected void commit() throws IOException {
+        m_writer.commit();
+        m_searcherManager.maybeRefresh();
+    }
 
-                    final Collection< Attachment > allAttachments = m_engine.getManager( AttachmentManager.class ).getAllAttachments();
-                    for( final Attachment att : allAttachments ) {
-                        try {
-                            final String text = getAttachmentContent( att.getName(), WikiProvider.LATEST_VERSION );
-                            luceneIndexPage( att, text, writer );
-                        } catch( final IOException e ) {
-                            log.warn( "Unable to index attachment " + att.getName() + ", continuing to next", e );
-                        }
-                    }
+    /**
+     *  Performs a full Lucene reindex, if necessary. A full reindex is done if the Lucene directory was empty at startup, or if a
+     *  previous full reindex was interrupted, in which case it is resumed from its last checkpoint.
+     *  <p>
+     *  Pages and attachments are read and indexed concurrently by {@value #PROP_LUCENE_REINDEX_THREADS} worker threads, all of them
+     *  using the shared IndexWriter. Progress is reported through the {@link ProgressManager}.
+     *
+     *  @throws IOException If there's a problem during indexing
+     */
+    protected void doFullLuceneReindex() throws IOException {
+        if( m_writer == null ) {
+            throw new IOException( "Invalid Lucene directory: " + m_luceneDirectory );
+        }
 
+        try {
+            final String checkpoint = getReindexCheckpoint();
+            if( m_indexWasEmpty || checkpoint != null ) {
+                final Date start = new Date();
+                final SortedMap< String, Page > pending;
+                if( checkpoint == null || checkpoint.isEmpty() ) {
+                    log.info( "Starting Lucene reindexing, this can take a couple of minutes..." );
+                    pending = getReindexItems();
+                } else {
+                    log.info( "Resuming interrupted Lucene reindexing from {}...", checkpoint );
+                    pending = getReindexItems().tailMap( checkpoint );
                 }
 
+                // mark the index as being rebuilt before adding anything, so a crash from now on leads to a resume
+                setReindexCheckpoint( checkpoint != null ? checkpoint : "" );
+                reindex( new ArrayList<>( pending.values() ), new ArrayList<>( pending.keySet() ) );
+                setReindexCheckpoint( null );
+
                 final Date end = new Date();
-                log.info( "Full Lucene index finished in " + (end.getTime() - start.getTime()) + " milliseconds." );
+                log.info( "Full Lucene index of " + pending.size() + " items finished in " + (end.getTime() - start.getTime()) + " milliseconds." );
             } else {
                 log.info("Files found in Lucene directory, not reindexing.");
             }
@@ -238,12 +370,156 @@ public class LuceneSearchProvider implements SearchProvider {
         } catch ( final ProviderException e ) {
             log.error("Problem reading pages while creating Lucene index (JSPWiki won't start.)", e);
             throw new IllegalArgumentException("unable to create Lucene index");
+        } catch( final InterruptedException e ) {
+            log.error( "Interrupted while creating Lucene index, reindexing will be resumed on next startup", e );
+            Thread.currentThread().interrupt();
         } catch( final Exception e ) {
             log.error("Unable to start lucene",e);
         }
 
     }
 
+    /**
+     *  Returns all the pages and attachments to index, sorted by a key which is stable between restarts, so an interrupted reindex
+     *  can be resumed.
+     *
+     *  @return pages and attachments to index, keyed by their checkpoint key.
+     *  @throws ProviderException if the pages or attachments could not be listed.
+     */
+    SortedMap< String, Page > getReindexItems() throws ProviderException {
+        final SortedMap< String, Page > items = new TreeMap<>();
+        for( final Page page : m_engine.getManager( PageManager.class ).getAllPages() ) {
+            items.put( REINDEX_PAGE_PREFIX + page.getName(), page );
+        }
+        for( final Attachment att : m_engine.getManager( AttachmentManager.class ).getAllAttachments() ) {
+            items.put( REINDEX_ATTACHMENT_PREFIX + att.getName(), att );
+        }
+        return items;
+    }
+
+    /**
+     *  Indexes the given items on a bounded pool of worker threads, checkpointing periodically.
+     *
+     *  @param items pages and attachments to index.
+     *  @param keys checkpoint keys of the items, in the same order.
+     *  @throws IOException if the index could not be checkpointed.
+     *  @throws InterruptedException if interrupted while waiting for the workers.
+     */
+    private void reindex( final List< Page > items, final List< String > keys ) throws IOException, InterruptedException {
+        final AtomicInteger indexed = new AtomicInteger();
+        final boolean[] done = new boolean[ items.size() ];
+        final Semaphore slots = new Semaphore( m_reindexThreads * 2 );
+        final ExecutorService workers = Executors.newFixedThreadPool( m_reindexThreads, r -> {
+            final Thread t = new Thread( r, "JSPWiki Lucene Reindexer" );
+            t.setDaemon( true );
+            return t;
+        } );
+        final ProgressItem pi = new ProgressItem() {
+
+            @Override
+            public int getProgress() {
+                return items.isEmpty() ? 100 : 100 * indexed.get() / items.size();
+            }
+        };
+        // the progress manager may not be there yet if reindexing starts while the engine is still initializing
+        final ProgressManager progress = m_engine.getManager( ProgressManager.class );
+        if( progress != null ) {
+            progress.startProgress( pi, REINDEX_PROGRESS_ID );
+        }
+
+        int watermark = 0;
+        try {
+            for( int i = 0; i < items.size(); i++ ) {
+                slots.acquire();
+                final int current = i;
+                workers.execute( () -> {
+                    try {
+                        reindexItem( items.get( current ) );
+                    } finally {
+                        synchronized( done ) {
+                            done[ current ] = true;
+                        }
+                        indexed.incrementAndGet();
+                        slots.release();
+                    }
+                } );
+                if( i > 0 && i % REINDEX_CHECKPOINT_INTERVAL == 0 ) {
+                    watermark = nextPending( done, watermark );
+                    setReindexCheckpoint( keys.get( Math.min( watermark, keys.size() - 1 ) ) );
+                    log.info( "Lucene reindexing: {} of {} items indexed", indexed.get(), items.size() );
+                }
+            }
+            workers.shutdown();
+            while( !workers.awaitTermination( 1, TimeUnit.MINUTES ) ) {
+                log.info( "Lucene reindexing: {} of {} items indexed", indexed.get(), items.size() );
+            }
+        } finally {
+            workers.shutdownNow();
+            if( progress != null ) {
+                progress.stopProgress( REINDEX_PROGRESS_ID );
+            }
+        }
+    }
+
+    /** Returns the first position, starting at {@code from}, of an item not yet indexed. */
+    private static int nextPending( final boolean[] done, final int from ) {
+        synchronized( done ) {
+            int next = from;
+            while( next < done.length && done[ next ] ) {
+                next++;
+            }
+            return next;
+        }
+    }
+
+    private void reindexItem( final Page item ) {
+        try {
+            final String text;
+            if( item instanceof Attachment ) {
+                text = getAttachmentContent( item.getName(), WikiProvider.LATEST_VERSION );
+            } else {
+                text = m_engine.getManager( PageManager.class ).getPageText( item.getName(), WikiProvider.LATEST_VERSION );
+            }
+            luceneIndexPage( item, text, m_writer );
+        } catch( final IOException e ) {
+            log.warn( "Unable to index " + item.getName() + ", continuing to next", e );
+        } catch( final Exception e ) {
+            log.error( "Unable to index " + item.getName() + ", continuing to next", e );
+        }
+    }
+
+    /**
+     *  Returns the checkpoint of an unfinished full reindex, as stored in the user data of the last Lucene commit.
+     *
+     *  @return key of the next item to index, empty if the reindex had not indexed anything yet, or {@code null} if there is
+     *  no unfinished reindex.
+     */
+    String getReindexCheckpoint() {
+        final Iterable< Map.Entry< String, String > > commitData = m_writer.getLiveCommitData();
+        if( commitData != null ) {
+            for( final Map.Entry< String, String > entry : commitData ) {
+                if( REINDEX_CHECKPOINT.equals( entry.getKey() ) ) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     *  Commits the index, storing the given reindex checkpoint along with the commit, so documents and checkpoint are always
+     *  consistent on disk.
+     *
+     *  @param checkpoint key of the next item to index, or {@code null} to mark the reindex as finished.
+     *  @throws IOException if the commit fails.
+     */
+    void setReindexCheckpoint( final String checkpoint ) throws IOException {
+        final Map< String, String > commitData = checkpoint != null ? Collections.singletonMap( REINDEX_CHECKPOINT, checkpoint )
+                                                                    : Collections.emptyMap();
+        m_writer.setLiveCommitData( commitData.entrySet() );
+        commit();
+    }
+
     /**
      *  Fetches the attachment content from the repository.
      *  Content is flat text that can be used for indexing/searching or display
@@ -301,28 +577,18 @@ public class LuceneSearchProvider implements SearchProvider {
     }
 
     /**
-     *  Updates the lucene index for a single page.
+     *  Updates the lucene index for a single page. Note that, unlike previous versions, this method no longer writes to the index
+     *  before returning: the update is only queued, and it is applied by the background updater along with the other pending ones,
+     *  with a single commit, as the ones scheduled through {@link #reindexPage(Page)}. Callers relying on the page being searchable
+     *  as soon as this method returns have to wait for the queue to be drained.
      *
      *  @param page The WikiPage to check
      *  @param text The page text to index.
+     *  @deprecated use {@link #reindexPage(Page)} instead.
      */
-    protected synchronized void updateLuceneIndex( final Page page, final String text ) {
-        log.debug("Updating Lucene index for page '" + page.getName() + "'...");
-        pageRemoved( page );
-
-        // Now add back the new version.
-        try( final Directory luceneDir = new NIOFSDirectory( new File( m_luceneDirectory ).toPath() );
-             final IndexWriter writer = getIndexWriter( luceneDir ) ) {
-            luceneIndexPage( page, text, writer );
-        } catch( final IOException e ) {
-            log.error("Unable to update page '" + page.getName() + "' from Lucene index", e);
-            // reindexPage( page );
-        } catch( final Exception e ) {
-            log.error("Unexpected Lucene exception - please check configuration!",e);
-            // reindexPage( page );
-        }
-
-        log.debug("Done updating Lucene index for page '" + page.getName() + "'.");
+    @Deprecated
+    protected void updateLuceneIndex( final Page page, final String text ) {
+        m_updateQueue.add( page, text );
     }
 
     private Analyzer getLuceneAnalyzer() throws ProviderException {
@@ -336,7 +602,7 @@ public class LuceneSearchProvider implements SearchProvider {
     }
 
     /**
-     *  Indexes page using the given IndexWriter.
+     *  Indexes page using the given IndexWriter. Any document previously indexed for the same page is replaced.
      *
      *  @param page WikiPage
      *  @param text Page text to index
@@ -395,35 +661,117 @@ public class LuceneSearchProvider implements SearchProvider {
             field = new Field( LUCENE_PAGE_KEYWORDS, page.getAttribute( "keywords" ).toString(), TextField.TYPE_STORED );
             doc.add( field );
         }
-        synchronized( writer ) {
-            writer.addDocument(doc);
-        }
+        writer.updateDocument( new Term( LUCENE_ID, page.getName() ), doc );
 
         return doc;
     }
 
     /**
-     *  {@inheritDoc}
+     *  Adds a page removal to the lucene update queue. The removal overrides any pending update of the same page.
+     *
+     *  @param page WikiPage to remove from the index.
      */
     @Override
-    public synchronized void pageRemoved( final Page page ) {
-        try( final Directory luceneDir = new NIOFSDirectory( new File( m_luceneDirectory ).toPath() );
-             final IndexWriter writer = getIndexWriter( luceneDir ) ) {
-            final Query query = new TermQuery( new Term( LUCENE_ID, page.getName() ) );
-            writer.deleteDocuments( query );
-        } catch ( final Exception e ) {
-            log.error("Unable to remove page '" + page.getName() + "' from Lucene index", e);
+    public void pageRemoved( final Page page ) {
+        m_updateQueue.remove( page );
+        log.debug( "Scheduling page {} for index removal", page.getName() );
+    }
+
+    /**
+     *  Applies all the pending index updates and removals as a single batch, with only one commit at the end.
+     */
+    protected synchronized void processUpdates() {
+        if( m_closed ) {
+            return;
+        }
+        final List< LuceneUpdateQueue.Update > batch = m_updateQueue.drain();
+        if( batch.isEmpty() ) {
+            return;
+        }
+
+        log.debug( "Applying {} queued Lucene index updates...", batch.size() );
+        for( final LuceneUpdateQueue.Update update : batch ) {
+            final Page page = update.getPage();
+            try {
+                if( update.isRemoval() ) {
+                    m_writer.deleteDocuments( new Term( LUCENE_ID, page.getName() ) );
+                } else {
+                    luceneIndexPage( page, update.getText(), m_writer );
+                }
+            } catch( final Exception e ) {
+                log.error( "Unable to update page '" + page.getName() + "' in Lucene index", e );
+            }
+        }
+
+        try {
+            commit();
+        } catch( final Exception e ) {
+            log.error( "Unable to commit Lucene index updates", e );
         }
+        log.debug( "Done applying {} queued Lucene index updates.", batch.size() );
+    }
+
+    /**
+     *  Returns the number of pages waiting in the update queue to be indexed or removed from the index.
+     *
+     *  @return update queue depth.
+     */
+    public int getUpdateQueueSize() {
+        return m_updateQueue.size();
+    }
+
+    /**
+     *  Returns how long the oldest pending update has been waiting in the update queue.
+     *
+     *  @return update queue lag, in milliseconds.
+     */
+    public long getUpdateQueueLag() {
+        return m_updateQueue.getLag();
+    }
+
+    /**
+     *  Returns how many queued updates have been merged into an already pending update of the same page since startup.
+     *
+     *  @return number of coalesced updates.
+     */
+    public long getCoalescedUpdateCount() {
+        return m_updateQueue.getCoalescedCount();
     }
     
+    /**
+     *  Opens the index writer. If the index is locked, as happens while a previous instance working on the same directory (f.ex.,
+     *  before a webapp reload) hasn't released it yet, the lock is tried again a few times before giving up.
+     *
+     *  @param luceneDir index directory.
+     *  @return the index writer.
+     *  @throws IOException if the index could not be opened, or is still locked.
+     *  @throws ProviderException if the analyzer could not be created.
+     */
     IndexWriter getIndexWriter(final  Directory luceneDir ) throws IOException, ProviderException {
-        final IndexWriterConfig writerConfig = new IndexWriterConfig( getLuceneAnalyzer() );
-        writerConfig.setOpenMode( OpenMode.CREATE_OR_APPEND );
-        return new IndexWriter( luceneDir, writerConfig );
+        for( int attempt = 1; ; attempt++ ) {
+            final IndexWriterConfig writerConfig = new IndexWriterConfig( getLuceneAnalyzer() );
+            writerConfig.setOpenMode( OpenMode.CREATE_OR_APPEND );
+            try {
+                return new IndexWriter( luceneDir, writerConfig );
+            } catch( final LockObtainFailedException e ) {
+                if( attempt >= LOCK_ATTEMPTS ) {
+                    throw new LockObtainFailedException( "Lucene index at " + m_luceneDirectory + " is still locked after " + attempt
+                                                         + " attempts, is another wiki instance using the same work directory?", e );
+                }
+                log.warn( "Lucene index at {} is locked, trying again ({}/{})", m_luceneDirectory, attempt, LOCK_ATTEMPTS );
+                try {
+                    Thread.sleep( LOCK_RETRY_DELAY );
+                } catch( final InterruptedException ie ) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
     }
     
     /**
-     *  Adds a page-text pair to the lucene update queue.  Safe to call always
+     *  Adds a page-text pair to the lucene update queue.  Safe to call always. Pending updates of the same page are
+     *  replaced, so only the newest text gets indexed.
      *
      *  @param page WikiPage to add to the update queue.
      */
@@ -440,11 +788,7 @@ public class LuceneSearchProvider implements SearchProvider {
             }
 
             if( text != null ) {
-                // Add work item to m_updates queue.
-                final Object[] pair = new Object[2];
-                pair[0] = page;
-                pair[1] = text;
-                m_updates.add( pair );
+                m_updateQueue.add( page, text );
                 log.debug("Scheduling page " + page.getName() + " for index update");
             }
         }
@@ -475,13 +819,16 @@ public class LuceneSearchProvider implements SearchProvider {
     public Collection< SearchResult > findPages( final String query, final int flags, final Context wikiContext ) throws ProviderException {
         ArrayList<SearchResult> list = null;
         Highlighter highlighter = null;
+        IndexSearcher searcher = null;
 
-        try( final Directory luceneDir = new NIOFSDirectory( new File( m_luceneDirectory ).toPath() );
-             final IndexReader reader = DirectoryReader.open( luceneDir ) ) {
+        try {
             final String[] queryfields = { LUCENE_PAGE_CONTENTS, LUCENE_PAGE_NAME, LUCENE_AUTHOR, LUCENE_ATTACHMENTS, LUCENE_PAGE_KEYWORDS };
             final QueryParser qp = new MultiFieldQueryParser( queryfields, getLuceneAnalyzer() );
             final Query luceneQuery = qp.parse( query );
-            final IndexSearcher searcher = new IndexSearcher( reader, searchExecutor );
+            if( m_searcherManager == null ) {
+                throw new IOException( "Lucene index is not available at " + m_luceneDirectory );
+            }
+            searcher = m_searcherManager.acquire();
 
             if( (flags & FLAG_CONTEXTS) != 0 ) {
                 highlighter = new Highlighter(new SimpleHTMLFormatter("<span class=\"searchmatch\">", "</span>"),
@@ -529,6 +876,14 @@ public class LuceneSearchProvider implements SearchProvider {
             throw new ProviderException( "You have entered a query Lucene cannot process [" + query + "]: " + e.getMessage() );
         } catch( final InvalidTokenOffsetsException e ) {
             log.error("Tokens are incompatible with provided text ",e);
+        } finally {
+            if( searcher != null ) {
+                try {
+                    m_searcherManager.release( searcher );
+                } catch( final IOException e ) {
+                    log.error( "Unable to release Lucene searcher", e );
+                }
+            }
         }
 
         return list;
@@ -583,18 +938,17 @@ public class LuceneSearchProvider implements SearchProvider {
         public void backgroundTask() {
             m_watchdog.enterState("Emptying index queue", 60);
 
-            synchronized ( m_provider.m_updates ) {
-                while( m_provider.m_updates.size() > 0 ) {
-                    final Object[] pair = m_provider.m_updates.remove(0);
-                    final Page page = ( Page ) pair[0];
-                    final String text = ( String ) pair[1];
-                    m_provider.updateLuceneIndex(page, text);
-                }
-            }
+            m_provider.processUpdates();
 
             m_watchdog.exitState();
         }
 
+        @Override
+        public void shutdownTask() {
+            m_provider.processUpdates();
+            m_provider.close();
+        }
+
     }
 
     // FIXME: This class is dumb; needs to have a better implementation
@@ -0,0 +1,147 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.search;
+
+import org.apache.wiki.api.core.Page;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ *  Queue of pending Lucene index updates, coalesced per page name. Only the newest text of a page is kept, and a removal overrides
+ *  any earlier update of the same page (and vice versa). Pending updates are drained in the order their page was first queued.
+ *  This class is thread-safe.
+ *
+ *  @since 2.11.2
+ */
+final class LuceneUpdateQueue {
+
+    /** A pending update. A {@code null} text means the page has to be removed from the index. */
+    static final class Update {
+
+        private final Page m_page;
+        private final String m_text;
+        private final long m_queuedAt;
+
+        private Update( final Page page, final String text, final long queuedAt ) {
+            m_page = page;
+            m_text = text;
+            m_queuedAt = queuedAt;
+        }
+
+        Page getPage() {
+            return m_page;
+        }
+
+        String getText() {
+            return m_text;
+        }
+
+        boolean isRemoval() {
+            return m_text == null;
+        }
+
+    }
+
+    private final Map< String, Update > m_pending = new LinkedHashMap<>();
+    private long m_coalesced;
+
+    /**
+     *  Queues a page for (re)indexing, replacing any pending update of the same page.
+     *
+     *  @param page page to index.
+     *  @param text page text to index.
+     */
+    synchronized void add( final Page page, final String text ) {
+        put( page, text );
+    }
+
+    /**
+     *  Queues a page for removal from the index, replacing any pending update of the same page.
+     *
+     *  @param page page to remove.
+     */
+    synchronized void remove( final Page page ) {
+        put( page, null );
+    }
+
+    private void put( final Page page, final String text ) {
+        final Update previous = m_pending.get( page.getName() );
+        // keep the original queue time, so lag reflects how long the page has been waiting
+        final long queuedAt = previous != null ? previous.m_queuedAt : System.currentTimeMillis();
+        if( previous != null ) {
+            m_coalesced++;
+        }
+        m_pending.put( page.getName(), new Update( page, text, queuedAt ) );
+    }
+
+    /**
+     *  Removes and returns all pending updates.
+     *
+     *  @return pending updates, in the order their page was first queued. Empty list if there are none.
+     */
+    synchronized List< Update > drain() {
+        final List< Update > batch = new ArrayList<>( m_pending.values() );
+        m_pending.clear();
+        return batch;
+    }
+
+    /**
+     *  Returns the pending updates, leaving them queued.
+     *
+     *  @return pending updates, in the order their page was first queued. Empty list if there are none.
+     */
+    synchronized List< Update > snapshot() {
+        return new ArrayList<>( m_pending.values() );
+    }
+
+    /**
+     *  Number of pages waiting to be indexed or removed.
+     *
+     *  @return queue depth.
+     */
+    synchronized int size() {
+        return m_pending.size();
+    }
+
+    /**
+     *  Time the oldest pending update has been waiting.
+     *
+     *  @return lag in milliseconds, {@code 0} if the queue is empty.
+     */
+    synchronized long getLag() {
+        if( m_pending.isEmpty() ) {
+            return 0L;
+        }
+        return System.currentTimeMillis() - m_pending.values().iterator().next().m_queuedAt;
+    }
+
+    /**
+     *  Number of updates that were merged into an already pending update of the same page, since startup.
+     *
+     *  @return number of coalesced updates.
+     */
+    synchronized long getCoalescedCount() {
+        return m_coalesced;
+    }
+
+}
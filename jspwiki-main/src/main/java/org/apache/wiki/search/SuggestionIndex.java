@@ -0,0 +1,362 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.search;
+
+import org.apache.wiki.parser.MarkupParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ *  In-memory index of page names, answering the type-ahead suggestions of the search box.
+ *  <p>
+ *  Every page name is indexed under its lowercased name and under the lowercased clean and wikified forms of it, so a query matches
+ *  regardless of the link style it was typed in. Keys are kept in a sorted array, which doubles as an implicit trie: all keys starting
+ *  with a given prefix are a contiguous range of it. Prefix queries are thus a binary search away; typo-tolerant queries walk the trie
+ *  with a bounded edit distance (counting transpositions as a single edit), pruning every branch which can't get within the bound.
+ *  <p>
+ *  The arrays are never modified once published: writers, serialized on this object, replace them with new ones, whereas readers
+ *  don't take any lock.
+ *
+ *  @since 2.11.2
+ */
+final class SuggestionIndex {
+
+    /** Queries shorter than this are only matched by prefix. */
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    /** Queries of at least this length may have two typos instead of one. */
+    private static final int TWO_EDITS_LENGTH = 8;
+
+    private static final Entries EMPTY = new Entries( new String[ 0 ], new String[ 0 ] );
+
+    private volatile Entries m_entries = EMPTY;
+
+    /**
+     *  Replaces the contents of the index.
+     *
+     *  @param names all page names.
+     */
+    synchronized void reset( final Collection< String > names ) {
+        final List< String[] > pairs = new ArrayList<>( names.size() * 2 );
+        for( final String name : names ) {
+            for( final String key : keys( name ) ) {
+                pairs.add( new String[] { key, name } );
+            }
+        }
+        pairs.sort( Comparator.< String[], String >comparing( p -> p[ 0 ] ).thenComparing( p -> p[ 1 ] ) );
+        final String[] keys = new String[ pairs.size() ];
+        final String[] values = new String[ pairs.size() ];
+        for( int i = 0; i < keys.length; i++ ) {
+            keys[ i ] = pairs.get( i )[ 0 ];
+            values[ i ] = pairs.get( i )[ 1 ];
+        }
+        m_entries = new Entries( keys, values );
+    }
+
+    /**
+     *  Adds a page name to the index. Nothing happens if it is already there.
+     *
+     *  @param name page name.
+     */
+    synchronized void add( final String name ) {
+        Entries entries = m_entries;
+        for( final String key : keys( name ) ) {
+            final int pos = entries.find( key, name );
+            if( pos < 0 ) {
+                entries = entries.insert( -pos - 1, key, name );
+            }
+        }
+        m_entries = entries;
+    }
+
+    /**
+     *  Removes a page name from the index.
+     *
+     *  @param name page name.
+     */
+    synchronized void remove( final String name ) {
+        Entries entries = m_entries;
+        for( final String key : keys( name ) ) {
+            final int pos = entries.find( key, name );
+            if( pos >= 0 ) {
+                entries = entries.delete( pos );
+            }
+        }
+        m_entries = entries;
+    }
+
+    /**
+     *  Removes a page name from the index, along with the names of its attachments.
+     *
+     *  @param name page name.
+     */
+    synchronized void removeWithAttachments( final String name ) {
+        final Entries entries = m_entries;
+        final String attachments = name + "/";
+        final String[] keys = new String[ entries.m_keys.length ];
+        final String[] names = new String[ entries.m_keys.length ];
+        int size = 0;
+        for( int i = 0; i < entries.m_keys.length; i++ ) {
+            if( !entries.m_names[ i ].equals( name ) && !entries.m_names[ i ].startsWith( attachments ) ) {
+                keys[ size ] = entries.m_keys[ i ];
+                names[ size++ ] = entries.m_names[ i ];
+            }
+        }
+        if( size < keys.length ) {
+            m_entries = new Entries( Arrays.copyOf( keys, size ), Arrays.copyOf( names, size ) );
+        }
+    }
+
+    /**
+     *  Finds the page names starting with any of the given prefixes. If there aren't enough of them, page names starting with a
+     *  close misspelling of the prefixes are added.
+     *
+     *  @param prefixes lowercased prefixes, in order of preference.
+     *  @param max maximum number of names to return.
+     *  @return page names, those matching by prefix first, then the misspelled ones by number of typos, each group sorted by key.
+     */
+    List< String > suggest( final Collection< String > prefixes, final int max ) {
+        final Entries entries = m_entries;
+        final Set< String > found = new LinkedHashSet<>();
+        for( final String prefix : prefixes ) {
+            for( int i = entries.lowerBound( prefix ); i < entries.m_keys.length && found.size() < max; i++ ) {
+                if( !entries.m_keys[ i ].startsWith( prefix ) ) {
+                    break;
+                }
+                found.add( entries.m_names[ i ] );
+            }
+        }
+
+        if( found.size() < max ) {
+            final List< int[] > ranges = new ArrayList<>();
+            for( final String prefix : prefixes ) {
+                final int edits = prefix.length() < MIN_FUZZY_LENGTH ? 0 : prefix.length() < TWO_EDITS_LENGTH ? 1 : 2;
+                if( edits > 0 ) {
+                    new FuzzySearch( entries, prefix, edits, ranges ).run();
+                }
+            }
+            // stable, so ranges with the same distance stay in key order
+            ranges.sort( Comparator.comparingInt( r -> r[ 2 ] ) );
+            for( final int[] range : ranges ) {
+                for( int i = range[ 0 ]; i < range[ 1 ] && found.size() < max; i++ ) {
+                    found.add( entries.m_names[ i ] );
+                }
+            }
+        }
+        return new ArrayList<>( found );
+    }
+
+    /**
+     *  Number of page names in the index.
+     *
+     *  @return number of page names.
+     */
+    int size() {
+        return new LinkedHashSet<>( Arrays.asList( m_entries.m_names ) ).size();
+    }
+
+    /**
+     *  Lowercased forms a page name is indexed under: the name itself, and the clean and wikified forms of its page part.
+     *
+     *  @param name page name, possibly an attachment name.
+     *  @return lowercased keys.
+     */
+    static Set< String > keys( final String name ) {
+        final int pos = name.indexOf( '/' );
+        final String page = pos >= 0 ? name.substring( 0, pos ) : name;
+        final String filename = pos >= 0 ? name.substring( pos ).toLowerCase() : "";
+        final Set< String > keys = new LinkedHashSet<>();
+        keys.add( name.toLowerCase() );
+        keys.add( MarkupParser.cleanLink( page ).toLowerCase() + filename );
+        keys.add( MarkupParser.wikifyLink( page ).toLowerCase() + filename );
+        return keys;
+    }
+
+    /** Sorted keys, and the page name each one stands for. */
+    private static final class Entries {
+
+        private final String[] m_keys;
+        private final String[] m_names;
+
+        Entries( final String[] keys, final String[] names ) {
+            m_keys = keys;
+            m_names = names;
+        }
+
+        int lowerBound( final String prefix ) {
+            int lo = 0;
+            int hi = m_keys.length;
+            while( lo < hi ) {
+                final int mid = ( lo + hi ) >>> 1;
+                if( m_keys[ mid ].compareTo( prefix ) < 0 ) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /** Binary search of a key and name pair, same contract as {@link Arrays#binarySearch(Object[], Object)}. */
+        int find( final String key, final String name ) {
+            int lo = 0;
+            int hi = m_keys.length - 1;
+            while( lo <= hi ) {
+                final int mid = ( lo + hi ) >>> 1;
+                int cmp = m_keys[ mid ].compareTo( key );
+                if( cmp == 0 ) {
+                    cmp = m_names[ mid ].compareTo( name );
+                }
+                if( cmp < 0 ) {
+                    lo = mid + 1;
+                } else if( cmp > 0 ) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -( lo + 1 );
+        }
+
+        Entries insert( final int pos, final String key, final String name ) {
+            return new Entries( insert( m_keys, pos, key ), insert( m_names, pos, name ) );
+        }
+
+        Entries delete( final int pos ) {
+            return new Entries( delete( m_keys, pos ), delete( m_names, pos ) );
+        }
+
+        private static String[] insert( final String[] array, final int pos, final String value ) {
+            final String[] updated = new String[ array.length + 1 ];
+            System.arraycopy( array, 0, updated, 0, pos );
+            updated[ pos ] = value;
+            System.arraycopy( array, pos, updated, pos + 1, array.length - pos );
+            return updated;
+        }
+
+        private static String[] delete( final String[] array, final int pos ) {
+            final String[] updated = new String[ array.length - 1 ];
+            System.arraycopy( array, 0, updated, 0, pos );
+            System.arraycopy( array, pos + 1, updated, pos, array.length - pos - 1 );
+            return updated;
+        }
+
+    }
+
+    /**
+     *  Walks the implicit trie of the keys, keeping one row of the edit distance matrix between the query and the current trie
+     *  prefix per level. A node whose prefix is within the allowed edits of the whole query matches, along with all keys below it.
+     */
+    private static final class FuzzySearch {
+
+        private final String[] m_keys;
+        private final String m_query;
+        private final int m_edits;
+        private final List< int[] > m_ranges;
+
+        FuzzySearch( final Entries entries, final String query, final int edits, final List< int[] > ranges ) {
+            m_keys = entries.m_keys;
+            m_query = query;
+            m_edits = edits;
+            m_ranges = ranges;
+        }
+
+        void run() {
+            final int[] row = new int[ m_query.length() + 1 ];
+            for( int j = 0; j < row.length; j++ ) {
+                row[ j ] = j;
+            }
+            descend( 0, m_keys.length, 0, null, row, '\0' );
+        }
+
+        /**
+         *  Visits the children of a trie node.
+         *
+         *  @param lo first key under the node.
+         *  @param hi last key under the node, exclusive.
+         *  @param depth length of the node's prefix.
+         *  @param previous distance row of the parent node, {@code null} at the root.
+         *  @param row distance row of the node.
+         *  @param last last character of the node's prefix.
+         */
+        private void descend( final int lo, final int hi, final int depth, final int[] previous, final int[] row, final char last ) {
+            int start = lo;
+            while( start < hi && m_keys[ start ].length() == depth ) {
+                start++;
+            }
+            while( start < hi ) {
+                final char c = m_keys[ start ].charAt( depth );
+                final int end = upperBound( start, hi, depth, c );
+                final int[] next = step( previous, row, depth, last, c );
+                if( next[ m_query.length() ] <= m_edits ) {
+                    m_ranges.add( new int[] { start, end, next[ m_query.length() ] } );
+                }
+                if( next[ m_query.length() ] > 0 && min( next ) <= m_edits ) {
+                    descend( start, end, depth + 1, row, next, c );
+                }
+                start = end;
+            }
+        }
+
+        private int[] step( final int[] previous, final int[] row, final int depth, final char last, final char c ) {
+            final int[] next = new int[ row.length ];
+            next[ 0 ] = depth + 1;
+            for( int j = 1; j < next.length; j++ ) {
+                final char q = m_query.charAt( j - 1 );
+                next[ j ] = Math.min( Math.min( row[ j ] + 1, next[ j - 1 ] + 1 ), row[ j - 1 ] + ( q == c ? 0 : 1 ) );
+                if( previous != null && j > 1 && q == last && m_query.charAt( j - 2 ) == c ) {
+                    next[ j ] = Math.min( next[ j ], previous[ j - 2 ] + 1 );
+                }
+            }
+            return next;
+        }
+
+        /** First key in the range whose character at the given depth is greater than {@code c}. */
+        private int upperBound( final int from, final int to, final int depth, final char c ) {
+            int lo = from;
+            int hi = to;
+            while( lo < hi ) {
+                final int mid = ( lo + hi ) >>> 1;
+                if( m_keys[ mid ].charAt( depth ) <= c ) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private static int min( final int[] row ) {
+            int min = Integer.MAX_VALUE;
+            for( final int value : row ) {
+                min = Math.min( min, value );
+            }
+            return min;
+        }
+
+    }
+
+}
@@ -24,39 +24,85 @@ import org.apache.logging.log4j.Logger;
 import org.apache.wiki.InternalWikiException;
 import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.core.Engine;
+import org.apache.wiki.event.WikiEngineEvent;
+import org.apache.wiki.event.WikiEvent;
+import org.apache.wiki.event.WikiEventListener;
 import org.apache.wiki.modules.BaseModuleManager;
 import org.apache.wiki.modules.WikiModuleInfo;
 import org.apache.wiki.preferences.Preferences;
 import org.apache.wiki.preferences.Preferences.TimeFormat;
+import org.apache.wiki.util.TextUtil;
 
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.jsp.PageContext;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.TreeSet;
+import java.util.stream.Stream;
 
 
 /**
  *  This class takes care of managing JSPWiki templates.  This class also provides the ResourceRequest mechanism.
+ *  <p>
+ *  Templates don't change while the wiki is running, so the outcome of looking up template resources on the servlet container is
+ *  remembered: once a resource name has been resolved, later lookups don't touch the container's resource loader anymore. During
+ *  template development, set {@value #PROP_WATCH_TEMPLATES} to {@code true} and the remembered lookups are dropped whenever a file
+ *  below the templates directory changes.
  *
  *  @since 2.1.62
  */
-public class DefaultTemplateManager extends BaseModuleManager implements TemplateManager {
+public class DefaultTemplateManager extends BaseModuleManager implements TemplateManager, WikiEventListener {
 
     private static final Logger log = LogManager.getLogger( DefaultTemplateManager.class );
 
+    /** Property name for watching the templates directory for changes, meant for template development. Value is {@value}. */
+    public static final String PROP_WATCH_TEMPLATES = "jspwiki.templateManager.watch";
+
+    /** Marks resources which weren't found. */
+    private static final String NOT_FOUND = "";
+
+    /** Upper bound on remembered lookups of each kind, as template names may come from requests. */
+    private static final int MAX_CACHED = 1_000;
+
+    /** Resolved resource names, by requested name. Never modified: replaced as a whole when adding an entry. */
+    private volatile Map< String, String > m_resolved = Collections.emptyMap();
+
+    /** Whether a template exists, by template name. Never modified: replaced as a whole when adding an entry. */
+    private volatile Map< String, Boolean > m_templates = Collections.emptyMap();
+
+    /** Available skins, by template name. Never modified: replaced as a whole when adding an entry. */
+    private volatile Map< String, Set< String > > m_skins = Collections.emptyMap();
+
+    /** Bumped whenever the remembered lookups are dropped, so lookups running meanwhile don't add stale entries. */
+    private long m_generation;
+
+    /** Whether lookups are remembered at all; they aren't if asked to watch the templates, but they can't be watched. */
+    private final boolean m_caching;
+
+    /** Watches the templates directory, if asked to. */
+    private WatchService m_watcher;
+
     /**
      *  Creates a new TemplateManager.  There is typically one manager per engine.
      *
@@ -65,17 +111,141 @@ public class DefaultTemplateManager extends BaseModuleManager implements Templat
      */
     public DefaultTemplateManager( final Engine engine, final Properties properties ) {
         super( engine );
+        if( TextUtil.getBooleanProperty( properties, PROP_WATCH_TEMPLATES, false ) ) {
+            m_caching = watchTemplates();
+        } else {
+            m_caching = true;
+        }
+    }
+
+    /**
+     *  Starts a daemon thread dropping the remembered lookups whenever something changes below the templates directory.
+     *
+     *  @return {@code true} if the templates directory is being watched.
+     */
+    private boolean watchTemplates() {
+        final ServletContext context = m_engine.getServletContext();
+        final String root = context != null ? context.getRealPath( "/" + DIRECTORY ) : null;
+        if( root == null || !new File( root ).isDirectory() ) {
+            log.warn( "Unable to watch the templates directory, template lookups won't be cached" );
+            return false;
+        }
+        try {
+            m_watcher = FileSystems.getDefault().newWatchService();
+            register( new File( root ).toPath() );
+        } catch( final IOException e ) {
+            log.warn( "Unable to watch the templates directory, template lookups won't be cached", e );
+            return false;
+        }
+
+        final Thread watcher = new Thread( () -> {
+            try {
+                while( true ) {
+                    final WatchKey key = m_watcher.take();
+                    key.pollEvents();
+                    final Path dir = ( Path )key.watchable();
+                    key.reset();
+                    // new directories need watching too
+                    register( dir );
+                    invalidate();
+                }
+            } catch( final InterruptedException | ClosedWatchServiceException e ) {
+                log.debug( "Stopped watching the templates directory" );
+            } catch( final IOException e ) {
+                log.warn( "Stopped watching the templates directory", e );
+            }
+        }, "JSPWiki Template Watcher" );
+        watcher.setDaemon( true );
+        watcher.start();
+        m_engine.addWikiEventListener( this );
+        log.info( "Watching {} for template changes", root );
+        return true;
+    }
+
+    /**
+     *  Registers a directory and all its subdirectories with the watcher.
+     *
+     *  @param dir The directory.
+     *  @throws IOException if the directories can't be listed or registered.
+     */
+    private void register( final Path dir ) throws IOException {
+        try( final Stream< Path > dirs = Files.walk( dir ) ) {
+            for( final Path d : ( Iterable< Path > )dirs.filter( Files::isDirectory )::iterator ) {
+                d.register( m_watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                            StandardWatchEventKinds.ENTRY_MODIFY );
+            }
+        }
+    }
+
+    /**
+     *  Drops all remembered lookups.
+     */
+    synchronized void invalidate() {
+        m_generation++;
+        m_resolved = Collections.emptyMap();
+        m_templates = Collections.emptyMap();
+        m_skins = Collections.emptyMap();
+    }
+
+    private synchronized long generation() {
+        return m_generation;
+    }
+
+    /**
+     *  Stops watching the templates directory when the engine shuts down.
+     *
+     *  @param event The wiki event.
+     */
+    @Override
+    public void actionPerformed( final WikiEvent event ) {
+        if( event instanceof WikiEngineEvent && event.getType() == WikiEngineEvent.SHUTDOWN && m_watcher != null ) {
+            try {
+                m_watcher.close();
+            } catch( final IOException e ) {
+                log.debug( "Unable to stop watching the templates directory", e );
+            }
+        }
+    }
+
+    /**
+     *  Returns a copy of a lookup map with a new entry, unless the map is full.
+     */
+    private static < V > Map< String, V > with( final Map< String, V > map, final String key, final V value ) {
+        if( map.size() >= MAX_CACHED ) {
+            return map;
+        }
+        final Map< String, V > copy = new HashMap<>( map );
+        copy.put( key, value );
+        return Collections.unmodifiableMap( copy );
     }
 
     /** {@inheritDoc} */
     @Override
-    // FIXME: Does not work yet
     public boolean templateExists( final String templateName ) {
-        final ServletContext context = m_engine.getServletContext();
-        try( final InputStream in = context.getResourceAsStream( getPath( templateName ) + "ViewTemplate.jsp" ) ) {
-            if( in != null ) {
-                return true;
+        final Boolean known = m_templates.get( templateName );
+        if( known != null ) {
+            return known;
+        }
+        final long generation = generation();
+        final boolean exists = resourceExists( m_engine.getServletContext(), getPath( templateName ) + "ViewTemplate.jsp" );
+        synchronized( this ) {
+            if( m_caching && generation == m_generation ) {
+                m_templates = with( m_templates, templateName, exists );
             }
+        }
+        return exists;
+    }
+
+    /**
+     *  Checks whether the servlet container holds a given resource.
+     *
+     *  @param sContext The servlet context
+     *  @param name The name of the resource
+     *  @return {@code true} if the resource exists.
+     */
+    private static boolean resourceExists( final ServletContext sContext, final String name ) {
+        try( final InputStream in = sContext.getResourceAsStream( name ) ) {
+            return in != null;
         } catch( final IOException e ) {
             log.error( e.getMessage(), e );
         }
@@ -84,13 +254,41 @@ public class DefaultTemplateManager extends BaseModuleManager implements Templat
 
     /**
      *  Tries to locate a given resource from the template directory. If the given resource is not found under the current name, returns the
-     *  path to the corresponding one in the default template.
+     *  path to the corresponding one in the default template. Lookups on the engine's servlet context are remembered.
+     *
+     *  @param sContext The servlet context
+     *  @param name The name of the resource
+     *  @return The name of the resource which was found.
+     */
+    private String findResource( final ServletContext sContext, final String name ) {
+        final boolean cacheable = m_caching && sContext == m_engine.getServletContext();
+        if( cacheable ) {
+            final String resolved = m_resolved.get( name );
+            if( resolved != null ) {
+                return resolved.isEmpty() ? null : resolved;
+            }
+        }
+
+        final long generation = generation();
+        final String resolved = lookupResource( sContext, name );
+        if( cacheable ) {
+            synchronized( this ) {
+                if( generation == m_generation ) {
+                    m_resolved = with( m_resolved, name, resolved != null ? resolved : NOT_FOUND );
+                }
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     *  Looks a resource up on the servlet container, falling back to the default template.
      *
      *  @param sContext The servlet context
      *  @param name The name of the resource
      *  @return The name of the resource which was found.
      */
-    private static String findResource( final ServletContext sContext, final String name ) {
+    private static String lookupResource( final ServletContext sContext, final String name ) {
         String resourceName = name;
         try( final InputStream is = sContext.getResourceAsStream( resourceName ) ) {
             if( is == null ) {
@@ -113,7 +311,7 @@ public class DefaultTemplateManager extends BaseModuleManager implements Templat
      * @param name resource name
      * @return the Resource for the given template and name.
      */
-    private static String findResource( final ServletContext sContext, final String template, final String name ) {
+    private String findResource( final ServletContext sContext, final String template, final String name ) {
         if( name.charAt(0) == '/' ) {
             // This is already a full path
             return findResource( sContext, name );
@@ -193,8 +391,29 @@ public class DefaultTemplateManager extends BaseModuleManager implements Templat
     /** {@inheritDoc} */
     @Override
     public Set< String > listSkins( final PageContext pageContext, final String template ) {
-        final String place = makeFullJSPName( template, SKIN_DIRECTORY );
         final ServletContext sContext = pageContext.getServletContext();
+        final boolean cacheable = m_caching && sContext == m_engine.getServletContext();
+        if( cacheable ) {
+            final Set< String > skins = m_skins.get( template );
+            if( skins != null ) {
+                return new TreeSet<>( skins );
+            }
+        }
+
+        final long generation = generation();
+        final Set< String > resultSet = lookupSkins( sContext, template );
+        if( cacheable ) {
+            synchronized( this ) {
+                if( generation == m_generation ) {
+                    m_skins = with( m_skins, template, Collections.unmodifiableSet( new TreeSet<>( resultSet ) ) );
+                }
+            }
+        }
+        return resultSet;
+    }
+
+    private static Set< String > lookupSkins( final ServletContext sContext, final String template ) {
+        final String place = makeFullJSPName( template, SKIN_DIRECTORY );
         final Set< String > skinSet = sContext.getResourcePaths( place );
         final Set< String > resultSet = new TreeSet<>();
 
@@ -20,6 +20,8 @@ package org.apache.wiki.ui.admin.beans;
 
 import org.apache.wiki.api.Release;
 import org.apache.wiki.api.core.Engine;
+import org.apache.wiki.auth.AuthorizationManager;
+import org.apache.wiki.auth.DefaultAuthorizationManager;
 import org.apache.wiki.pages.PageManager;
 import org.apache.wiki.ui.admin.SimpleAdminBean;
 
@@ -31,7 +33,7 @@ import javax.management.NotCompliantMBeanException;
  */
 public class CoreBean extends SimpleAdminBean {
 
-    private static final String[] ATTRIBUTES = { "pages", "version" };
+    private static final String[] ATTRIBUTES = { "pages", "version", "permissionCacheHits", "permissionCacheMisses" };
     private static final String[] METHODS = { };
 
     public CoreBean( final Engine engine ) throws NotCompliantMBeanException {
@@ -59,6 +61,36 @@ public class CoreBean extends SimpleAdminBean {
         return "The JSPWiki engine version";
     }
 
+    /**
+     *  Return the number of permission checks answered from the authorization decision cache.
+     *
+     *  @return the cache hits, 0 if the authorization manager doesn't cache decisions
+     */
+    public long getPermissionCacheHits() {
+        final AuthorizationManager authorizationManager = m_engine.getManager( AuthorizationManager.class );
+        return authorizationManager instanceof DefaultAuthorizationManager
+               ? ( ( DefaultAuthorizationManager )authorizationManager ).getPermissionCacheHits() : 0L;
+    }
+
+    public String getPermissionCacheHitsDescription() {
+        return "Permission checks answered from the authorization decision cache";
+    }
+
+    /**
+     *  Return the number of permission checks the authorization decision cache couldn't answer.
+     *
+     *  @return the cache misses, 0 if the authorization manager doesn't cache decisions
+     */
+    public long getPermissionCacheMisses() {
+        final AuthorizationManager authorizationManager = m_engine.getManager( AuthorizationManager.class );
+        return authorizationManager instanceof DefaultAuthorizationManager
+               ? ( ( DefaultAuthorizationManager )authorizationManager ).getPermissionCacheMisses() : 0L;
+    }
+
+    public String getPermissionCacheMissesDescription() {
+        return "Permission checks which had to be decided, as the authorization decision cache didn't hold them";
+    }
+
     @Override
     public String getTitle() {
         return "Core bean";
@@ -23,7 +23,9 @@ import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.core.Engine;
 import org.apache.wiki.api.core.Page;
 import org.apache.wiki.pages.PageManager;
+import org.apache.wiki.search.LuceneSearchProvider;
 import org.apache.wiki.search.SearchManager;
+import org.apache.wiki.search.SearchProvider;
 import org.apache.wiki.ui.admin.SimpleAdminBean;
 import org.apache.wiki.ui.progress.ProgressItem;
 import org.apache.wiki.ui.progress.ProgressManager;
@@ -40,6 +42,7 @@ import java.util.Collection;
 public class SearchManagerBean extends SimpleAdminBean {
 
     private static final String PROGRESS_ID = "searchmanagerbean.reindexer";
+    private static final String[] ATTRIBUTES = { "indexQueueSize", "indexQueueLag", "indexQueueCoalesced" };
     private static final String[] METHODS = { "reload" };
 
     // private static Logger log = LogManager.getLogger( SearchManagerBean.class );
@@ -54,7 +57,59 @@ public class SearchManagerBean extends SimpleAdminBean {
     @Override
     public String[] getAttributeNames()
     {
-        return new String[0];
+        return ATTRIBUTES;
+    }
+
+    /**
+     *  Returns the number of pages waiting to be indexed, if the search provider queues its updates.
+     *
+     *  @return index update queue depth, {@code -1} if not available.
+     */
+    public int getIndexQueueSize() {
+        final SearchProvider provider = m_engine.getManager( SearchManager.class ).getSearchEngine();
+        if( provider instanceof LuceneSearchProvider ) {
+            return ( ( LuceneSearchProvider )provider ).getUpdateQueueSize();
+        }
+        return -1;
+    }
+
+    public String getIndexQueueSizeDescription() {
+        return "Number of pages waiting to be indexed";
+    }
+
+    /**
+     *  Returns how long the oldest pending index update has been waiting, if the search provider queues its updates.
+     *
+     *  @return index update queue lag in milliseconds, {@code -1} if not available.
+     */
+    public long getIndexQueueLag() {
+        final SearchProvider provider = m_engine.getManager( SearchManager.class ).getSearchEngine();
+        if( provider instanceof LuceneSearchProvider ) {
+            return ( ( LuceneSearchProvider )provider ).getUpdateQueueLag();
+        }
+        return -1L;
+    }
+
+    public String getIndexQueueLagDescription() {
+        return "Milliseconds the oldest pending index update has been waiting";
+    }
+
+    /**
+     *  Returns how many index updates have been merged into an already pending update of the same page, if the search provider
+     *  queues its updates.
+     *
+     *  @return number of coalesced index updates since startup, {@code -1} if not available.
+     */
+    public long getIndexQueueCoalesced() {
+        final SearchProvider provider = m_engine.getManager( SearchManager.class ).getSearchEngine();
+        if( provider instanceof LuceneSearchProvider ) {
+            return ( ( LuceneSearchProvider )provider ).getCoalescedUpdateCount();
+        }
+        return -1L;
+    }
+
+    public String getIndexQueueCoalescedDescription() {
+        return "Index updates merged into an already pending update of the same page";
     }
 
     @Override
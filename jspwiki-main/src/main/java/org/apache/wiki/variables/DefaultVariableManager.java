@@ -22,12 +22,17 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.wiki.api.Release;
 import org.apache.wiki.api.core.Context;
+import org.apache.wiki.api.core.Engine;
 import org.apache.wiki.api.core.Page;
 import org.apache.wiki.api.core.Session;
 import org.apache.wiki.api.exceptions.NoSuchVariableException;
 import org.apache.wiki.api.filters.PageFilter;
 import org.apache.wiki.api.providers.WikiProvider;
 import org.apache.wiki.attachment.AttachmentManager;
+import org.apache.wiki.event.WikiEvent;
+import org.apache.wiki.event.WikiEventListener;
+import org.apache.wiki.event.WikiEventManager;
+import org.apache.wiki.event.WikiPageEvent;
 import org.apache.wiki.filters.FilterManager;
 import org.apache.wiki.i18n.InternationalizationManager;
 import org.apache.wiki.modules.InternalModule;
@@ -36,12 +41,15 @@ import org.apache.wiki.preferences.Preferences;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
-import java.lang.reflect.Method;
 import java.security.Principal;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.ResourceBundle;
+import java.util.function.Function;
 
 
 /**
@@ -49,7 +57,7 @@ import java.util.ResourceBundle;
  *
  *  @since 1.9.20.
  */
-public class DefaultVariableManager implements VariableManager {
+public class DefaultVariableManager implements VariableManager, WikiEventListener {
 
     private static final Logger log = LogManager.getLogger( DefaultVariableManager.class );
 
@@ -60,11 +68,61 @@ public class DefaultVariableManager implements VariableManager {
         "jspwiki.auth.masterpassword"
     };
 
+    /**
+     *  System variables, by variable name, in lower case. Adding a new system variable involves creating a new method in the
+     *  {@link SystemVariables} class and registering it here.
+     */
+    private static final Map< String, Function< SystemVariables, String > > SYSTEM_VARIABLES = systemVariables();
+
+    /** Resolvers of the system variables, by variable name, in lower case. */
+    private final Map< String, Function< Context, String > > m_systemVariables;
+
+    /** Total number of pages, cached until a page gets saved or deleted. */
+    private final CachedVariable m_totalPages;
+
+    /** Engine whose page events are being listened to; cached values are only kept for its contexts. */
+    private volatile Engine m_engine;
+
     /**
      *  Creates a VariableManager object using the property list given.
      *  @param props The properties.
      */
     public DefaultVariableManager( final Properties props ) {
+        final Map< String, Function< Context, String > > resolvers = new HashMap<>();
+        for( final Map.Entry< String, Function< SystemVariables, String > > e : SYSTEM_VARIABLES.entrySet() ) {
+            final Function< SystemVariables, String > getter = e.getValue();
+            resolvers.put( e.getKey(), context -> getter.apply( new SystemVariables( context ) ) );
+        }
+
+        // values that are expensive to compute and don't depend on the context
+        m_totalPages = new CachedVariable( resolvers.get( "totalpages" ) );
+        resolvers.put( "totalpages", m_totalPages );
+        resolvers.put( "interwikilinks", new CachedVariable( resolvers.get( "interwikilinks" ) ) );
+        resolvers.put( "inlinedimages", new CachedVariable( resolvers.get( "inlinedimages" ) ) );
+        m_systemVariables = Collections.unmodifiableMap( resolvers );
+    }
+
+    private static Map< String, Function< SystemVariables, String > > systemVariables() {
+        final Map< String, Function< SystemVariables, String > > vars = new HashMap<>();
+        vars.put( "pagename", SystemVariables::getPagename );
+        vars.put( "applicationname", SystemVariables::getApplicationname );
+        vars.put( "jspwikiversion", SystemVariables::getJspwikiversion );
+        vars.put( "encoding", SystemVariables::getEncoding );
+        vars.put( "totalpages", SystemVariables::getTotalpages );
+        vars.put( "pageprovider", SystemVariables::getPageprovider );
+        vars.put( "pageproviderdescription", SystemVariables::getPageproviderdescription );
+        vars.put( "attachmentprovider", SystemVariables::getAttachmentprovider );
+        vars.put( "attachmentproviderdescription", SystemVariables::getAttachmentproviderdescription );
+        vars.put( "interwikilinks", SystemVariables::getInterwikilinks );
+        vars.put( "inlinedimages", SystemVariables::getInlinedimages );
+        vars.put( "pluginpath", SystemVariables::getPluginpath );
+        vars.put( "baseurl", SystemVariables::getBaseurl );
+        vars.put( "uptime", SystemVariables::getUptime );
+        vars.put( "loginstatus", SystemVariables::getLoginstatus );
+        vars.put( "username", SystemVariables::getUsername );
+        vars.put( "requestcontext", SystemVariables::getRequestcontext );
+        vars.put( "pagefilters", SystemVariables::getPagefilters );
+        return Collections.unmodifiableMap( vars );
     }
 
     /**
@@ -159,107 +217,180 @@ public class DefaultVariableManager implements VariableManager {
             }
         }
 
-        try {
-            //
-            //  Using reflection to get system variables adding a new system variable
-            //  now only involves creating a new method in the SystemVariables class
-            //  with a name starting with get and the first character of the name of
-            //  the variable capitalized. Example:
-            //    public String getMysysvar(){
-            //      return "Hello World";
-            //    }
-            //
-            final SystemVariables sysvars = new SystemVariables( context );
-            final String methodName = "get" + Character.toUpperCase( name.charAt( 0 ) ) + name.substring( 1 );
-            final Method method = sysvars.getClass().getMethod( methodName );
-            return ( String )method.invoke( sysvars );
-        } catch( final NoSuchMethodException e1 ) {
-            //
-            //  It is not a system var. Time to handle the other cases.
-            //
-            //  Check if such a context variable exists, returning its string representation.
-            //
-            if( ( context.getVariable( varName ) ) != null ) {
-                return context.getVariable( varName ).toString();
+        final Function< Context, String > resolver = m_systemVariables.get( name );
+        if( resolver != null ) {
+            try {
+                return resolver.apply( context );
+            } catch( final Exception e ) {
+                log.info("Interesting exception: cannot fetch variable value", e );
+                return "";
             }
+        }
 
-            //
-            //  Well, I guess it wasn't a final straw.  We also allow variables from the session and the request (in this order).
-            //
-            final HttpServletRequest req = context.getHttpRequest();
-            if( req != null && req.getSession() != null ) {
-                final HttpSession session = req.getSession();
+        //
+        //  It is not a system var. Time to handle the other cases.
+        //
+        //  Check if such a context variable exists, returning its string representation.
+        //
+        if( ( context.getVariable( varName ) ) != null ) {
+            return context.getVariable( varName ).toString();
+        }
 
-                try {
-                    String s = ( String )session.getAttribute( varName );
+        //
+        //  Well, I guess it wasn't a final straw.  We also allow variables from the session and the request (in this order).
+        //
+        final HttpServletRequest req = context.getHttpRequest();
+        if( req != null && req.getSession() != null ) {
+            final HttpSession session = req.getSession();
 
-                    if( s != null ) {
-                        return s;
-                    }
+            try {
+                String s = ( String )session.getAttribute( varName );
 
-                    s = context.getHttpParameter( varName );
-                    if( s != null ) {
-                        return s;
-                    }
-                } catch( final ClassCastException e ) {
-                    log.debug( "Not a String: " + varName );
+                if( s != null ) {
+                    return s;
                 }
-            }
 
-            //
-            // And the final straw: see if the current page has named metadata.
-            //
-            final Page pg = context.getPage();
-            if( pg != null ) {
-                final Object metadata = pg.getAttribute( varName );
-                if( metadata != null ) {
-                    return metadata.toString();
+                s = context.getHttpParameter( varName );
+                if( s != null ) {
+                    return s;
                 }
+            } catch( final ClassCastException e ) {
+                log.debug( "Not a String: " + varName );
             }
+        }
 
-            //
-            // And the final straw part 2: see if the "real" current page has named metadata. This allows
-            // a parent page to control a inserted page through defining variables
-            //
-            final Page rpg = context.getRealPage();
-            if( rpg != null ) {
-                final Object metadata = rpg.getAttribute( varName );
-                if( metadata != null ) {
-                    return metadata.toString();
-                }
+        //
+        // And the final straw: see if the current page has named metadata.
+        //
+        final Page pg = context.getPage();
+        if( pg != null ) {
+            final Object metadata = pg.getAttribute( varName );
+            if( metadata != null ) {
+                return metadata.toString();
+            }
+        }
+
+        //
+        // And the final straw part 2: see if the "real" current page has named metadata. This allows
+        // a parent page to control a inserted page through defining variables
+        //
+        final Page rpg = context.getRealPage();
+        if( rpg != null ) {
+            final Object metadata = rpg.getAttribute( varName );
+            if( metadata != null ) {
+                return metadata.toString();
             }
+        }
 
-            //
-            // Next-to-final straw: attempt to fetch using property name. We don't allow fetching any other
-            // properties than those starting with "jspwiki.".  I know my own code, but I can't vouch for bugs
-            // in other people's code... :-)
-            //
-            if( varName.startsWith("jspwiki.") ) {
-                final Properties props = context.getEngine().getWikiProperties();
-                final String s = props.getProperty( varName );
-                if( s != null ) {
-                    return s;
+        //
+        // Next-to-final straw: attempt to fetch using property name. We don't allow fetching any other
+        // properties than those starting with "jspwiki.".  I know my own code, but I can't vouch for bugs
+        // in other people's code... :-)
+        //
+        if( varName.startsWith("jspwiki.") ) {
+            final Properties props = context.getEngine().getWikiProperties();
+            final String s = props.getProperty( varName );
+            if( s != null ) {
+                return s;
+            }
+        }
+
+        //
+        //  Final defaults for some known quantities.
+        //
+        if( varName.equals( VAR_ERROR ) || varName.equals( VAR_MSG ) ) {
+            return "";
+        }
+
+        throw new NoSuchVariableException( "No variable " + varName + " defined." );
+    }
+
+    /**
+     *  Invalidates the cached number of pages whenever a page gets saved or deleted.
+     *
+     *  @param event The wiki event.
+     */
+    @Override
+    public void actionPerformed( final WikiEvent event ) {
+        if( event instanceof WikiPageEvent
+            && ( event.getType() == WikiPageEvent.POST_SAVE_END || event.getType() == WikiPageEvent.PAGE_DELETED ) ) {
+            m_totalPages.invalidate();
+        }
+    }
+
+    /**
+     *  Whether values of the given engine can be cached. The first engine having its page and filter managers in place starts
+     *  sending its page events to this manager, so cached values can be invalidated.
+     *
+     *  @param engine The engine.
+     *  @return {@code true} if values of this engine can be cached.
+     */
+    private boolean isCacheable( final Engine engine ) {
+        if( m_engine == null ) {
+            synchronized( this ) {
+                if( m_engine == null ) {
+                    final PageManager pageManager = engine.getManager( PageManager.class );
+                    final FilterManager filterManager = engine.getManager( FilterManager.class );
+                    if( pageManager == null || filterManager == null ) {
+                        return false; // engine still starting up
+                    }
+                    WikiEventManager.addWikiEventListener( pageManager, this );
+                    WikiEventManager.addWikiEventListener( filterManager, this );
+                    m_engine = engine;
                 }
             }
+        }
+        return m_engine == engine;
+    }
 
-            //
-            //  Final defaults for some known quantities.
-            //
-            if( varName.equals( VAR_ERROR ) || varName.equals( VAR_MSG ) ) {
-                return "";
+    /**
+     *  Resolver of a system variable whose value doesn't depend on the context, computed on first use and kept until invalidated.
+     */
+    private final class CachedVariable implements Function< Context, String > {
+
+        private final Function< Context, String > m_resolver;
+
+        private volatile String m_value;
+
+        /** Bumped on every invalidation, so values computed meanwhile are not kept. */
+        private long m_generation;
+
+        CachedVariable( final Function< Context, String > resolver ) {
+            m_resolver = resolver;
+        }
+
+        @Override
+        public String apply( final Context context ) {
+            if( !isCacheable( context.getEngine() ) ) {
+                return m_resolver.apply( context );
+            }
+            String value = m_value;
+            if( value == null ) {
+                final long generation;
+                synchronized( this ) {
+                    generation = m_generation;
+                }
+                value = m_resolver.apply( context );
+                synchronized( this ) {
+                    if( generation == m_generation ) {
+                        m_value = value;
+                    }
+                }
             }
+            return value;
+        }
 
-            throw new NoSuchVariableException( "No variable " + varName + " defined." );
-        } catch( final Exception e ) {
-            log.info("Interesting exception: cannot fetch variable value", e );
+        synchronized void invalidate() {
+            m_generation++;
+            m_value = null;
         }
-        return "";
+
     }
 
     /**
      *  This class provides the implementation for the different system variables.
-     *  It is called via Reflection - any access to a variable called $xxx is mapped
-     *  to getXxx() on this class.
+     *  Its getters are registered once in a lookup table - any access to a variable
+     *  called $xxx is mapped to getXxx() on this class.
      *  <p>
      *  This is a lot neater than using a huge if-else if branching structure
      *  that we used to have before.
@@ -271,7 +402,6 @@ public class DefaultVariableManager implements VariableManager {
      *
      *  @since 2.7.0
      */
-    @SuppressWarnings( "unused" )
     private static class SystemVariables {
 
         private final Context m_context;
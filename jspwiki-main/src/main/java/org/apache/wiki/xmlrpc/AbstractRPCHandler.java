@@ -31,7 +31,7 @@ import java.security.Permission;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Hashtable;
-import java.util.Set;
+import java.util.List;
 import java.util.Vector;
 
 /**
@@ -71,7 +71,6 @@ public abstract class AbstractRPCHandler implements WikiRPCHandler {
 
     public Vector getRecentChanges( final Date since ) {
         checkPermission( PagePermission.VIEW );
-        final Set< Page > pages = m_engine.getManager( PageManager.class ).getRecentChanges();
         final Vector< Hashtable< ?, ? > > result = new Vector<>();
 
         // Transform UTC into local time.
@@ -79,6 +78,7 @@ public abstract class AbstractRPCHandler implements WikiRPCHandler {
         cal.setTime( since );
         cal.add( Calendar.MILLISECOND, cal.get( Calendar.ZONE_OFFSET ) +
                   (cal.getTimeZone().inDaylightTime( since ) ? cal.get( Calendar.DST_OFFSET ) : 0 ) );
+        final List< Page > pages = m_engine.getManager( PageManager.class ).getRecentChanges( cal.getTime(), 0 );
 
         for( final Page page : pages ) {
             if( page.getLastModified().after( cal.getTime() ) ) {
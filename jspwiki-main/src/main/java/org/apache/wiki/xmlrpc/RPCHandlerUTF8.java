@@ -33,6 +33,7 @@ import org.apache.xmlrpc.XmlRpcException;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Set;
 import java.util.Vector;
 
@@ -99,7 +100,6 @@ public class RPCHandlerUTF8 extends AbstractRPCHandler {
     public Vector< Hashtable< String, Object > > getRecentChanges( Date since ) {
         checkPermission( PagePermission.VIEW );
 
-        final Set< Page > pages = m_engine.getManager( PageManager.class ).getRecentChanges();
         final Vector< Hashtable< String, Object > > result = new Vector<>();
 
         final Calendar cal = Calendar.getInstance();
@@ -112,6 +112,7 @@ public class RPCHandlerUTF8 extends AbstractRPCHandler {
                  (cal.get( Calendar.ZONE_OFFSET ) +
                   (cal.getTimeZone().inDaylightTime(since) ? cal.get( Calendar.DST_OFFSET ) : 0 ) ) );
         since = cal.getTime();
+        final List< Page > pages = m_engine.getManager( PageManager.class ).getRecentChanges( since, 0 );
 
         for( final Page page : pages ) {
             if( page.getLastModified().after( since ) && !( page instanceof Attachment ) ) {
@@ -237,7 +237,7 @@ public class TestEngine extends WikiEngine {
         if ( workdir != null ) {
             final File f = new File( workdir );
 
-            if (f.exists() && f.isDirectory() && new File( f, "refmgr.ser" ).exists()) {
+            if (f.exists() && f.isDirectory() && new File( f, "refmgr.log" ).exists()) {
                 // System.out.println( "Deleting " + f.getAbsolutePath() );
                 deleteAll( f );
             }
@@ -0,0 +1,91 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ *  Compares the cost of {@link WikiEngine#getManager(Class)} against the former scan over all registered managers, with several
+ *  threads looking up managers concurrently. Not run as part of the test suite; after {@code mvn test-compile}, run it through
+ *  its {@code main} method with the test classpath.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@Threads( 8 )
+public class WikiEngineGetManagerBenchmark {
+
+    /** Exact key of a registered manager, and a super type of one. */
+    @Param( { "org.apache.wiki.pages.PageManager", "org.apache.wiki.api.engine.RenderApi" } )
+    String requested;
+
+    TestEngine engine;
+    Class< ? > requestedClass;
+
+    @Setup
+    public void setUp() throws Exception {
+        engine = TestEngine.build();
+        requestedClass = Class.forName( requested );
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public Object scanLookup() {
+        return engine.managers.entrySet().stream()
+                                         .filter( e -> requestedClass.isAssignableFrom( e.getKey() ) )
+                                         .map( Map.Entry::getValue )
+                                         .findFirst().orElse( null );
+    }
+
+    @Benchmark
+    public Object cachedLookup() {
+        return engine.getManager( requestedClass );
+    }
+
+    public static void main( final String[] args ) throws RunnerException {
+        new Runner( new OptionsBuilder().include( WikiEngineGetManagerBenchmark.class.getSimpleName() ).build() ).run();
+    }
+
+}
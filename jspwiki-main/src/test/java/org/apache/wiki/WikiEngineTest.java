@@ -32,6 +32,7 @@ import org.apache.wiki.pages.PageManager;
 import org.apache.wiki.providers.FileSystemProvider;
 import org.apache.wiki.references.ReferenceManager;
 import org.apache.wiki.render.RenderingManager;
+import org.apache.wiki.ui.progress.ProgressManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -343,4 +344,16 @@ public class WikiEngineTest {
         Assertions.assertEquals( 4, m_engine.getManagers( ModuleManager.class ).size() );
     }
 
+    @Test
+    public void testGetManagerAfterRegistration() throws Exception {
+        final ProgressManager before = m_engine.getManager( ProgressManager.class );
+        Assertions.assertSame( before, m_engine.getManager( ProgressManager.class ) );
+        Assertions.assertSame( m_engine.getManager( RenderingManager.class ), m_engine.getManager( RenderApi.class ) );
+
+        m_engine.initComponent( ProgressManager.class, m_engine );
+        final ProgressManager after = m_engine.getManager( ProgressManager.class );
+        Assertions.assertNotNull( after );
+        Assertions.assertNotSame( before, after );
+    }
+
 }
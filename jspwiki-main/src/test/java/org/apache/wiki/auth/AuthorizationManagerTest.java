@@ -28,6 +28,7 @@ import org.apache.wiki.api.exceptions.ProviderException;
 import org.apache.wiki.api.exceptions.WikiException;
 import org.apache.wiki.api.spi.Wiki;
 import org.apache.wiki.attachment.AttachmentManager;
+import org.apache.wiki.auth.acl.AclManager;
 import org.apache.wiki.auth.acl.UnresolvedPrincipal;
 import org.apache.wiki.auth.authorize.Group;
 import org.apache.wiki.auth.authorize.GroupManager;
@@ -123,6 +124,49 @@ public class AuthorizationManagerTest
         }
     }
 
+    @Test
+    public void testDecisionCache() throws Exception
+    {
+        final DefaultAuthorizationManager auth = ( DefaultAuthorizationManager )m_auth;
+        m_engine.saveText( "TestDecisionPage", "Foo" );
+        final Permission view = PermissionFactory.getPagePermission( m_engine.getApplicationName() + ":TestDecisionPage", "view" );
+        final Session bob = WikiSessionTest.authenticatedSession( m_engine, Users.BOB, Users.BOB_PASS );
+        final Session alice = WikiSessionTest.authenticatedSession( m_engine, Users.ALICE, Users.ALICE_PASS );
+
+        Assertions.assertTrue( m_auth.checkPermission( bob, view ), "Bob view" );
+        final long hits = auth.getPermissionCacheHits();
+        final long misses = auth.getPermissionCacheMisses();
+        Assertions.assertTrue( m_auth.checkPermission( bob, view ), "Bob view, cached" );
+        Assertions.assertEquals( hits + 1, auth.getPermissionCacheHits() );
+        Assertions.assertEquals( misses, auth.getPermissionCacheMisses() );
+
+        // Saving the page drops the decisions on it
+        m_engine.saveText( "TestDecisionPage", "[{ALLOW view Alice}]\nFoo" );
+        Assertions.assertFalse( m_auth.checkPermission( bob, view ), "Bob view, after ACL added" );
+        Assertions.assertTrue( m_auth.checkPermission( alice, view ), "Alice view, after ACL added" );
+        Assertions.assertEquals( misses + 2, auth.getPermissionCacheMisses() );
+
+        // So do group changes, as ACL entries may name groups
+        m_engine.saveText( "TestDecisionPage", "[{ALLOW view DecisionGroup}]\nFoo" );
+        Assertions.assertFalse( m_auth.checkPermission( bob, view ), "Bob view, not in group" );
+        m_groupMgr.setGroup( m_session, m_groupMgr.parseGroup( "DecisionGroup", "Bob", true ) );
+        final Session bobInGroup = WikiSessionTest.authenticatedSession( m_engine, Users.BOB, Users.BOB_PASS );
+        Assertions.assertTrue( m_auth.checkPermission( bobInGroup, view ), "Bob view, in group" );
+
+        // And rewriting the ACL without going through a page save
+        Assertions.assertFalse( m_auth.checkPermission( alice, view ), "Alice view, before ACL rewritten" );
+        final Page page = m_engine.getManager( PageManager.class ).getPage( "TestDecisionPage" );
+        page.setAcl( null );
+        final AclManager aclManager = m_engine.getManager( AclManager.class );
+        aclManager.parseAcl( page, "ALLOW view Alice" );
+        aclManager.setPermissions( page, page.getAcl() );
+        Assertions.assertTrue( m_auth.checkPermission( alice, view ), "Alice view, after ACL rewritten" );
+        Assertions.assertFalse( m_auth.checkPermission( bobInGroup, view ), "Bob view, after ACL rewritten" );
+
+        m_groupMgr.removeGroup( "DecisionGroup" );
+        m_engine.getManager( PageManager.class ).deletePage( "TestDecisionPage" );
+    }
+
     @Test
     public void testGetRoles() throws Exception {
         Principal[] principals;
@@ -0,0 +1,47 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.auth.acl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+
+public class AclScannerTest {
+
+    @Test
+    public void testFindRules() {
+        Assertions.assertTrue( AclScanner.findRules( null ).isEmpty() );
+        Assertions.assertTrue( AclScanner.findRules( "No rules, just a [link] and a [{Plugin}]" ).isEmpty() );
+        Assertions.assertEquals( Arrays.asList( "ALLOW edit Charlie, Herman", "ALLOW view Admin" ),
+                                 AclScanner.findRules( "Bar. [{ALLOW edit Charlie, Herman}] \n[{ALLOW view Admin}]() text" ) );
+        Assertions.assertEquals( Arrays.asList( "DENY view Guest" ), AclScanner.findRules( "[{DENY view Guest}]" ) );
+    }
+
+    @Test
+    public void testEscapedRulesAreIgnored() {
+        Assertions.assertTrue( AclScanner.findRules( "[[{ALLOW view Admin}]" ).isEmpty() );
+        Assertions.assertTrue( AclScanner.findRules( "~[{ALLOW view Admin}]" ).isEmpty() );
+        Assertions.assertTrue( AclScanner.findRules( "{{{\n[{ALLOW view Admin}]\n}}}" ).isEmpty() );
+        Assertions.assertEquals( Arrays.asList( "ALLOW edit Admin" ),
+                                 AclScanner.findRules( "{{{ [{ALLOW view Admin}] }}} [{ALLOW edit Admin}] [{ALLOW view Unclosed" ) );
+    }
+
+}
@@ -99,6 +99,25 @@ public class DefaultAclManagerTest
         Assertions.assertEquals( 0, p.length );
     }
 
+    @Test
+    public void testGetPermissionsFollowsSaves() throws Exception {
+        Page page = m_engine.getManager( PageManager.class ).getPage( "TestAclPage" );
+        Acl acl = m_engine.getManager( AclManager.class ).getPermissions( page );
+        Assertions.assertEquals( 2, acl.findPrincipals( PermissionFactory.getPagePermission( page, "edit" ) ).length );
+
+        m_engine.saveText( "TestAclPage", "Bar. [{ALLOW edit Charlie}] " );
+        page = m_engine.getManager( PageManager.class ).getPage( "TestAclPage" );
+        page.setAcl( null );
+        acl = m_engine.getManager( AclManager.class ).getPermissions( page );
+        Assertions.assertArrayEquals( new Principal[] { new WikiPrincipal( "Charlie" ) },
+                                      acl.findPrincipals( PermissionFactory.getPagePermission( page, "edit" ) ) );
+
+        // found again on a fresh copy of the same version, without scanning the page
+        final Page copy = m_engine.getManager( PageManager.class ).getPage( "TestAclPage" ).clone();
+        copy.setAcl( null );
+        Assertions.assertSame( acl, m_engine.getManager( AclManager.class ).getPermissions( copy ) );
+    }
+
     @Test
     public void testAclRegex()
     {
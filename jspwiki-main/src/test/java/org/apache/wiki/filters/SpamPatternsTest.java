@@ -0,0 +1,78 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.filters;
+
+import org.apache.oro.text.regex.Pattern;
+import org.apache.oro.text.regex.Perl5Compiler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+public class SpamPatternsTest {
+
+    private static SpamPatterns compile( final String... patterns ) throws Exception {
+        final Perl5Compiler compiler = new Perl5Compiler();
+        final List< Pattern > compiled = new ArrayList<>();
+        for( final String pattern : patterns ) {
+            compiled.add( compiler.compile( pattern ) );
+        }
+        return new SpamPatterns( compiled );
+    }
+
+    private static List< String > matches( final SpamPatterns patterns, final String text ) {
+        final List< String > found = new ArrayList<>();
+        for( final Pattern p : patterns.matches( text ) ) {
+            found.add( p.getPattern() );
+        }
+        return found;
+    }
+
+    @Test
+    public void testLiteral() {
+        Assertions.assertEquals( "example.com", SpamPatterns.literal( "example\\.com" ) );
+        Assertions.assertEquals( "viagra", SpamPatterns.literal( "viagra" ) );
+        Assertions.assertNull( SpamPatterns.literal( "example.com" ) );
+        Assertions.assertNull( SpamPatterns.literal( "\\bcasino" ) );
+        Assertions.assertNull( SpamPatterns.literal( "poker|casino" ) );
+    }
+
+    @Test
+    public void testMatchesLiteralsAndRegexps() throws Exception {
+        final SpamPatterns patterns = compile( "casino", "example\\.com", "ample", "v[i1]agra", "c.alis", "(x)\\1" );
+        Assertions.assertEquals( 6, patterns.size() );
+
+        Assertions.assertTrue( patterns.matches( "A perfectly innocent text" ).isEmpty() );
+        Assertions.assertEquals( Arrays.asList( "ample" ), matches( patterns, "exampleXcom" ) );
+        Assertions.assertEquals( Arrays.asList( "casino", "example\\.com", "ample" ), matches( patterns, "see www.example.com casino" ) );
+        Assertions.assertEquals( Arrays.asList( "v[i1]agra", "c.alis" ), matches( patterns, "cheap v1agra and cialis" ) );
+        Assertions.assertEquals( Arrays.asList( "(x)\\1" ), matches( patterns, "xx" ) );
+    }
+
+    @Test
+    public void testOverlappingLiterals() throws Exception {
+        final SpamPatterns patterns = compile( "she", "he", "hers", "his" );
+        Assertions.assertEquals( Arrays.asList( "she", "he", "hers" ), matches( patterns, "ushers" ) );
+        Assertions.assertEquals( Arrays.asList( "his" ), matches( patterns, "this" ) );
+    }
+
+}
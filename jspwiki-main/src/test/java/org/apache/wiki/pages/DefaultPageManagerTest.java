@@ -33,14 +33,19 @@ import org.apache.wiki.providers.VerySimpleProvider;
 import org.apache.wiki.references.ReferenceManager;
 import org.apache.wiki.render.RenderingManager;
 import org.apache.wiki.util.TextUtil;
+import org.awaitility.Awaitility;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
-import java.util.Collection;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
 import java.util.Properties;
 
+import static org.apache.wiki.TestEngine.with;
+
 public class DefaultPageManagerTest {
 
     static final String NAME1 = "Test1";
@@ -153,8 +158,8 @@ public class DefaultPageManagerTest {
         Assertions.assertNull( engine.getManager( PageManager.class ).getPage(NAME1), "Page not removed" );
         Assertions.assertNull( engine.getManager( PageManager.class ).getPage(NAME1+"/TestAtt.txt"), "Att not removed" );
 
-        final Collection< String > refs = engine.getManager( ReferenceManager.class ).findReferrers(NAME1);
-        Assertions.assertNull( refs, "referrers" );
+        // references are removed on the event listener thread
+        Awaitility.await( "referrers" ).until( () -> engine.getManager( ReferenceManager.class ).findReferrers( NAME1 ) == null );
     }
 
     @Test
@@ -316,4 +321,31 @@ public class DefaultPageManagerTest {
         Assertions.assertEquals( TextUtil.normalizePostData( "" ), engine.getManager( PageManager.class ).getText( name ), "wrong content" );
     }
 
+    @Test
+    public void testGetRecentChangesSinceLimit() throws Exception {
+        final TestEngine engine = TestEngine.build( with( PageManager.PROP_RECENT_CHANGES_SIZE, "2" ) );
+        final PageManager pageManager = engine.getManager( PageManager.class );
+        engine.saveText( "RecentOne", "one" );
+        engine.saveText( "RecentTwo", "two" );
+        engine.saveText( "RecentThree", "three" );
+        engine.addAttachment( "RecentOne", "recent.txt", "contents".getBytes( StandardCharsets.UTF_8 ) );
+
+        final int total = pageManager.getAllPages().size() + engine.getManager( AttachmentManager.class ).getAllAttachments().size();
+        Assertions.assertEquals( 2, pageManager.getRecentChanges( null, 2 ).size() );
+        Assertions.assertEquals( total, pageManager.getRecentChanges( new Date( 0L ), 0 ).size() );
+        Assertions.assertTrue( pageManager.getRecentChanges( new Date( System.currentTimeMillis() + 86_400_000L ), 0 ).isEmpty() );
+
+        final List< Page > changes = pageManager.getRecentChanges( null, 0 );
+        Assertions.assertEquals( total, changes.size() );
+        for( int i = 1; i < changes.size(); i++ ) {
+            Assertions.assertFalse( changes.get( i - 1 ).getLastModified().before( changes.get( i ).getLastModified() ), "not sorted" );
+        }
+
+        pageManager.deletePage( "RecentTwo" );
+        Assertions.assertTrue( pageManager.getRecentChanges( null, 0 ).stream().noneMatch( p -> p.getName().equals( "RecentTwo" ) ) );
+        Assertions.assertEquals( total - 1, pageManager.getRecentChanges( null, 0 ).size() );
+        Assertions.assertEquals( total - 1, pageManager.getRecentChanges().size() );
+        engine.shutdown();
+    }
+
 }
@@ -0,0 +1,54 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.plugin;
+
+import org.apache.wiki.api.core.Context;
+import org.apache.wiki.api.plugin.CacheablePlugin;
+import org.apache.wiki.api.plugin.Plugin;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *  Returns its text, followed by the number of times it has been executed.
+ *  <P>
+ *  Parameters: text - text to return, page - page whose changes invalidate the output.
+ */
+public class CacheableSamplePlugin implements Plugin, CacheablePlugin {
+
+    static final AtomicInteger c_executions = new AtomicInteger();
+
+    @Override
+    public String execute( final Context context, final Map< String, String > params ) {
+        return params.get( "text" ) + c_executions.incrementAndGet();
+    }
+
+    @Override
+    public Invalidation getInvalidation() {
+        return Invalidation.REFERENCED_PAGES;
+    }
+
+    @Override
+    public Collection< String > getReferencedPages( final Context context, final Map< String, String > params ) {
+        return Collections.singleton( params.get( "page" ) );
+    }
+
+}
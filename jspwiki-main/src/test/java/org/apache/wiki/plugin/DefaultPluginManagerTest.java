@@ -22,16 +22,21 @@ package org.apache.wiki.plugin;
 import org.apache.wiki.TestEngine;
 import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.core.Engine;
+import org.apache.wiki.api.exceptions.PluginException;
 import org.apache.wiki.api.exceptions.ProviderException;
+import org.apache.wiki.api.plugin.Plugin;
 import org.apache.wiki.api.spi.Wiki;
 import org.apache.wiki.pages.PageManager;
+import org.apache.wiki.preferences.Preferences;
 import org.apache.wiki.render.RenderingManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Properties;
+import java.util.ResourceBundle;
 
 public class DefaultPluginManagerTest {
 
@@ -153,4 +158,62 @@ public class DefaultPluginManagerTest {
         Assertions.assertTrue( SamplePlugin.c_rendered );
     }
 
+    @Test
+    public void testStatelessPluginInstances() throws Exception {
+        final ResourceBundle rb = Preferences.getBundle( context, Plugin.CORE_PLUGINS_RESOURCEBUNDLE );
+        Assertions.assertSame( manager.newWikiPlugin( "CurrentTimePlugin", rb ), manager.newWikiPlugin( "CurrentTimePlugin", rb ) );
+        Assertions.assertNotSame( manager.newWikiPlugin( "SamplePlugin", rb ), manager.newWikiPlugin( "SamplePlugin", rb ) );
+    }
+
+    @Test
+    public void testUnknownPlugin() {
+        final ResourceBundle rb = Preferences.getBundle( context, Plugin.CORE_PLUGINS_RESOURCEBUNDLE );
+        // second lookup is answered by the negative cache, but must fail the same way
+        for( int i = 0; i < 2; i++ ) {
+            final PluginException pe = Assertions.assertThrows( PluginException.class, () -> manager.newWikiPlugin( "NoSuchPluginAnywhere", rb ) );
+            Assertions.assertTrue( pe.getCause() instanceof ClassNotFoundException );
+        }
+    }
+
+    @Test
+    public void testCacheablePlugin() throws Exception {
+        final TestEngine testEngine = ( TestEngine )engine;
+        testEngine.saveText( "CachedPluginDependency", "Some text." );
+        try {
+            final String plugin = "{CacheableSamplePlugin text=cached page=CachedPluginDependency}";
+            final String res = manager.execute( context, plugin );
+            Assertions.assertTrue( res.startsWith( "cached" ) );
+            Assertions.assertEquals( res, manager.execute( context, plugin ), "output should have been taken from the cache" );
+            Assertions.assertNotEquals( res, manager.execute( context, "{CacheableSamplePlugin text=cached page=CachedPluginDependency x=y}" ) );
+
+            // changes to other pages don't matter...
+            testEngine.saveText( "CachedPluginOtherPage", "Some text." );
+            Assertions.assertEquals( res, manager.execute( context, plugin ) );
+
+            // ...but changes to the referenced one do
+            testEngine.saveText( "CachedPluginDependency", "Some other text." );
+            Assertions.assertNotEquals( res, manager.execute( context, plugin ), "output should have been invalidated" );
+        } finally {
+            testEngine.deleteTestPage( "CachedPluginDependency" );
+            testEngine.deleteTestPage( "CachedPluginOtherPage" );
+        }
+    }
+
+    @Test
+    public void testCacheablePluginAttachmentChange() throws Exception {
+        final TestEngine testEngine = ( TestEngine )engine;
+        testEngine.saveText( "CachedPluginAttachments", "Some text." );
+        try {
+            testEngine.addAttachment( "CachedPluginAttachments", "data.txt", "first".getBytes( StandardCharsets.UTF_8 ) );
+            final String plugin = "{CacheableSamplePlugin text=cached page=CachedPluginAttachments/data.txt}";
+            final String res = manager.execute( context, plugin );
+            Assertions.assertEquals( res, manager.execute( context, plugin ), "output should have been taken from the cache" );
+
+            testEngine.addAttachment( "CachedPluginAttachments", "data.txt", "second".getBytes( StandardCharsets.UTF_8 ) );
+            Assertions.assertNotEquals( res, manager.execute( context, plugin ), "output should have been invalidated by the upload" );
+        } finally {
+            testEngine.deleteTestPage( "CachedPluginAttachments" );
+        }
+    }
+
 }
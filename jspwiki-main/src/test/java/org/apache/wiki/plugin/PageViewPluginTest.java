@@ -140,6 +140,37 @@ public class PageViewPluginTest {
         Assertions.assertTrue( start2 < start1 );
     }
 
+    @Test
+    public void testShowCountsSortedFollowsNewHits() throws Exception
+    {
+        final Page page1 = testEngine.getManager( PageManager.class ).getPage( "TestPage01" );
+        final Context context1 = Wiki.context().create( testEngine, page1 );
+        final Page page2 = testEngine.getManager( PageManager.class ).getPage( "TestPage02" );
+        final Context context2 = Wiki.context().create( testEngine, page2 );
+
+        // generate counts:
+        testEngine.getManager( RenderingManager.class ).getHTML( context2, page2 );
+
+        // mind the double \n in the following string:
+        final String pageViewPageContent = "[{PageViewPlugin show='list' sort=count '\n\n* {1} ({2} views)\n}]";
+        testEngine.saveText( "PageViews", pageViewPageContent );
+
+        final Page pageviews = testEngine.getManager( PageManager.class ).getPage( "PageViews" );
+        final Context contextPV = Wiki.context().create( testEngine, pageviews );
+
+        String result = testEngine.getManager( RenderingManager.class ).getHTML( contextPV, pageviews );
+        Assertions.assertTrue( result.indexOf( "Test Page 02" ) < result.indexOf( "Test Page 01" ) );
+
+        // page1 overtakes page2, the listing must follow
+        testEngine.getManager( RenderingManager.class ).getHTML( context1, page1 );
+        testEngine.getManager( RenderingManager.class ).getHTML( context1, page1 );
+        testEngine.getManager( RenderingManager.class ).getHTML( context1, page1 );
+
+        result = testEngine.getManager( RenderingManager.class ).getHTML( contextPV, pageviews );
+        Assertions.assertTrue( result.contains( "Test Page 01 (4 views)" ) );
+        Assertions.assertTrue( result.indexOf( "Test Page 01" ) < result.indexOf( "Test Page 02" ) );
+    }
+
     @Test
     public void testShowCountEntries() throws Exception
     {
@@ -0,0 +1,54 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.plugin;
+
+import org.apache.wiki.api.core.Context;
+import org.apache.wiki.api.plugin.Plugin;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *  Waits for a while, then returns its text. Keeps track of how many instances run at the same time.
+ *  <P>
+ *  Parameters: text - text to return, delay - milliseconds to wait before returning.
+ */
+public class SlowSamplePlugin implements Plugin {
+
+    /** Number of executions currently running. */
+    public static final AtomicInteger c_running = new AtomicInteger();
+
+    /** Highest number of executions seen running at the same time. */
+    public static final AtomicInteger c_maxRunning = new AtomicInteger();
+
+    @Override
+    public String execute( final Context context, final Map< String, String > params ) {
+        c_maxRunning.accumulateAndGet( c_running.incrementAndGet(), Math::max );
+        try {
+            Thread.sleep( Long.parseLong( params.getOrDefault( "delay", "0" ) ) );
+        } catch( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        } finally {
+            c_running.decrementAndGet();
+        }
+        return params.get( "text" );
+    }
+
+}
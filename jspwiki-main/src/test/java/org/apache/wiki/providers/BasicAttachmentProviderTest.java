@@ -21,6 +21,7 @@ package org.apache.wiki.providers;
 import org.apache.wiki.TestEngine;
 import org.apache.wiki.api.core.Attachment;
 import org.apache.wiki.api.exceptions.ProviderException;
+import org.apache.wiki.api.providers.AttachmentProvider;
 import org.apache.wiki.api.spi.Wiki;
 import org.apache.wiki.util.FileUtil;
 import org.awaitility.Awaitility;
@@ -294,4 +295,24 @@ public class BasicAttachmentProviderTest {
         Assertions.assertEquals( att2.getName(), a2.getName(), "a2 name :: " + res );
     }
 
+    @Test
+    public void testListAllChangedAfterMove() throws Exception {
+        final File in = makeAttachmentFile();
+        final Attachment att = Wiki.contents().attachment( m_engine, NAME1, "test1.txt" );
+        m_provider.putAttachmentData( att, new FileInputStream(in) );
+        m_provider.moveAttachmentsForPage( NAME1, "MovedTestPage" );
+
+        List< Attachment > res = m_provider.listAllChanged( new Date( 0L ) );
+        Assertions.assertEquals( 1, res.size(), "list size" );
+        Assertions.assertEquals( "MovedTestPage/test1.txt", res.get( 0 ).getName() );
+
+        // a missing journal gets rebuilt from the attachment directories
+        final File journal = new File( props.getProperty( AttachmentProvider.PROP_STORAGEDIR ), BasicAttachmentProvider.CHANGE_JOURNAL );
+        Assertions.assertTrue( journal.delete() );
+        res = m_provider.listAllChanged( new Date( 0L ) );
+        Assertions.assertEquals( 1, res.size(), "list size after rebuild" );
+        Assertions.assertEquals( "MovedTestPage/test1.txt", res.get( 0 ).getName() );
+        Assertions.assertTrue( journal.exists() );
+    }
+
 }
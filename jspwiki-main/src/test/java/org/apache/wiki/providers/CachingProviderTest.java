@@ -23,6 +23,7 @@ import org.apache.wiki.TestEngine;
 import org.apache.wiki.api.core.Page;
 import org.apache.wiki.cache.CachingManager;
 import org.apache.wiki.pages.PageManager;
+import org.apache.wiki.references.DefaultReferenceManager;
 import org.apache.wiki.util.FileUtil;
 import org.awaitility.Awaitility;
 import org.junit.jupiter.api.AfterEach;
@@ -53,6 +54,7 @@ public class CachingProviderTest {
         final Properties props = TestEngine.getTestProperties();
         props.setProperty( CachingManager.PROP_CACHE_ENABLE, "true" );
         props.setProperty( "jspwiki.pageProvider", "org.apache.wiki.providers.CounterProvider" );
+        props.setProperty( DefaultReferenceManager.PROP_REBUILD_IN_BACKGROUND, "false" );
 
         final TestEngine engine = TestEngine.build( props );
         final CounterProvider p = (CounterProvider)((CachingProvider)engine.getManager( PageManager.class ).getProvider()).getRealProvider();
@@ -66,6 +68,34 @@ public class CachingProviderTest {
         Assertions.assertEquals( 0, p.m_pageExistsCalls, "pageExists2" );
     }
 
+    @Test
+    public void testPageExistsAnsweredFromMemory() throws Exception {
+        final Properties props = TestEngine.getTestProperties();
+        props.setProperty( CachingManager.PROP_CACHE_ENABLE, "true" );
+        props.setProperty( "jspwiki.pageProvider", "org.apache.wiki.providers.CounterProvider" );
+        props.setProperty( DefaultReferenceManager.PROP_REBUILD_IN_BACKGROUND, "false" );
+
+        final TestEngine engine = TestEngine.build( props );
+        final CachingProvider cache = ( CachingProvider )engine.getManager( PageManager.class ).getProvider();
+        final CounterProvider p = ( CounterProvider )cache.getRealProvider();
+        final int getPageCalls = p.m_getPageCalls;
+
+        Assertions.assertTrue( cache.pageExists( "Foo" ) );
+        Assertions.assertFalse( cache.pageExists( "NoSuchPage" ) );
+        Assertions.assertEquals( "Blat", engine.getFinalPageName( "Blats" ) );
+        Assertions.assertNull( engine.getFinalPageName( "No such pages" ) );
+        Assertions.assertEquals( 0, p.m_pageExistsCalls, "pageExists" );
+        Assertions.assertEquals( getPageCalls, p.m_getPageCalls, "getPageInfo" );
+
+        cache.movePage( "Foo", "Fuu" );
+        cache.deletePage( "Bar" );
+        Assertions.assertFalse( cache.pageExists( "Foo" ) );
+        Assertions.assertTrue( cache.pageExists( "Fuu" ) );
+        Assertions.assertFalse( cache.pageExists( "Bar" ) );
+        Assertions.assertEquals( 0, p.m_pageExistsCalls, "pageExists2" );
+        engine.shutdown();
+    }
+
     @Test
     public void testSneakyAdd() throws Exception {
         final TestEngine engine = TestEngine.build();
@@ -34,7 +34,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.apache.wiki.TestEngine.with;
 
@@ -301,4 +307,37 @@ public class FileSystemProviderTest {
         Assertions.assertFalse( file.exists() );
     }
 
+    @Test
+    public void testGetAllChangedSince() throws Exception {
+        final File pageDir = new File( props.getProperty( FileSystemProvider.PROP_PAGEDIR ) );
+        final Date since = new Date( System.currentTimeMillis() - 60_000L );
+
+        m_provider.putPageText( new WikiPage( m_engine, "OldPage" ), "old" );
+        Assertions.assertTrue( new File( pageDir, "OldPage" + FileSystemProvider.FILE_EXT ).setLastModified( since.getTime() - 60_000L ) );
+        m_provider.putPageText( new WikiPage( m_engine, "NewPage" ), "new" );
+        m_provider.putPageText( new WikiPage( m_engine, "RenamedPage" ), "renamed" );
+        m_provider.movePage( "RenamedPage", "MovedPage" );
+        m_provider.putPageText( new WikiPage( m_engine, "DeletedPage" ), "deleted" );
+        m_provider.deletePage( "DeletedPage" );
+
+        final Set< String > expected = new HashSet<>( Arrays.asList( "NewPage", "MovedPage" ) );
+        Assertions.assertEquals( expected, names( m_provider.getAllChangedSince( since ) ) );
+        Assertions.assertEquals( 3, m_provider.getAllChangedSince( new Date( 0L ) ).size() );
+
+        // a missing journal gets rebuilt from the page files
+        Assertions.assertTrue( new File( pageDir, AbstractFileProvider.CHANGE_JOURNAL ).delete() );
+        final FileSystemProvider provider = new FileSystemProvider();
+        provider.initialize( m_engine, props );
+        Assertions.assertTrue( new File( pageDir, AbstractFileProvider.CHANGE_JOURNAL ).exists() );
+        Assertions.assertEquals( expected, names( provider.getAllChangedSince( since ) ) );
+
+        // changes made by another instance are seen too
+        provider.putPageText( new WikiPage( m_engine, "OtherPage" ), "other" );
+        Assertions.assertTrue( names( m_provider.getAllChangedSince( since ) ).contains( "OtherPage" ) );
+    }
+
+    private static Set< String > names( final Collection< Page > pages ) {
+        return pages.stream().map( Page::getName ).collect( Collectors.toSet() );
+    }
+
 }
@@ -462,6 +462,96 @@ public class VersioningFileProviderTest {
     }
 
 
+    @Test
+    public void testDeltaStorage() throws Exception {
+        final TestEngine deltaEngine = buildDeltaEngine();
+        try {
+            final PageProvider provider = deltaEngine.getManager( PageManager.class ).getProvider();
+            final String[] texts = new String[ 10 ];
+            String text = "header\r\n";
+            for( int i = 0; i < texts.length; i++ ) {
+                text = text + "line " + i + "\r\n";
+                texts[ i ] = i % 4 == 0 ? "changed\r\n" + text : text;
+                deltaEngine.saveText( NAME1, texts[ i ] );
+            }
+
+            final File oldDir = new File( files, VersioningFileProvider.PAGEDIR + File.separator + NAME1 );
+            Assertions.assertTrue( new File( oldDir, DeltaVersionStore.INDEX_FILE ).exists(), "version index" );
+            Assertions.assertFalse( new File( oldDir, "1" + AbstractFileProvider.FILE_EXT ).exists(), "full copy of version 1" );
+            Assertions.assertEquals( texts.length, provider.getVersionHistory( NAME1 ).size(), "wrong # of versions" );
+            for( int i = 0; i < texts.length; i++ ) {
+                Assertions.assertEquals( texts[ i ], provider.getPageText( NAME1, i + 1 ), "version " + ( i + 1 ) );
+            }
+
+            provider.deleteVersion( NAME1, 5 );
+            Assertions.assertEquals( texts[ 3 ], provider.getPageText( NAME1, 4 ), "version 4 after deleting version 5" );
+            Assertions.assertThrows( NoSuchVersionException.class, () -> provider.getPageText( NAME1, 5 ) );
+
+            provider.deleteVersion( NAME1, PageProvider.LATEST_VERSION );
+            Assertions.assertEquals( texts[ 8 ], provider.getPageText( NAME1, PageProvider.LATEST_VERSION ), "latest after deleting it" );
+            Assertions.assertEquals( texts[ 7 ], provider.getPageText( NAME1, 8 ), "version 8 after deleting the latest" );
+        } finally {
+            deltaEngine.shutdown();
+        }
+    }
+
+    @Test
+    public void testDeltaStorageMigration() throws Exception {
+        engine.saveText( NAME1, "v1\r\n" );
+        engine.saveText( NAME1, "v1\r\nv2\r\n" );
+        engine.saveText( NAME1, "v3\r\n" );
+
+        final File oldDir = new File( files, VersioningFileProvider.PAGEDIR + File.separator + NAME1 );
+        Assertions.assertTrue( new File( oldDir, "2" + AbstractFileProvider.FILE_EXT ).exists(), "full copy of version 2" );
+
+        final TestEngine deltaEngine = buildDeltaEngine();
+        try {
+            final PageProvider provider = deltaEngine.getManager( PageManager.class ).getProvider();
+            Assertions.assertFalse( new File( oldDir, "2" + AbstractFileProvider.FILE_EXT ).exists(), "version 2 not migrated" );
+            Assertions.assertEquals( "v1\r\n", provider.getPageText( NAME1, 1 ), "v1" );
+            Assertions.assertEquals( "v1\r\nv2\r\n", provider.getPageText( NAME1, 2 ), "v2" );
+            Assertions.assertEquals( "v3\r\n", provider.getPageText( NAME1, 3 ), "v3" );
+        } finally {
+            deltaEngine.shutdown();
+        }
+    }
+
+    @Test
+    public void testDeltaStorageMigrationResumed() throws Exception {
+        final String[] texts = { "v1\r\n", "v1\r\nv2\r\n", "v3\r\n", "v3\r\nv4\r\n" };
+        for( final String text : texts ) {
+            engine.saveText( NAME1, text );
+        }
+        buildDeltaEngine().shutdown();
+
+        // as if the first migration had been unable to delete some of the version files
+        final File oldDir = new File( files, VersioningFileProvider.PAGEDIR + File.separator + NAME1 );
+        for( int i = 1; i <= 2; i++ ) {
+            try( final Writer out = new FileWriter( new File( oldDir, i + AbstractFileProvider.FILE_EXT ) ) ) {
+                out.write( texts[ i - 1 ] );
+            }
+        }
+
+        final TestEngine deltaEngine = buildDeltaEngine();
+        try {
+            final PageProvider provider = deltaEngine.getManager( PageManager.class ).getProvider();
+            Assertions.assertFalse( new File( oldDir, "2" + AbstractFileProvider.FILE_EXT ).exists(), "version 2 not migrated" );
+            for( int i = 0; i < texts.length; i++ ) {
+                Assertions.assertEquals( texts[ i ], provider.getPageText( NAME1, i + 1 ), "version " + ( i + 1 ) );
+            }
+            Assertions.assertEquals( texts.length, provider.getVersionHistory( NAME1 ).size(), "wrong # of versions" );
+        } finally {
+            deltaEngine.shutdown();
+        }
+    }
+
+    private TestEngine buildDeltaEngine() {
+        final Properties props = TestEngine.getTestProperties( "/jspwiki-vers-custom.properties" );
+        props.setProperty( VersioningFileProvider.PROP_DELTASTORAGE, "true" );
+        props.setProperty( VersioningFileProvider.PROP_SNAPSHOTINTERVAL, "3" );
+        return TestEngine.build( props );
+    }
+
     @Test
     public void testChangeNote() throws Exception {
         final Page p = Wiki.contents().page( engine, NAME1 );
@@ -0,0 +1,79 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.references;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+
+public class ReferenceGraphTest {
+
+    @Test
+    public void testInternAndAdjacency() {
+        final ReferenceGraph graph = new ReferenceGraph();
+        Assertions.assertEquals( -1, graph.lookup( "PageA" ) );
+        Assertions.assertNull( graph.refersTo( -1 ) );
+
+        final int a = graph.intern( "PageA" );
+        Assertions.assertEquals( a, graph.intern( "PageA" ) );
+        Assertions.assertEquals( "PageA", graph.name( a ) );
+
+        final int[] refs = graph.internAll( Arrays.asList( "PageC", "PageB", "PageC" ) );
+        Assertions.assertEquals( 2, refs.length );
+        final long version = graph.version();
+        graph.setRefersTo( a, refs );
+        Assertions.assertTrue( graph.version() > version );
+        Assertions.assertEquals( new TreeSet<>( Arrays.asList( "PageB", "PageC" ) ), graph.names( graph.refersTo( a ) ) );
+
+        final int b = graph.lookup( "PageB" );
+        final int c = graph.lookup( "PageC" );
+        graph.addReferrer( b, c );
+        graph.addReferrer( b, a );
+        graph.addReferrer( b, a );
+        Assertions.assertArrayEquals( new int[] { a, c }, graph.referredBy( b ) );
+        graph.removeReferrer( b, a );
+        Assertions.assertArrayEquals( new int[] { c }, graph.referredBy( b ) );
+        graph.removeReferrer( b, c );
+        Assertions.assertEquals( 0, graph.referredBy( b ).length );
+        graph.removeReferredBy( b );
+        Assertions.assertNull( graph.referredBy( b ) );
+    }
+
+    @Test
+    public void testGrowKeepsAdjacency() {
+        final ReferenceGraph graph = new ReferenceGraph();
+        final int first = graph.intern( "Page0" );
+        graph.setRefersTo( first, graph.internAll( Arrays.asList( "Page1", "Page2" ) ) );
+        for( int i = 3; i < 1_000; i++ ) {
+            graph.addReferrer( graph.intern( "Page" + i ), first );
+        }
+
+        Assertions.assertEquals( 1_000, graph.size() );
+        Assertions.assertEquals( 2, graph.refersTo( first ).length );
+        Assertions.assertArrayEquals( new int[] { first }, graph.referredBy( graph.lookup( "Page999" ) ) );
+
+        graph.clear();
+        Assertions.assertNull( graph.refersTo( first ) );
+        Assertions.assertEquals( first, graph.lookup( "Page0" ) );
+    }
+
+}
@@ -16,14 +16,21 @@ package org.apache.wiki.references;
 import org.apache.wiki.TestEngine;
 import org.apache.wiki.api.exceptions.WikiException;
 import org.apache.wiki.api.spi.Wiki;
+import org.apache.wiki.api.core.Page;
+import org.apache.wiki.attachment.AttachmentManager;
 import org.apache.wiki.pages.PageManager;
+import org.awaitility.Awaitility;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import static org.apache.wiki.TestEngine.with;
@@ -56,6 +63,38 @@ public class ReferenceManagerTest  {
         TestEngine.emptyWorkDir( null );
     }
 
+    @Test
+    public void testRebuildInBackground() throws Exception {
+        for( int i = 0; i < 20; i++ ) {
+            engine.saveText( "RebuiltPage" + i, "[Foobar2], [RebuiltPage" + ( i + 1 ) % 20 + "]" );
+        }
+        Assertions.assertTrue( new File( engine.getWorkDir(), "refmgr.log" ).delete() );
+
+        final List< Page > pages = new ArrayList<>( engine.getManager( PageManager.class ).getAllPages() );
+        pages.addAll( engine.getManager( AttachmentManager.class ).getAllAttachments() );
+        engine.getWikiProperties().setProperty( DefaultReferenceManager.PROP_REBUILD_IN_BACKGROUND, "true" );
+        final DefaultReferenceManager rebuilt = new DefaultReferenceManager( engine );
+        rebuilt.initialize( pages );
+        Awaitility.await().atMost( Duration.ofSeconds( 30 ) ).until( () -> !rebuilt.isRebuilding() );
+
+        Assertions.assertEquals( mgr.findReferrers( "Foobar2" ), rebuilt.findReferrers( "Foobar2" ) );
+        Assertions.assertEquals( 21, rebuilt.findReferrers( "Foobar2" ).size() );
+        Assertions.assertEquals( mgr.findUnreferenced(), rebuilt.findUnreferenced() );
+        Assertions.assertTrue( new File( engine.getWorkDir(), "refmgr.log" ).exists() );
+    }
+
+    @Test
+    public void testRebuildWaitedForByDefault() throws Exception {
+        engine.saveText( "RebuiltPage", "[Foobar2]" );
+        Assertions.assertTrue( new File( engine.getWorkDir(), "refmgr.log" ).delete() );
+
+        final List< Page > pages = new ArrayList<>( engine.getManager( PageManager.class ).getAllPages() );
+        final DefaultReferenceManager rebuilt = new DefaultReferenceManager( engine );
+        rebuilt.initialize( pages );
+        Assertions.assertFalse( rebuilt.isRebuilding() );
+        Assertions.assertEquals( mgr.findReferrers( "Foobar2" ), rebuilt.findReferrers( "Foobar2" ) );
+    }
+
     @Test
     public void testNonExistant1() {
         final Collection< String > c = mgr.findReferrers("Foobar2");
@@ -77,8 +116,8 @@ public class ReferenceManagerTest  {
         Assertions.assertTrue( c.size() == 1 && c.contains("Foobar") );
 
         engine.getManager( PageManager.class ).deletePage( "Foobar" );
-        c = mgr.findReferrers("Foobar2");
-        Assertions.assertNull( c );
+        // references are removed on the event listener thread
+        Awaitility.await( "testRemove" ).until( () -> mgr.findReferrers( "Foobar2" ) == null );
 
         engine.saveText( "Foobar", "[Foobar2]");
         c = mgr.findReferrers("Foobar2");
@@ -0,0 +1,102 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.references;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+
+public class ReferenceStoreTest {
+
+    @TempDir
+    File workDir;
+
+    @Test
+    public void testReplay() throws Exception {
+        final ReferenceStore store = new ReferenceStore( new File( workDir, "refmgr.log" ) );
+        Assertions.assertThrows( IOException.class, store::open );
+
+        store.append( "PageA", Arrays.asList( "PageB", "PageC" ) );
+        store.append( "PageB", Collections.emptyList() );
+        store.append( "PageA", Collections.singletonList( "PageB" ) );
+        store.append( "PageC", Collections.singletonList( "PageA" ) );
+        store.appendRemoval( "PageC" );
+        Assertions.assertTrue( store.open() > 0L );
+
+        final Map< String, Set< String > > refs = new ReferenceStore( new File( workDir, "refmgr.log" ) ).load();
+        Assertions.assertEquals( 2, refs.size() );
+        Assertions.assertEquals( Collections.singleton( "PageB" ), refs.get( "PageA" ) );
+        Assertions.assertTrue( refs.get( "PageB" ).isEmpty() );
+    }
+
+    @Test
+    public void testTornRecordIsDropped() throws Exception {
+        final File file = new File( workDir, "refmgr.log" );
+        final ReferenceStore store = new ReferenceStore( file );
+        store.append( "PageA", Collections.singletonList( "PageB" ) );
+        final long length = file.length();
+        try( final FileOutputStream out = new FileOutputStream( file, true ) ) {
+            out.write( new byte[] { 0, 0, 0, 42, 1, 0 } ); // record length, but only part of its content
+        }
+
+        Assertions.assertEquals( Collections.singleton( "PageA" ), store.load().keySet() );
+        Assertions.assertEquals( length, file.length() );
+
+        store.append( "PageB", Collections.singletonList( "PageA" ) );
+        Assertions.assertEquals( 2, new ReferenceStore( file ).load().size() );
+    }
+
+    @Test
+    public void testCompactKeepsLaterRecords() throws Exception {
+        final File file = new File( workDir, "refmgr.log" );
+        final ReferenceStore store = new ReferenceStore( file );
+        final Map< String, Collection< String > > current = new HashMap<>();
+        for( int i = 0; i < 2_500; i++ ) {
+            final Set< String > refs = new TreeSet<>( Collections.singletonList( "Page" + ( i + 1 ) % 10 ) );
+            store.append( "Page" + i % 10, refs );
+            current.put( "Page" + i % 10, refs );
+        }
+        Assertions.assertTrue( store.needsCompaction() );
+
+        final long offset = store.length();
+        store.append( "NewPage", Collections.singletonList( "Page1" ) ); // written after the snapshot was taken
+        final long saved = file.lastModified();
+        store.compact( current, offset );
+
+        Assertions.assertFalse( store.needsCompaction() );
+        Assertions.assertEquals( saved, file.lastModified() );
+        final Map< String, Set< String > > refs = new ReferenceStore( file ).load();
+        Assertions.assertEquals( 11, refs.size() );
+        Assertions.assertEquals( Collections.singleton( "Page1" ), refs.get( "NewPage" ) );
+        Assertions.assertEquals( current.get( "Page3" ), refs.get( "Page3" ) );
+    }
+
+}
@@ -23,9 +23,11 @@ import org.apache.wiki.TestEngine;
 import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.core.Page;
 import org.apache.wiki.api.spi.Wiki;
+import org.apache.wiki.cache.CachingManager;
 import org.apache.wiki.pages.PageManager;
 import org.apache.wiki.parser.MarkupParser;
 import org.apache.wiki.parser.WikiDocument;
+import org.apache.wiki.plugin.SlowSamplePlugin;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -96,6 +98,117 @@ public class RenderingManagerTest {
         Assertions.assertEquals( "<i>Foobar.</i>\n", data );
     }
 
+    @Test
+    public void testDocumentCacheKeepsDigestOnly() throws Exception {
+        m_engine.saveText( "TestPage", "''Foobar.''" );
+        final Page page = m_engine.getManager( PageManager.class ).getPage( "TestPage" );
+        final String pagedata = m_engine.getManager( PageManager.class ).getPureText( page );
+
+        final WikiDocument doc = m_manager.getRenderedDocument( Wiki.context().create( m_engine, page ), pagedata );
+        Assertions.assertNull( doc.getPageData(), "cached documents should not keep the page text" );
+        Assertions.assertSame( doc, m_manager.getRenderedDocument( Wiki.context().create( m_engine, page ), new String( pagedata ) ) );
+
+        final WikiDocument changed = m_manager.getRenderedDocument( Wiki.context().create( m_engine, page ), pagedata + " changed by a filter" );
+        Assertions.assertNotSame( doc, changed );
+        Assertions.assertFalse( changed.matchesPageData( pagedata ) );
+    }
+
+    @Test
+    public void testHtmlCache() throws Exception {
+        m_engine.saveText( "TestPage", "''Foobar.''" );
+        final Page page = m_engine.getManager( PageManager.class ).getPage( "TestPage" );
+        final String pagedata = m_engine.getManager( PageManager.class ).getPureText( page );
+
+        final String html = m_manager.textToHTML( Wiki.context().create( m_engine, page ), pagedata );
+        final String cached = m_manager.textToHTML( Wiki.context().create( m_engine, page ), pagedata );
+        Assertions.assertEquals( "<i>Foobar.</i>\n", html );
+        Assertions.assertSame( html, cached, "static page should be served from the HTML cache" );
+        Assertions.assertEquals( 1, m_engine.getManager( CachingManager.class ).keys( CachingManager.CACHE_HTML ).size() );
+    }
+
+    @Test
+    public void testHtmlCacheBypassedByDynamicContent() throws Exception {
+        m_engine.saveText( "TestPage", "This is [{$pagename}]" );
+        final Page page = m_engine.getManager( PageManager.class ).getPage( "TestPage" );
+        final String pagedata = m_engine.getManager( PageManager.class ).getPureText( page );
+
+        final String html = m_manager.textToHTML( Wiki.context().create( m_engine, page ), pagedata );
+        final String again = m_manager.textToHTML( Wiki.context().create( m_engine, page ), pagedata );
+        Assertions.assertEquals( html, again );
+        Assertions.assertNotSame( html, again, "dynamic page should be rendered on each request" );
+        Assertions.assertTrue( m_engine.getManager( CachingManager.class ).keys( CachingManager.CACHE_HTML ).isEmpty() );
+    }
+
+    @Test
+    public void testConcurrentPlugins() throws Exception {
+        final TestEngine engine = TestEngine.build( TestEngine.with( RenderingManager.PROP_CONCURRENT_PLUGINS, "true" ) );
+        try {
+            engine.saveText( "ConcurrentOne", "first inserted" );
+            engine.saveText( "ConcurrentTwo", "second inserted" );
+            engine.saveText( "TestPage", "[{InsertPage page='ConcurrentOne'}]\n\n[{Counter}]\n\n[{InsertPage page='ConcurrentTwo'}]\n\n[{Counter}]" );
+            final Page page = engine.getManager( PageManager.class ).getPage( "TestPage" );
+            final String pagedata = engine.getManager( PageManager.class ).getPureText( page );
+
+            final String html = engine.getManager( RenderingManager.class ).textToHTML( Wiki.context().create( engine, page ), pagedata );
+            Assertions.assertTrue( html.matches( "(?s).*first inserted.*1.*second inserted.*2.*" ), html );
+        } finally {
+            engine.getManager( PageManager.class ).deletePage( "ConcurrentOne" );
+            engine.getManager( PageManager.class ).deletePage( "ConcurrentTwo" );
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrentPluginsRunInParallel() throws Exception {
+        final TestEngine engine = TestEngine.build( TestEngine.with( RenderingManager.PROP_CONCURRENT_PLUGINS, "true" ),
+                                                     TestEngine.with( RenderingManager.PROP_PLUGIN_THREADS, "4" ) );
+        try {
+            SlowSamplePlugin.c_maxRunning.set( 0 );
+            final String html = render( engine, "[{SlowSamplePlugin text=one delay=500}]\n\n[{SlowSamplePlugin text=two delay=500}]\n\n"
+                                                + "[{SlowSamplePlugin text=three delay=500}]" );
+            Assertions.assertTrue( html.matches( "(?s).*one.*two.*three.*" ), html );
+            Assertions.assertTrue( SlowSamplePlugin.c_maxRunning.get() > 1, "plugins should have run at the same time" );
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrentPluginsTimeout() throws Exception {
+        final TestEngine engine = TestEngine.build( TestEngine.with( RenderingManager.PROP_CONCURRENT_PLUGINS, "true" ),
+                                                     TestEngine.with( RenderingManager.PROP_PLUGIN_TIMEOUT, "200" ) );
+        try {
+            final String html = render( engine, "[{SlowSamplePlugin text=slow delay=5000}]\n\n[{SlowSamplePlugin text=fast}]" );
+            Assertions.assertTrue( html.contains( "did not finish in time" ), html );
+            Assertions.assertFalse( html.contains( "slow" ), html );
+            Assertions.assertTrue( html.contains( "fast" ), html );
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrentPluginsTimeoutStartsWhenRunning() throws Exception {
+        // with a single thread, the second plugin waits for the first one, and runs for longer than the timeout from submission
+        final TestEngine engine = TestEngine.build( TestEngine.with( RenderingManager.PROP_CONCURRENT_PLUGINS, "true" ),
+                                                     TestEngine.with( RenderingManager.PROP_PLUGIN_THREADS, "1" ),
+                                                     TestEngine.with( RenderingManager.PROP_PLUGIN_TIMEOUT, "600" ) );
+        try {
+            final String html = render( engine, "[{SlowSamplePlugin text=first delay=400}]\n\n[{SlowSamplePlugin text=second delay=400}]" );
+            Assertions.assertFalse( html.contains( "did not finish in time" ), html );
+            Assertions.assertTrue( html.matches( "(?s).*first.*second.*" ), html );
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    private String render( final TestEngine engine, final String text ) throws Exception {
+        engine.saveText( "TestPage", text );
+        final Page page = engine.getManager( PageManager.class ).getPage( "TestPage" );
+        final String pagedata = engine.getManager( PageManager.class ).getPureText( page );
+        return engine.getManager( RenderingManager.class ).textToHTML( Wiki.context().create( engine, page ), pagedata );
+    }
+
     /**
      * Tests the relative speed of the DOM cache with respect to page being parsed every single time.
      */
@@ -0,0 +1,78 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.search;
+
+import org.apache.wiki.api.core.Page;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+
+public class LuceneUpdateQueueTest {
+
+    /** The queue only needs the page name, so there's no need to build a whole engine to get a page. */
+    static Page page( final String name ) {
+        return ( Page )Proxy.newProxyInstance( Page.class.getClassLoader(), new Class< ? >[] { Page.class }, ( proxy, method, args ) -> {
+            if( "getName".equals( method.getName() ) ) {
+                return name;
+            }
+            throw new UnsupportedOperationException( method.getName() );
+        } );
+    }
+
+    @Test
+    public void testNewestTextWins() {
+        final LuceneUpdateQueue queue = new LuceneUpdateQueue();
+        queue.add( page( "PageA" ), "first" );
+        queue.add( page( "PageB" ), "other" );
+        queue.add( page( "PageA" ), "second" );
+
+        Assertions.assertEquals( 2, queue.size() );
+        Assertions.assertEquals( 1L, queue.getCoalescedCount() );
+
+        final List< LuceneUpdateQueue.Update > batch = queue.drain();
+        Assertions.assertEquals( 2, batch.size() );
+        Assertions.assertEquals( "PageA", batch.get( 0 ).getPage().getName() );
+        Assertions.assertEquals( "second", batch.get( 0 ).getText() );
+        Assertions.assertEquals( "PageB", batch.get( 1 ).getPage().getName() );
+        Assertions.assertEquals( 0, queue.size() );
+        Assertions.assertEquals( 0L, queue.getLag() );
+    }
+
+    @Test
+    public void testRemovalOverridesUpdates() {
+        final LuceneUpdateQueue queue = new LuceneUpdateQueue();
+        queue.add( page( "PageA" ), "first" );
+        queue.remove( page( "PageA" ) );
+
+        List< LuceneUpdateQueue.Update > batch = queue.drain();
+        Assertions.assertEquals( 1, batch.size() );
+        Assertions.assertTrue( batch.get( 0 ).isRemoval() );
+
+        queue.remove( page( "PageA" ) );
+        queue.add( page( "PageA" ), "recreated" );
+        batch = queue.drain();
+        Assertions.assertEquals( 1, batch.size() );
+        Assertions.assertFalse( batch.get( 0 ).isRemoval() );
+        Assertions.assertEquals( "recreated", batch.get( 0 ).getText() );
+    }
+
+}
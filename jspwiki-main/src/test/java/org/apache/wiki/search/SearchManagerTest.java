@@ -24,6 +24,7 @@ import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.core.ContextEnum;
 import org.apache.wiki.api.search.SearchResult;
 import org.apache.wiki.api.spi.Wiki;
+import org.apache.wiki.content.PageRenamer;
 import org.apache.wiki.pages.PageManager;
 import org.awaitility.Awaitility;
 import org.junit.jupiter.api.AfterEach;
@@ -32,6 +33,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Properties;
 import java.util.concurrent.Callable;
@@ -190,6 +192,54 @@ public class SearchManagerTest {
         m_engine.deleteTestPage("TestPage");
     }
 
+    @Test
+    public void testResumeFullReindex() throws Exception {
+        m_engine.saveText( "TestPage", "It was the dawn of the third age of mankind, ten years after the Earth-Minbari War." );
+        final Collection< SearchResult > res = new ArrayList<>();
+        Awaitility.await( "testResumeFullReindex" ).until( findsResultsFor( res, "mankind" ) );
+
+        // simulate a full reindex interrupted before indexing anything
+        final LuceneSearchProvider provider = ( LuceneSearchProvider )m_mgr.getSearchEngine();
+        provider.setReindexCheckpoint( "" );
+        Assertions.assertEquals( "", provider.getReindexCheckpoint() );
+
+        provider.doFullLuceneReindex();
+        Assertions.assertNull( provider.getReindexCheckpoint(), "reindex not finished" );
+        res.clear();
+        Assertions.assertTrue( findsResultsFor( res, "mankind" ).call() );
+        Assertions.assertEquals( 1, res.size(), "page indexed more than once" );
+        m_engine.deleteTestPage( "TestPage" );
+    }
+
+    @Test
+    public void testResumeFullReindexFromCheckpoint() throws Exception {
+        m_engine.saveText( "ResumeAlpha", "The Vorlons were the oldest of the younger races." );
+        m_engine.saveText( "ResumeBeta", "It was the dawn of the third age of mankind, ten years after the Earth-Minbari War." );
+        final Collection< SearchResult > res = new ArrayList<>();
+        Awaitility.await( "testResumeFullReindexFromCheckpoint" ).until( findsResultsFor( res, "vorlons" ) );
+        Awaitility.await( "testResumeFullReindexFromCheckpoint" ).until( findsResultsFor( res, "minbari" ) );
+
+        // simulate a full reindex interrupted once ResumeAlpha had been indexed: ResumeAlpha is left out of the index so it can be
+        // told whether it gets indexed again, and ResumeBeta is yet to be indexed
+        final LuceneSearchProvider provider = ( LuceneSearchProvider )m_mgr.getSearchEngine();
+        provider.pageRemoved( m_engine.getManager( PageManager.class ).getPage( "ResumeAlpha" ) );
+        provider.pageRemoved( m_engine.getManager( PageManager.class ).getPage( "ResumeBeta" ) );
+        provider.processUpdates();
+        Assertions.assertFalse( findsResultsFor( res, "vorlons" ).call() );
+        Assertions.assertFalse( findsResultsFor( res, "minbari" ).call() );
+        provider.setReindexCheckpoint( "page:ResumeBeta" );
+        Assertions.assertEquals( "page:ResumeBeta", provider.getReindexCheckpoint() );
+
+        provider.doFullLuceneReindex();
+        Assertions.assertNull( provider.getReindexCheckpoint(), "reindex not finished" );
+        res.clear();
+        Assertions.assertTrue( findsResultsFor( res, "minbari" ).call(), "page after the checkpoint not indexed" );
+        Assertions.assertEquals( "ResumeBeta", res.iterator().next().getPage().getName() );
+        Assertions.assertFalse( findsResultsFor( res, "vorlons" ).call(), "page before the checkpoint indexed again" );
+        m_engine.deleteTestPage( "ResumeAlpha" );
+        m_engine.deleteTestPage( "ResumeBeta" );
+    }
+
     @Test
     public void testKeywordsSearch() throws Exception {
         final String txt = "[{SET keywords=perry,mason,attorney,law}] Nonsensical content that should not match";
@@ -204,4 +254,23 @@ public class SearchManagerTest {
         m_engine.deleteTestPage("TestPage");
     }
 
+    @Test
+    public void testSuggestionsFollowPageChanges() throws Exception {
+        final DefaultSearchManager.JSONSearch search = ( ( DefaultSearchManager )m_mgr ).new JSONSearch();
+        m_engine.saveText( "TestPage", "Some text" );
+        m_engine.saveText( "TestingPage", "Some other text" );
+        Assertions.assertEquals( Arrays.asList( "TestingPage", "TestPage" ), search.getSuggestions( "test", 10 ) );
+        Assertions.assertEquals( Arrays.asList( "TestingPage" ), search.getSuggestions( "test", 1 ) );
+        Assertions.assertEquals( Arrays.asList( "TestingPage", "TestPage" ), search.getSuggestions( "tset", 10 ), "typo" );
+
+        m_engine.getManager( PageManager.class ).deletePage( "TestPage" );
+        Assertions.assertEquals( Arrays.asList( "TestingPage" ), search.getSuggestions( "test", 10 ) );
+
+        final Context context = Wiki.context().create( m_engine, m_engine.getManager( PageManager.class ).getPage( "TestingPage" ) );
+        m_engine.getManager( PageRenamer.class ).renamePage( context, "TestingPage", "RenamedPage", false );
+        Assertions.assertEquals( Arrays.asList( "RenamedPage" ), search.getSuggestions( "renamed", 10 ) );
+        Assertions.assertTrue( search.getSuggestions( "testing", 10 ).isEmpty() );
+        m_engine.deleteTestPage( "RenamedPage" );
+    }
+
 }
\ No newline at end of file
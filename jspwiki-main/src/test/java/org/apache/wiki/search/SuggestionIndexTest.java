@@ -0,0 +1,73 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.search;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+
+public class SuggestionIndexTest {
+
+    @Test
+    public void testPrefixAndNormalizedForms() {
+        final SuggestionIndex index = new SuggestionIndex();
+        index.reset( Arrays.asList( "Main", "MainPage", "Main page", "About", "MainPage/logo.png" ) );
+        Assertions.assertEquals( 5, index.size() );
+
+        Assertions.assertEquals( Arrays.asList( "Main", "Main page", "MainPage", "MainPage/logo.png" ),
+                                 index.suggest( Collections.singletonList( "main" ), 10 ) );
+        Assertions.assertEquals( Arrays.asList( "Main page", "MainPage" ), index.suggest( Collections.singletonList( "mainpage" ), 2 ) );
+        Assertions.assertEquals( Arrays.asList( "MainPage/logo.png" ), index.suggest( Collections.singletonList( "mainpage/lo" ), 10 ) );
+        Assertions.assertTrue( index.suggest( Collections.singletonList( "zzz" ), 10 ).isEmpty() );
+    }
+
+    @Test
+    public void testTypos() {
+        final SuggestionIndex index = new SuggestionIndex();
+        index.reset( Arrays.asList( "MainPage", "Mailbox", "Recent Changes", "RecentChanges" ) );
+
+        Assertions.assertEquals( Arrays.asList( "MainPage" ), index.suggest( Collections.singletonList( "mian" ), 10 ), "transposition" );
+        Assertions.assertEquals( Arrays.asList( "MainPage" ), index.suggest( Collections.singletonList( "mainp" ), 10 ) );
+        Assertions.assertEquals( Arrays.asList( "Recent Changes", "RecentChanges" ),
+                                 index.suggest( Collections.singletonList( "recnetchnages" ), 10 ), "two typos" );
+        Assertions.assertTrue( index.suggest( Collections.singletonList( "mia" ), 10 ).isEmpty(), "too short for typos" );
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        final SuggestionIndex index = new SuggestionIndex();
+        index.add( "TestPage" );
+        index.add( "TestPage" );
+        index.add( "TestPage/file.txt" );
+        index.add( "TestingPage" );
+        Assertions.assertEquals( 3, index.size() );
+        Assertions.assertEquals( Arrays.asList( "TestingPage", "TestPage", "TestPage/file.txt" ),
+                                 index.suggest( Collections.singletonList( "test" ), 10 ) );
+
+        index.remove( "TestingPage" );
+        Assertions.assertEquals( Arrays.asList( "TestPage", "TestPage/file.txt" ), index.suggest( Collections.singletonList( "test" ), 10 ) );
+
+        index.removeWithAttachments( "TestPage" );
+        Assertions.assertEquals( 0, index.size() );
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.ui;
+
+import net.sourceforge.stripes.mock.MockServletContext;
+import org.apache.wiki.TestEngine;
+import org.apache.wiki.api.exceptions.WikiException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.servlet.ServletContext;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+
+
+public class DefaultTemplateManagerTest {
+
+    @TempDir
+    File webappDir;
+
+    TestEngine engine;
+
+    final AtomicInteger lookups = new AtomicInteger();
+
+    final Set< String > resources = new HashSet<>( Arrays.asList( "/templates/default/ViewTemplate.jsp",
+                                                                  "/templates/default/EditTemplate.jsp",
+                                                                  "/templates/custom/ViewTemplate.jsp" ) );
+
+    /** Serves the templates from {@link #resources}, counting the lookups, and the rest as the TestEngine's servlet context does. */
+    final MockServletContext servletContext = new MockServletContext( "test" ) {
+        @Override
+        public InputStream getResourceAsStream( final String name ) {
+            if( !name.startsWith( "/templates/" ) ) {
+                return super.getResourceAsStream( name );
+            }
+            lookups.incrementAndGet();
+            return resources.contains( name ) ? new ByteArrayInputStream( new byte[ 0 ] ) : null;
+        }
+
+        @Override
+        public String getRealPath( final String path ) {
+            return new File( webappDir, path ).getAbsolutePath();
+        }
+    };
+
+    @AfterEach
+    public void tearDown() {
+        if( engine != null ) {
+            engine.shutdown();
+        }
+    }
+
+    DefaultTemplateManager templateManager( final Properties props ) throws WikiException {
+        engine = new TestEngine( props ) {
+            @Override
+            public ServletContext getServletContext() {
+                return servletContext;
+            }
+        };
+        return ( DefaultTemplateManager )engine.getManager( TemplateManager.class );
+    }
+
+    @Test
+    public void testResolvedResourcesAreRemembered() throws Exception {
+        final DefaultTemplateManager manager = templateManager( TestEngine.getTestProperties() );
+
+        Assertions.assertEquals( "/templates/custom/ViewTemplate.jsp", manager.findResource( null, "custom", "ViewTemplate.jsp" ) );
+        Assertions.assertEquals( "/templates/default/EditTemplate.jsp", manager.findResource( null, "custom", "EditTemplate.jsp" ) );
+        Assertions.assertNull( manager.findResource( null, "custom", "NoSuchTemplate.jsp" ) );
+        Assertions.assertTrue( manager.templateExists( "custom" ) );
+        Assertions.assertFalse( manager.templateExists( "nosuchtemplate" ) );
+        final int probes = lookups.get();
+
+        Assertions.assertEquals( "/templates/custom/ViewTemplate.jsp", manager.findResource( null, "custom", "ViewTemplate.jsp" ) );
+        Assertions.assertEquals( "/templates/default/EditTemplate.jsp", manager.findResource( null, "custom", "EditTemplate.jsp" ) );
+        Assertions.assertNull( manager.findResource( null, "custom", "NoSuchTemplate.jsp" ) );
+        Assertions.assertTrue( manager.templateExists( "custom" ) );
+        Assertions.assertFalse( manager.templateExists( "nosuchtemplate" ) );
+        Assertions.assertEquals( probes, lookups.get() );
+
+        resources.add( "/templates/custom/EditTemplate.jsp" );
+        manager.invalidate();
+        Assertions.assertEquals( "/templates/custom/EditTemplate.jsp", manager.findResource( null, "custom", "EditTemplate.jsp" ) );
+        Assertions.assertTrue( lookups.get() > probes );
+    }
+
+    @Test
+    public void testWatchedTemplatesAreLookedUpAgainAfterChanges() throws Exception {
+        final File templateDir = new File( webappDir, "templates/custom" );
+        Assertions.assertTrue( templateDir.mkdirs() );
+        final Properties props = TestEngine.getTestProperties();
+        props.setProperty( DefaultTemplateManager.PROP_WATCH_TEMPLATES, "true" );
+        final DefaultTemplateManager manager = templateManager( props );
+
+        Assertions.assertEquals( "/templates/default/EditTemplate.jsp", manager.findResource( null, "custom", "EditTemplate.jsp" ) );
+        resources.add( "/templates/custom/EditTemplate.jsp" );
+        Files.write( new File( templateDir, "EditTemplate.jsp" ).toPath(), new byte[ 0 ] );
+
+        await( "template change is noticed" ).atMost( 30, TimeUnit.SECONDS )
+                .until( () -> "/templates/custom/EditTemplate.jsp".equals( manager.findResource( null, "custom", "EditTemplate.jsp" ) ) );
+    }
+
+}
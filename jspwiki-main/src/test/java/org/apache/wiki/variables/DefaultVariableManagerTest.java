@@ -23,6 +23,7 @@ import org.apache.wiki.TestEngine;
 import org.apache.wiki.api.core.Context;
 import org.apache.wiki.api.exceptions.NoSuchVariableException;
 import org.apache.wiki.api.spi.Wiki;
+import org.apache.wiki.pages.PageManager;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -109,4 +110,19 @@ public class DefaultVariableManagerTest {
         Assertions.assertEquals( "Testing {}, {{{}", res );
     }
 
+    @Test
+    public void testTotalPagesFollowsPageChanges() throws Exception {
+        final TestEngine engine = TestEngine.build();
+        final VariableManager manager = engine.getManager( VariableManager.class );
+        final Context context = Wiki.context().create( engine, Wiki.contents().page( engine, PAGE_NAME ) );
+        final int pages = Integer.parseInt( manager.getValue( context, "totalpages" ) );
+
+        engine.saveText( "TotalPagesTest", "A new page." );
+        Assertions.assertEquals( pages + 1, Integer.parseInt( manager.getValue( context, "totalpages" ) ) );
+
+        engine.getManager( PageManager.class ).deletePage( "TotalPagesTest" );
+        Assertions.assertEquals( pages, Integer.parseInt( manager.getValue( context, "totalpages" ) ) );
+        engine.shutdown();
+    }
+
 }
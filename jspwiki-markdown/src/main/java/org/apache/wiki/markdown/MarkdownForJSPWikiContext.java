@@ -0,0 +1,101 @@
+/*
+    Licensed to the Apache Software Foundation (ASF) under one
+    or more contributor license agreements.  See the NOTICE file
+    distributed with this work for additional information
+    regarding copyright ownership.  The ASF licenses this file
+    to you under the Apache License, Version 2.0 (the
+    "License"); you may not use this file except in compliance
+    with the License.  You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing,
+    software distributed under the License is distributed on an
+    "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+    KIND, either express or implied.  See the License for the
+    specific language governing permissions and limitations
+    under the License.
+ */
+package org.apache.wiki.markdown;
+
+import org.apache.oro.text.regex.Pattern;
+import org.apache.wiki.api.core.Context;
+
+import java.util.List;
+
+
+/**
+ * Per-call data needed by the JSPWiki flexmark extensions: the wiki context and the image inlining settings.
+ *
+ * <p>flexmark {@link com.vladsch.flexmark.parser.Parser}s and {@link com.vladsch.flexmark.html.HtmlRenderer}s are expensive to build,
+ * so they are built once and shared between threads. The data which changes on each parse or render travels to the extensions through
+ * this holder instead, bound to the current thread for the duration of the call by {@link #enter(MarkdownForJSPWikiContext)} and
+ * {@link #exit(MarkdownForJSPWikiContext)}. Calls may nest (i.e., a plugin inserting another Markdown page while the outer page is being
+ * parsed), so {@link #exit(MarkdownForJSPWikiContext)} restores the holder which was current before.
+ */
+public final class MarkdownForJSPWikiContext {
+
+    private static final ThreadLocal< MarkdownForJSPWikiContext > CURRENT = new ThreadLocal<>();
+
+    private final Context context;
+    private final boolean isImageInlining;
+    private final List< Pattern > inlineImagePatterns;
+
+    public MarkdownForJSPWikiContext( final Context context, final boolean isImageInlining, final List< Pattern > inlineImagePatterns ) {
+        this.context = context;
+        this.isImageInlining = isImageInlining;
+        this.inlineImagePatterns = inlineImagePatterns;
+    }
+
+    public Context getContext() {
+        return context;
+    }
+
+    public boolean isImageInlining() {
+        return isImageInlining;
+    }
+
+    public List< Pattern > getInlineImagePatterns() {
+        return inlineImagePatterns;
+    }
+
+    /**
+     * Binds the given data to the current thread.
+     *
+     * @param data per-call data.
+     * @return the data previously bound to the current thread, to be handed back to {@link #exit(MarkdownForJSPWikiContext)}.
+     */
+    public static MarkdownForJSPWikiContext enter( final MarkdownForJSPWikiContext data ) {
+        final MarkdownForJSPWikiContext previous = CURRENT.get();
+        CURRENT.set( data );
+        return previous;
+    }
+
+    /**
+     * Restores the data bound to the current thread before the matching {@link #enter(MarkdownForJSPWikiContext)} call.
+     *
+     * @param previous value returned by the matching {@link #enter(MarkdownForJSPWikiContext)} call.
+     */
+    public static void exit( final MarkdownForJSPWikiContext previous ) {
+        if( previous == null ) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set( previous );
+        }
+    }
+
+    /**
+     * Returns the data bound to the current thread.
+     *
+     * @return the data bound to the current thread.
+     * @throws IllegalStateException if called outside of a JSPWiki Markdown parse or render.
+     */
+    public static MarkdownForJSPWikiContext current() {
+        final MarkdownForJSPWikiContext data = CURRENT.get();
+        if( data == null ) {
+            throw new IllegalStateException( "JSPWiki Markdown extensions used outside of a MarkdownParser or MarkdownRenderer call" );
+        }
+        return data;
+    }
+
+}
@@ -29,22 +29,34 @@ import org.apache.wiki.markdown.renderer.JSPWikiNodeRendererFactory;
 
 import java.util.List;
 
-
 /**
  * Flexmark entry point to bootstrap JSPWiki extensions.
+ *
+ * <p>Unless built with the deprecated constructor, the extension holds no per-call state, so parsers and renderers built with it can be
+ * shared. The wiki context and image inlining settings of each call are taken from {@link MarkdownForJSPWikiContext#current()}.
  */
 public class MarkdownForJSPWikiExtension implements Parser.ParserExtension, HtmlRenderer.HtmlRendererExtension {
 
-	private final Context context;
-	private final boolean isImageInlining;
-	private final List< Pattern > inlineImagePatterns;
+	private final MarkdownForJSPWikiContext data;
+
+	public MarkdownForJSPWikiExtension() {
+		this( null );
+	}
 
+	/**
+	 * Builds an extension bound to the given wiki context, which can't be used to build parsers and renderers shared between calls.
+	 *
+	 * @deprecated use {@link #MarkdownForJSPWikiExtension()}, which takes the wiki context from the ongoing parse or render.
+	 */
+	@Deprecated
 	public MarkdownForJSPWikiExtension( final Context context,
 										final boolean isImageInlining,
 										final List< Pattern > inlineImagePatterns ) {
-		this.context = context;
-		this.isImageInlining = isImageInlining;
-		this.inlineImagePatterns = inlineImagePatterns;
+		this( new MarkdownForJSPWikiContext( context, isImageInlining, inlineImagePatterns ) );
+	}
+
+	MarkdownForJSPWikiExtension( final MarkdownForJSPWikiContext data ) {
+		this.data = data;
 	}
 
 	/**
@@ -66,8 +78,8 @@ public class MarkdownForJSPWikiExtension implements Parser.ParserExtension, Html
 	 */
 	@Override
 	public void extend( final HtmlRenderer.Builder rendererBuilder, final String rendererType ) {
-	    rendererBuilder.nodeRendererFactory( new JSPWikiNodeRendererFactory( context ) );
-        rendererBuilder.attributeProviderFactory( new JSPWikiLinkAttributeProviderFactory( context, isImageInlining, inlineImagePatterns ) );
+	    rendererBuilder.nodeRendererFactory( new JSPWikiNodeRendererFactory() );
+        rendererBuilder.attributeProviderFactory( new JSPWikiLinkAttributeProviderFactory( data ) );
 	}
 
     /**
@@ -75,7 +87,7 @@ public class MarkdownForJSPWikiExtension implements Parser.ParserExtension, Html
 	 */
 	@Override
 	public void extend( final Parser.Builder parserBuilder ) {
-	    parserBuilder.postProcessorFactory( new JSPWikiNodePostProcessorFactory( context, parserBuilder, isImageInlining, inlineImagePatterns ) );
+	    parserBuilder.postProcessorFactory( new JSPWikiNodePostProcessorFactory( data ) );
 	}
 
 }
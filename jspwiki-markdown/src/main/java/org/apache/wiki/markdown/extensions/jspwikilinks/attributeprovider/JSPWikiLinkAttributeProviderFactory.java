@@ -24,25 +24,42 @@ import com.vladsch.flexmark.html.IndependentAttributeProviderFactory;
 import com.vladsch.flexmark.html.renderer.LinkResolverContext;
 import org.apache.oro.text.regex.Pattern;
 import org.apache.wiki.api.core.Context;
+import org.apache.wiki.markdown.MarkdownForJSPWikiContext;
 
 import java.util.List;
 
 
 /**
- * Simple {@link AttributeProviderFactory} to instantiate {@link JSPWikiLinkAttributeProvider}s.
+ * Simple {@link AttributeProviderFactory} to instantiate {@link JSPWikiLinkAttributeProvider}s, using the {@link MarkdownForJSPWikiContext}
+ * of the ongoing render.
  */
 public class JSPWikiLinkAttributeProviderFactory extends IndependentAttributeProviderFactory {
 
-    final Context wikiContext;
-    private final boolean isImageInlining;
-    private final List< Pattern > inlineImagePatterns;
+    private final MarkdownForJSPWikiContext data;
 
+    public JSPWikiLinkAttributeProviderFactory() {
+        this( null );
+    }
+
+    /**
+     * Builds a factory bound to the given per-call data.
+     *
+     * @param data per-call data, or {@code null} to take it from the ongoing render.
+     */
+    public JSPWikiLinkAttributeProviderFactory( final MarkdownForJSPWikiContext data ) {
+        this.data = data;
+    }
+
+    /**
+     * Builds a factory bound to the given wiki context, which can't be used to build renderers shared between calls.
+     *
+     * @deprecated use {@link #JSPWikiLinkAttributeProviderFactory()}, which takes the wiki context from the ongoing render.
+     */
+    @Deprecated
     public JSPWikiLinkAttributeProviderFactory( final Context wikiContext,
                                                 final boolean isImageInlining,
                                                 final List< Pattern > inlineImagePatterns ) {
-        this.wikiContext = wikiContext;
-        this.isImageInlining = isImageInlining;
-        this.inlineImagePatterns = inlineImagePatterns;
+        this( new MarkdownForJSPWikiContext( wikiContext, isImageInlining, inlineImagePatterns ) );
     }
 
     /**
@@ -52,7 +69,8 @@ public class JSPWikiLinkAttributeProviderFactory extends IndependentAttributePro
      */
     @Override
     public AttributeProvider apply( final LinkResolverContext context ) {
-        return new JSPWikiLinkAttributeProvider( wikiContext, isImageInlining, inlineImagePatterns );
+        final MarkdownForJSPWikiContext data = this.data != null ? this.data : MarkdownForJSPWikiContext.current();
+        return new JSPWikiLinkAttributeProvider( data.getContext(), data.isImageInlining(), data.getInlineImagePatterns() );
     }
 
 }
@@ -25,28 +25,45 @@ import com.vladsch.flexmark.util.ast.Document;
 import com.vladsch.flexmark.util.data.DataHolder;
 import org.apache.oro.text.regex.Pattern;
 import org.apache.wiki.api.core.Context;
+import org.apache.wiki.markdown.MarkdownForJSPWikiContext;
 
 import java.util.List;
 
 
 /**
- * Simple {@link NodePostProcessorFactory} to instantiate {@link JSPWikiLinkNodePostProcessor}s.
+ * Simple {@link NodePostProcessorFactory} to instantiate {@link JSPWikiLinkNodePostProcessor}s, using the {@link MarkdownForJSPWikiContext}
+ * of the ongoing parse.
  */
 public class JSPWikiNodePostProcessorFactory extends NodePostProcessorFactory {
 
-    private final Context m_context;
-    private final boolean isImageInlining;
-    private final List< Pattern > inlineImagePatterns;
+    private final MarkdownForJSPWikiContext data;
 
+    public JSPWikiNodePostProcessorFactory() {
+        this( null );
+    }
+
+    /**
+     * Builds a factory bound to the given wiki context, which can't be used to build parsers shared between calls.
+     *
+     * @deprecated use {@link #JSPWikiNodePostProcessorFactory()}, which takes the wiki context from the ongoing parse.
+     */
+    @Deprecated
     public JSPWikiNodePostProcessorFactory( final Context m_context,
                                             final DataHolder options,
                                             final boolean isImageInlining,
                                             final List< Pattern > inlineImagePatterns ) {
+        this( new MarkdownForJSPWikiContext( m_context, isImageInlining, inlineImagePatterns ) );
+    }
+
+    /**
+     * Builds a factory bound to the given per-call data.
+     *
+     * @param data per-call data, or {@code null} to take it from the ongoing parse.
+     */
+    public JSPWikiNodePostProcessorFactory( final MarkdownForJSPWikiContext data ) {
         super( true );
         addNodes( Link.class ); // needs to be called before create( Document )
-        this.m_context = m_context;
-        this.isImageInlining = isImageInlining;
-        this.inlineImagePatterns = inlineImagePatterns;
+        this.data = data;
     }
 
     /**
@@ -54,7 +71,8 @@ public class JSPWikiNodePostProcessorFactory extends NodePostProcessorFactory {
      */
     @Override
     public NodePostProcessor apply( final Document document ) {
-        return new JSPWikiLinkNodePostProcessor( m_context, document, isImageInlining, inlineImagePatterns );
+        final MarkdownForJSPWikiContext data = this.data != null ? this.data : MarkdownForJSPWikiContext.current();
+        return new JSPWikiLinkNodePostProcessor( data.getContext(), document, data.isImageInlining(), data.getInlineImagePatterns() );
     }
 
 }
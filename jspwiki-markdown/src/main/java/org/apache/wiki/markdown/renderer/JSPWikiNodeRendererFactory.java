@@ -32,10 +32,16 @@ import java.util.Set;
  */
 public class JSPWikiNodeRendererFactory implements DelegatingNodeRendererFactory {
 
-    final Context wikiContext;
+    public JSPWikiNodeRendererFactory() {
+    }
 
+    /**
+     * The wiki context was never used by the created renderers.
+     *
+     * @deprecated use {@link #JSPWikiNodeRendererFactory()}.
+     */
+    @Deprecated
     public JSPWikiNodeRendererFactory( final Context wikiContext ) {
-        this.wikiContext = wikiContext;
     }
 
     /**
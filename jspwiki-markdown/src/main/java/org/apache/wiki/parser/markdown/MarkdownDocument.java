@@ -58,18 +58,47 @@ public class MarkdownDocument extends WikiDocument {
     }
 
     /**
-     * Configuration options for MarkdownRenderers.
+     * {@inheritDoc}
+     *
+     * <p>Plugins and variables live inside the flexmark node tree instead of the JDOM tree, so they can't be told apart from static
+     * content. Markdown documents are therefore always considered dynamic.
+     */
+    @Override
+    public boolean hasDynamicContent() {
+        return true;
+    }
+
+    /**
+     * Configuration options for MarkdownParsers and MarkdownRenderers.
+     *
+     * <p>These options don't depend on the page being parsed or rendered, so the flexmark parser and renderer built from them are shared
+     * by all calls. Per-call data reaches the JSPWiki extensions through {@link org.apache.wiki.markdown.MarkdownForJSPWikiContext}.
+     *
+     * @return configuration options for MarkdownParsers and MarkdownRenderers.
+     */
+    public static MutableDataSet options() {
+        return options( new MarkdownForJSPWikiExtension() );
+    }
+
+    /**
+     * Configuration options for MarkdownRenderers, bound to the given wiki context.
      *
      * @param context current wiki context
      * @return configuration options for MarkdownRenderers.
+     * @deprecated use {@link #options()}, the parsers and renderers built from these options can't be shared between calls.
      */
+    @Deprecated
     public static MutableDataSet options( final Context context, final boolean isImageInlining, final List< Pattern > inlineImagePatterns ) {
+        return options( new MarkdownForJSPWikiExtension( context, isImageInlining, inlineImagePatterns ) );
+    }
+
+    private static MutableDataSet options( final MarkdownForJSPWikiExtension jspwikiExtension ) {
         final MutableDataSet options = new MutableDataSet();
         options.setFrom( ParserEmulationProfile.COMMONMARK );
         options.set( AttributesExtension.ASSIGN_TEXT_ATTRIBUTES, true );
         // align style of Markdown's footnotes extension with jspwiki footnotes refs
         options.set( FootnoteExtension.FOOTNOTE_LINK_REF_CLASS, JSPWikiMarkupParser.CLASS_FOOTNOTE_REF );
-        options.set( Parser.EXTENSIONS, Arrays.asList( new Extension[] { new MarkdownForJSPWikiExtension( context, isImageInlining, inlineImagePatterns ),
+        options.set( Parser.EXTENSIONS, Arrays.asList( new Extension[] { jspwikiExtension,
                                                                          AttributesExtension.create(),
                                                                          DefinitionExtension.create(),
                                                                          FootnoteExtension.create(),
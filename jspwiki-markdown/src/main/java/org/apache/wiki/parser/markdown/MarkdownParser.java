@@ -23,6 +23,7 @@ import com.vladsch.flexmark.util.ast.Node;
 import org.apache.wiki.api.core.Context;
 import org.apache.wiki.auth.AuthorizationManager;
 import org.apache.wiki.auth.UserManager;
+import org.apache.wiki.markdown.MarkdownForJSPWikiContext;
 import org.apache.wiki.parser.MarkupParser;
 import org.apache.wiki.parser.WikiDocument;
 
@@ -35,7 +36,8 @@ import java.io.Reader;
  */
 public class MarkdownParser extends MarkupParser {
 
-    private final Parser parser;
+    /** flexmark parsers are thread safe once built, and building them is about as expensive as parsing a typical page. */
+    private static final Parser PARSER = Parser.builder( MarkdownDocument.options() ).build();
 
     public MarkdownParser( final Context context, final Reader in ) {
         super( context, in );
@@ -43,7 +45,6 @@ public class MarkdownParser extends MarkupParser {
             context.getEngine().getManager( AuthorizationManager.class ) == null ) {
             disableAccessRules();
         }
-        parser = Parser.builder( MarkdownDocument.options( context, isImageInlining(), getInlineImagePatterns() ) ).build();
     }
 
     /**
@@ -51,7 +52,14 @@ public class MarkdownParser extends MarkupParser {
      */
     @Override
     public WikiDocument parse() throws IOException {
-        final Node document = parser.parseReader( m_in );
+        final MarkdownForJSPWikiContext previous =
+                MarkdownForJSPWikiContext.enter( new MarkdownForJSPWikiContext( m_context, isImageInlining(), getInlineImagePatterns() ) );
+        final Node document;
+        try {
+            document = PARSER.parseReader( m_in );
+        } finally {
+            MarkdownForJSPWikiContext.exit( previous );
+        }
         final MarkdownDocument md = new MarkdownDocument( m_context.getPage(), document );
         md.setContext( m_context );
 
@@ -20,8 +20,8 @@ package org.apache.wiki.render.markdown;
 
 import com.vladsch.flexmark.html.HtmlRenderer;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.oro.text.regex.Pattern;
 import org.apache.wiki.api.core.Context;
+import org.apache.wiki.markdown.MarkdownForJSPWikiContext;
 import org.apache.wiki.parser.MarkupParser;
 import org.apache.wiki.parser.WikiDocument;
 import org.apache.wiki.parser.markdown.MarkdownDocument;
@@ -29,7 +29,6 @@ import org.apache.wiki.render.RenderingManager;
 import org.apache.wiki.render.WikiRenderer;
 
 import java.io.IOException;
-import java.util.List;
 
 
 /**
@@ -37,16 +36,17 @@ import java.util.List;
  */
 public class MarkdownRenderer extends WikiRenderer {
 
-	private final HtmlRenderer renderer;
+	/** flexmark renderers are thread safe once built, so a single one is shared by all MarkdownRenderers. */
+	private static final HtmlRenderer RENDERER = HtmlRenderer.builder( MarkdownDocument.options() ).build();
+
+	private final MarkdownForJSPWikiContext data;
 
 	public MarkdownRenderer( final Context context, final WikiDocument doc ) {
 		super( context, doc );
 		final MarkupParser mp = context.getEngine()
 				                       .getManager( RenderingManager.class )
 				                       .getParser( context, StringUtils.defaultString( doc.getPageData() ) );
-		final boolean isImageInlining = mp.isImageInlining();
-		final List< Pattern > inlineImagePatterns = mp.getInlineImagePatterns();
-		renderer = HtmlRenderer.builder( MarkdownDocument.options( context, isImageInlining, inlineImagePatterns ) ).build();
+		data = new MarkdownForJSPWikiContext( context, mp.isImageInlining(), mp.getInlineImagePatterns() );
 	}
 
 	/**
@@ -56,7 +56,12 @@ public class MarkdownRenderer extends WikiRenderer {
 	public String getString() throws IOException {
 		m_document.setContext( m_context );
 		if( m_document instanceof MarkdownDocument ) {
-			return renderer.render( ( ( MarkdownDocument )m_document ).getMarkdownNode() );
+			final MarkdownForJSPWikiContext previous = MarkdownForJSPWikiContext.enter( data );
+			try {
+				return RENDERER.render( ( ( MarkdownDocument )m_document ).getMarkdownNode() );
+			} finally {
+				MarkdownForJSPWikiContext.exit( previous );
+			}
 		} else {
 			throw new IOException( "MarkdownRenderer requires to be used with MarkdownParser" );
 		}
@@ -26,6 +26,7 @@ import org.apache.wiki.api.core.Page;
 import org.apache.wiki.api.exceptions.WikiException;
 import org.apache.wiki.api.spi.Wiki;
 import org.apache.wiki.attachment.AttachmentManager;
+import org.apache.wiki.markdown.MarkdownForJSPWikiContext;
 import org.apache.wiki.pages.PageManager;
 import org.apache.wiki.parser.markdown.MarkdownParser;
 import org.junit.jupiter.api.AfterEach;
@@ -162,6 +163,21 @@ public class MarkdownRendererTest {
         Assertions.assertEquals( "<p>test</p>\n", translate( src ) );
     }
 
+    @Test
+    public void testMarkupExtensionNestedMarkdownInclude() throws Exception {
+        newPage( "NestedMarkdownInclude", "Included from [{$pagename}]()" );
+        final String src = "Before [{$pagename}]()\n\n" +
+                           "[{InsertPage page=NestedMarkdownInclude}]()\n\n" +
+                           "After [{$pagename}]()";
+
+        // the shared parser and renderer take the wiki context of each nested call, and get the outer one back afterwards
+        final String html = translate( src );
+        Assertions.assertTrue( html.contains( "Before " + PAGE_NAME ), html );
+        Assertions.assertTrue( html.contains( "Included from NestedMarkdownInclude" ), html );
+        Assertions.assertTrue( html.contains( "After " + PAGE_NAME ), html );
+        Assertions.assertThrows( IllegalStateException.class, MarkdownForJSPWikiContext::current );
+    }
+
     @Test
     public void testMarkupExtensionTOCPluginGetsSubstitutedWithMDTocExtension() throws Exception {
         final String src = "[{TableOfContents}]()\n" +